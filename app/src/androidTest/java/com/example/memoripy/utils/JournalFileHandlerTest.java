@@ -0,0 +1,149 @@
+package com.example.memoripy.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.memoripy.models.Card;
+import com.example.memoripy.models.GameState;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class JournalFileHandlerTest {
+
+    private static final String FILE_NAME = "diario.jnl";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = TestGames.filesIn(folder.getRoot());
+    }
+
+    /**
+     * Siguiente guardado de una partida: un movimiento más y una tarjeta volteada o emparejada
+     */
+    private static void play(GameState gameState, int step) {
+        gameState.addMove("Volteada tarjeta en posición " + step);
+        gameState.setScore(step);
+        gameState.setTimeElapsed(step * 1000L);
+        gameState.setSaveDate(new Date(1700000000000L + step * 60000L));
+        List<Card> cards = gameState.getCards();
+        Card card = cards.get(step % cards.size());
+        if (step % 3 == 0) {
+            card.setMatched(true);
+        } else {
+            card.setFlipped(!card.isFlipped());
+        }
+    }
+
+    /**
+     * Guarda count veces la partida con el mismo handler
+     * @return El estado del último guardado
+     */
+    private GameState saveSteps(JournalFileHandler handler, int count) throws IOException {
+        GameState gameState = TestGames.newGame("diario", 8, 3);
+        gameState.setSaveFormat(FileManager.FORMAT_JOURNAL);
+        for (int step = 1; step <= count; step++) {
+            play(gameState, step);
+            handler.saveGame(context, gameState);
+        }
+        return gameState;
+    }
+
+    @Test
+    public void replaysSnapshotAndRecords() throws IOException {
+        JournalFileHandler handler = new JournalFileHandler();
+        GameState gameState = saveSteps(handler, 20);
+        File journalFile = handler.getGameFile(context, FILE_NAME);
+        assertTrue(journalFile.length() > 5);
+
+        TestGames.assertSameGame(gameState, handler.loadGame(context, FILE_NAME));
+        // Otra instancia reconstruye la partida desde los archivos
+        TestGames.assertSameGame(gameState, new JournalFileHandler().loadGame(context, FILE_NAME));
+    }
+
+    @Test
+    public void reopenedJournalKeepsAppending() throws IOException {
+        GameState gameState = saveSteps(new JournalFileHandler(), 5);
+
+        JournalFileHandler reopened = new JournalFileHandler();
+        for (int step = 6; step <= 10; step++) {
+            play(gameState, step);
+            reopened.saveGame(context, gameState);
+        }
+        TestGames.assertSameGame(gameState, new JournalFileHandler().loadGame(context, FILE_NAME));
+    }
+
+    @Test
+    public void tornRecordIsDiscarded() throws IOException {
+        JournalFileHandler handler = new JournalFileHandler();
+        GameState gameState = saveSteps(handler, 8);
+
+        // Un cierre inesperado a mitad de registro
+        try (FileOutputStream out = new FileOutputStream(handler.getGameFile(context, FILE_NAME), true)) {
+            out.write(new byte[]{40, 1, 2, 3});
+        }
+        JournalFileHandler reopened = new JournalFileHandler();
+        TestGames.assertSameGame(gameState, reopened.loadGame(context, FILE_NAME));
+
+        // El siguiente guardado sustituye el resto dañado
+        play(gameState, 9);
+        reopened.saveGame(context, gameState);
+        TestGames.assertSameGame(gameState, new JournalFileHandler().loadGame(context, FILE_NAME));
+    }
+
+    @Test
+    public void compactionFoldsRecordsIntoSnapshot() throws IOException {
+        JournalFileHandler handler = new JournalFileHandler();
+        GameState gameState = saveSteps(handler, 12);
+
+        assertEquals(1, handler.compact(context));
+        // Solo queda la cabecera del diario: magia y versión
+        assertEquals(5, handler.getGameFile(context, FILE_NAME).length());
+        TestGames.assertSameGame(gameState, new JournalFileHandler().loadGame(context, FILE_NAME));
+        // Nada más que compactar
+        assertEquals(0, handler.compact(context));
+    }
+
+    @Test
+    public void divergingHistoryIsRewritten() throws IOException {
+        JournalFileHandler handler = new JournalFileHandler();
+        GameState gameState = saveSteps(handler, 5);
+        GameState restored = gameState.copy();
+        for (int step = 6; step <= 8; step++) {
+            play(gameState, step);
+            handler.saveGame(context, gameState);
+        }
+
+        // Una copia anterior con el mismo ID sigue por otro camino con más movimientos
+        for (int step = 0; step < 4; step++) {
+            restored.addMove("Otra rama " + step);
+        }
+        handler.saveGame(context, restored);
+        TestGames.assertSameGame(restored, new JournalFileHandler().loadGame(context, FILE_NAME));
+
+        // Mismo número de tarjetas pero otro tablero
+        restored.setCards(TestGames.newBoard(8, 11));
+        restored.addMove("Otro tablero");
+        handler.saveGame(context, restored);
+        TestGames.assertSameGame(restored, new JournalFileHandler().loadGame(context, FILE_NAME));
+    }
+}
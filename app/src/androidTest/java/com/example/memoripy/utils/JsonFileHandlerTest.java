@@ -0,0 +1,75 @@
+package com.example.memoripy.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.memoripy.models.GameState;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+@RunWith(AndroidJUnit4.class)
+public class JsonFileHandlerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = TestGames.filesIn(folder.getRoot());
+    }
+
+    private void assertRoundTrip(JsonFileHandler handler, GameState gameState) throws IOException {
+        handler.saveGame(context, gameState);
+        String fileName = gameState.getGameId() + ".json";
+        TestGames.assertSameGame(gameState, handler.loadGame(context, fileName));
+        // Otra instancia lee el mismo archivo
+        TestGames.assertSameGame(gameState, new JsonFileHandler().loadGame(context, fileName));
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        assertRoundTrip(new JsonFileHandler(), TestGames.playedGame("json1", FileManager.FORMAT_JSON));
+    }
+
+    @Test
+    public void boardNotGeneratedByTheGameRoundTrips() throws IOException {
+        // Se guarda tarjeta a tarjeta en lugar del tablero compacto
+        GameState gameState = TestGames.playedGame("jsontarjetas", FileManager.FORMAT_JSON);
+        gameState.getCards().get(0).setPosition(99);
+        assertRoundTrip(new JsonFileHandler(), gameState);
+    }
+
+    @Test
+    public void gzipRoundTrip() throws IOException {
+        JsonFileHandler handler = new JsonFileHandler();
+        handler.setCompression(SaveCompression.GZIP);
+        assertRoundTrip(handler, TestGames.playedGame("jsongzip", FileManager.FORMAT_JSON));
+    }
+
+    @Test
+    public void missingOptionalFieldsTakeTheirDefaults() throws IOException {
+        JsonFileHandler handler = new JsonFileHandler();
+        GameState gameState = TestGames.newGame("jsonsinnombre", 6, 4);
+        gameState.setSaveFormat(FileManager.FORMAT_JSON);
+        gameState.setPlayerName(null);
+        gameState.setThemeName(null);
+        handler.saveGame(context, gameState);
+
+        GameState read = handler.loadGame(context, "jsonsinnombre.json");
+        assertEquals("", read.getPlayerName());
+        assertEquals("guinda", read.getThemeName());
+        TestGames.assertSameCards(gameState.getCards(), read.getCards());
+        assertEquals(gameState.getMoveHistory(), read.getMoveHistory());
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.memoripy.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.memoripy.models.GameState;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+public class PackFileHandlerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = TestGames.filesIn(folder.getRoot());
+    }
+
+    private File packFile(String name) {
+        return new File(new File(folder.getRoot(), "saved_games_pack"), name);
+    }
+
+    /**
+     * Guarda count partidas, cada una rounds veces con un movimiento más
+     * @return El último estado guardado de cada partida, por ID
+     */
+    private Map<String, GameState> saveGames(PackFileHandler handler, int count, int rounds) throws IOException {
+        Map<String, GameState> games = new HashMap<>();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < count; i++) {
+                String gameId = "pack" + i;
+                GameState gameState = games.get(gameId);
+                if (gameState == null) {
+                    gameState = TestGames.newGame(gameId, 6 + i % 3, i);
+                    gameState.setSaveFormat(FileManager.FORMAT_PACK);
+                    games.put(gameId, gameState);
+                }
+                gameState.addMove("Ronda " + round);
+                gameState.setScore(round * 10 + i);
+                gameState.setSaveDate(new Date(1700000000000L + (round * count + i) * 1000L));
+                handler.saveGame(context, gameState);
+            }
+        }
+        return games;
+    }
+
+    private static void assertSameGames(Map<String, GameState> games, PackFileHandler handler, Context context)
+            throws IOException {
+        List<String> expected = new ArrayList<>();
+        for (String gameId : games.keySet()) {
+            expected.add(gameId + ".pack");
+        }
+        List<String> listed = handler.getSavedGamesList(context);
+        Collections.sort(expected);
+        Collections.sort(listed);
+        assertEquals(expected, listed);
+
+        for (GameState gameState : games.values()) {
+            TestGames.assertSameGame(gameState, handler.loadGame(context, gameState.getGameId() + ".pack"));
+        }
+    }
+
+    @Test
+    public void reopenedPackHasEveryGame() throws IOException {
+        PackFileHandler handler = new PackFileHandler();
+        Map<String, GameState> games = saveGames(handler, 10, 3);
+
+        assertSameGames(games, handler, context);
+        assertSameGames(games, new PackFileHandler(), context);
+    }
+
+    @Test
+    public void reopenedPackWithoutIndexIsScanned() throws IOException {
+        // Suficientes registros para que se haya guardado el índice
+        Map<String, GameState> games = saveGames(new PackFileHandler(), 10, 8);
+
+        assertTrue(packFile("saved_games.idx").delete());
+        assertSameGames(games, new PackFileHandler(), context);
+    }
+
+    @Test
+    public void deletedGameStaysDeletedAfterReopening() throws IOException {
+        PackFileHandler handler = new PackFileHandler();
+        Map<String, GameState> games = saveGames(handler, 5, 2);
+
+        assertTrue(handler.deleteGame(context, "pack2.pack"));
+        assertFalse(handler.deleteGame(context, "pack2.pack"));
+        games.remove("pack2");
+
+        assertSameGames(games, handler, context);
+        assertSameGames(games, new PackFileHandler(), context);
+    }
+
+    @Test
+    public void compactionKeepsOnlyLiveGames() throws IOException {
+        PackFileHandler handler = new PackFileHandler();
+        Map<String, GameState> games = saveGames(handler, 12, 20);
+        assertTrue(handler.deleteGame(context, "pack0.pack"));
+        games.remove("pack0");
+        long before = packFile("saved_games.pack").length();
+
+        assertEquals(games.size(), handler.compact(context));
+        assertTrue(packFile("saved_games.pack").length() < before);
+        assertSameGames(games, handler, context);
+        assertSameGames(games, new PackFileHandler(), context);
+
+        // Sin registros muertos no hay nada que compactar
+        assertEquals(0, handler.compact(context));
+    }
+
+    @Test
+    public void savesAfterCompactionSurviveReopening() throws IOException {
+        PackFileHandler handler = new PackFileHandler();
+        Map<String, GameState> games = saveGames(handler, 6, 5);
+        handler.compact(context);
+
+        GameState gameState = games.get("pack3");
+        gameState.addMove("Después de compactar");
+        handler.saveGame(context, gameState);
+
+        assertSameGames(games, new PackFileHandler(), context);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.memoripy.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.memoripy.models.Card;
+import com.example.memoripy.models.GameState;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Partidas de prueba, comparación campo a campo y un contexto que guarda en
+ * un directorio temporal; las partidas son las mismas que en las pruebas unitarias
+ */
+final class TestGames {
+
+    private TestGames() {
+        // Clase de utilidades
+    }
+
+    /**
+     * Contexto de la aplicación cuyo directorio de archivos es directory,
+     * para no tocar las partidas guardadas del dispositivo
+     */
+    static Context filesIn(final File directory) {
+        Context target = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        return new ContextWrapper(target) {
+            @Override
+            public File getFilesDir() {
+                return directory;
+            }
+        };
+    }
+
+    /**
+     * Tablero como los que genera el juego: la tarjeta con ID k pertenece a
+     * la pareja k / 2 y su posición es la de la lista
+     */
+    static List<Card> newBoard(int pairs, long seed) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < pairs * 2; id++) {
+            ids.add(id);
+        }
+        Collections.shuffle(ids, new Random(seed));
+
+        List<Card> cards = new ArrayList<>();
+        for (int position = 0; position < ids.size(); position++) {
+            int id = ids.get(position);
+            cards.add(new Card(id, CardImages.getImageForPair(id / 2), id / 2 + 1, position));
+        }
+        return cards;
+    }
+
+    static GameState newGame(String gameId, int pairs, long seed) {
+        GameState gameState = new GameState();
+        gameState.setGameId(gameId);
+        gameState.setPlayerName("Jugador " + gameId);
+        gameState.setLevel(1);
+        gameState.setScore(0);
+        gameState.setTimeElapsed(0);
+        gameState.setSaveDate(new Date(1700000000000L));
+        gameState.setThemeName("claro");
+        gameState.setSaveFormat(FileManager.FORMAT_BIN);
+        gameState.setCards(newBoard(pairs, seed));
+        return gameState;
+    }
+
+    /**
+     * Partida a medio jugar, con tarjetas volteadas y emparejadas y caracteres no ASCII
+     */
+    static GameState playedGame(String gameId, String saveFormat) {
+        GameState gameState = newGame(gameId, 8, gameId.hashCode());
+        gameState.setPlayerName("Iñaki & \"Zoë\" <1>");
+        gameState.setScore(-12);
+        gameState.setTimeElapsed(98765);
+        gameState.setLevel(3);
+        gameState.setSoundEnabled(true);
+        gameState.setSaveDate(new Date(1712345678000L));
+        gameState.setSaveFormat(saveFormat);
+        List<Card> cards = gameState.getCards();
+        cards.get(2).setFlipped(true);
+        cards.get(9).setMatched(true);
+        cards.get(10).setMatched(true);
+        gameState.setMoveHistory(new ArrayList<>(Arrays.asList("0-3", "5-9", "ñ-€")));
+        return gameState;
+    }
+
+    static void assertSameCards(List<Card> expected, List<Card> actual) {
+        assertEquals("número de tarjetas", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Card e = expected.get(i);
+            Card a = actual.get(i);
+            String where = "tarjeta " + i;
+            assertEquals(where + " id", e.getId(), a.getId());
+            assertEquals(where + " imageId", e.getImageId(), a.getImageId());
+            assertEquals(where + " pairId", e.getPairId(), a.getPairId());
+            assertEquals(where + " position", e.getPosition(), a.getPosition());
+            assertEquals(where + " flipped", e.isFlipped(), a.isFlipped());
+            assertEquals(where + " matched", e.isMatched(), a.isMatched());
+        }
+    }
+
+    static void assertSameGame(GameState expected, GameState actual) {
+        assertEquals(expected.getGameId(), actual.getGameId());
+        assertEquals(expected.getPlayerName(), actual.getPlayerName());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getTimeElapsed(), actual.getTimeElapsed());
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getSaveDate(), actual.getSaveDate());
+        assertEquals(expected.isGameCompleted(), actual.isGameCompleted());
+        assertEquals(expected.isSoundEnabled(), actual.isSoundEnabled());
+        assertEquals(expected.getThemeName(), actual.getThemeName());
+        assertEquals(expected.getSaveFormat(), actual.getSaveFormat());
+        assertSameCards(expected.getCards(), actual.getCards());
+        assertEquals(expected.getMoveHistory(), actual.getMoveHistory());
+    }
+}
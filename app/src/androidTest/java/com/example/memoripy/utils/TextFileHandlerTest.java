@@ -0,0 +1,71 @@
+package com.example.memoripy.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.memoripy.models.GameState;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+@RunWith(AndroidJUnit4.class)
+public class TextFileHandlerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = TestGames.filesIn(folder.getRoot());
+    }
+
+    private void assertRoundTrip(int compression) throws IOException {
+        TextFileHandler handler = new TextFileHandler();
+        handler.setCompression(compression);
+        GameState gameState = TestGames.playedGame("txt" + compression, FileManager.FORMAT_TXT);
+
+        handler.saveGame(context, gameState);
+        String fileName = gameState.getGameId() + ".txt";
+        TestGames.assertSameGame(gameState, handler.loadGame(context, fileName));
+        // Otra instancia lee el mismo archivo
+        TestGames.assertSameGame(gameState, new TextFileHandler().loadGame(context, fileName));
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        assertRoundTrip(SaveCompression.NONE);
+    }
+
+    @Test
+    public void gzipRoundTrip() throws IOException {
+        assertRoundTrip(SaveCompression.GZIP);
+    }
+
+    @Test
+    public void deflateRoundTrip() throws IOException {
+        assertRoundTrip(SaveCompression.DEFLATE);
+    }
+
+    @Test
+    public void headerOnly() throws IOException {
+        TextFileHandler handler = new TextFileHandler();
+        GameState gameState = TestGames.playedGame("txtheader", FileManager.FORMAT_TXT);
+        handler.saveGame(context, gameState);
+
+        GameState header = handler.loadGameHeader(context, "txtheader.txt");
+        assertEquals(gameState.getGameId(), header.getGameId());
+        assertEquals(gameState.getPlayerName(), header.getPlayerName());
+        assertEquals(gameState.getScore(), header.getScore());
+        assertEquals(gameState.getSaveDate(), header.getSaveDate());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.memoripy.models.GameState;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+@RunWith(AndroidJUnit4.class)
+public class XmlFileHandlerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = TestGames.filesIn(folder.getRoot());
+    }
+
+    private void assertRoundTrip(XmlFileHandler handler, String gameId) throws IOException {
+        GameState gameState = TestGames.playedGame(gameId, FileManager.FORMAT_XML);
+
+        handler.saveGame(context, gameState);
+        String fileName = gameId + ".xml";
+        TestGames.assertSameGame(gameState, handler.loadGame(context, fileName));
+        // Otra instancia lee el mismo archivo
+        TestGames.assertSameGame(gameState, new XmlFileHandler().loadGame(context, fileName));
+    }
+
+    @Test
+    public void indentedRoundTrip() throws IOException {
+        assertRoundTrip(new XmlFileHandler(true), "xmlindentado");
+    }
+
+    @Test
+    public void compactRoundTrip() throws IOException {
+        assertRoundTrip(new XmlFileHandler(false), "xmlcompacto");
+    }
+
+    @Test
+    public void gzipRoundTrip() throws IOException {
+        XmlFileHandler handler = new XmlFileHandler();
+        handler.setCompression(SaveCompression.GZIP);
+        assertRoundTrip(handler, "xmlgzip");
+    }
+
+    @Test
+    public void emptyMoveHistoryRoundTrip() throws IOException {
+        XmlFileHandler handler = new XmlFileHandler();
+        GameState gameState = TestGames.newGame("xmlnuevo", 6, 4);
+        gameState.setSaveFormat(FileManager.FORMAT_XML);
+
+        handler.saveGame(context, gameState);
+        TestGames.assertSameGame(gameState, handler.loadGame(context, "xmlnuevo.xml"));
+    }
+}
@@ -23,7 +23,10 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.example.memoripy.adapters.CardAdapter;
 import com.example.memoripy.models.Card;
 import com.example.memoripy.models.GameState;
+import com.example.memoripy.utils.AutoSaveManager;
+import com.example.memoripy.utils.CardImages;
 import com.example.memoripy.utils.FileManager;
+import com.example.memoripy.utils.FileTask;
 import com.example.memoripy.utils.ThemeManager;
 
 import java.util.ArrayList;
@@ -65,6 +68,10 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
     private MediaPlayer mpWrong;
     private MediaPlayer mpWin;
 
+    private FileTask loadTask;
+    private FileTask saveTask;
+    private AutoSaveManager autoSaveManager;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         // Aplicar tema
@@ -77,6 +84,18 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
         // Inicializar vistas
         initializeViews();
 
+        // Guardado automático de la partida en curso
+        autoSaveManager = new AutoSaveManager(this, new AutoSaveManager.StateProvider() {
+            @Override
+            public GameState getCurrentState() {
+                if (gameState == null) {
+                    return null;
+                }
+                updateGameState();
+                return gameState;
+            }
+        });
+
         // Obtener nivel del juego
         Intent intent = getIntent();
         level = intent.getIntExtra("level", 1);
@@ -99,8 +118,10 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
         // Configurar sonidos
         setupSounds();
 
-        // Iniciar el cronómetro
-        startChronometer();
+        // Iniciar el cronómetro (si se está cargando una partida, se inicia al terminar la carga)
+        if (gameState != null) {
+            startChronometer();
+        }
     }
 
     /**
@@ -184,31 +205,9 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
         cards = new ArrayList<>();
         int numPairs = (gridSize * gridSize) / 2;
 
-        // Arrays con IDs de imágenes que se usarán para las cartas
-        // En una implementación real, usaría recursos reales
-        // Para este ejemplo, usaremos IDs ficticios
-        int[] imageResources = {
-                R.drawable.imagen1,
-                R.drawable.imagen2,
-                R.drawable.imagen3,
-                R.drawable.imagen4,
-                R.drawable.imagen5,
-                R.drawable.imagen6,
-                R.drawable.imagen7,
-                R.drawable.imagen8,
-                R.drawable.imagen9,
-                R.drawable.imagen10,
-                R.drawable.imagen11,
-                R.drawable.imagen12,
-                R.drawable.imagen13,
-                R.drawable.imagen14,
-                R.drawable.imagen15,
-                R.drawable.imagen16
-        };
-
         // Crear pares de tarjetas
         for (int i = 0; i < numPairs; i++) {
-            int imageId = imageResources[i % imageResources.length];
+            int imageId = CardImages.getImageForPair(i);
             int pairId = i + 1;
 
             // Primera tarjeta del par
@@ -307,7 +306,9 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
      * Habilita o deshabilita los clics en las tarjetas
      */
     private void enableCardClicks(boolean enable) {
-        adapter.setClickable(enable);
+        if (adapter != null) {
+            adapter.setClickable(enable);
+        }
         btnSave.setEnabled(enable);
     }
 
@@ -352,6 +353,9 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
         final RadioButton rbTxt = dialogView.findViewById(R.id.rbTxt);
         final RadioButton rbXml = dialogView.findViewById(R.id.rbXml);
         final RadioButton rbJson = dialogView.findViewById(R.id.rbJson);
+        final RadioButton rbBin = dialogView.findViewById(R.id.rbBin);
+        final RadioButton rbSqlite = dialogView.findViewById(R.id.rbSqlite);
+        final RadioButton rbPack = dialogView.findViewById(R.id.rbPack);
 
         // Establecer formato predeterminado
         String currentFormat = gameState.getSaveFormat();
@@ -359,6 +363,12 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
             rbTxt.setChecked(true);
         } else if (FileManager.FORMAT_XML.equals(currentFormat)) {
             rbXml.setChecked(true);
+        } else if (FileManager.FORMAT_BIN.equals(currentFormat)) {
+            rbBin.setChecked(true);
+        } else if (FileManager.FORMAT_SQLITE.equals(currentFormat)) {
+            rbSqlite.setChecked(true);
+        } else if (FileManager.FORMAT_PACK.equals(currentFormat)) {
+            rbPack.setChecked(true);
         } else {
             rbJson.setChecked(true);
         }
@@ -384,6 +394,12 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
                             format = FileManager.FORMAT_TXT;
                         } else if (selectedId == R.id.rbXml) {
                             format = FileManager.FORMAT_XML;
+                        } else if (selectedId == R.id.rbBin) {
+                            format = FileManager.FORMAT_BIN;
+                        } else if (selectedId == R.id.rbSqlite) {
+                            format = FileManager.FORMAT_SQLITE;
+                        } else if (selectedId == R.id.rbPack) {
+                            format = FileManager.FORMAT_PACK;
                         } else {
                             format = FileManager.FORMAT_JSON;
                         }
@@ -411,21 +427,28 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
         gameState.setSaveFormat(format);
         gameState.setSaveDate(new Date());
 
-        // Guardar usando el FileManager
-        String filePath = FileManager.getInstance().saveGame(this, gameState, format);
-
-        if (filePath != null) {
-            Toast.makeText(this, R.string.save_success, Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(this, R.string.save_error, Toast.LENGTH_SHORT).show();
-        }
+        // Guardar en segundo plano usando el FileManager
+        saveTask = FileManager.getInstance().saveGameAsync(this, gameState, format,
+                new FileManager.FileCallback<String>() {
+                    @Override
+                    public void onComplete(String filePath) {
+                        if (filePath != null) {
+                            Toast.makeText(GameActivity.this, R.string.save_success, Toast.LENGTH_SHORT).show();
+                        } else {
+                            Toast.makeText(GameActivity.this, R.string.save_error, Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
     }
 
     /**
      * Actualiza el estado del juego con los valores actuales
      */
     private void updateGameState() {
-        long elapsedTimeMillis = SystemClock.elapsedRealtime() - chronometer.getBase();
+        // Con el cronómetro detenido, el tiempo es el del momento en que se detuvo
+        long elapsedTimeMillis = isPaused || isGameCompleted
+                ? timeWhenStopped
+                : SystemClock.elapsedRealtime() - chronometer.getBase();
         gameState.setTimeElapsed(elapsedTimeMillis);
         gameState.setScore(score);
         gameState.setLevel(level);
@@ -434,11 +457,27 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
     }
 
     /**
-     * Carga una partida guardada
+     * Carga una partida guardada en segundo plano
      */
-    private void loadGame(String fileName) {
-        GameState loadedState = FileManager.getInstance().loadGame(this, fileName);
+    private void loadGame(final String fileName) {
+        // Deshabilitar los botones mientras se carga la partida
+        setButtonsEnabled(false);
 
+        loadTask = FileManager.getInstance().loadGameAsync(this, fileName,
+                new FileManager.FileCallback<GameState>() {
+                    @Override
+                    public void onComplete(GameState loadedState) {
+                        setButtonsEnabled(true);
+                        applyLoadedGame(fileName, loadedState);
+                        startChronometer();
+                    }
+                });
+    }
+
+    /**
+     * Aplica una partida cargada a la interfaz
+     */
+    private void applyLoadedGame(String fileName, GameState loadedState) {
         if (loadedState != null) {
             this.gameState = loadedState;
             this.level = loadedState.getLevel();
@@ -474,6 +513,9 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
             chronometer.setBase(SystemClock.elapsedRealtime() - loadedState.getTimeElapsed());
             timeWhenStopped = loadedState.getTimeElapsed();
 
+            // La partida cargada ya está guardada
+            autoSaveManager.markSaved(loadedState);
+
             Toast.makeText(this, "Partida cargada: " + fileName, Toast.LENGTH_SHORT).show();
         } else {
             Toast.makeText(this, "Error al cargar la partida", Toast.LENGTH_SHORT).show();
@@ -481,6 +523,15 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
         }
     }
 
+    /**
+     * Habilita o deshabilita los botones de la partida
+     */
+    private void setButtonsEnabled(boolean enabled) {
+        btnPause.setEnabled(enabled);
+        btnSave.setEnabled(enabled);
+        btnExit.setEnabled(enabled);
+    }
+
     /**
      * Muestra diálogo de confirmación para salir
      */
@@ -542,12 +593,20 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
 
         // Registrar movimiento
         String moveDesc = "Volteada tarjeta en posición " + position;
-        gameState.addMove(moveDesc);
+        recordMove(moveDesc);
 
         // Procesar la jugada
         processCardSelection(card);
     }
 
+    /**
+     * Registra un movimiento en el historial
+     */
+    private void recordMove(String moveDesc) {
+        gameState.addMove(moveDesc);
+        autoSaveManager.onMove();
+    }
+
     /**
      * Procesa la selección de una tarjeta
      */
@@ -593,7 +652,7 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
 
                     // Registrar movimiento
                     String moveDesc = "Pareja encontrada: " + firstCard.getPairId() + " (+"+points+" puntos)";
-                    gameState.addMove(moveDesc);
+                    recordMove(moveDesc);
 
                     // Verificar si ha completado el nivel
                     checkLevelCompleted();
@@ -609,7 +668,7 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
 
                     // Registrar movimiento
                     String moveDesc = "Pareja incorrecta: " + firstCard.getPairId() + " - " + secondCard.getPairId();
-                    gameState.addMove(moveDesc);
+                    recordMove(moveDesc);
                 }
 
                 // Reiniciar selección
@@ -640,11 +699,19 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
             isGameCompleted = true;
 
             // Detener cronómetro
+            timeWhenStopped = SystemClock.elapsedRealtime() - chronometer.getBase();
             chronometer.stop();
 
             // Registrar movimiento
             String moveDesc = "Nivel " + level + " completado con " + score + " puntos";
-            gameState.addMove(moveDesc);
+            recordMove(moveDesc);
+
+            // Registrar la puntuación en la tabla de récords
+            updateGameState();
+            FileManager.getInstance().recordScoreAsync(this, gameState, null);
+
+            // Guardar el nivel completado
+            autoSaveManager.requestSave();
 
             // Reproducir sonido de victoria
             if (gameState.isSoundEnabled() && mpWin != null) {
@@ -733,14 +800,26 @@ public class GameActivity extends AppCompatActivity implements CardAdapter.OnCar
     protected void onPause() {
         super.onPause();
         // Si el juego está activo, pausarlo
-        if (!isPaused && !isGameCompleted) {
+        if (gameState != null && !isPaused && !isGameCompleted) {
             togglePause();
         }
+
+        // Guardar la partida en segundo plano por si se cierra la aplicación
+        autoSaveManager.flush();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        // Cancelar la carga pendiente; el guardado termina pero ya no se notifica
+        if (loadTask != null) {
+            loadTask.cancel();
+        }
+        if (saveTask != null) {
+            saveTask.cancel();
+        }
+        autoSaveManager.cancel();
+
         // Liberar recursos de MediaPlayer
         if (mpFlip != null) {
             mpFlip.release();
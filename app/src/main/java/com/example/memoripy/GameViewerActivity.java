@@ -2,29 +2,66 @@ package com.example.memoripy;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.KeyEvent;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.inputmethod.EditorInfo;
 import android.widget.Button;
+import android.widget.AdapterView;
+import android.widget.EditText;
+import android.widget.ListView;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
+import com.example.memoripy.adapters.FileLinesAdapter;
+import com.example.memoripy.adapters.SaveTreeAdapter;
 import com.example.memoripy.utils.FileManager;
+import com.example.memoripy.utils.FileTask;
+import com.example.memoripy.utils.MappedTextFile;
+import com.example.memoripy.utils.SaveTree;
 import com.example.memoripy.utils.ThemeManager;
 
+import java.io.IOException;
+import java.util.List;
+
 /**
  * Actividad para visualizar el contenido de un archivo de partida guardada
  */
 public class GameViewerActivity extends AppCompatActivity {
 
-    private TextView tvFileContent;
+    private ListView lvFileContent;
+    private TextView tvFileStatus;
+    private EditText etFind;
+    private Button btnFindNext;
+    private Button btnToggleView;
     private Button btnExport;
     private String fileName;
 
     private ThemeManager themeManager;
     private FileManager fileManager;
+    private FileTask contentTask;
+    private FileTask indexTask;
+    private FileTask findTask;
+    private FileTask treeTask;
+    private FileTask exportTask;
+
+    // Archivo proyectado en memoria; el ListView solo lee las filas visibles
+    private MappedTextFile mappedFile;
+    private FileLinesAdapter adapter;
+
+    // Vista en árbol de los archivos XML y JSON
+    private SaveTree saveTree;
+    private SaveTreeAdapter treeAdapter;
+    private boolean treeMode;
+
+    // Último resultado de la búsqueda, y el que espera a que se indexe su fila
+    private long matchOffset = -1;
+    private long pendingMatchOffset = -1;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -45,8 +82,13 @@ public class GameViewerActivity extends AppCompatActivity {
         fileManager = FileManager.getInstance();
 
         // Inicializar vistas
-        tvFileContent = findViewById(R.id.tvFileContent);
+        lvFileContent = findViewById(R.id.lvFileContent);
+        tvFileStatus = findViewById(R.id.tvFileStatus);
+        etFind = findViewById(R.id.etFind);
+        btnFindNext = findViewById(R.id.btnFindNext);
+        btnToggleView = findViewById(R.id.btnToggleView);
         btnExport = findViewById(R.id.btnExport);
+        lvFileContent.setEmptyView(tvFileStatus);
 
         // Obtener el nombre del archivo
         Intent intent = getIntent();
@@ -61,6 +103,55 @@ public class GameViewerActivity extends AppCompatActivity {
         }
 
         // Configurar eventos
+        etFind.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                // Búsqueda incremental desde la primera fila visible
+                long from = 0;
+                if (adapter != null && adapter.getCount() > 0) {
+                    from = mappedFile.getRowOffset(lvFileContent.getFirstVisiblePosition());
+                }
+                find(from);
+            }
+        });
+        etFind.setOnEditorActionListener(new TextView.OnEditorActionListener() {
+            @Override
+            public boolean onEditorAction(TextView v, int actionId, KeyEvent event) {
+                if (actionId == EditorInfo.IME_ACTION_SEARCH) {
+                    findNext();
+                    return true;
+                }
+                return false;
+            }
+        });
+        btnFindNext.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                findNext();
+            }
+        });
+        btnToggleView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                toggleTreeView();
+            }
+        });
+        lvFileContent.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                if (treeMode) {
+                    onTreeNodeClick(treeAdapter.getItem(position));
+                }
+            }
+        });
         btnExport.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
@@ -70,34 +161,210 @@ public class GameViewerActivity extends AppCompatActivity {
     }
 
     /**
-     * Carga el contenido del archivo
+     * Abre el archivo en segundo plano y muestra las filas a medida que se indexan
      */
     private void loadFileContent() {
-        try {
-            String content = fileManager.getFileContent(this, fileName);
-            tvFileContent.setText(content);
-        } catch (Exception e) {
-            tvFileContent.setText("Error al cargar el archivo: " + e.getMessage());
+        contentTask = fileManager.openMappedFileAsync(this, fileName,
+                new FileManager.FileCallback<MappedTextFile>() {
+                    @Override
+                    public void onComplete(MappedTextFile file) {
+                        contentTask = null;
+                        if (file == null) {
+                            tvFileStatus.setText(R.string.file_load_error);
+                            return;
+                        }
+
+                        mappedFile = file;
+                        adapter = new FileLinesAdapter(GameViewerActivity.this, file);
+                        lvFileContent.setAdapter(adapter);
+                        if (SaveTree.supports(fileName)) {
+                            btnToggleView.setVisibility(View.VISIBLE);
+                        }
+                        indexTask = fileManager.indexMappedFileAsync(file, new MappedTextFile.IndexListener() {
+                            @Override
+                            public void onRowsIndexed(int rowCount, boolean complete) {
+                                adapter.setRowCount(rowCount);
+                                if (complete) {
+                                    indexTask = null;
+                                }
+                                if (pendingMatchOffset >= 0) {
+                                    showMatch(pendingMatchOffset);
+                                }
+                            }
+
+                            @Override
+                            public void onIndexError(Exception error) {
+                                indexTask = null;
+                                tvFileStatus.setText(R.string.file_load_error);
+                            }
+                        });
+                    }
+                });
+    }
+
+    /**
+     * Busca el texto del campo de búsqueda a partir de una posición del archivo
+     */
+    private void find(long from) {
+        if (findTask != null) {
+            findTask.cancel();
+            findTask = null;
+        }
+        pendingMatchOffset = -1;
+
+        final String query = etFind.getText().toString();
+        if (mappedFile == null || query.isEmpty()) {
+            matchOffset = -1;
+            if (adapter != null) {
+                adapter.setHighlightedRow(-1);
+            }
+            return;
+        }
+
+        findTask = fileManager.findInFileAsync(mappedFile, query, from, new FileManager.FileCallback<Long>() {
+            @Override
+            public void onComplete(Long offset) {
+                findTask = null;
+                if (offset == null || offset < 0) {
+                    matchOffset = -1;
+                    adapter.setHighlightedRow(-1);
+                    Toast.makeText(GameViewerActivity.this, R.string.find_not_found, Toast.LENGTH_SHORT).show();
+                } else {
+                    matchOffset = offset;
+                    showMatch(offset);
+                }
+            }
+        });
+    }
+
+    /**
+     * Busca la siguiente aparición del texto
+     */
+    private void findNext() {
+        find(matchOffset >= 0 ? matchOffset + 1 : 0);
+    }
+
+    /**
+     * Muestra la fila que contiene un resultado; si aún no está indexada,
+     * se muestra cuando el índice llegue a ella
+     */
+    private void showMatch(long offset) {
+        int row = mappedFile.getRowAt(offset);
+        if (row < 0) {
+            pendingMatchOffset = offset;
+            return;
         }
+
+        pendingMatchOffset = -1;
+        adapter.setHighlightedRow(row);
+        lvFileContent.setSelection(row);
     }
 
     /**
-     * Exporta el archivo
+     * Cambia entre el texto del archivo y su vista en árbol
+     */
+    private void toggleTreeView() {
+        if (!treeMode && saveTree == null) {
+            try {
+                saveTree = new SaveTree(mappedFile, fileName);
+            } catch (IOException e) {
+                Toast.makeText(this, R.string.file_load_error, Toast.LENGTH_SHORT).show();
+                return;
+            }
+            treeAdapter = new SaveTreeAdapter(this, saveTree);
+            loadTreeChildren(saveTree.getRoot());
+        }
+
+        treeMode = !treeMode;
+        lvFileContent.setAdapter(treeMode ? treeAdapter : adapter);
+        btnToggleView.setText(treeMode ? R.string.view_text : R.string.view_tree);
+
+        // La búsqueda solo está disponible en la vista de texto
+        etFind.setEnabled(!treeMode);
+        btnFindNext.setEnabled(!treeMode);
+    }
+
+    /**
+     * Expande o contrae un nodo del árbol; sus hijos se leen la primera vez
+     */
+    private void onTreeNodeClick(SaveTree.Node node) {
+        if (node.getType() == SaveTree.Node.VALUE) {
+            return;
+        }
+
+        if (treeAdapter.isExpanded(node)) {
+            treeAdapter.collapse(node);
+        } else if (treeAdapter.hasLoadedChildren(node)) {
+            treeAdapter.expand(node);
+        } else {
+            loadTreeChildren(node);
+        }
+    }
+
+    /**
+     * Lee en segundo plano los hijos de un nodo, o la página siguiente si es de tipo MORE
+     */
+    private void loadTreeChildren(final SaveTree.Node node) {
+        if (treeTask != null) {
+            return;
+        }
+
+        treeTask = fileManager.readSaveTreeChildrenAsync(saveTree, node,
+                new FileManager.FileCallback<List<SaveTree.Node>>() {
+                    @Override
+                    public void onComplete(List<SaveTree.Node> children) {
+                        treeTask = null;
+                        if (children != null) {
+                            treeAdapter.addChildren(node, children);
+                        } else {
+                            Toast.makeText(GameViewerActivity.this, R.string.file_load_error,
+                                    Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Exporta el archivo en segundo plano
      */
     private void exportFile() {
-        try {
-            String exportPath = fileManager.exportGame(this, fileName);
-            if (exportPath != null) {
-                Toast.makeText(this,
-                        getString(R.string.export_success) + " " + exportPath,
-                        Toast.LENGTH_LONG).show();
-            } else {
-                Toast.makeText(this, R.string.export_error, Toast.LENGTH_SHORT).show();
+        btnExport.setEnabled(false);
+        exportTask = fileManager.exportGameAsync(this, fileName, new FileManager.FileCallback<String>() {
+            @Override
+            public void onComplete(String exportPath) {
+                btnExport.setEnabled(true);
+                if (exportPath != null) {
+                    Toast.makeText(GameViewerActivity.this,
+                            getString(R.string.export_success) + " " + exportPath,
+                            Toast.LENGTH_LONG).show();
+                } else {
+                    Toast.makeText(GameViewerActivity.this, R.string.export_error, Toast.LENGTH_SHORT).show();
+                }
             }
-        } catch (Exception e) {
-            Toast.makeText(this,
-                    getString(R.string.export_error) + ": " + e.getMessage(),
-                    Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Dejar de esperar resultados que ya no se pueden mostrar
+        if (contentTask != null) {
+            contentTask.cancel();
+        }
+        if (indexTask != null) {
+            indexTask.cancel();
+        }
+        if (findTask != null) {
+            findTask.cancel();
+        }
+        if (treeTask != null) {
+            treeTask.cancel();
+        }
+        if (exportTask != null) {
+            exportTask.cancel();
+        }
+        if (mappedFile != null) {
+            mappedFile.close();
         }
     }
 
@@ -0,0 +1,109 @@
+package com.example.memoripy;
+
+import android.os.Bundle;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ListView;
+import android.widget.Spinner;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.memoripy.adapters.HighScoresAdapter;
+import com.example.memoripy.models.HighScore;
+import com.example.memoripy.utils.FileManager;
+import com.example.memoripy.utils.FileTask;
+import com.example.memoripy.utils.ThemeManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Actividad que muestra las mejores puntuaciones de cada nivel
+ */
+public class LeaderboardActivity extends AppCompatActivity {
+
+    private Spinner spLeaderboardLevel;
+    private ListView lvHighScores;
+    private TextView tvNoHighScores;
+    private List<HighScore> highScores;
+    private HighScoresAdapter adapter;
+
+    private ThemeManager themeManager;
+    private FileManager fileManager;
+    private FileTask loadTask;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        // Aplicar tema
+        themeManager = ThemeManager.getInstance(this);
+        themeManager.applyTheme(this);
+
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_leaderboard);
+
+        fileManager = FileManager.getInstance();
+
+        // Inicializar vistas
+        spLeaderboardLevel = findViewById(R.id.spLeaderboardLevel);
+        lvHighScores = findViewById(R.id.lvHighScores);
+        tvNoHighScores = findViewById(R.id.tvNoHighScores);
+
+        // Configurar adaptador
+        highScores = new ArrayList<>();
+        adapter = new HighScoresAdapter(this, highScores);
+        lvHighScores.setAdapter(adapter);
+
+        // Cada nivel del spinner muestra su tabla
+        spLeaderboardLevel.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                loadHighScores(position + 1);
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+    }
+
+    /**
+     * Carga en segundo plano las puntuaciones de un nivel
+     */
+    private void loadHighScores(int level) {
+        if (loadTask != null) {
+            loadTask.cancel();
+        }
+
+        loadTask = fileManager.getTopScoresAsync(this, level, new FileManager.FileCallback<List<HighScore>>() {
+            @Override
+            public void onComplete(List<HighScore> result) {
+                showHighScores(result);
+            }
+        });
+    }
+
+    private void showHighScores(List<HighScore> result) {
+        highScores.clear();
+        if (result != null) {
+            highScores.addAll(result);
+        }
+        adapter.notifyDataSetChanged();
+
+        if (highScores.isEmpty()) {
+            tvNoHighScores.setVisibility(View.VISIBLE);
+            lvHighScores.setVisibility(View.GONE);
+        } else {
+            tvNoHighScores.setVisibility(View.GONE);
+            lvHighScores.setVisibility(View.VISIBLE);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (loadTask != null) {
+            loadTask.cancel();
+        }
+    }
+}
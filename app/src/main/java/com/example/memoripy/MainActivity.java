@@ -39,6 +39,9 @@ public class MainActivity extends AppCompatActivity {
         // Inicializar el tema
         themeManager.initializeTheme();
 
+        // Programar la limpieza de partidas guardadas (inactivo o cargando)
+        SaveMaintenanceService.schedule(this);
+
         // Actualizar elementos visuales según el tema
         updateThemeUI();
     }
@@ -83,6 +86,15 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
+        // Botón Récords
+        Button btnLeaderboard = findViewById(R.id.btnLeaderboard);
+        btnLeaderboard.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                openLeaderboard();
+            }
+        });
+
         // Botón Configuración
         Button btnSettings = findViewById(R.id.btnSettings);
         btnSettings.setOnClickListener(new View.OnClickListener() {
@@ -130,6 +142,14 @@ public class MainActivity extends AppCompatActivity {
         startActivity(intent);
     }
 
+    /**
+     * Abre la pantalla de récords
+     */
+    private void openLeaderboard() {
+        Intent intent = new Intent(this, LeaderboardActivity.class);
+        startActivity(intent);
+    }
+
     /**
      * Abre la pantalla de configuración
      */
@@ -0,0 +1,102 @@
+package com.example.memoripy;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.memoripy.utils.FileManager;
+import com.example.memoripy.utils.FileTask;
+import com.example.memoripy.utils.RetentionPolicy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tarea programada que ejecuta el mantenimiento de las partidas guardadas.
+ * Se programa dos veces, una con el dispositivo inactivo y otra cargando,
+ * porque JobScheduler solo sabe exigir ambas condiciones a la vez; la
+ * primera que se cumpla hace el trabajo y la otra se salta ese día.
+ */
+public class SaveMaintenanceService extends JobService {
+
+    private static final String TAG = "SaveMaintenanceService";
+    private static final int JOB_ID_IDLE = 1001;
+    private static final int JOB_ID_CHARGING = 1002;
+    private static final long PERIOD = TimeUnit.DAYS.toMillis(1);
+    // Intervalo mínimo entre dos mantenimientos, sea cual sea la tarea que los lance
+    private static final long MIN_INTERVAL = TimeUnit.HOURS.toMillis(20);
+
+    private static final String PREF_NAME = "maintenance_preferences";
+    private static final String KEY_LAST_RUN = "last_run";
+
+    private FileTask task;
+
+    /**
+     * Programa el mantenimiento si no estaba programado ya
+     */
+    public static void schedule(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null) {
+            return;
+        }
+
+        ComponentName component = new ComponentName(context, SaveMaintenanceService.class);
+        if (scheduler.getPendingJob(JOB_ID_IDLE) == null) {
+            scheduler.schedule(new JobInfo.Builder(JOB_ID_IDLE, component)
+                    .setRequiresDeviceIdle(true)
+                    .setPeriodic(PERIOD)
+                    .build());
+        }
+        if (scheduler.getPendingJob(JOB_ID_CHARGING) == null) {
+            scheduler.schedule(new JobInfo.Builder(JOB_ID_CHARGING, component)
+                    .setRequiresCharging(true)
+                    .setPeriodic(PERIOD)
+                    .build());
+        }
+    }
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        final SharedPreferences preferences = getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        if (System.currentTimeMillis() - preferences.getLong(KEY_LAST_RUN, 0) < MIN_INTERVAL) {
+            return false;
+        }
+        if (FileManager.getInstance().isMaintenanceRunning()) {
+            // La otra tarea, o una detenida que aún no ha acabado su fase, está haciendo el mantenimiento
+            return false;
+        }
+
+        task = FileManager.getInstance().runMaintenanceAsync(this, RetentionPolicy.load(this),
+                new FileManager.FileCallback<FileManager.MaintenanceReport>() {
+                    @Override
+                    public void onComplete(FileManager.MaintenanceReport report) {
+                        task = null;
+                        if (report != null) {
+                            // Solo cuenta como hecho si ha terminado bien; si no, lo repite la próxima tarea
+                            preferences.edit().putLong(KEY_LAST_RUN, System.currentTimeMillis()).apply();
+                            Log.i(TAG, "Recuperados " + report.getBytesReclaimed() + " bytes en "
+                                    + report.getElapsedMillis() + " ms");
+                        }
+                        jobFinished(params, false);
+                    }
+                });
+        return true;
+    }
+
+    /**
+     * El mantenimiento se detiene al acabar la fase en curso; sin su resultado
+     * no se anota como hecho y se pide repetir la tarea
+     */
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        return true;
+    }
+}
@@ -4,34 +4,60 @@ import android.app.AlertDialog;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
 import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
+import android.widget.CheckBox;
+import android.widget.CompoundButton;
+import android.widget.EditText;
 import android.widget.ListView;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.memoripy.adapters.SavedGamesAdapter;
+import com.example.memoripy.models.SavedGame;
 import com.example.memoripy.utils.FileManager;
+import com.example.memoripy.utils.FileTask;
+import com.example.memoripy.utils.SavedGameQuery;
+import com.example.memoripy.utils.SnapshotHistory;
 import com.example.memoripy.utils.ThemeManager;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
  * Actividad para gestionar las partidas guardadas
  */
-public class SavedGamesActivity extends AppCompatActivity {
+public class SavedGamesActivity extends AppCompatActivity implements FileManager.SavedGamesObserver {
+
+    // Formato de cada opción del filtro de formato (null para todos)
+    private static final String[] FILTER_FORMATS = {null, FileManager.FORMAT_TXT, FileManager.FORMAT_XML,
+            FileManager.FORMAT_JSON, FileManager.FORMAT_BIN, FileManager.FORMAT_JOURNAL, FileManager.FORMAT_SQLITE,
+            FileManager.FORMAT_PACK};
 
     private ListView lvSavedGames;
     private TextView tvNoSavedGames;
+    private EditText etFilterPlayer;
+    private Spinner spFilterLevel;
+    private Spinner spFilterFormat;
+    private Spinner spSort;
+    private CheckBox cbFilterCompleted;
     private List<FileManager.SavedGameInfo> savedGames;
-    private ArrayAdapter<String> adapter;
-    private List<String> displayNames;
+    private SavedGamesAdapter adapter;
 
     private ThemeManager themeManager;
     private FileManager fileManager;
+    private SavedGameQuery query;
+    private FileTask queryTask;
+    private FileTask deleteTask;
+    private FileTask historyTask;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -48,45 +74,208 @@ public class SavedGamesActivity extends AppCompatActivity {
         // Inicializar vistas
         lvSavedGames = findViewById(R.id.lvSavedGames);
         tvNoSavedGames = findViewById(R.id.tvNoSavedGames);
+        etFilterPlayer = findViewById(R.id.etFilterPlayer);
+        spFilterLevel = findViewById(R.id.spFilterLevel);
+        spFilterFormat = findViewById(R.id.spFilterFormat);
+        spSort = findViewById(R.id.spSort);
+        cbFilterCompleted = findViewById(R.id.cbFilterCompleted);
 
-        // Cargar las partidas guardadas
-        loadSavedGames();
+        // Configurar adaptador
+        savedGames = new ArrayList<>();
+        adapter = new SavedGamesAdapter(this, savedGames);
+        lvSavedGames.setAdapter(adapter);
 
         // Configurar eventos
         setupListView();
+        setupFilters();
+
+        // Cargar las partidas una vez; después solo se aplican los cambios
+        // de los archivos que se guarden o eliminen
+        fileManager.addSavedGamesObserver(this, this);
+        loadSavedGames();
     }
 
     /**
-     * Carga las partidas guardadas
+     * Configura los filtros y el orden; cada cambio vuelve a lanzar la consulta
+     */
+    private void setupFilters() {
+        AdapterView.OnItemSelectedListener selectionListener = new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                loadSavedGames();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        };
+
+        // Seleccionar sin animación antes de poner el listener evita una consulta por spinner al crearlos
+        spFilterLevel.setSelection(0, false);
+        spFilterFormat.setSelection(0, false);
+        spSort.setSelection(0, false);
+        spFilterLevel.setOnItemSelectedListener(selectionListener);
+        spFilterFormat.setOnItemSelectedListener(selectionListener);
+        spSort.setOnItemSelectedListener(selectionListener);
+
+        cbFilterCompleted.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                loadSavedGames();
+            }
+        });
+
+        etFilterPlayer.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                loadSavedGames();
+            }
+        });
+    }
+
+    /**
+     * Crea la consulta con los valores actuales de los filtros
+     */
+    private SavedGameQuery buildQuery() {
+        SavedGameQuery query = new SavedGameQuery();
+        query.setPlayerPrefix(etFilterPlayer.getText().toString().trim());
+        query.setLevel(spFilterLevel.getSelectedItemPosition());
+        query.setFormat(FILTER_FORMATS[spFilterFormat.getSelectedItemPosition()]);
+        if (cbFilterCompleted.isChecked()) {
+            query.setCompleted(true);
+        }
+
+        switch (spSort.getSelectedItemPosition()) {
+            case 1:
+                query.setSort(SavedGameQuery.SORT_DATE, false);
+                break;
+            case 2:
+                query.setSort(SavedGameQuery.SORT_SCORE, true);
+                break;
+            case 3:
+                query.setSort(SavedGameQuery.SORT_TIME, false);
+                break;
+            default:
+                query.setSort(SavedGameQuery.SORT_DATE, true);
+                break;
+        }
+        return query;
+    }
+
+    /**
+     * Busca en segundo plano las partidas que cumplen los filtros.
+     * Una búsqueda anterior que no haya terminado se descarta.
      */
     private void loadSavedGames() {
-        savedGames = fileManager.getAllSavedGames(this);
-        displayNames = new ArrayList<>();
+        if (queryTask != null) {
+            queryTask.cancel();
+        }
+
+        final SavedGameQuery newQuery = buildQuery();
+        queryTask = fileManager.querySavedGamesAsync(this, newQuery,
+                new FileManager.FileCallback<List<FileManager.SavedGameInfo>>() {
+                    @Override
+                    public void onComplete(List<FileManager.SavedGameInfo> result) {
+                        showSavedGames(newQuery, result);
+                    }
+                });
+    }
 
+    /**
+     * Muestra el resultado de una consulta
+     */
+    private void showSavedGames(SavedGameQuery resultQuery, List<FileManager.SavedGameInfo> result) {
+        query = resultQuery;
+        savedGames.clear();
+        if (result != null) {
+            savedGames.addAll(result);
+        }
+        adapter.notifyDataSetChanged();
+        updateEmptyView();
+    }
+
+    /**
+     * Muestra el mensaje de lista vacía si no hay partidas
+     */
+    private void updateEmptyView() {
         if (savedGames.isEmpty()) {
-            // No hay partidas guardadas
+            tvNoSavedGames.setText(isFiltered() ? R.string.no_matching_games : R.string.no_saved_games);
             tvNoSavedGames.setVisibility(View.VISIBLE);
             lvSavedGames.setVisibility(View.GONE);
         } else {
-            // Hay partidas guardadas
             tvNoSavedGames.setVisibility(View.GONE);
             lvSavedGames.setVisibility(View.VISIBLE);
+        }
+    }
 
-            // Crear lista de nombres para mostrar
-            for (FileManager.SavedGameInfo gameInfo : savedGames) {
-                displayNames.add(gameInfo.getDisplayName());
-            }
+    private boolean isFiltered() {
+        return query != null && (query.getPlayerPrefix() != null || query.getLevel() > 0
+                || query.getFormat() != null || query.getCompleted() != null);
+    }
+
+    @Override
+    public void onSavedGameChanged(FileManager.SavedGameInfo gameInfo) {
+        putSavedGame(gameInfo);
+    }
 
-            // Configurar adaptador
-            adapter = new ArrayAdapter<>(
-                    this,
-                    android.R.layout.simple_list_item_1,
-                    displayNames
-            );
-            lvSavedGames.setAdapter(adapter);
+    @Override
+    public void onSavedGameRemoved(String fileName) {
+        int position = findSavedGame(fileName);
+        if (position >= 0) {
+            savedGames.remove(position);
+            adapter.notifyDataSetChanged();
+            updateEmptyView();
         }
     }
 
+    /**
+     * Coloca una partida que ha cambiado en su sitio según el orden de la consulta,
+     * o la quita si ya no cumple los filtros
+     */
+    private void putSavedGame(FileManager.SavedGameInfo gameInfo) {
+        if (query == null) {
+            // La primera consulta aún no ha terminado y ya incluirá el cambio
+            return;
+        }
+
+        int position = findSavedGame(gameInfo.getFileName());
+        if (position >= 0) {
+            savedGames.remove(position);
+        }
+
+        if (query.matches(gameInfo.getSavedGame())) {
+            final Comparator<SavedGame> comparator = query.getComparator();
+            int insertAt = Collections.binarySearch(savedGames, gameInfo,
+                    new Comparator<FileManager.SavedGameInfo>() {
+                        @Override
+                        public int compare(FileManager.SavedGameInfo a, FileManager.SavedGameInfo b) {
+                            return comparator.compare(a.getSavedGame(), b.getSavedGame());
+                        }
+                    });
+            savedGames.add(insertAt < 0 ? -insertAt - 1 : insertAt, gameInfo);
+        }
+
+        adapter.notifyDataSetChanged();
+        updateEmptyView();
+    }
+
+    private int findSavedGame(String fileName) {
+        for (int i = 0; i < savedGames.size(); i++) {
+            if (savedGames.get(i).getFileName().equals(fileName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Configura los eventos del ListView
      */
@@ -97,6 +286,13 @@ public class SavedGamesActivity extends AppCompatActivity {
                 showGameOptions(position);
             }
         });
+        lvSavedGames.setOnItemLongClickListener(new AdapterView.OnItemLongClickListener() {
+            @Override
+            public boolean onItemLongClick(AdapterView<?> parent, View view, int position, long id) {
+                showSnapshots(position);
+                return true;
+            }
+        });
     }
 
     /**
@@ -135,6 +331,75 @@ public class SavedGamesActivity extends AppCompatActivity {
         builder.create().show();
     }
 
+    /**
+     * Muestra los puntos guardados de una partida para volver a uno de ellos
+     */
+    private void showSnapshots(int position) {
+        if (position < 0 || position >= savedGames.size()) {
+            return;
+        }
+
+        final FileManager.SavedGameInfo gameInfo = savedGames.get(position);
+        final String gameId = gameInfo.getSavedGame().getGameId();
+
+        if (historyTask != null) {
+            historyTask.cancel();
+        }
+        historyTask = fileManager.getSnapshotsAsync(this, gameId,
+                new FileManager.FileCallback<List<SnapshotHistory.Entry>>() {
+                    @Override
+                    public void onComplete(List<SnapshotHistory.Entry> entries) {
+                        showSnapshotList(gameInfo, gameId, entries);
+                    }
+                });
+    }
+
+    private void showSnapshotList(final FileManager.SavedGameInfo gameInfo, final String gameId,
+                                  final List<SnapshotHistory.Entry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            Toast.makeText(this, R.string.no_snapshots, Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // El más reciente primero
+        final List<SnapshotHistory.Entry> ordered = new ArrayList<>(entries);
+        Collections.reverse(ordered);
+        String[] items = new String[ordered.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = ordered.get(i).toString();
+        }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle(R.string.snapshot_history)
+                .setItems(items, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        restoreSnapshot(gameInfo, gameId, ordered.get(which).getIndex());
+                    }
+                })
+                .setNegativeButton(R.string.cancel, null);
+
+        builder.create().show();
+    }
+
+    /**
+     * Vuelve a un punto guardado y carga la partida desde él
+     */
+    private void restoreSnapshot(FileManager.SavedGameInfo gameInfo, String gameId, int index) {
+        historyTask = fileManager.restoreSnapshotAsync(this, gameId, index, gameInfo.getFormat(),
+                new FileManager.FileCallback<String>() {
+                    @Override
+                    public void onComplete(String filePath) {
+                        if (filePath != null) {
+                            loadGame(new File(filePath).getName());
+                        } else {
+                            Toast.makeText(SavedGamesActivity.this, R.string.snapshot_restore_error,
+                                    Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
+    }
+
     /**
      * Carga una partida guardada
      */
@@ -179,24 +444,35 @@ public class SavedGamesActivity extends AppCompatActivity {
             return;
         }
 
-        FileManager.SavedGameInfo gameInfo = savedGames.get(position);
+        final FileManager.SavedGameInfo gameInfo = savedGames.get(position);
         String fileName = gameInfo.getFileName();
 
-        boolean success = fileManager.deleteGame(this, fileName);
+        deleteTask = fileManager.deleteGameAsync(this, fileName, new FileManager.FileCallback<Boolean>() {
+            @Override
+            public void onComplete(Boolean success) {
+                onGameDeleted(gameInfo, success != null && success);
+            }
+        });
+    }
+
+    /**
+     * Actualiza la lista tras eliminar una partida
+     */
+    private void onGameDeleted(FileManager.SavedGameInfo gameInfo, boolean success) {
         if (success) {
             // Eliminar de las listas y actualizar adaptador
-            savedGames.remove(position);
-            displayNames.remove(position);
-            adapter.notifyDataSetChanged();
+            // (la posición pudo cambiar mientras se eliminaba el archivo)
+            int position = savedGames.indexOf(gameInfo);
+            if (position >= 0) {
+                savedGames.remove(position);
+                adapter.notifyDataSetChanged();
+            }
 
             // Mostrar mensaje
             Toast.makeText(this, R.string.delete_success, Toast.LENGTH_SHORT).show();
 
             // Si no quedan partidas, mostrar mensaje
-            if (savedGames.isEmpty()) {
-                tvNoSavedGames.setVisibility(View.VISIBLE);
-                lvSavedGames.setVisibility(View.GONE);
-            }
+            updateEmptyView();
         } else {
             Toast.makeText(this, R.string.delete_error, Toast.LENGTH_SHORT).show();
         }
@@ -212,9 +488,19 @@ public class SavedGamesActivity extends AppCompatActivity {
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        // Recargar las partidas guardadas (por si se ha guardado una nueva)
-        loadSavedGames();
+    protected void onDestroy() {
+        super.onDestroy();
+        fileManager.removeSavedGamesObserver(this);
+
+        // Descartar el resultado de la búsqueda si aún no se ha entregado
+        if (queryTask != null) {
+            queryTask.cancel();
+        }
+        if (deleteTask != null) {
+            deleteTask.cancel();
+        }
+        if (historyTask != null) {
+            historyTask.cancel();
+        }
     }
 }
\ No newline at end of file
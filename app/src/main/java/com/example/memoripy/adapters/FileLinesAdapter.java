@@ -0,0 +1,78 @@
+package com.example.memoripy.adapters;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import com.example.memoripy.R;
+import com.example.memoripy.utils.MappedTextFile;
+
+/**
+ * Adaptador para mostrar las filas de un archivo en el ListView.
+ * Solo se lee del archivo el texto de las filas visibles.
+ */
+public class FileLinesAdapter extends BaseAdapter {
+
+    private final Context context;
+    private final MappedTextFile file;
+    private int rowCount;
+    private int highlightedRow = -1;
+
+    public FileLinesAdapter(Context context, MappedTextFile file) {
+        this.context = context;
+        this.file = file;
+    }
+
+    @Override
+    public int getCount() {
+        return rowCount;
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return file.getRow(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        if (convertView == null) {
+            convertView = LayoutInflater.from(context).inflate(R.layout.item_file_line, parent, false);
+        }
+
+        TextView textView = convertView.findViewById(R.id.tvFileLine);
+        textView.setText(file.getRow(position));
+
+        // Resaltar la fila del resultado de la búsqueda
+        if (position == highlightedRow) {
+            textView.setBackgroundResource(R.color.matched_card);
+        } else {
+            textView.setBackgroundResource(android.R.color.transparent);
+        }
+
+        return convertView;
+    }
+
+    /**
+     * Actualiza el número de filas ya indexadas
+     */
+    public void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Establece la fila resaltada, o -1 para ninguna
+     */
+    public void setHighlightedRow(int row) {
+        this.highlightedRow = row;
+        notifyDataSetChanged();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.memoripy.adapters;
+
+import android.content.Context;
+import android.text.format.DateFormat;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import com.example.memoripy.R;
+import com.example.memoripy.models.HighScore;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Adaptador para mostrar las puntuaciones de un nivel en el ListView,
+ * en el orden de la tabla de récords
+ */
+public class HighScoresAdapter extends BaseAdapter {
+
+    private final Context context;
+    private final List<HighScore> highScores;
+
+    public HighScoresAdapter(Context context, List<HighScore> highScores) {
+        this.context = context;
+        this.highScores = highScores;
+    }
+
+    @Override
+    public int getCount() {
+        return highScores.size();
+    }
+
+    @Override
+    public HighScore getItem(int position) {
+        return highScores.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        if (convertView == null) {
+            convertView = LayoutInflater.from(context).inflate(android.R.layout.simple_list_item_2, parent, false);
+        }
+
+        HighScore highScore = highScores.get(position);
+        String playerName = highScore.getPlayerName();
+        if (playerName == null || playerName.isEmpty()) {
+            playerName = "Anónimo";
+        }
+
+        TextView tvScore = convertView.findViewById(android.R.id.text1);
+        TextView tvDetails = convertView.findViewById(android.R.id.text2);
+        tvScore.setText(context.getString(R.string.high_score_entry, position + 1, playerName, highScore.getScore()));
+        tvDetails.setText(context.getString(R.string.high_score_details, formatTime(highScore.getTimeElapsed()),
+                DateFormat.getDateFormat(context).format(highScore.getDateAsDate())));
+
+        return convertView;
+    }
+
+    private static String formatTime(long millis) {
+        long seconds = millis / 1000;
+        return String.format(Locale.getDefault(), "%02d:%02d", seconds / 60, seconds % 60);
+    }
+}
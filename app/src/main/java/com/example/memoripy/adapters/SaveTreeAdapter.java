@@ -0,0 +1,163 @@
+package com.example.memoripy.adapters;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import com.example.memoripy.R;
+import com.example.memoripy.utils.SaveTree;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adaptador para mostrar el árbol de una partida en el ListView.
+ * Solo contiene los nodos visibles; los hijos ya leídos se conservan al
+ * contraer un nodo para no volver a leerlos del archivo.
+ */
+public class SaveTreeAdapter extends BaseAdapter {
+
+    // Sangría por nivel del árbol, en dp
+    private static final int INDENT_DP = 16;
+
+    private final Context context;
+    private final List<SaveTree.Node> visibleNodes;
+    private final Map<SaveTree.Node, List<SaveTree.Node>> loadedChildren;
+    private final Set<SaveTree.Node> expandedNodes;
+
+    public SaveTreeAdapter(Context context, SaveTree tree) {
+        this.context = context;
+        this.visibleNodes = new ArrayList<>();
+        this.loadedChildren = new HashMap<>();
+        this.expandedNodes = new HashSet<>();
+        visibleNodes.add(tree.getRoot());
+    }
+
+    @Override
+    public int getCount() {
+        return visibleNodes.size();
+    }
+
+    @Override
+    public SaveTree.Node getItem(int position) {
+        return visibleNodes.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        if (convertView == null) {
+            convertView = LayoutInflater.from(context).inflate(R.layout.item_file_line, parent, false);
+        }
+
+        TextView textView = convertView.findViewById(R.id.tvFileLine);
+        SaveTree.Node node = visibleNodes.get(position);
+
+        float density = context.getResources().getDisplayMetrics().density;
+        int indent = (int) ((8 + node.getDepth() * INDENT_DP) * density);
+        textView.setPadding(indent, textView.getPaddingTop(), textView.getPaddingRight(), textView.getPaddingBottom());
+
+        switch (node.getType()) {
+            case SaveTree.Node.CONTAINER:
+                textView.setText((expandedNodes.contains(node) ? "▾ " : "▸ ") + node.getName());
+                break;
+            case SaveTree.Node.MORE:
+                textView.setText(R.string.tree_more);
+                break;
+            default:
+                textView.setText(node.getName() + ": " + node.getValue());
+                break;
+        }
+
+        return convertView;
+    }
+
+    public boolean isExpanded(SaveTree.Node node) {
+        return expandedNodes.contains(node);
+    }
+
+    /**
+     * Indica si los hijos del nodo ya se han leído
+     */
+    public boolean hasLoadedChildren(SaveTree.Node node) {
+        return loadedChildren.containsKey(node);
+    }
+
+    /**
+     * Muestra los hijos recién leídos de un nodo.
+     * Si el nodo es de tipo MORE, se sustituye por la página siguiente.
+     */
+    public void addChildren(SaveTree.Node node, List<SaveTree.Node> children) {
+        int position = visibleNodes.indexOf(node);
+        if (node.getType() == SaveTree.Node.MORE) {
+            List<SaveTree.Node> siblings = loadedChildren.get(node.getParent());
+            if (siblings != null) {
+                siblings.remove(node);
+                siblings.addAll(children);
+            }
+            if (position >= 0) {
+                visibleNodes.remove(position);
+                visibleNodes.addAll(position, children);
+            }
+        } else {
+            loadedChildren.put(node, new ArrayList<>(children));
+            expand(node);
+            return;
+        }
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Expande un nodo cuyos hijos ya se han leído
+     */
+    public void expand(SaveTree.Node node) {
+        int position = visibleNodes.indexOf(node);
+        expandedNodes.add(node);
+        if (position >= 0) {
+            List<SaveTree.Node> descendants = new ArrayList<>();
+            addVisibleDescendants(node, descendants);
+            visibleNodes.addAll(position + 1, descendants);
+        }
+        notifyDataSetChanged();
+    }
+
+    private void addVisibleDescendants(SaveTree.Node node, List<SaveTree.Node> descendants) {
+        List<SaveTree.Node> children = loadedChildren.get(node);
+        if (children == null) {
+            return;
+        }
+        for (SaveTree.Node child : children) {
+            descendants.add(child);
+            if (expandedNodes.contains(child)) {
+                addVisibleDescendants(child, descendants);
+            }
+        }
+    }
+
+    /**
+     * Oculta los descendientes de un nodo
+     */
+    public void collapse(SaveTree.Node node) {
+        int position = visibleNodes.indexOf(node);
+        expandedNodes.remove(node);
+        if (position >= 0) {
+            int end = position + 1;
+            while (end < visibleNodes.size() && visibleNodes.get(end).getDepth() > node.getDepth()) {
+                end++;
+            }
+            visibleNodes.subList(position + 1, end).clear();
+        }
+        notifyDataSetChanged();
+    }
+}
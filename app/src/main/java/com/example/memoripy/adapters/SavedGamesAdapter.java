@@ -1,4 +1,69 @@
 package com.example.memoripy.adapters;
 
-public class SavedGamesAdapter {
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import com.example.memoripy.R;
+import com.example.memoripy.models.SavedGame;
+import com.example.memoripy.utils.FileManager;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Adaptador para mostrar las partidas guardadas en el ListView,
+ * con su puntuación y tiempo debajo del nombre
+ */
+public class SavedGamesAdapter extends BaseAdapter {
+
+    private final Context context;
+    private final List<FileManager.SavedGameInfo> savedGames;
+
+    public SavedGamesAdapter(Context context, List<FileManager.SavedGameInfo> savedGames) {
+        this.context = context;
+        this.savedGames = savedGames;
+    }
+
+    @Override
+    public int getCount() {
+        return savedGames.size();
+    }
+
+    @Override
+    public FileManager.SavedGameInfo getItem(int position) {
+        return savedGames.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        if (convertView == null) {
+            convertView = LayoutInflater.from(context).inflate(android.R.layout.simple_list_item_2, parent, false);
+        }
+
+        FileManager.SavedGameInfo gameInfo = savedGames.get(position);
+        SavedGame savedGame = gameInfo.getSavedGame();
+
+        TextView tvName = convertView.findViewById(android.R.id.text1);
+        TextView tvStats = convertView.findViewById(android.R.id.text2);
+        tvName.setText(gameInfo.getDisplayName());
+        tvStats.setText(context.getString(
+                savedGame.isGameCompleted() ? R.string.saved_game_stats_completed : R.string.saved_game_stats,
+                savedGame.getScore(), formatTime(savedGame.getTimeElapsed())));
+
+        return convertView;
+    }
+
+    private static String formatTime(long millis) {
+        long seconds = millis / 1000;
+        return String.format(Locale.getDefault(), "%02d:%02d", seconds / 60, seconds % 60);
+    }
 }
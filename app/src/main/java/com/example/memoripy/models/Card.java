@@ -26,6 +26,18 @@ public class Card implements Serializable {
         this.matched = false;
     }
 
+    /**
+     * Crea una copia de otra tarjeta
+     */
+    public Card(Card other) {
+        this.id = other.id;
+        this.imageId = other.imageId;
+        this.pairId = other.pairId;
+        this.position = other.position;
+        this.flipped = other.flipped;
+        this.matched = other.matched;
+    }
+
     // Getters y Setters
     public int getId() {
         return id;
@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Clase que representa el estado completo de una partida del juego
@@ -24,6 +25,9 @@ public class GameState implements Serializable {
     private String themeName;
     private String saveFormat; // "txt", "xml", "json"
 
+    // Contador de cambios; no se guarda en los archivos
+    private transient long version;
+
     public GameState() {
         this.cards = new ArrayList<>();
         this.moveHistory = new ArrayList<>();
@@ -45,7 +49,10 @@ public class GameState implements Serializable {
     }
 
     public void setPlayerName(String playerName) {
-        this.playerName = playerName;
+        if (!Objects.equals(this.playerName, playerName)) {
+            this.playerName = playerName;
+            version++;
+        }
     }
 
     public int getScore() {
@@ -53,11 +60,17 @@ public class GameState implements Serializable {
     }
 
     public void setScore(int score) {
-        this.score = score;
+        if (this.score != score) {
+            this.score = score;
+            version++;
+        }
     }
 
     public void addScore(int points) {
-        this.score += points;
+        if (points != 0) {
+            this.score += points;
+            version++;
+        }
     }
 
     public long getTimeElapsed() {
@@ -65,7 +78,10 @@ public class GameState implements Serializable {
     }
 
     public void setTimeElapsed(long timeElapsed) {
-        this.timeElapsed = timeElapsed;
+        if (this.timeElapsed != timeElapsed) {
+            this.timeElapsed = timeElapsed;
+            version++;
+        }
     }
 
     public int getLevel() {
@@ -73,7 +89,10 @@ public class GameState implements Serializable {
     }
 
     public void setLevel(int level) {
-        this.level = level;
+        if (this.level != level) {
+            this.level = level;
+            version++;
+        }
     }
 
     public List<Card> getCards() {
@@ -81,7 +100,10 @@ public class GameState implements Serializable {
     }
 
     public void setCards(List<Card> cards) {
-        this.cards = cards;
+        if (this.cards != cards) {
+            this.cards = cards;
+            version++;
+        }
     }
 
     public List<String> getMoveHistory() {
@@ -89,11 +111,23 @@ public class GameState implements Serializable {
     }
 
     public void setMoveHistory(List<String> moveHistory) {
-        this.moveHistory = moveHistory;
+        if (this.moveHistory != moveHistory) {
+            this.moveHistory = moveHistory;
+            version++;
+        }
     }
 
     public void addMove(String move) {
         this.moveHistory.add(move);
+        version++;
+    }
+
+    /**
+     * Versión del estado. Aumenta con cada cambio hecho a través de los
+     * setters; sirve para saber si hace falta volver a guardar la partida.
+     */
+    public long getVersion() {
+        return version;
     }
 
     public Date getSaveDate() {
@@ -101,7 +135,10 @@ public class GameState implements Serializable {
     }
 
     public void setSaveDate(Date saveDate) {
-        this.saveDate = saveDate;
+        if (!Objects.equals(this.saveDate, saveDate)) {
+            this.saveDate = saveDate;
+            version++;
+        }
     }
 
     public String getGameId() {
@@ -109,7 +146,10 @@ public class GameState implements Serializable {
     }
 
     public void setGameId(String gameId) {
-        this.gameId = gameId;
+        if (!Objects.equals(this.gameId, gameId)) {
+            this.gameId = gameId;
+            version++;
+        }
     }
 
     public boolean isGameCompleted() {
@@ -117,7 +157,10 @@ public class GameState implements Serializable {
     }
 
     public void setGameCompleted(boolean gameCompleted) {
-        this.gameCompleted = gameCompleted;
+        if (this.gameCompleted != gameCompleted) {
+            this.gameCompleted = gameCompleted;
+            version++;
+        }
     }
 
     public boolean isSoundEnabled() {
@@ -125,7 +168,10 @@ public class GameState implements Serializable {
     }
 
     public void setSoundEnabled(boolean soundEnabled) {
-        this.soundEnabled = soundEnabled;
+        if (this.soundEnabled != soundEnabled) {
+            this.soundEnabled = soundEnabled;
+            version++;
+        }
     }
 
     public String getThemeName() {
@@ -133,7 +179,10 @@ public class GameState implements Serializable {
     }
 
     public void setThemeName(String themeName) {
-        this.themeName = themeName;
+        if (!Objects.equals(this.themeName, themeName)) {
+            this.themeName = themeName;
+            version++;
+        }
     }
 
     public String getSaveFormat() {
@@ -141,7 +190,37 @@ public class GameState implements Serializable {
     }
 
     public void setSaveFormat(String saveFormat) {
-        this.saveFormat = saveFormat;
+        if (!Objects.equals(this.saveFormat, saveFormat)) {
+            this.saveFormat = saveFormat;
+            version++;
+        }
+    }
+
+    /**
+     * Crea una copia independiente del estado, con sus propias listas de
+     * tarjetas y movimientos, para poder guardarla en segundo plano
+     */
+    public GameState copy() {
+        GameState copy = new GameState();
+        copy.playerName = playerName;
+        copy.score = score;
+        copy.timeElapsed = timeElapsed;
+        copy.level = level;
+        copy.saveDate = saveDate != null ? new Date(saveDate.getTime()) : null;
+        copy.gameId = gameId;
+        copy.gameCompleted = gameCompleted;
+        copy.soundEnabled = soundEnabled;
+        copy.themeName = themeName;
+        copy.saveFormat = saveFormat;
+        copy.version = version;
+
+        List<Card> cardsCopy = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            cardsCopy.add(new Card(card));
+        }
+        copy.cards = cardsCopy;
+        copy.moveHistory = new ArrayList<>(moveHistory);
+        return copy;
     }
 
     /**
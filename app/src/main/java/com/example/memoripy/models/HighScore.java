@@ -0,0 +1,92 @@
+package com.example.memoripy.models;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Clase que representa una puntuación de la tabla de récords:
+ * un nivel completado en una partida
+ */
+public class HighScore implements Serializable {
+    private String gameId;       // Partida en la que se consiguió
+    private String playerName;
+    private int level;
+    private int score;
+    private long timeElapsed;    // Tiempo en completar el nivel en milisegundos
+    private long date;           // Fecha en milisegundos
+
+    public HighScore() {
+        // Constructor vacío para serialización
+    }
+
+    public HighScore(String gameId, String playerName, int level, int score, long timeElapsed, long date) {
+        this.gameId = gameId;
+        this.playerName = playerName;
+        this.level = level;
+        this.score = score;
+        this.timeElapsed = timeElapsed;
+        this.date = date;
+    }
+
+    /**
+     * Crea la puntuación del nivel de una partida
+     */
+    public static HighScore fromGameState(GameState gameState) {
+        return new HighScore(gameState.getGameId(), gameState.getPlayerName(), gameState.getLevel(),
+                gameState.getScore(), gameState.getTimeElapsed(),
+                gameState.getSaveDate() != null ? gameState.getSaveDate().getTime() : 0);
+    }
+
+    // Getters y Setters
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public void setPlayerName(String playerName) {
+        this.playerName = playerName;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public long getTimeElapsed() {
+        return timeElapsed;
+    }
+
+    public void setTimeElapsed(long timeElapsed) {
+        this.timeElapsed = timeElapsed;
+    }
+
+    public long getDate() {
+        return date;
+    }
+
+    public void setDate(long date) {
+        this.date = date;
+    }
+
+    public Date getDateAsDate() {
+        return new Date(date);
+    }
+}
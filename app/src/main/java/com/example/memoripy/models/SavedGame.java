@@ -1,4 +1,166 @@
 package com.example.memoripy.models;
 
-public class SavedGame {
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Clase que representa la entrada de una partida guardada en el catálogo.
+ * Solo guarda los datos de cabecera necesarios para listar la partida,
+ * sin las tarjetas ni el historial de movimientos.
+ */
+public class SavedGame implements Serializable {
+    private String fileName;     // Nombre del archivo de la partida
+    private String format;       // "txt", "xml", "json"
+    private String playerName;
+    private int level;
+    private int score;
+    private long saveDate;       // Fecha de guardado en milisegundos
+    private long timeElapsed;    // Tiempo de juego en milisegundos
+    private boolean gameCompleted;
+    private long size;           // Tamaño del archivo en bytes
+    private long lastModified;   // Fecha de modificación del archivo en milisegundos
+    private boolean valid;       // false si el archivo no se pudo leer
+
+    public SavedGame() {
+        // Constructor vacío para serialización
+    }
+
+    public SavedGame(String fileName, String format) {
+        this.fileName = fileName;
+        this.format = format;
+        this.valid = true;
+    }
+
+    /**
+     * Crea una entrada de catálogo a partir del estado de una partida
+     */
+    public static SavedGame fromGameState(String fileName, String format, GameState gameState) {
+        SavedGame savedGame = new SavedGame(fileName, format);
+        savedGame.setPlayerName(gameState.getPlayerName());
+        savedGame.setLevel(gameState.getLevel());
+        savedGame.setScore(gameState.getScore());
+        savedGame.setSaveDate(gameState.getSaveDate() != null ? gameState.getSaveDate().getTime() : 0);
+        savedGame.setTimeElapsed(gameState.getTimeElapsed());
+        savedGame.setGameCompleted(gameState.isGameCompleted());
+        return savedGame;
+    }
+
+    /**
+     * Crea una entrada para un archivo que no se pudo leer
+     */
+    public static SavedGame invalid(String fileName, String format) {
+        SavedGame savedGame = new SavedGame(fileName, format);
+        savedGame.setValid(false);
+        return savedGame;
+    }
+
+    // Getters y Setters
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * ID de la partida: el nombre del archivo sin la extensión del formato
+     */
+    public String getGameId() {
+        if (format != null && fileName.endsWith("." + format)) {
+            return fileName.substring(0, fileName.length() - format.length() - 1);
+        }
+        return fileName;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public void setPlayerName(String playerName) {
+        this.playerName = playerName;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public long getSaveDate() {
+        return saveDate;
+    }
+
+    public void setSaveDate(long saveDate) {
+        this.saveDate = saveDate;
+    }
+
+    public Date getSaveDateAsDate() {
+        return new Date(saveDate);
+    }
+
+    public long getTimeElapsed() {
+        return timeElapsed;
+    }
+
+    public void setTimeElapsed(long timeElapsed) {
+        this.timeElapsed = timeElapsed;
+    }
+
+    public boolean isGameCompleted() {
+        return gameCompleted;
+    }
+
+    public void setGameCompleted(boolean gameCompleted) {
+        this.gameCompleted = gameCompleted;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+
+    /**
+     * Verifica si la entrada sigue correspondiendo al archivo en disco
+     */
+    public boolean matches(long size, long lastModified) {
+        return this.size == size && this.lastModified == lastModified;
+    }
 }
@@ -0,0 +1,159 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.memoripy.models.GameState;
+
+import java.util.Date;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Guardado automático de la partida en curso.
+ *
+ * Se usa desde el hilo principal: las peticiones de guardado que llegan
+ * seguidas se agrupan en una sola escritura, que se hace en segundo plano
+ * a través del FileManager. Solo hay una escritura en curso a la vez y,
+ * si el estado no ha cambiado desde el último guardado, no se escribe.
+ */
+public class AutoSaveManager {
+
+    private static final String TAG = "AutoSaveManager";
+
+    // Número de movimientos entre guardados automáticos
+    public static final int MOVES_PER_AUTOSAVE = 10;
+
+    // Tiempo de espera para agrupar las peticiones de guardado
+    private static final long AUTOSAVE_DELAY_MS = 500;
+
+    /**
+     * Proporciona el estado actual de la partida justo antes de guardarlo
+     */
+    public interface StateProvider {
+        /**
+         * @return Estado actualizado, o null si no hay partida que guardar
+         */
+        GameState getCurrentState();
+    }
+
+    private final Context context;
+    private final StateProvider stateProvider;
+    private final Handler handler;
+
+    private GameState savedState;
+    private long savedVersion;
+    private int movesSinceSave;
+    private boolean pending;
+    private boolean writing;
+
+    private final Runnable saveRunnable = new Runnable() {
+        @Override
+        public void run() {
+            writeIfNeeded();
+        }
+    };
+
+    public AutoSaveManager(Context context, StateProvider stateProvider) {
+        this.context = context.getApplicationContext();
+        this.stateProvider = stateProvider;
+        this.handler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Indica que se ha registrado un movimiento; cada
+     * {@link #MOVES_PER_AUTOSAVE} movimientos se pide un guardado
+     */
+    public void onMove() {
+        movesSinceSave++;
+        if (movesSinceSave >= MOVES_PER_AUTOSAVE) {
+            requestSave();
+        }
+    }
+
+    /**
+     * Pide un guardado; se hace tras una breve espera para agrupar cambios
+     */
+    public void requestSave() {
+        pending = true;
+        handler.removeCallbacks(saveRunnable);
+        handler.postDelayed(saveRunnable, AUTOSAVE_DELAY_MS);
+    }
+
+    /**
+     * Guarda ya, sin esperar (por ejemplo, al pausar la actividad)
+     */
+    public void flush() {
+        pending = true;
+        handler.removeCallbacks(saveRunnable);
+        writeIfNeeded();
+    }
+
+    /**
+     * Indica que el estado ya está guardado (por ejemplo, recién cargado)
+     */
+    public void markSaved(GameState gameState) {
+        savedState = gameState;
+        savedVersion = gameState != null ? gameState.getVersion() : 0;
+        movesSinceSave = 0;
+    }
+
+    /**
+     * Descarta los guardados pendientes; el que esté en curso termina igualmente
+     */
+    public void cancel() {
+        pending = false;
+        handler.removeCallbacks(saveRunnable);
+    }
+
+    private void writeIfNeeded() {
+        if (!pending || writing) {
+            // Si hay una escritura en curso, se repite al terminar
+            return;
+        }
+        pending = false;
+
+        final GameState gameState = stateProvider.getCurrentState();
+        if (gameState == null) {
+            return;
+        }
+        if (gameState == savedState && gameState.getVersion() == savedVersion) {
+            // Sin cambios desde el último guardado
+            movesSinceSave = 0;
+            return;
+        }
+
+        gameState.setSaveDate(new Date());
+        final long version = gameState.getVersion();
+        movesSinceSave = 0;
+        writing = true;
+
+        // El FileManager copia el estado aquí y lo escribe en segundo plano
+        FileManager.getInstance().autoSaveGameAsync(context, gameState,
+                new FileManager.FileCallback<String>() {
+                    @Override
+                    public void onComplete(String filePath) {
+                        writing = false;
+                        if (filePath != null) {
+                            savedState = gameState;
+                            savedVersion = version;
+                        } else {
+                            Log.e(TAG, "Error en el guardado automático");
+                        }
+                        writeIfNeeded();
+                    }
+
+                    @Override
+                    public void onError(Exception error) {
+                        if (!(error instanceof RejectedExecutionException)) {
+                            onComplete(null);
+                            return;
+                        }
+                        // Demasiadas operaciones pendientes: se junta con el próximo guardado
+                        writing = false;
+                        requestSave();
+                    }
+                });
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.memoripy.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utilidades para codificar datos en formato binario compacto.
+ * Los enteros se escriben como varints (7 bits por byte) y los enteros
+ * con signo usan codificación zigzag para que los valores pequeños
+ * negativos también ocupen pocos bytes.
+ */
+public final class BinaryCodec {
+
+    private BinaryCodec() {
+        // Clase de utilidades
+    }
+
+    /**
+     * Escribe un entero sin signo como varint
+     */
+    public static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Lee un entero sin signo codificado como varint
+     */
+    public static int readVarInt(InputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte(in);
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Varint demasiado largo");
+    }
+
+    /**
+     * Escribe un long sin signo como varint
+     */
+    public static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Lee un long sin signo codificado como varint
+     */
+    public static long readVarLong(InputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte(in);
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Varint demasiado largo");
+    }
+
+    /**
+     * Escribe un entero con signo usando codificación zigzag
+     */
+    public static void writeSignedVarInt(OutputStream out, int value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Lee un entero con signo codificado con zigzag
+     */
+    public static int readSignedVarInt(InputStream in) throws IOException {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Escribe una cadena UTF-8 precedida de su longitud.
+     * La longitud se guarda sumando uno para poder representar null con 0.
+     */
+    public static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    /**
+     * Lee una cadena escrita con {@link #writeString}
+     */
+    public static String readString(InputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        readFully(in, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lee exactamente bytes.length bytes
+     */
+    public static void readFully(InputStream in, byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            int read = in.read(bytes, offset, bytes.length - offset);
+            if (read < 0) {
+                throw new EOFException("Fin de archivo inesperado");
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * Salta exactamente count bytes; en un archivo sin comprimir no los lee
+     */
+    public static void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                // skip puede devolver 0 sin haber llegado al final: comprobarlo leyendo un byte
+                readByte(in);
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Fin de archivo inesperado");
+        }
+        return b;
+    }
+}
@@ -0,0 +1,457 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+import android.os.Environment;
+import android.util.Log;
+
+import com.example.memoripy.models.Card;
+import com.example.memoripy.models.GameState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Implementación para manejar archivos binarios compactos.
+ *
+ * Estructura del archivo:
+ * - Cabecera: "MIPB" + versión (1 byte)
+ * - Información básica: cadenas con longitud, enteros como varints
+ *   y un byte de banderas (partida completada, sonido)
+ * - Tablero: un byte que indica cómo se guarda y después, o bien la
+ *   codificación compacta de {@link BoardEncoding}, o bien (tableros que no
+ *   la admiten) el número de tarjetas, id/imageId/pairId/position de cada una
+ *   y dos bitsets con los estados volteada y emparejada. La versión 1 solo
+ *   tenía la segunda forma.
+ * - Historial: número de movimientos y cada movimiento con su longitud
+ */
+public class BinaryFileHandler implements CompressibleFileHandler, HeaderFileHandler {
+
+    private static final String TAG = "BinaryFileHandler";
+    private static final String FILE_DIRECTORY = "saved_games_bin";
+    private static final String FILE_EXTENSION = ".bin";
+
+    private static final byte[] MAGIC = {'M', 'I', 'P', 'B'};
+    // 2: tablero compacto; 3: longitud del tablero y el historial tras la información básica
+    private static final int VERSION = 3;
+
+    // Cómo se guarda el tablero
+    private static final int BOARD_COMPACT = 0;
+    private static final int BOARD_CARDS = 1;
+
+    private static final int FLAG_GAME_COMPLETED = 1;
+    private static final int FLAG_SOUND_ENABLED = 1 << 1;
+
+    // Compresión de los próximos guardados; al leer se detecta sola
+    private volatile int compression = SaveCompression.NONE;
+
+    @Override
+    public void setCompression(int compression) {
+        this.compression = compression;
+    }
+
+    @Override
+    public int getCompression() {
+        return compression;
+    }
+
+    @Override
+    public String saveGame(Context context, GameState gameState) throws IOException {
+        // Asegurar que el directorio existe
+        File directory = new File(context.getFilesDir(), FILE_DIRECTORY);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        // Crear nombre de archivo basado en el ID de partida
+        String fileName = gameState.getGameId() + FILE_EXTENSION;
+        File file = new File(directory, fileName);
+
+        try (OutputStream out = SaveCompression.openOutput(file, compression)) {
+            writeGameState(out, gameState);
+        }
+
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * Escribe el estado de la partida en formato binario
+     */
+    static void writeGameState(OutputStream out, GameState gameState) throws IOException {
+        // Cabecera
+        out.write(MAGIC);
+        out.write(VERSION);
+
+        // Información básica
+        BinaryCodec.writeString(out, gameState.getPlayerName());
+        BinaryCodec.writeSignedVarInt(out, gameState.getScore());
+        BinaryCodec.writeVarLong(out, gameState.getTimeElapsed());
+        BinaryCodec.writeSignedVarInt(out, gameState.getLevel());
+        BinaryCodec.writeString(out, gameState.getGameId());
+        BinaryCodec.writeVarLong(out, gameState.getSaveDate() != null ? gameState.getSaveDate().getTime() : 0);
+        int flags = 0;
+        if (gameState.isGameCompleted()) {
+            flags |= FLAG_GAME_COMPLETED;
+        }
+        if (gameState.isSoundEnabled()) {
+            flags |= FLAG_SOUND_ENABLED;
+        }
+        out.write(flags);
+        BinaryCodec.writeString(out, gameState.getThemeName());
+        BinaryCodec.writeString(out, gameState.getSaveFormat());
+
+        // Tablero e historial de movimientos, precedidos de su longitud
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeBoard(body, gameState.getCards());
+        List<String> moveHistory = gameState.getMoveHistory();
+        BinaryCodec.writeVarInt(body, moveHistory.size());
+        for (String move : moveHistory) {
+            BinaryCodec.writeString(body, move);
+        }
+        BinaryCodec.writeVarLong(out, body.size());
+        body.writeTo(out);
+    }
+
+    /**
+     * Escribe el tablero: el tipo de codificación y las tarjetas.
+     * También lo usa el historial de puntos guardados.
+     */
+    static void writeBoard(OutputStream out, List<Card> cards) throws IOException {
+        BoardEncoding board = BoardEncoding.fromCards(cards);
+        if (board != null) {
+            out.write(BOARD_COMPACT);
+            board.write(out);
+        } else {
+            out.write(BOARD_CARDS);
+            writeCards(out, cards);
+        }
+    }
+
+    /**
+     * Escribe las tarjetas una a una, para tableros que no admiten la codificación compacta
+     */
+    private static void writeCards(OutputStream out, List<Card> cards) throws IOException {
+        BinaryCodec.writeVarInt(out, cards.size());
+        for (Card card : cards) {
+            BinaryCodec.writeSignedVarInt(out, card.getId());
+            BinaryCodec.writeSignedVarInt(out, card.getImageId());
+            BinaryCodec.writeSignedVarInt(out, card.getPairId());
+            BinaryCodec.writeSignedVarInt(out, card.getPosition());
+        }
+        writeCardFlags(out, cards);
+    }
+
+    /**
+     * Escribe los estados volteada y emparejada de las tarjetas como dos bitsets
+     */
+    static void writeCardFlags(OutputStream out, List<Card> cards) throws IOException {
+        byte[] flippedBits = new byte[(cards.size() + 7) / 8];
+        byte[] matchedBits = new byte[(cards.size() + 7) / 8];
+        for (int i = 0; i < cards.size(); i++) {
+            Card card = cards.get(i);
+            if (card.isFlipped()) {
+                flippedBits[i / 8] |= 1 << (i % 8);
+            }
+            if (card.isMatched()) {
+                matchedBits[i / 8] |= 1 << (i % 8);
+            }
+        }
+        out.write(flippedBits);
+        out.write(matchedBits);
+    }
+
+    /**
+     * Lee los bitsets escritos con {@link #writeCardFlags} y los aplica a las tarjetas
+     */
+    static void readCardFlags(InputStream in, List<Card> cards) throws IOException {
+        byte[] flippedBits = new byte[(cards.size() + 7) / 8];
+        byte[] matchedBits = new byte[(cards.size() + 7) / 8];
+        BinaryCodec.readFully(in, flippedBits);
+        BinaryCodec.readFully(in, matchedBits);
+        for (int i = 0; i < cards.size(); i++) {
+            cards.get(i).setFlipped((flippedBits[i / 8] & (1 << (i % 8))) != 0);
+            cards.get(i).setMatched((matchedBits[i / 8] & (1 << (i % 8))) != 0);
+        }
+    }
+
+    @Override
+    public GameState loadGame(Context context, String fileName) throws IOException {
+        File file = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+
+        try (InputStream in = SaveCompression.openInput(file)) {
+            return readGameState(in);
+        }
+    }
+
+    /**
+     * Lee la cabecera y comprueba que el resto del archivo mide lo anotado,
+     * sin interpretar el tablero ni el historial
+     */
+    @Override
+    public GameState loadGameHeader(Context context, String fileName) throws IOException {
+        File file = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+        GameState gameState = new GameState();
+        long bodyOffset;
+        long bodyLength;
+
+        try (CountingInputStream in = new CountingInputStream(SaveCompression.openInput(file))) {
+            int version = readHeader(in, gameState);
+            if (version < 3) {
+                // Las versiones anteriores no anotan la longitud: solo se puede comprobar leyéndola entera
+                return loadGame(context, fileName);
+            }
+            bodyLength = BinaryCodec.readVarLong(in);
+            bodyOffset = in.getCount();
+        }
+
+        // Con zlib no se sabe sin descomprimir; lo comprueba su Adler-32 al cargarla entera
+        long length = SaveCompression.uncompressedLength(file);
+        if (length >= 0 && length - bodyOffset != bodyLength) {
+            throw new IOException("Partida incompleta o dañada: " + fileName + " (" + (length - bodyOffset)
+                    + " bytes tras la cabecera, se esperaban " + bodyLength + ")");
+        }
+        return gameState;
+    }
+
+    /**
+     * Lee el estado de la partida en formato binario
+     */
+    static GameState readGameState(InputStream in) throws IOException {
+        GameState gameState = new GameState();
+        int version = readHeader(in, gameState);
+        readBody(in, version, gameState);
+        return gameState;
+    }
+
+    /**
+     * Lee la cabecera y la información básica.
+     * También la usa PackFileHandler para indexar sus registros.
+     * @return Versión del archivo, necesaria para leer el tablero
+     */
+    static int readHeader(InputStream in, GameState gameState) throws IOException {
+        // Cabecera
+        byte[] magic = new byte[MAGIC.length];
+        BinaryCodec.readFully(in, magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("No es un archivo de partida binario");
+            }
+        }
+        int version = in.read();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Versión de archivo no soportada: " + version);
+        }
+
+        // Información básica
+        gameState.setPlayerName(BinaryCodec.readString(in));
+        gameState.setScore(BinaryCodec.readSignedVarInt(in));
+        gameState.setTimeElapsed(BinaryCodec.readVarLong(in));
+        gameState.setLevel(BinaryCodec.readSignedVarInt(in));
+        gameState.setGameId(BinaryCodec.readString(in));
+        gameState.setSaveDate(new Date(BinaryCodec.readVarLong(in)));
+        int flags = in.read();
+        if (flags < 0) {
+            throw new EOFException("Fin de archivo inesperado");
+        }
+        gameState.setGameCompleted((flags & FLAG_GAME_COMPLETED) != 0);
+        gameState.setSoundEnabled((flags & FLAG_SOUND_ENABLED) != 0);
+        gameState.setThemeName(BinaryCodec.readString(in));
+        gameState.setSaveFormat(BinaryCodec.readString(in));
+        return version;
+    }
+
+    /**
+     * Lee el tablero y el historial, que van justo después de la información básica
+     */
+    private static void readBody(InputStream in, int version, GameState gameState) throws IOException {
+        readBodyBoard(in, version, gameState);
+
+        // Historial de movimientos
+        int moveCount = BinaryCodec.readVarInt(in);
+        List<String> moveHistory = new ArrayList<>();
+        for (int i = 0; i < moveCount; i++) {
+            moveHistory.add(BinaryCodec.readString(in));
+        }
+        gameState.setMoveHistory(moveHistory);
+    }
+
+    /**
+     * Lee el tablero, que va justo después de la información básica
+     */
+    private static void readBodyBoard(InputStream in, int version, GameState gameState) throws IOException {
+        if (version >= 3) {
+            // Longitud del resto; solo hace falta para comprobar el archivo sin leerlo
+            BinaryCodec.readVarLong(in);
+        }
+        gameState.setCards(version == 1 ? readCards(in) : readBoard(in));
+    }
+
+    /**
+     * Texto legible de una partida en formato binario. Se leen la cabecera y
+     * el tablero; los movimientos se decodifican a medida que se lee el texto.
+     * También lo usa PackFileHandler.
+     * @param in Flujo con la partida; lo cierra el texto devuelto
+     */
+    static InputStream openText(InputStream in, String formatDescription) throws IOException {
+        try {
+            GameState gameState = new GameState();
+            readBodyBoard(in, readHeader(in, gameState), gameState);
+            int moveCount = BinaryCodec.readVarInt(in);
+            return new GameStateText(gameState, formatDescription, in, moveCount);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lee un tablero escrito con {@link #writeBoard}
+     */
+    static List<Card> readBoard(InputStream in) throws IOException {
+        int boardType = in.read();
+        if (boardType == BOARD_COMPACT) {
+            return BoardEncoding.read(in).toCards();
+        } else if (boardType == BOARD_CARDS) {
+            return readCards(in);
+        }
+        throw new IOException("Tablero no válido");
+    }
+
+    private static List<Card> readCards(InputStream in) throws IOException {
+        int cardCount = BinaryCodec.readVarInt(in);
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < cardCount; i++) {
+            Card card = new Card();
+            card.setId(BinaryCodec.readSignedVarInt(in));
+            card.setImageId(BinaryCodec.readSignedVarInt(in));
+            card.setPairId(BinaryCodec.readSignedVarInt(in));
+            card.setPosition(BinaryCodec.readSignedVarInt(in));
+            cards.add(card);
+        }
+        readCardFlags(in, cards);
+        return cards;
+    }
+
+    @Override
+    public List<String> getSavedGamesList(Context context) {
+        List<String> fileList = new ArrayList<>();
+        File directory = new File(context.getFilesDir(), FILE_DIRECTORY);
+
+        if (directory.exists()) {
+            File[] files = directory.listFiles(file -> file.isFile() && file.getName().endsWith(FILE_EXTENSION));
+            if (files != null) {
+                for (File file : files) {
+                    fileList.add(file.getName());
+                }
+            }
+        }
+
+        return fileList;
+    }
+
+    @Override
+    public boolean deleteGame(Context context, String fileName) {
+        File file = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+        return file.exists() && file.delete();
+    }
+
+    @Override
+    public File getGameFile(Context context, String fileName) {
+        return new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+    }
+
+    @Override
+    public File getSavedGamesDirectory(Context context) {
+        return new File(context.getFilesDir(), FILE_DIRECTORY);
+    }
+
+    /**
+     * El contenido binario se muestra decodificado como texto legible
+     */
+    @Override
+    public String getFileContent(Context context, String fileName) throws IOException {
+        File file = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+        GameState gameState = loadGame(context, fileName);
+        return GameStateText.format(gameState, describe(file));
+    }
+
+    /**
+     * El contenido se genera como texto a medida que se lee; los movimientos
+     * se decodifican del archivo sin cargar la partida entera
+     */
+    @Override
+    public InputStream openFileContent(Context context, String fileName) throws IOException {
+        File file = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+        return openText(SaveCompression.openInput(file), describe(file));
+    }
+
+    private static String describe(File file) {
+        return "BIN (versión " + VERSION + ", " + file.length() + " bytes)";
+    }
+
+    @Override
+    public String exportGame(Context context, String fileName) throws IOException {
+        File sourceFile = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+        File exportDir = new File(Environment.getExternalStoragePublicDirectory(
+                Environment.DIRECTORY_DOCUMENTS), "MemorIPN");
+
+        if (!exportDir.exists()) {
+            exportDir.mkdirs();
+        }
+
+        File destFile = new File(exportDir, fileName);
+
+        // Copiar los bytes del archivo original, descomprimidos si hace falta
+        SaveCompression.copyUncompressed(sourceFile, destFile);
+
+        Log.d(TAG, "Partida exportada: " + destFile.getAbsolutePath());
+        return destFile.getAbsolutePath();
+    }
+
+    /**
+     * Cuenta los bytes leídos, para saber dónde termina la cabecera
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.memoripy.utils;
+
+import com.example.memoripy.models.Card;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codificación compacta del tablero, común a todos los formatos.
+ *
+ * En un tablero generado por el juego la tarjeta con ID k pertenece a la
+ * pareja k / 2 y cada posición de la lista es su posición en el tablero, así
+ * que basta con guardar:
+ * - el orden: el ID de la tarjeta de cada posición (la permutación del barajado)
+ * - las imágenes: las claves estables usadas y el índice de la de cada pareja
+ * - dos bitsets con las posiciones volteadas y emparejadas
+ *
+ * Las claves se traducen a IDs de recurso una sola vez al decodificar.
+ * Un tablero que no cumple esa estructura no se puede codificar así y se
+ * guarda tarjeta a tarjeta como antes.
+ */
+final class BoardEncoding {
+
+    // Campos de texto en XML y JSON; en TXT son las mismas claves en mayúsculas (PAIR_IMAGES)
+    static final String[] FIELDS = {"order", "images", "pairImages", "flipped", "matched"};
+
+    // Límite de tarjetas al leer, para no reservar memoria por un tamaño dañado
+    private static final int MAX_CARDS = 4096;
+
+    private final int[] order;
+    private final String[] imageKeys;
+    private final int[] pairImages;
+    private final byte[] flippedBits;
+    private final byte[] matchedBits;
+
+    private BoardEncoding(int[] order, String[] imageKeys, int[] pairImages,
+                          byte[] flippedBits, byte[] matchedBits) {
+        this.order = order;
+        this.imageKeys = imageKeys;
+        this.pairImages = pairImages;
+        this.flippedBits = flippedBits;
+        this.matchedBits = matchedBits;
+    }
+
+    /**
+     * Codifica las tarjetas de una partida
+     * @return La codificación, o null si el tablero no tiene la estructura de uno generado por el juego
+     */
+    static BoardEncoding fromCards(List<Card> cards) {
+        int count = cards.size();
+        if (count % 2 != 0) {
+            return null;
+        }
+
+        int[] order = new int[count];
+        int[] pairImageIds = new int[count / 2];
+        boolean[] seen = new boolean[count];
+        byte[] flippedBits = new byte[bitsetLength(count)];
+        byte[] matchedBits = new byte[bitsetLength(count)];
+
+        for (int i = 0; i < count; i++) {
+            Card card = cards.get(i);
+            int id = card.getId();
+            if (card.getPosition() != i || id < 0 || id >= count || seen[id] || card.getPairId() != id / 2 + 1) {
+                return null;
+            }
+            seen[id] = true;
+            order[i] = id;
+
+            // Las dos tarjetas de una pareja tienen que llevar la misma imagen
+            if (id % 2 == 0) {
+                pairImageIds[id / 2] = card.getImageId();
+            }
+            if (card.isFlipped()) {
+                flippedBits[i / 8] |= 1 << (i % 8);
+            }
+            if (card.isMatched()) {
+                matchedBits[i / 8] |= 1 << (i % 8);
+            }
+        }
+        for (Card card : cards) {
+            if (card.getId() % 2 != 0 && card.getImageId() != pairImageIds[card.getId() / 2]) {
+                return null;
+            }
+        }
+
+        // Diccionario de imágenes en el orden en que las usan las parejas
+        List<Integer> imageIds = new ArrayList<>();
+        int[] pairImages = new int[count / 2];
+        for (int pair = 0; pair < pairImages.length; pair++) {
+            int index = imageIds.indexOf(pairImageIds[pair]);
+            if (index < 0) {
+                index = imageIds.size();
+                imageIds.add(pairImageIds[pair]);
+            }
+            pairImages[pair] = index;
+        }
+        String[] imageKeys = new String[imageIds.size()];
+        for (int i = 0; i < imageKeys.length; i++) {
+            imageKeys[i] = CardImages.getKey(imageIds.get(i));
+        }
+
+        return new BoardEncoding(order, imageKeys, pairImages, flippedBits, matchedBits);
+    }
+
+    /**
+     * Reconstruye las tarjetas, en el orden de sus posiciones
+     */
+    List<Card> toCards() {
+        int[] imageIds = new int[imageKeys.length];
+        for (int i = 0; i < imageKeys.length; i++) {
+            imageIds[i] = CardImages.resolve(imageKeys[i]);
+        }
+
+        List<Card> cards = new ArrayList<>(order.length);
+        for (int i = 0; i < order.length; i++) {
+            int pair = order[i] / 2;
+            Card card = new Card(order[i], imageIds[pairImages[pair]], pair + 1, i);
+            card.setFlipped((flippedBits[i / 8] & (1 << (i % 8))) != 0);
+            card.setMatched((matchedBits[i / 8] & (1 << (i % 8))) != 0);
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    /**
+     * Valores de texto de la codificación, en el orden de FIELDS: IDs,
+     * claves e índices separados por comas y los bitsets en hexadecimal
+     */
+    String[] toFields() {
+        return new String[]{joinInts(order), String.join(",", imageKeys), joinInts(pairImages),
+                formatBits(flippedBits), formatBits(matchedBits)};
+    }
+
+    /**
+     * Crea la codificación a partir de sus valores de texto
+     * @param values Valores en el orden de FIELDS (los que falten, null)
+     */
+    static BoardEncoding fromFields(String[] values) throws IOException {
+        try {
+            int[] order = parseInts(values[0]);
+            return validate(order, splitList(values[1]), parseInts(values[2]),
+                    parseBits(values[3], order.length), parseBits(values[4], order.length));
+        } catch (NumberFormatException e) {
+            throw new IOException("Tablero no válido", e);
+        }
+    }
+
+    /**
+     * Escribe la codificación en binario: orden, claves, imagen de cada pareja y bitsets
+     */
+    void write(OutputStream out) throws IOException {
+        BinaryCodec.writeVarInt(out, order.length);
+        for (int id : order) {
+            BinaryCodec.writeVarInt(out, id);
+        }
+        BinaryCodec.writeVarInt(out, imageKeys.length);
+        for (String key : imageKeys) {
+            BinaryCodec.writeString(out, key);
+        }
+        for (int index : pairImages) {
+            BinaryCodec.writeVarInt(out, index);
+        }
+        out.write(flippedBits);
+        out.write(matchedBits);
+    }
+
+    /**
+     * Lee la codificación escrita con {@link #write}
+     */
+    static BoardEncoding read(InputStream in) throws IOException {
+        int count = BinaryCodec.readVarInt(in);
+        if (count < 0 || count > MAX_CARDS || count % 2 != 0) {
+            throw new IOException("Tablero no válido");
+        }
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = BinaryCodec.readVarInt(in);
+        }
+        int keyCount = BinaryCodec.readVarInt(in);
+        if (keyCount < 0 || keyCount > count / 2) {
+            throw new IOException("Tablero no válido");
+        }
+        String[] imageKeys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            imageKeys[i] = BinaryCodec.readString(in);
+        }
+        int[] pairImages = new int[count / 2];
+        for (int i = 0; i < pairImages.length; i++) {
+            pairImages[i] = BinaryCodec.readVarInt(in);
+        }
+        byte[] flippedBits = new byte[bitsetLength(count)];
+        byte[] matchedBits = new byte[bitsetLength(count)];
+        BinaryCodec.readFully(in, flippedBits);
+        BinaryCodec.readFully(in, matchedBits);
+        return validate(order, imageKeys, pairImages, flippedBits, matchedBits);
+    }
+
+    /**
+     * Comprueba que el orden es una permutación y que cada pareja tiene una imagen del diccionario
+     */
+    private static BoardEncoding validate(int[] order, String[] imageKeys, int[] pairImages,
+                                          byte[] flippedBits, byte[] matchedBits) throws IOException {
+        if (order.length % 2 != 0 || pairImages.length != order.length / 2) {
+            throw new IOException("Tablero no válido");
+        }
+        boolean[] seen = new boolean[order.length];
+        for (int id : order) {
+            if (id < 0 || id >= order.length || seen[id]) {
+                throw new IOException("Orden del tablero no válido");
+            }
+            seen[id] = true;
+        }
+        for (int index : pairImages) {
+            if (index < 0 || index >= imageKeys.length) {
+                throw new IOException("Imagen del tablero no válida");
+            }
+        }
+        return new BoardEncoding(order, imageKeys, pairImages, flippedBits, matchedBits);
+    }
+
+    private static int bitsetLength(int count) {
+        return (count + 7) / 8;
+    }
+
+    private static String joinInts(int[] values) {
+        StringBuilder text = new StringBuilder(values.length * 3);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(values[i]);
+        }
+        return text.toString();
+    }
+
+    private static String[] splitList(String text) {
+        return text == null || text.trim().isEmpty() ? new String[0] : text.trim().split(",");
+    }
+
+    private static int[] parseInts(String text) {
+        String[] parts = splitList(text);
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    private static String formatBits(byte[] bits) {
+        StringBuilder text = new StringBuilder(bits.length * 2);
+        for (byte b : bits) {
+            text.append(Character.forDigit((b >> 4) & 0xF, 16));
+            text.append(Character.forDigit(b & 0xF, 16));
+        }
+        return text.toString();
+    }
+
+    private static byte[] parseBits(String text, int count) throws IOException {
+        byte[] bits = new byte[bitsetLength(count)];
+        String hex = text != null ? text.trim() : "";
+        if (hex.length() != bits.length * 2) {
+            throw new IOException("Bitset del tablero no válido");
+        }
+        for (int i = 0; i < bits.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IOException("Bitset del tablero no válido");
+            }
+            bits[i] = (byte) ((high << 4) | low);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.memoripy.utils;
+
+import com.example.memoripy.R;
+import com.example.memoripy.models.Card;
+
+import java.util.List;
+
+/**
+ * Imágenes de las tarjetas y su clave estable.
+ *
+ * Los IDs de R.drawable cambian de una compilación a otra, así que en las
+ * partidas guardadas cada imagen se identifica por el nombre de su recurso
+ * ("imagen3") y se traduce al ID de la compilación actual al cargar.
+ */
+public final class CardImages {
+
+    // El orden decide qué imagen lleva cada pareja
+    private static final int[] RESOURCES = {
+            R.drawable.imagen1,
+            R.drawable.imagen2,
+            R.drawable.imagen3,
+            R.drawable.imagen4,
+            R.drawable.imagen5,
+            R.drawable.imagen6,
+            R.drawable.imagen7,
+            R.drawable.imagen8,
+            R.drawable.imagen9,
+            R.drawable.imagen10,
+            R.drawable.imagen11,
+            R.drawable.imagen12,
+            R.drawable.imagen13,
+            R.drawable.imagen14,
+            R.drawable.imagen15,
+            R.drawable.imagen16
+    };
+
+    // Nombre del recurso de cada imagen, en el mismo orden
+    private static final String[] KEYS = {
+            "imagen1", "imagen2", "imagen3", "imagen4", "imagen5", "imagen6", "imagen7", "imagen8",
+            "imagen9", "imagen10", "imagen11", "imagen12", "imagen13", "imagen14", "imagen15", "imagen16"
+    };
+
+    // Prefijo de las claves de imágenes que no están en la lista: se guarda el ID tal cual
+    private static final String RAW_PREFIX = "#";
+
+    private CardImages() {
+        // Clase de utilidades
+    }
+
+    /**
+     * Imagen de una pareja del tablero
+     * @param pairIndex Índice de la pareja, desde 0
+     */
+    public static int getImageForPair(int pairIndex) {
+        return RESOURCES[pairIndex % RESOURCES.length];
+    }
+
+    /**
+     * Clave estable de una imagen
+     */
+    static String getKey(int imageId) {
+        int index = indexOf(imageId);
+        return index >= 0 ? KEYS[index] : RAW_PREFIX + imageId;
+    }
+
+    /**
+     * ID de recurso de una clave en esta compilación
+     * @return El ID, o 0 si la clave no se conoce
+     */
+    static int resolve(String key) {
+        for (int i = 0; i < KEYS.length; i++) {
+            if (KEYS[i].equals(key)) {
+                return RESOURCES[i];
+            }
+        }
+        if (key.startsWith(RAW_PREFIX)) {
+            try {
+                return Integer.parseInt(key.substring(RAW_PREFIX.length()));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Corrige las tarjetas de partidas antiguas, que guardaban el ID de
+     * R.drawable de la compilación con la que se jugaron. En un tablero
+     * generado por el juego la imagen se deduce siempre de la pareja, porque
+     * un ID antiguo puede coincidir con el de otra imagen de esta compilación;
+     * en cualquier otro tablero solo se corrigen los IDs que ya no son una
+     * imagen conocida.
+     */
+    static void repair(List<Card> cards) {
+        boolean generated = isGeneratedFromPairs(cards);
+        for (Card card : cards) {
+            if (card.getPairId() > 0 && (generated || indexOf(card.getImageId()) < 0)) {
+                card.setImageId(getImageForPair(card.getPairId() - 1));
+            }
+        }
+    }
+
+    /**
+     * Si el tablero tiene la forma de los que genera el juego: la tarjeta con
+     * ID k pertenece a la pareja k / 2 + 1 y las dos tarjetas de cada pareja
+     * comparten imagen
+     */
+    private static boolean isGeneratedFromPairs(List<Card> cards) {
+        if (cards.isEmpty() || cards.size() % 2 != 0) {
+            return false;
+        }
+        int[] images = new int[cards.size() / 2];
+        boolean[] seen = new boolean[cards.size()];
+        for (Card card : cards) {
+            int id = card.getId();
+            if (id < 0 || id >= seen.length || seen[id] || card.getPairId() != id / 2 + 1) {
+                return false;
+            }
+            seen[id] = true;
+            if (id % 2 == 0) {
+                images[id / 2] = card.getImageId();
+            }
+        }
+        for (Card card : cards) {
+            if (card.getImageId() != images[card.getId() / 2]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(int imageId) {
+        for (int i = 0; i < RESOURCES.length; i++) {
+            if (RESOURCES[i] == imageId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+
+import java.io.IOException;
+
+/**
+ * Handler cuyo almacenamiento acumula datos que ya no hacen falta
+ * (registros de diario, páginas libres) y se puede compactar en segundo plano.
+ * Las partidas se leen igual antes y después de compactar.
+ */
+public interface CompactableFileHandler extends FileHandler {
+
+    /**
+     * Reescribe el almacenamiento para que ocupe solo lo necesario
+     * y reconstruye sus índices
+     * @param context Contexto de la aplicación
+     * @return Número de partidas reescritas
+     */
+    int compact(Context context) throws IOException;
+
+    /**
+     * Obtiene lo que ocupa una partida, aunque esté repartida en varios archivos
+     * o dentro de un almacén compartido (en ese caso es una estimación)
+     * @param context Contexto de la aplicación
+     * @param fileName Nombre del archivo de la partida
+     * @return Tamaño en bytes
+     */
+    long getGameSize(Context context, String fileName);
+}
@@ -0,0 +1,19 @@
+package com.example.memoripy.utils;
+
+/**
+ * Handler cuyos archivos se pueden guardar comprimidos.
+ * Los archivos se leen igual estén comprimidos o no.
+ */
+public interface CompressibleFileHandler extends FileHandler {
+
+    /**
+     * Cambia la compresión de los próximos guardados
+     * @param compression SaveCompression.NONE, GZIP o DEFLATE
+     */
+    void setCompression(int compression);
+
+    /**
+     * @return Compresión usada al guardar
+     */
+    int getCompression();
+}
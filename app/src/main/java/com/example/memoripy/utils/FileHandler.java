@@ -4,7 +4,9 @@ import android.content.Context;
 
 import com.example.memoripy.models.GameState;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -43,6 +45,21 @@ public interface FileHandler {
      */
     boolean deleteGame(Context context, String fileName);
 
+    /**
+     * Obtiene el archivo en disco de una partida guardada
+     * @param context Contexto de la aplicación
+     * @param fileName Nombre del archivo
+     * @return Archivo de la partida (puede no existir)
+     */
+    File getGameFile(Context context, String fileName);
+
+    /**
+     * Obtiene el directorio donde se guardan las partidas de este formato
+     * @param context Contexto de la aplicación
+     * @return Directorio de las partidas (puede no existir)
+     */
+    File getSavedGamesDirectory(Context context);
+
     /**
      * Obtiene el contenido de un archivo como texto
      * para visualización
@@ -52,6 +69,16 @@ public interface FileHandler {
      */
     String getFileContent(Context context, String fileName) throws IOException;
 
+    /**
+     * Abre el contenido de un archivo como texto UTF-8 para leerlo por partes,
+     * sin generar el texto completo en memoria. Algunos formatos necesitan
+     * cargar antes la partida entera; cada handler indica lo que lee.
+     * @param context Contexto de la aplicación
+     * @param fileName Nombre del archivo
+     * @return Flujo con el contenido; quien lo abre debe cerrarlo
+     */
+    InputStream openFileContent(Context context, String fileName) throws IOException;
+
     /**
      * Exporta una partida guardada al almacenamiento externo
      * @param context Contexto de la aplicación
@@ -1,15 +1,42 @@
 package com.example.memoripy.utils;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import com.example.memoripy.models.GameState;
+import com.example.memoripy.models.HighScore;
+import com.example.memoripy.models.SavedGame;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Clase principal para gestionar todos los formatos de archivos
@@ -21,16 +48,119 @@ public class FileManager {
     public static final String FORMAT_TXT = "txt";
     public static final String FORMAT_XML = "xml";
     public static final String FORMAT_JSON = "json";
+    public static final String FORMAT_BIN = "bin";
+    public static final String FORMAT_JOURNAL = "jnl";
+    public static final String FORMAT_SQLITE = "sqlite";
+    public static final String FORMAT_PACK = "pack";
+
+    // Formato usado para los guardados automáticos (solo añade los cambios)
+    public static final String AUTOSAVE_FORMAT = FORMAT_JOURNAL;
+
+    // Número máximo de hilos para operaciones de lectura/escritura
+    private static final int IO_THREADS = 2;
+    // Operaciones en espera; con la cola llena se rechazan y se avisa con onError
+    private static final int IO_QUEUE_CAPACITY = 32;
+
+    // Trabajos largos (conversión, mantenimiento, índice del visor), aparte
+    // para que no retrasen los guardados y cargas de la interfaz
+    private static final int BULK_THREADS = 1;
+    private static final int BULK_QUEUE_CAPACITY = 8;
+
+    // Lecturas de partidas que pueden esperar en cola; con la cola llena, quien
+    // las pide (siempre un hilo en segundo plano) espera a que quede sitio
+    private static final int READ_QUEUE_CAPACITY = 64;
+
+    // Antigüedad a partir de la cual un archivo temporal se considera abandonado
+    private static final long TEMP_FILE_MAX_AGE = TimeUnit.HOURS.toMillis(1);
+
+    // Precisión de las fechas de modificación en el peor sistema de archivos (FAT)
+    private static final long MTIME_GRANULARITY_MS = 2000;
 
     private static FileManager instance;
 
     private final Map<String, FileHandler> handlers;
+    private final SavedGameIndex savedGameIndex;
+    private final GameStateCache gameStateCache;
+    private final Leaderboard leaderboard;
+    private final SnapshotHistory snapshotHistory;
+    private final ExecutorService listingExecutor;
+    private final ThreadPoolExecutor ioExecutor;
+    private final ThreadPoolExecutor bulkExecutor;
+    private final ThreadPoolExecutor readExecutor;
+    private final Semaphore readSlots;
+    private final Object writeLock = new Object();
+    // Solo un mantenimiento a la vez, lo lance quien lo lance
+    private final AtomicBoolean maintenanceRunning = new AtomicBoolean();
+    private final Map<SavedGamesListener, ListingTask> activeListings;
+    private final List<SavedGamesObserver> savedGamesObservers = new ArrayList<>();
+    private SavedGamesWatcher savedGamesWatcher;
+    private Handler mainHandler;
+
+    /**
+     * Interface para recibir las partidas guardadas a medida que se encuentran
+     */
+    public interface SavedGamesListener {
+        void onSavedGameFound(SavedGameInfo gameInfo);
+
+        void onSavedGamesLoaded(int count);
+    }
+
+    /**
+     * Interface para recibir en el hilo principal los cambios en las partidas
+     * guardadas mientras se vigilan sus directorios
+     */
+    public interface SavedGamesObserver {
+        void onSavedGameChanged(SavedGameInfo gameInfo);
+
+        void onSavedGameRemoved(String fileName);
+    }
+
+    /**
+     * Interface para recibir en el hilo principal el resultado de una operación asíncrona
+     */
+    public interface FileCallback<T> {
+        void onComplete(T result);
+
+        /**
+         * La operación falló o no se pudo encolar porque hay demasiadas
+         * pendientes. Por defecto se entrega como un resultado null.
+         */
+        default void onError(Exception error) {
+            onComplete(null);
+        }
+    }
 
     private FileManager() {
         handlers = new HashMap<>();
         handlers.put(FORMAT_TXT, new TextFileHandler());
         handlers.put(FORMAT_XML, new XmlFileHandler());
         handlers.put(FORMAT_JSON, new JsonFileHandler());
+        handlers.put(FORMAT_BIN, new BinaryFileHandler());
+        handlers.put(FORMAT_JOURNAL, new JournalFileHandler());
+        handlers.put(FORMAT_SQLITE, new SqliteFileHandler());
+        handlers.put(FORMAT_PACK, new PackFileHandler());
+
+        savedGameIndex = new SavedGameIndex();
+        gameStateCache = new GameStateCache();
+        leaderboard = new Leaderboard();
+        snapshotHistory = new SnapshotHistory();
+        listingExecutor = Executors.newSingleThreadExecutor();
+        activeListings = new HashMap<>();
+        // Con la cola llena se rechaza (AbortPolicy): el trabajo nunca pasa al
+        // hilo que lo pide, que suele ser el principal
+        ioExecutor = new ThreadPoolExecutor(IO_THREADS, IO_THREADS,
+                30, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(IO_QUEUE_CAPACITY));
+        ioExecutor.allowCoreThreadTimeOut(true);
+        bulkExecutor = new ThreadPoolExecutor(BULK_THREADS, BULK_THREADS,
+                30, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(BULK_QUEUE_CAPACITY));
+        bulkExecutor.allowCoreThreadTimeOut(true);
+        // Compartido por todos los listados; uno por núcleo. Nunca hay más
+        // lecturas pedidas que sitios en la cola, así que no se rechaza ninguna
+        int readThreads = Runtime.getRuntime().availableProcessors();
+        readExecutor = new ThreadPoolExecutor(readThreads, readThreads,
+                30, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(READ_QUEUE_CAPACITY));
+        readExecutor.allowCoreThreadTimeOut(true);
+        readSlots = new Semaphore(READ_QUEUE_CAPACITY);
     }
 
     public static synchronized FileManager getInstance() {
@@ -41,28 +171,1168 @@ public class FileManager {
     }
 
     /**
-     * Guarda una partida en el formato especificado
+     * Cambia la compresión con la que se guardan las partidas de un formato.
+     * Por defecto no se comprime: así la exportación copia el archivo tal
+     * cual y el visor lo proyecta en memoria sin descomprimirlo antes.
+     * Los archivos ya guardados se siguen leyendo igual.
+     * @param format Formato de archivo
+     * @param compression SaveCompression.NONE, GZIP o DEFLATE
+     * @return false si el formato no admite compresión
+     */
+    public boolean setCompression(String format, int compression) {
+        FileHandler handler = getHandlerForFormat(format);
+        if (!(handler instanceof CompressibleFileHandler)) {
+            return false;
+        }
+        ((CompressibleFileHandler) handler).setCompression(compression);
+        return true;
+    }
+
+    /**
+     * Obtiene la compresión con la que se guardan las partidas de un formato
+     */
+    public int getCompression(String format) {
+        FileHandler handler = getHandlerForFormat(format);
+        if (handler instanceof CompressibleFileHandler) {
+            return ((CompressibleFileHandler) handler).getCompression();
+        }
+        return SaveCompression.NONE;
+    }
+
+    /**
+     * Guarda una partida en el formato especificado y la añade a su historial
+     */
+    public String saveGame(Context context, GameState gameState, String format) {
+        return saveGame(context, gameState, format, true);
+    }
+
+    /**
+     * @param recordHistory false para los guardados automáticos, que no deben
+     *                      desplazar del historial los puntos guardados por el jugador
+     */
+    private String saveGame(Context context, GameState gameState, String format, boolean recordHistory) {
+        FileHandler handler = getHandlerForFormat(format);
+        if (handler == null) {
+            Log.e(TAG, "Formato no soportado: " + format);
+            return null;
+        }
+
+        try {
+            gameState.setSaveFormat(format);
+            String filePath;
+            synchronized (writeLock) {
+                filePath = handler.saveGame(context, gameState);
+                // Con el mismo bloqueo, para que el mantenimiento no vea el
+                // historial sin la partida
+                if (recordHistory) {
+                    recordSnapshot(context, gameState);
+                }
+            }
+
+            if (gameState.isGameCompleted()) {
+                recordScore(context, gameState);
+            }
+
+            if (handler instanceof IndexedFileHandler) {
+                // No hay archivo que vigilar: se avisa directamente del cambio
+                notifySavedGameChanged(SavedGame.fromGameState(
+                        new File(filePath).getName(), format.toLowerCase(), gameState));
+                return filePath;
+            }
+
+            // Actualizar el catálogo con la cabecera de la partida
+            File file = new File(filePath);
+            gameStateCache.invalidate(file);
+            SavedGame savedGame = SavedGame.fromGameState(file.getName(), format.toLowerCase(), gameState);
+            savedGame.setSize(file.length());
+            savedGame.setLastModified(file.lastModified());
+            savedGameIndex.put(context, savedGame);
+            savedGameIndex.flush(context);
+
+            return filePath;
+        } catch (IOException e) {
+            Log.e(TAG, "Error al guardar la partida", e);
+            return null;
+        }
+    }
+
+    /**
+     * Añade el estado guardado al historial de la partida. Un fallo aquí no
+     * invalida el guardado, que ya está hecho.
+     */
+    private void recordSnapshot(Context context, GameState gameState) {
+        try {
+            snapshotHistory.record(context, gameState);
+        } catch (IOException e) {
+            Log.e(TAG, "Error al guardar el punto en el historial", e);
+        }
+    }
+
+    /**
+     * Puntos guardados de una partida, del más antiguo al más reciente
+     */
+    public List<SnapshotHistory.Entry> getSnapshots(Context context, String gameId) {
+        try {
+            return snapshotHistory.getEntries(context, gameId);
+        } catch (IOException e) {
+            Log.e(TAG, "Error al leer el historial de " + gameId, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Reconstruye un punto guardado de una partida
+     * @return La partida tal como estaba en ese punto, o null si no se puede leer
+     */
+    public GameState loadSnapshot(Context context, String gameId, int index) {
+        try {
+            GameState gameState = snapshotHistory.load(context, gameId, index);
+            repairImages(gameState);
+            return gameState;
+        } catch (IOException e) {
+            Log.e(TAG, "Error al leer el punto " + index + " de " + gameId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Vuelve a un punto guardado: lo guarda como estado actual de la partida.
+     * El propio guardado queda como un punto más del historial.
+     * @return Ruta del archivo guardado, o null si no se ha podido
+     */
+    public String restoreSnapshot(Context context, String gameId, int index, String format) {
+        GameState gameState = loadSnapshot(context, gameId, index);
+        if (gameState == null) {
+            return null;
+        }
+        gameState.setSaveDate(new Date());
+        return saveGame(context, gameState, format);
+    }
+
+    /**
+     * Registra en la tabla de récords la puntuación de un nivel completado
+     * @return true si ha entrado en la tabla
+     */
+    public boolean recordScore(Context context, GameState gameState) {
+        ensureLeaderboardSeeded(context);
+        boolean added = leaderboard.submit(context, HighScore.fromGameState(gameState));
+        leaderboard.flush(context);
+        return added;
+    }
+
+    /**
+     * Obtiene las mejores puntuaciones de un nivel, de la mejor a la peor
+     */
+    public List<HighScore> getTopScores(Context context, int level) {
+        ensureLeaderboardSeeded(context);
+        return leaderboard.getTopScores(context, level);
+    }
+
+    /**
+     * La primera vez crea la tabla de récords con las partidas completadas que
+     * ya estaban guardadas, usando sus cabeceras del catálogo
+     */
+    private void ensureLeaderboardSeeded(Context context) {
+        if (!leaderboard.exists(context)) {
+            SavedGameQuery query = new SavedGameQuery();
+            query.setCompleted(true);
+
+            List<HighScore> highScores = new ArrayList<>();
+            for (SavedGameInfo gameInfo : querySavedGames(context, query)) {
+                SavedGame savedGame = gameInfo.getSavedGame();
+                highScores.add(new HighScore(savedGame.getGameId(), savedGame.getPlayerName(), savedGame.getLevel(),
+                        savedGame.getScore(), savedGame.getTimeElapsed(), savedGame.getSaveDate()));
+            }
+            leaderboard.seed(context, highScores);
+        }
+    }
+
+    /**
+     * Carga una partida desde un archivo
+     */
+    public GameState loadGame(Context context, String fileName) {
+        String format = getFormatFromFileName(fileName);
+        FileHandler handler = getHandlerForFormat(format);
+        if (handler == null) {
+            Log.e(TAG, "Formato no soportado: " + format);
+            return null;
+        }
+
+        try {
+            return readGame(context, handler, fileName);
+        } catch (IOException e) {
+            Log.e(TAG, "Error al cargar la partida", e);
+            return null;
+        }
+    }
+
+    /**
+     * Lee una partida, usando la caché si el archivo no ha cambiado desde la última lectura
+     */
+    private GameState readGame(Context context, FileHandler handler, String fileName) throws IOException {
+        if (handler instanceof IndexedFileHandler) {
+            // Todas sus partidas comparten archivo, así que no se puede validar la caché con él
+            return repairImages(handler.loadGame(context, fileName));
+        }
+
+        File file = handler.getGameFile(context, fileName);
+        GameState gameState = gameStateCache.get(file);
+        if (gameState == null) {
+            gameState = repairImages(handler.loadGame(context, fileName));
+            gameStateCache.put(file, gameState);
+        }
+        return gameState;
+    }
+
+    /**
+     * Las partidas guardadas tarjeta a tarjeta llevan los IDs de imagen de la
+     * compilación en la que se jugaron; se corrigen al leerlas
+     */
+    private static GameState repairImages(GameState gameState) {
+        if (gameState != null && gameState.getCards() != null) {
+            CardImages.repair(gameState.getCards());
+        }
+        return gameState;
+    }
+
+    /**
+     * Caché de partidas leídas, con sus contadores de aciertos y fallos
+     */
+    public GameStateCache getGameStateCache() {
+        return gameStateCache;
+    }
+
+    /**
+     * Obtiene la lista de todas las partidas guardadas en todos los formatos.
+     * Usa el catálogo para no leer las partidas cuyo archivo no ha cambiado;
+     * las que sí hay que leer se leen en paralelo. El orden del resultado no
+     * depende de cuál termine antes.
+     */
+    public List<SavedGameInfo> getAllSavedGames(Context context) {
+        List<SavedGameInfo> allGames = new ArrayList<>();
+        for (SavedGame savedGame : collectSavedGames(context, null)) {
+            if (savedGame != null && savedGame.isValid()) {
+                allGames.add(new SavedGameInfo(savedGame));
+            }
+        }
+        return allGames;
+    }
+
+    /**
+     * Busca las partidas guardadas que cumplen una consulta.
+     * Trabaja sobre las cabeceras del catálogo (y del índice de los formatos
+     * que lo tienen), así que solo se leen las partidas nuevas o modificadas.
+     * @return Las partidas ya filtradas, ordenadas y limitadas
+     */
+    public List<SavedGameInfo> querySavedGames(Context context, SavedGameQuery query) {
+        List<SavedGameInfo> result = new ArrayList<>();
+        for (SavedGame savedGame : query.select(collectSavedGames(context, query))) {
+            result.add(new SavedGameInfo(savedGame));
+        }
+        return result;
+    }
+
+    /**
+     * Obtiene las cabeceras de las partidas de todos los formatos que admite la consulta
+     * @param query Consulta que se pasa a los formatos con índice propio, o null para todas
+     * @return Las cabeceras, incluidas las de los archivos que no se pudieron leer (null o no válidas)
+     */
+    private List<SavedGame> collectSavedGames(final Context context, SavedGameQuery query) {
+        List<SavedGame> savedGames = new ArrayList<>();
+        List<Callable<SavedGame>> reads = new ArrayList<>();
+        List<Integer> readPositions = new ArrayList<>();
+
+        for (Map.Entry<String, FileHandler> entry : handlers.entrySet()) {
+            final String format = entry.getKey();
+            final FileHandler handler = entry.getValue();
+
+            if (query != null && !query.acceptsFormat(format)) {
+                continue;
+            }
+
+            if (handler instanceof IndexedFileHandler) {
+                // Las cabeceras salen directamente del índice del handler
+                IndexedFileHandler indexedHandler = (IndexedFileHandler) handler;
+                savedGames.addAll(query != null ? indexedHandler.querySavedGames(context, query)
+                        : indexedHandler.listSavedGames(context));
+                continue;
+            }
+
+            List<String> fileNames = handler.getSavedGamesList(context);
+            savedGameIndex.retain(context, format, fileNames);
+
+            for (final String fileName : fileNames) {
+                SavedGame savedGame = getCatalogEntry(context, handler, fileName);
+                if (savedGame == null) {
+                    // Archivo nuevo o modificado: se lee después, en paralelo
+                    readPositions.add(savedGames.size());
+                    reads.add(new Callable<SavedGame>() {
+                        @Override
+                        public SavedGame call() {
+                            return indexGame(context, handler, format, fileName);
+                        }
+                    });
+                }
+                savedGames.add(savedGame);
+            }
+        }
+
+        List<SavedGame> readGames = readInParallel(reads);
+        for (int i = 0; i < readGames.size(); i++) {
+            savedGames.set(readPositions.get(i), readGames.get(i));
+        }
+
+        savedGameIndex.flush(context);
+        return savedGames;
+    }
+
+    /**
+     * Ejecuta las lecturas en el pool de lectura compartido. Se llama desde
+     * hilos en segundo plano, que esperan si el pool ya está lleno
+     * @return Los resultados en el mismo orden que las lecturas (null si alguna falló)
+     */
+    private List<SavedGame> readInParallel(List<Callable<SavedGame>> reads) {
+        List<SavedGame> results = new ArrayList<>(reads.size());
+        if (reads.size() <= 1) {
+            // No compensa crear hilos para una sola lectura
+            for (Callable<SavedGame> read : reads) {
+                try {
+                    results.add(read.call());
+                } catch (Exception e) {
+                    Log.e(TAG, "Error al leer la partida", e);
+                    results.add(null);
+                }
+            }
+            return results;
+        }
+
+        List<Future<SavedGame>> futures = new ArrayList<>(reads.size());
+        try {
+            for (Callable<SavedGame> read : reads) {
+                futures.add(readExecutor.submit(withReadSlot(read)));
+            }
+            for (Future<SavedGame> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Error al leer la partida", e);
+                    results.add(null);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.e(TAG, "Lectura de partidas interrumpida", e);
+            for (Future<SavedGame> future : futures) {
+                future.cancel(false);
+            }
+            while (results.size() < reads.size()) {
+                results.add(null);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Reserva un sitio en el pool de lectura para una lectura; si no queda
+     * ninguno, espera a que termine alguna de las que ya están pedidas
+     * @return La lectura, que deja libre su sitio al terminar
+     */
+    private Callable<SavedGame> withReadSlot(final Callable<SavedGame> read) throws InterruptedException {
+        readSlots.acquire();
+        return new Callable<SavedGame>() {
+            @Override
+            public SavedGame call() throws Exception {
+                try {
+                    return read.call();
+                } finally {
+                    readSlots.release();
+                }
+            }
+        };
+    }
+
+    /**
+     * Recorre las partidas guardadas en segundo plano y las entrega una a una
+     * en el hilo principal a medida que se encuentran.
+     * Si el mismo listener ya tiene un recorrido pendiente de empezar, se
+     * reutiliza ese recorrido; si ya ha empezado, se cancela y se lanza uno nuevo.
+     * Al cancelarlo se suelta el listener, así que quien lo lance desde una
+     * Activity debe cancelarlo en onDestroy.
+     */
+    public ListingTask streamSavedGames(Context context, SavedGamesListener listener) {
+        final Context appContext = context.getApplicationContext();
+
+        synchronized (activeListings) {
+            ListingTask current = activeListings.get(listener);
+            if (current != null && !current.isStarted() && !current.isCancelled()) {
+                return current;
+            }
+            if (current != null) {
+                current.cancel();
+            }
+
+            final ListingTask task = new ListingTask(listener, activeListings);
+            activeListings.put(listener, task);
+            listingExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    runListing(appContext, task);
+                }
+            });
+            return task;
+        }
+    }
+
+    private void runListing(final Context context, final ListingTask task) {
+        task.started = true;
+        int count = 0;
+        // Los archivos nuevos o modificados se leen en el pool de lectura y se
+        // entregan según terminan; los del catálogo se entregan sin esperar
+        CompletionService<SavedGame> reads = new ExecutorCompletionService<>(readExecutor);
+        List<Future<SavedGame>> pending = new ArrayList<>();
+
+        try {
+            for (Map.Entry<String, FileHandler> entry : handlers.entrySet()) {
+                String format = entry.getKey();
+                FileHandler handler = entry.getValue();
+
+                if (handler instanceof IndexedFileHandler) {
+                    for (SavedGame savedGame : ((IndexedFileHandler) handler).listSavedGames(context)) {
+                        if (task.isCancelled()) {
+                            return;
+                        }
+                        postSavedGameFound(task, savedGame);
+                        count++;
+                    }
+                    continue;
+                }
+
+                List<String> fileNames = handler.getSavedGamesList(context);
+                savedGameIndex.retain(context, format, fileNames);
+
+                for (final String fileName : fileNames) {
+                    if (task.isCancelled()) {
+                        return;
+                    }
+
+                    SavedGame savedGame = getCatalogEntry(context, handler, fileName);
+                    if (savedGame == null) {
+                        final String fileFormat = format;
+                        final FileHandler fileHandler = handler;
+                        pending.add(reads.submit(withReadSlot(new Callable<SavedGame>() {
+                            @Override
+                            public SavedGame call() {
+                                return indexGame(context, fileHandler, fileFormat, fileName);
+                            }
+                        })));
+                    } else if (savedGame.isValid()) {
+                        postSavedGameFound(task, savedGame);
+                        count++;
+                    }
+                }
+            }
+
+            for (int i = 0; i < pending.size(); i++) {
+                if (task.isCancelled()) {
+                    return;
+                }
+                SavedGame savedGame;
+                try {
+                    savedGame = reads.take().get();
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Error al leer la partida", e);
+                    continue;
+                }
+                if (savedGame.isValid()) {
+                    postSavedGameFound(task, savedGame);
+                    count++;
+                }
+            }
+            pending.clear();
+
+            final int total = count;
+            postToMain(new Runnable() {
+                @Override
+                public void run() {
+                    SavedGamesListener listener = task.listener;
+                    if (!task.isCancelled() && listener != null) {
+                        listener.onSavedGamesLoaded(total);
+                    }
+                    // Terminado: la tarea ya no necesita el listener
+                    task.listener = null;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.e(TAG, "Listado de partidas interrumpido", e);
+        } finally {
+            // Si se canceló, las lecturas que faltan ya no hacen falta
+            for (Future<SavedGame> future : pending) {
+                future.cancel(false);
+            }
+            savedGameIndex.flush(context);
+            task.unregister();
+        }
+    }
+
+    private void postSavedGameFound(final ListingTask task, SavedGame savedGame) {
+        final SavedGameInfo gameInfo = new SavedGameInfo(savedGame);
+        postToMain(new Runnable() {
+            @Override
+            public void run() {
+                SavedGamesListener listener = task.listener;
+                if (!task.isCancelled() && listener != null) {
+                    listener.onSavedGameFound(gameInfo);
+                }
+            }
+        });
+    }
+
+    /**
+     * Empieza a avisar de los cambios en las partidas guardadas.
+     * Mientras haya algún observador se vigilan los directorios de todos los
+     * formatos; cada archivo que cambia se vuelve a leer una sola vez.
+     */
+    public void addSavedGamesObserver(Context context, SavedGamesObserver observer) {
+        final Context appContext = context.getApplicationContext();
+        synchronized (savedGamesObservers) {
+            savedGamesObservers.add(observer);
+            if (savedGamesWatcher != null) {
+                return;
+            }
+
+            Map<String, File> directories = new HashMap<>();
+            for (Map.Entry<String, FileHandler> entry : handlers.entrySet()) {
+                if (entry.getValue() instanceof IndexedFileHandler) {
+                    // Sus cambios se avisan al guardar y eliminar, no hay archivos que vigilar
+                    continue;
+                }
+                directories.put(entry.getKey(), entry.getValue().getSavedGamesDirectory(appContext));
+            }
+            savedGamesWatcher = new SavedGamesWatcher(directories, new SavedGamesWatcher.Callback() {
+                @Override
+                public void onFileChanged(final String format, final String fileName) {
+                    listingExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            refreshSavedGame(appContext, format, fileName);
+                        }
+                    });
+                }
+
+                @Override
+                public void onFileRemoved(final String format, final String fileName) {
+                    listingExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            forgetSavedGame(appContext, format, fileName);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    /**
+     * Deja de avisar de los cambios; sin observadores se dejan de vigilar los directorios
+     */
+    public void removeSavedGamesObserver(SavedGamesObserver observer) {
+        synchronized (savedGamesObservers) {
+            savedGamesObservers.remove(observer);
+            if (savedGamesObservers.isEmpty() && savedGamesWatcher != null) {
+                savedGamesWatcher.stop();
+                savedGamesWatcher = null;
+            }
+        }
+    }
+
+    /**
+     * Actualiza la entrada del catálogo de un archivo que ha cambiado y avisa a los observadores
+     */
+    private void refreshSavedGame(Context context, String format, String fileName) {
+        FileHandler handler = getHandlerForFormat(format);
+        if (!handler.getGameFile(context, fileName).exists()) {
+            // Se eliminó antes de llegar a leerlo
+            forgetSavedGame(context, format, fileName);
+            return;
+        }
+
+        SavedGame savedGame = getIndexedGame(context, handler, format, fileName);
+        savedGameIndex.flush(context);
+        if (!savedGame.isValid()) {
+            notifySavedGameRemoved(fileName);
+            return;
+        }
+
+        notifySavedGameChanged(savedGame);
+    }
+
+    /**
+     * Quita del catálogo un archivo eliminado y avisa a los observadores
+     */
+    private void forgetSavedGame(Context context, String format, String fileName) {
+        gameStateCache.invalidate(getHandlerForFormat(format).getGameFile(context, fileName));
+        savedGameIndex.remove(context, fileName);
+        savedGameIndex.flush(context);
+        notifySavedGameRemoved(fileName);
+    }
+
+    private void notifySavedGameChanged(SavedGame savedGame) {
+        final SavedGameInfo gameInfo = new SavedGameInfo(savedGame);
+        postToMain(new Runnable() {
+            @Override
+            public void run() {
+                for (SavedGamesObserver observer : getSavedGamesObservers()) {
+                    observer.onSavedGameChanged(gameInfo);
+                }
+            }
+        });
+    }
+
+    private void notifySavedGameRemoved(final String fileName) {
+        postToMain(new Runnable() {
+            @Override
+            public void run() {
+                for (SavedGamesObserver observer : getSavedGamesObservers()) {
+                    observer.onSavedGameRemoved(fileName);
+                }
+            }
+        });
+    }
+
+    private List<SavedGamesObserver> getSavedGamesObservers() {
+        synchronized (savedGamesObservers) {
+            return new ArrayList<>(savedGamesObservers);
+        }
+    }
+
+    private void postToMain(Runnable runnable) {
+        synchronized (this) {
+            if (mainHandler == null) {
+                mainHandler = new Handler(Looper.getMainLooper());
+            }
+        }
+        mainHandler.post(runnable);
+    }
+
+    /**
+     * Obtiene la entrada del catálogo de un archivo, leyendo la partida
+     * solo si el archivo es nuevo o ha cambiado desde la última vez
+     */
+    private SavedGame getIndexedGame(Context context, FileHandler handler, String format, String fileName) {
+        SavedGame savedGame = getCatalogEntry(context, handler, fileName);
+        if (savedGame != null) {
+            return savedGame;
+        }
+        return indexGame(context, handler, format, fileName);
+    }
+
+    /**
+     * Obtiene la entrada del catálogo de un archivo si sigue siendo válida
+     * @return La entrada, o null si el archivo es nuevo o ha cambiado
+     */
+    private SavedGame getCatalogEntry(Context context, FileHandler handler, String fileName) {
+        File file = handler.getGameFile(context, fileName);
+        SavedGame savedGame = savedGameIndex.get(context, fileName);
+        if (savedGame != null && savedGame.matches(file.length(), file.lastModified())) {
+            return savedGame;
+        }
+        return null;
+    }
+
+    /**
+     * Lee la partida de un archivo y actualiza su entrada del catálogo.
+     * Se puede llamar desde varios hilos a la vez.
+     */
+    private SavedGame indexGame(Context context, FileHandler handler, String format, String fileName) {
+        File file = handler.getGameFile(context, fileName);
+        long size = file.length();
+        long lastModified = file.lastModified();
+
+        SavedGame savedGame;
+        try {
+            // Para el catálogo basta con la cabecera
+            GameState gameState = handler instanceof HeaderFileHandler
+                    ? ((HeaderFileHandler) handler).loadGameHeader(context, fileName)
+                    : readGame(context, handler, fileName);
+            savedGame = SavedGame.fromGameState(fileName, format, gameState);
+        } catch (IOException | RuntimeException e) {
+            // Se recuerda el error para no volver a leer el archivo hasta que cambie
+            Log.e(TAG, "Error al cargar la información de la partida: " + fileName, e);
+            savedGame = SavedGame.invalid(fileName, format);
+        }
+
+        savedGame.setSize(size);
+        savedGame.setLastModified(lastModified);
+        savedGameIndex.put(context, savedGame);
+        return savedGame;
+    }
+
+    /**
+     * Elimina una partida guardada
+     */
+    public boolean deleteGame(Context context, String fileName) {
+        String format = getFormatFromFileName(fileName);
+        FileHandler handler = getHandlerForFormat(format);
+        if (handler == null) {
+            Log.e(TAG, "Formato no soportado: " + format);
+            return false;
+        }
+
+        boolean deleted;
+        synchronized (writeLock) {
+            deleted = handler.deleteGame(context, fileName);
+        }
+        if (deleted && handler instanceof IndexedFileHandler) {
+            notifySavedGameRemoved(fileName);
+        } else if (deleted) {
+            gameStateCache.invalidate(handler.getGameFile(context, fileName));
+            savedGameIndex.remove(context, fileName);
+            savedGameIndex.flush(context);
+        }
+        return deleted;
+    }
+
+    /**
+     * Obtiene el contenido de un archivo como texto
+     */
+    public String getFileContent(Context context, String fileName) {
+        String format = getFormatFromFileName(fileName);
+        FileHandler handler = getHandlerForFormat(format);
+        if (handler == null) {
+            Log.e(TAG, "Formato no soportado: " + format);
+            return "Formato no soportado";
+        }
+
+        try {
+            return handler.getFileContent(context, fileName);
+        } catch (IOException e) {
+            Log.e(TAG, "Error al leer el contenido del archivo", e);
+            return "Error al leer el archivo: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Lee una parte del contenido de un archivo como texto, sin cargar el archivo completo.
+     * La parte termina en un salto de línea siempre que sea posible.
+     * @param offset Posición en bytes desde la que leer
+     * @param maxBytes Número máximo de bytes a leer
+     * @return La parte leída, o null si hubo un error
+     */
+    public FileContentPage readFileContent(Context context, String fileName, long offset, int maxBytes) {
+        String format = getFormatFromFileName(fileName);
+        FileHandler handler = getHandlerForFormat(format);
+        if (handler == null) {
+            Log.e(TAG, "Formato no soportado: " + format);
+            return null;
+        }
+
+        try (InputStream in = handler.openFileContent(context, fileName)) {
+            // Saltar hasta la posición pedida
+            long skipped = 0;
+            while (skipped < offset) {
+                long count = in.skip(offset - skipped);
+                if (count <= 0) {
+                    if (in.read() < 0) {
+                        return new FileContentPage("", offset, offset, true);
+                    }
+                    count = 1;
+                }
+                skipped += count;
+            }
+
+            byte[] bytes = new byte[maxBytes];
+            int length = 0;
+            while (length < maxBytes) {
+                int read = in.read(bytes, length, maxBytes - length);
+                if (read < 0) {
+                    break;
+                }
+                length += read;
+            }
+            boolean endOfFile = length < maxBytes || in.read() < 0;
+
+            // Cortar en el último salto de línea, o al menos sin partir un carácter
+            int end = length;
+            if (!endOfFile) {
+                int lastLineEnd = -1;
+                for (int i = length - 1; i >= 0; i--) {
+                    if (bytes[i] == '\n') {
+                        lastLineEnd = i + 1;
+                        break;
+                    }
+                }
+                end = lastLineEnd > 0 ? lastLineEnd : utf8Boundary(bytes, length);
+            }
+
+            String text = new String(bytes, 0, end, StandardCharsets.UTF_8);
+            return new FileContentPage(text, offset, offset + end, endOfFile && end == length);
+        } catch (IOException e) {
+            Log.e(TAG, "Error al leer el contenido del archivo", e);
+            return null;
+        }
+    }
+
+    /**
+     * Abre el contenido de un archivo proyectado en memoria para verlo por filas.
+     * Los archivos de texto sin comprimir se proyectan directamente; el resto se
+     * descomprime o se convierte a texto en un archivo temporal de la caché.
+     * @return El archivo abierto, o null si hubo un error
+     */
+    public MappedTextFile openMappedFile(Context context, String fileName) {
+        String format = getFormatFromFileName(fileName);
+        FileHandler handler = getHandlerForFormat(format);
+        if (handler == null) {
+            Log.e(TAG, "Formato no soportado: " + format);
+            return null;
+        }
+
+        try {
+            File file = handler.getGameFile(context, fileName);
+            if (handler instanceof CompressibleFileHandler && !FORMAT_BIN.equals(format)
+                    && SaveCompression.detect(file) == SaveCompression.NONE) {
+                return MappedTextFile.open(file, false);
+            }
+
+            File tempFile = new File(context.getCacheDir(), "viewer_" + fileName + ".txt");
+            try (InputStream in = handler.openFileContent(context, fileName);
+                 OutputStream out = new FileOutputStream(tempFile)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            return MappedTextFile.open(tempFile, true);
+        } catch (IOException e) {
+            Log.e(TAG, "Error al abrir el archivo", e);
+            return null;
+        }
+    }
+
+    /**
+     * Busca el final del último carácter UTF-8 completo en los primeros length bytes
+     */
+    private static int utf8Boundary(byte[] bytes, int length) {
+        int start = length - 1;
+        while (start > 0 && (bytes[start] & 0xC0) == 0x80) {
+            start--;
+        }
+        if (start < 0) {
+            return 0;
+        }
+
+        int lead = bytes[start] & 0xFF;
+        int charLength = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+        return start + charLength <= length ? start + charLength : start;
+    }
+
+    /**
+     * Convierte todas las partidas de un formato de texto a otro.
+     * Cada archivo se convierte en un hilo de un pool del tamaño del número de
+     * núcleos, pasando el documento del lector al escritor sin crear un GameState.
+     * Las partidas que ya existen en el formato de destino no se tocan.
+     * @param fromFormat Formato de origen (txt, xml o json)
+     * @param toFormat Formato de destino (txt, xml o json)
+     * @param deleteSources true para eliminar los archivos originales convertidos
+     * @return Resumen de la conversión, o null si los formatos no son válidos
+     */
+    public MigrationReport migrateSaves(final Context context, final String fromFormat, final String toFormat,
+                                        final boolean deleteSources) {
+        if (!GameEventReader.supports(fromFormat) || !GameEventReader.supports(toFormat)
+                || fromFormat.equals(toFormat)) {
+            Log.e(TAG, "Conversión no soportada: " + fromFormat + " -> " + toFormat);
+            return null;
+        }
+
+        final FileHandler source = getHandlerForFormat(fromFormat);
+        final FileHandler target = getHandlerForFormat(toFormat);
+        final int compression = getCompression(toFormat);
+        List<String> fileNames = source.getSavedGamesList(context);
+
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), fileNames.size()));
+        final MigrationReport report = new MigrationReport(fromFormat, toFormat, threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (final String fileName : fileNames) {
+                futures.add(pool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        migrateSave(context, source, target, fileName, fromFormat, toFormat,
+                                compression, deleteSources, report);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.e(TAG, "Conversión interrumpida", e);
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error en la conversión", e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        report.setElapsedNanos(System.nanoTime() - start);
+        if (deleteSources) {
+            savedGameIndex.flush(context);
+        }
+
+        Log.d(TAG, report.toString());
+        return report;
+    }
+
+    /**
+     * Convierte una partida y la deja en su sitio solo si la conversión fue completa
+     */
+    private void migrateSave(Context context, FileHandler source, FileHandler target, String fileName,
+                             String fromFormat, String toFormat, int compression, boolean deleteSources,
+                             MigrationReport report) {
+        File sourceFile = source.getGameFile(context, fileName);
+        String baseName = fileName.substring(0, fileName.length() - fromFormat.length() - 1);
+        String targetName = baseName + "." + toFormat;
+        File targetFile = target.getGameFile(context, targetName);
+        if (targetFile.exists()) {
+            report.addSkipped();
+            return;
+        }
+
+        File directory = targetFile.getParentFile();
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File tempFile = new File(directory, targetName + ".tmp");
+
+        try {
+            long sourceBytes = sourceFile.length();
+            GameTranscoder.transcode(fromFormat, sourceFile, toFormat, tempFile, compression);
+
+            synchronized (writeLock) {
+                if (targetFile.exists()) {
+                    // Se guardó la partida en el formato de destino mientras se convertía
+                    tempFile.delete();
+                    report.addSkipped();
+                    return;
+                }
+                if (!tempFile.renameTo(targetFile)) {
+                    throw new IOException("No se pudo renombrar " + tempFile.getName());
+                }
+                if (deleteSources && source.deleteGame(context, fileName)) {
+                    gameStateCache.invalidate(sourceFile);
+                    savedGameIndex.remove(context, fileName);
+                }
+            }
+
+            report.addConverted(sourceBytes, targetFile.length());
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Error al convertir " + fileName, e);
+            tempFile.delete();
+            report.addFailure(fileName, e.getMessage());
+        }
+    }
+
+    /**
+     * Mantenimiento de las partidas guardadas: aplica la política de
+     * conservación, pasa los diarios a sus instantáneas, compacta la base de
+     * datos, elimina los temporales que dejaron escrituras interrumpidas y
+     * reconstruye el catálogo.
+     * Pensado para ejecutarse en segundo plano con el dispositivo inactivo o cargando.
+     * @return Resumen con los bytes recuperados y el tiempo empleado, o null
+     *         si ya había otro mantenimiento en marcha
+     */
+    public MaintenanceReport runMaintenance(Context context, RetentionPolicy policy) {
+        return runMaintenance(context, policy, null);
+    }
+
+    /**
+     * Si hay un mantenimiento en marcha
+     */
+    public boolean isMaintenanceRunning() {
+        return maintenanceRunning.get();
+    }
+
+    /**
+     * Como la anterior; si se cancela la tarea se detiene al acabar la fase en curso
+     * @return El resumen, o null si ya había otro mantenimiento en marcha o se ha cancelado
+     */
+    private MaintenanceReport runMaintenance(Context context, RetentionPolicy policy, FileTask task) {
+        if (!maintenanceRunning.compareAndSet(false, true)) {
+            Log.d(TAG, "Ya hay un mantenimiento en marcha");
+            return null;
+        }
+        try {
+            return maintain(context, policy, task);
+        } finally {
+            maintenanceRunning.set(false);
+        }
+    }
+
+    private static boolean isCancelled(FileTask task) {
+        return task != null && task.isCancelled();
+    }
+
+    private MaintenanceReport maintain(Context context, RetentionPolicy policy, FileTask task) {
+        MaintenanceReport report = new MaintenanceReport();
+        long start = System.nanoTime();
+        Set<File> directories = getStorageDirectories(context);
+        long bytesBefore = measureStorage(directories);
+
+        // Temporales huérfanos
+        for (File directory : directories) {
+            report.tempFilesRemoved += removeStaleTempFiles(directory);
+        }
+        if (isCancelled(task)) {
+            return null;
+        }
+
+        // Partidas que sobran según la política; sus récords se conservan
+        ensureLeaderboardSeeded(context);
+        List<SavedGame> savedGames = collectSavedGames(context, null);
+        Map<String, Long> sizes = new HashMap<>();
+        for (SavedGame savedGame : savedGames) {
+            FileHandler handler = savedGame != null ? getHandlerForFormat(savedGame.getFormat()) : null;
+            if (handler instanceof CompactableFileHandler) {
+                sizes.put(savedGame.getFileName(),
+                        ((CompactableFileHandler) handler).getGameSize(context, savedGame.getFileName()));
+            }
+        }
+        for (SavedGame savedGame : policy.selectExpired(savedGames, sizes)) {
+            if (isCancelled(task)) {
+                break;
+            }
+            FileHandler handler = getHandlerForFormat(savedGame.getFormat());
+            boolean deleted;
+            synchronized (writeLock) {
+                deleted = handler.deleteGame(context, savedGame.getFileName());
+            }
+            if (!deleted) {
+                continue;
+            }
+            report.gamesDeleted++;
+            if (handler instanceof IndexedFileHandler) {
+                notifySavedGameRemoved(savedGame.getFileName());
+            } else {
+                gameStateCache.invalidate(handler.getGameFile(context, savedGame.getFileName()));
+                savedGameIndex.remove(context, savedGame.getFileName());
+            }
+        }
+        savedGameIndex.flush(context);
+        if (isCancelled(task)) {
+            return null;
+        }
+
+        // Diarios y base de datos; cada handler se sincroniza con sus propios guardados
+        for (FileHandler handler : handlers.values()) {
+            if (isCancelled(task)) {
+                return null;
+            }
+            if (handler instanceof CompactableFileHandler) {
+                try {
+                    report.gamesCompacted += ((CompactableFileHandler) handler).compact(context);
+                } catch (IOException e) {
+                    Log.e(TAG, "Error al compactar las partidas", e);
+                }
+            }
+        }
+
+        if (isCancelled(task)) {
+            return null;
+        }
+
+        // Volver a leer las partidas compactadas y quitar del catálogo lo que ya no existe
+        long listingStarted = System.currentTimeMillis();
+        List<SavedGame> remaining = collectSavedGames(context, null);
+
+        if (isCancelled(task)) {
+            return null;
+        }
+
+        // Historiales de partidas que ya no están guardadas
+        Set<String> gameIds = new HashSet<>();
+        for (SavedGame savedGame : remaining) {
+            if (savedGame != null) {
+                gameIds.add(savedGame.getGameId());
+            }
+        }
+        // Una partida guardada después de empezar el listado no está en él, pero
+        // su historial ya se ha modificado; se deja un margen por si el sistema
+        // de archivos guarda las fechas con poca precisión
+        long unmodifiedSince = listingStarted - MTIME_GRANULARITY_MS;
+        synchronized (writeLock) {
+            for (String gameId : snapshotHistory.getGameIds(context)) {
+                if (!gameIds.contains(gameId)
+                        && snapshotHistory.deleteIfUnmodifiedSince(context, gameId, unmodifiedSince)) {
+                    report.historiesRemoved++;
+                }
+            }
+        }
+
+        report.bytesBefore = bytesBefore;
+        report.bytesAfter = measureStorage(directories);
+        report.elapsedNanos = System.nanoTime() - start;
+        Log.d(TAG, report.toString());
+        return report;
+    }
+
+    /**
+     * Directorios donde se guardan las partidas, el catálogo y la tabla de récords
+     */
+    private Set<File> getStorageDirectories(Context context) {
+        Set<File> directories = new LinkedHashSet<>();
+        directories.add(context.getFilesDir());
+        for (FileHandler handler : handlers.values()) {
+            directories.add(handler.getSavedGamesDirectory(context));
+        }
+        directories.add(snapshotHistory.getDirectory(context));
+        return directories;
+    }
+
+    private static long measureStorage(Set<File> directories) {
+        long bytes = 0;
+        for (File directory : directories) {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (file.isFile()) {
+                    bytes += file.length();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Elimina los ".tmp" que llevan un tiempo sin tocarse: los que se están
+     * escribiendo ahora mismo (una conversión, por ejemplo) son recientes
+     * @return Número de archivos eliminados
      */
-    public String saveGame(Context context, GameState gameState, String format) {
-        FileHandler handler = getHandlerForFormat(format);
-        if (handler == null) {
-            Log.e(TAG, "Formato no soportado: " + format);
-            return null;
-        }
-
-        try {
-            gameState.setSaveFormat(format);
-            return handler.saveGame(context, gameState);
-        } catch (IOException e) {
-            Log.e(TAG, "Error al guardar la partida", e);
-            return null;
+    private static int removeStaleTempFiles(File directory) {
+        final long limit = System.currentTimeMillis() - TEMP_FILE_MAX_AGE;
+        File[] files = directory.listFiles(file -> file.isFile() && file.getName().endsWith(".tmp")
+                && file.lastModified() < limit);
+        int removed = 0;
+        if (files != null) {
+            for (File file : files) {
+                if (file.delete()) {
+                    removed++;
+                }
+            }
         }
+        return removed;
     }
 
     /**
-     * Carga una partida desde un archivo
+     * Exporta una partida guardada
      */
-    public GameState loadGame(Context context, String fileName) {
+    public String exportGame(Context context, String fileName) {
         String format = getFormatFromFileName(fileName);
         FileHandler handler = getHandlerForFormat(format);
         if (handler == null) {
@@ -71,88 +1341,368 @@ public class FileManager {
         }
 
         try {
-            return handler.loadGame(context, fileName);
+            return handler.exportGame(context, fileName);
         } catch (IOException e) {
-            Log.e(TAG, "Error al cargar la partida", e);
+            Log.e(TAG, "Error al exportar la partida", e);
             return null;
         }
     }
 
     /**
-     * Obtiene la lista de todas las partidas guardadas en todos los formatos
+     * Guarda una partida en segundo plano.
+     * El estado se copia antes de guardarlo para que la partida pueda seguir
+     * modificándose en el hilo principal mientras se escribe el archivo.
+     * Cancelar la tarea solo evita que se entregue el resultado.
      */
-    public List<SavedGameInfo> getAllSavedGames(Context context) {
-        List<SavedGameInfo> allGames = new ArrayList<>();
+    public FileTask saveGameAsync(Context context, GameState gameState, final String format,
+                                  FileCallback<String> callback) {
+        final Context appContext = context.getApplicationContext();
+        final GameState snapshot = gameState.copy();
+        return submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return saveGame(appContext, snapshot, format);
+            }
+        }, callback, false);
+    }
 
-        for (Map.Entry<String, FileHandler> entry : handlers.entrySet()) {
-            String format = entry.getKey();
-            FileHandler handler = entry.getValue();
+    /**
+     * Guardado automático en segundo plano, en AUTOSAVE_FORMAT. Como
+     * saveGameAsync, pero sin añadir un punto al historial de la partida.
+     */
+    public FileTask autoSaveGameAsync(Context context, GameState gameState, FileCallback<String> callback) {
+        final Context appContext = context.getApplicationContext();
+        final GameState snapshot = gameState.copy();
+        return submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return saveGame(appContext, snapshot, AUTOSAVE_FORMAT, false);
+            }
+        }, callback, false);
+    }
 
-            List<String> fileNames = handler.getSavedGamesList(context);
-            for (String fileName : fileNames) {
-                try {
-                    GameState gameState = handler.loadGame(context, fileName);
-                    SavedGameInfo info = new SavedGameInfo(fileName, format, gameState);
-                    allGames.add(info);
-                } catch (IOException e) {
-                    Log.e(TAG, "Error al cargar la información de la partida: " + fileName, e);
-                }
+    /**
+     * Carga una partida en segundo plano
+     */
+    public FileTask loadGameAsync(Context context, final String fileName, FileCallback<GameState> callback) {
+        final Context appContext = context.getApplicationContext();
+        return submit(new Callable<GameState>() {
+            @Override
+            public GameState call() {
+                return loadGame(appContext, fileName);
             }
-        }
+        }, callback, true);
+    }
 
-        return allGames;
+    /**
+     * Elimina una partida en segundo plano.
+     * Cancelar la tarea solo evita que se entregue el resultado.
+     */
+    public FileTask deleteGameAsync(Context context, final String fileName, FileCallback<Boolean> callback) {
+        final Context appContext = context.getApplicationContext();
+        return submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return deleteGame(appContext, fileName);
+            }
+        }, callback, false);
     }
 
     /**
-     * Elimina una partida guardada
+     * Obtiene el contenido de un archivo en segundo plano
      */
-    public boolean deleteGame(Context context, String fileName) {
-        String format = getFormatFromFileName(fileName);
-        FileHandler handler = getHandlerForFormat(format);
-        if (handler == null) {
-            Log.e(TAG, "Formato no soportado: " + format);
-            return false;
-        }
+    public FileTask getFileContentAsync(Context context, final String fileName, FileCallback<String> callback) {
+        final Context appContext = context.getApplicationContext();
+        return submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return getFileContent(appContext, fileName);
+            }
+        }, callback, true);
+    }
 
-        return handler.deleteGame(context, fileName);
+    /**
+     * Lee una parte del contenido de un archivo en segundo plano
+     */
+    public FileTask readFileContentAsync(Context context, final String fileName, final long offset,
+                                         final int maxBytes, FileCallback<FileContentPage> callback) {
+        final Context appContext = context.getApplicationContext();
+        return submit(new Callable<FileContentPage>() {
+            @Override
+            public FileContentPage call() {
+                return readFileContent(appContext, fileName, offset, maxBytes);
+            }
+        }, callback, true);
     }
 
     /**
-     * Obtiene el contenido de un archivo como texto
+     * Abre un archivo proyectado en memoria en segundo plano
      */
-    public String getFileContent(Context context, String fileName) {
-        String format = getFormatFromFileName(fileName);
-        FileHandler handler = getHandlerForFormat(format);
-        if (handler == null) {
-            Log.e(TAG, "Formato no soportado: " + format);
-            return "Formato no soportado";
-        }
+    public FileTask openMappedFileAsync(Context context, final String fileName,
+                                        FileCallback<MappedTextFile> callback) {
+        final Context appContext = context.getApplicationContext();
+        return submit(new Callable<MappedTextFile>() {
+            @Override
+            public MappedTextFile call() {
+                return openMappedFile(appContext, fileName);
+            }
+        }, callback, true);
+    }
+
+    /**
+     * Construye en segundo plano el índice de filas de un archivo proyectado.
+     * El progreso se entrega en el hilo principal mientras no se cancele la tarea.
+     */
+    public FileTask indexMappedFileAsync(final MappedTextFile file, final MappedTextFile.IndexListener listener) {
+        final FileTask task = new FileTask();
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                file.buildIndex(new MappedTextFile.IndexListener() {
+                    @Override
+                    public void onRowsIndexed(final int rowCount, final boolean complete) {
+                        postToMain(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (!task.isCancelled()) {
+                                    listener.onRowsIndexed(rowCount, complete);
+                                }
+                            }
+                        });
+                    }
+                });
+            }
+        };
 
         try {
-            return handler.getFileContent(context, fileName);
-        } catch (IOException e) {
-            Log.e(TAG, "Error al leer el contenido del archivo", e);
-            return "Error al leer el archivo: " + e.getMessage();
+            task.setFuture(bulkExecutor.submit(runnable));
+        } catch (final RejectedExecutionException e) {
+            Log.w(TAG, "Demasiados trabajos pendientes, no se indexa el archivo", e);
+            postToMain(new Runnable() {
+                @Override
+                public void run() {
+                    if (!task.isCancelled()) {
+                        listener.onIndexError(e);
+                    }
+                }
+            });
         }
+        return task;
     }
 
     /**
-     * Exporta una partida guardada
+     * Busca un texto en un archivo proyectado en segundo plano
+     * @param from Posición desde la que buscar
      */
-    public String exportGame(Context context, String fileName) {
-        String format = getFormatFromFileName(fileName);
-        FileHandler handler = getHandlerForFormat(format);
-        if (handler == null) {
-            Log.e(TAG, "Formato no soportado: " + format);
-            return null;
-        }
+    public FileTask findInFileAsync(final MappedTextFile file, final String query, final long from,
+                                    FileCallback<Long> callback) {
+        return submit(new Callable<Long>() {
+            @Override
+            public Long call() {
+                return file.find(query, from);
+            }
+        }, callback, true);
+    }
+
+    /**
+     * Lee en segundo plano la siguiente página de hijos de un nodo del árbol de una partida
+     * @return Los hijos, o null si el archivo no tiene una estructura válida
+     */
+    public FileTask readSaveTreeChildrenAsync(final SaveTree tree, final SaveTree.Node node,
+                                              FileCallback<List<SaveTree.Node>> callback) {
+        return submit(new Callable<List<SaveTree.Node>>() {
+            @Override
+            public List<SaveTree.Node> call() throws IOException {
+                return tree.readChildren(node);
+            }
+        }, callback, true);
+    }
+
+    /**
+     * Convierte todas las partidas de un formato a otro en segundo plano.
+     * Cancelar la tarea solo evita que se entregue el resultado.
+     */
+    public FileTask migrateSavesAsync(Context context, final String fromFormat, final String toFormat,
+                                      final boolean deleteSources, FileCallback<MigrationReport> callback) {
+        final Context appContext = context.getApplicationContext();
+        return submit(new Callable<MigrationReport>() {
+            @Override
+            public MigrationReport call() {
+                return migrateSaves(appContext, fromFormat, toFormat, deleteSources);
+            }
+        }, bulkExecutor, callback, false);
+    }
+
+    /**
+     * Ejecuta el mantenimiento de las partidas en segundo plano.
+     * Cancelar la tarea lo detiene al acabar la fase en curso y no se entrega el resultado.
+     */
+    public FileTask runMaintenanceAsync(Context context, final RetentionPolicy policy,
+                                        FileCallback<MaintenanceReport> callback) {
+        final Context appContext = context.getApplicationContext();
+        final FileTask task = new FileTask();
+        return submit(task, new Callable<MaintenanceReport>() {
+            @Override
+            public MaintenanceReport call() {
+                return runMaintenance(appContext, policy, task);
+            }
+        }, bulkExecutor, callback, false);
+    }
+
+    /**
+     * Registra en segundo plano la puntuación de un nivel completado.
+     * Se copia el estado antes de volver, así que se puede seguir modificando.
+     */
+    public FileTask recordScoreAsync(Context context, GameState gameState, FileCallback<Boolean> callback) {
+        final Context appContext = context.getApplicationContext();
+        final GameState snapshot = gameState.copy();
+        return submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return recordScore(appContext, snapshot);
+            }
+        }, callback, false);
+    }
+
+    /**
+     * Obtiene en segundo plano los puntos guardados de una partida
+     */
+    public FileTask getSnapshotsAsync(Context context, final String gameId,
+                                      FileCallback<List<SnapshotHistory.Entry>> callback) {
+        final Context appContext = context.getApplicationContext();
+        return submit(new Callable<List<SnapshotHistory.Entry>>() {
+            @Override
+            public List<SnapshotHistory.Entry> call() {
+                return getSnapshots(appContext, gameId);
+            }
+        }, callback, true);
+    }
+
+    /**
+     * Vuelve en segundo plano a un punto guardado de una partida
+     */
+    public FileTask restoreSnapshotAsync(Context context, final String gameId, final int index,
+                                         final String format, FileCallback<String> callback) {
+        final Context appContext = context.getApplicationContext();
+        return submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return restoreSnapshot(appContext, gameId, index, format);
+            }
+        }, callback, false);
+    }
+
+    /**
+     * Obtiene en segundo plano las mejores puntuaciones de un nivel
+     */
+    public FileTask getTopScoresAsync(Context context, final int level, FileCallback<List<HighScore>> callback) {
+        final Context appContext = context.getApplicationContext();
+        return submit(new Callable<List<HighScore>>() {
+            @Override
+            public List<HighScore> call() {
+                return getTopScores(appContext, level);
+            }
+        }, callback, true);
+    }
+
+    /**
+     * Busca las partidas guardadas que cumplen una consulta en segundo plano
+     */
+    public FileTask querySavedGamesAsync(Context context, final SavedGameQuery query,
+                                         FileCallback<List<SavedGameInfo>> callback) {
+        final Context appContext = context.getApplicationContext();
+        return submit(new Callable<List<SavedGameInfo>>() {
+            @Override
+            public List<SavedGameInfo> call() {
+                return querySavedGames(appContext, query);
+            }
+        }, callback, true);
+    }
+
+    /**
+     * Exporta una partida en segundo plano.
+     * Cancelar la tarea solo evita que se entregue el resultado.
+     */
+    public FileTask exportGameAsync(Context context, final String fileName, FileCallback<String> callback) {
+        final Context appContext = context.getApplicationContext();
+        return submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return exportGame(appContext, fileName);
+            }
+        }, callback, false);
+    }
+
+    /**
+     * Ejecuta una operación en el executor de E/S y entrega su resultado en el hilo principal.
+     * Las operaciones canceladas antes de empezar solo se omiten si son de solo lectura.
+     */
+    private <T> FileTask submit(Callable<T> work, FileCallback<T> callback, boolean skipIfCancelled) {
+        return submit(work, ioExecutor, callback, skipIfCancelled);
+    }
+
+    /**
+     * Como la anterior, en el pool indicado. Si el pool tiene la cola llena la
+     * operación no se hace y se avisa con onError, nunca se ejecuta en el hilo que la pide.
+     */
+    private <T> FileTask submit(Callable<T> work, ExecutorService executor, FileCallback<T> callback,
+                                boolean skipIfCancelled) {
+        return submit(new FileTask(), work, executor, callback, skipIfCancelled);
+    }
+
+    /**
+     * Como la anterior, con una tarea creada de antemano para que la
+     * operación pueda consultar si se ha cancelado
+     */
+    private <T> FileTask submit(final FileTask task, final Callable<T> work, ExecutorService executor,
+                                final FileCallback<T> callback, final boolean skipIfCancelled) {
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                if (skipIfCancelled && task.isCancelled()) {
+                    return;
+                }
+
+                try {
+                    deliver(task, callback, work.call(), null);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error en la operación de archivos", e);
+                    deliver(task, callback, null, e);
+                }
+            }
+        };
 
         try {
-            return handler.exportGame(context, fileName);
-        } catch (IOException e) {
-            Log.e(TAG, "Error al exportar la partida", e);
-            return null;
+            if (skipIfCancelled) {
+                task.setFuture(executor.submit(runnable));
+            } else {
+                executor.execute(runnable);
+            }
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Demasiadas operaciones de archivos pendientes, se rechaza", e);
+            deliver(task, callback, null, e);
         }
+        return task;
+    }
+
+    /**
+     * Entrega en el hilo principal el resultado, o el error si lo hay
+     */
+    private <T> void deliver(final FileTask task, final FileCallback<T> callback, final T result,
+                             final Exception error) {
+        postToMain(new Runnable() {
+            @Override
+            public void run() {
+                if (task.isCancelled() || callback == null) {
+                    return;
+                }
+                if (error != null) {
+                    callback.onError(error);
+                } else {
+                    callback.onComplete(result);
+                }
+            }
+        });
     }
 
     /**
@@ -172,50 +1722,96 @@ public class FileManager {
             return FORMAT_XML;
         } else if (fileName.endsWith("." + FORMAT_JSON)) {
             return FORMAT_JSON;
+        } else if (fileName.endsWith("." + FORMAT_BIN)) {
+            return FORMAT_BIN;
+        } else if (fileName.endsWith("." + FORMAT_JOURNAL)) {
+            return FORMAT_JOURNAL;
+        } else if (fileName.endsWith("." + FORMAT_SQLITE)) {
+            return FORMAT_SQLITE;
+        } else if (fileName.endsWith("." + FORMAT_PACK)) {
+            return FORMAT_PACK;
         }
         return "";
     }
 
+    /**
+     * Recorrido en curso de las partidas guardadas, permite cancelarlo.
+     * Al cancelarlo suelta el listener sin esperar a que termine el recorrido.
+     */
+    public static class ListingTask extends FileTask {
+        private final Map<SavedGamesListener, ListingTask> listings;
+        private volatile SavedGamesListener listener;
+        private volatile boolean started;
+
+        private ListingTask(SavedGamesListener listener, Map<SavedGamesListener, ListingTask> listings) {
+            this.listener = listener;
+            this.listings = listings;
+        }
+
+        public boolean isStarted() {
+            return started;
+        }
+
+        @Override
+        public void cancel() {
+            super.cancel();
+            unregister();
+            listener = null;
+        }
+
+        /**
+         * Deja de ser el recorrido activo de su listener
+         */
+        private void unregister() {
+            synchronized (listings) {
+                SavedGamesListener current = listener;
+                if (current != null && listings.get(current) == this) {
+                    listings.remove(current);
+                }
+            }
+        }
+    }
+
     /**
      * Clase para almacenar información sobre partidas guardadas
      */
     public static class SavedGameInfo {
-        private final String fileName;
-        private final String format;
-        private final GameState gameState;
+        private final SavedGame savedGame;
+
+        public SavedGameInfo(SavedGame savedGame) {
+            this.savedGame = savedGame;
+        }
 
         public SavedGameInfo(String fileName, String format, GameState gameState) {
-            this.fileName = fileName;
-            this.format = format;
-            this.gameState = gameState;
+            this(SavedGame.fromGameState(fileName, format, gameState));
         }
 
         public String getFileName() {
-            return fileName;
+            return savedGame.getFileName();
         }
 
         public String getFormat() {
-            return format;
+            return savedGame.getFormat();
         }
 
-        public GameState getGameState() {
-            return gameState;
+        public SavedGame getSavedGame() {
+            return savedGame;
         }
 
         /**
          * Obtiene un resumen de la partida guardada
          */
         public String getSummary() {
-            if (gameState == null) {
+            if (!savedGame.isValid()) {
                 return "Error al cargar partida";
             }
 
             StringBuilder summary = new StringBuilder();
-            summary.append("Jugador: ").append(gameState.getPlayerName()).append("\n");
-            summary.append("Nivel: ").append(gameState.getLevel()).append("\n");
-            summary.append("Puntuación: ").append(gameState.getScore()).append("\n");
-            summary.append("Fecha: ").append(gameState.getSaveDate()).append("\n");
-            summary.append("Formato: ").append(format.toUpperCase());
+            summary.append("Jugador: ").append(savedGame.getPlayerName()).append("\n");
+            summary.append("Nivel: ").append(savedGame.getLevel()).append("\n");
+            summary.append("Puntuación: ").append(savedGame.getScore()).append("\n");
+            summary.append("Fecha: ").append(savedGame.getSaveDateAsDate()).append("\n");
+            summary.append("Formato: ").append(savedGame.getFormat().toUpperCase());
 
             return summary.toString();
         }
@@ -224,17 +1820,203 @@ public class FileManager {
          * Obtiene un nombre descriptivo para mostrar en la lista
          */
         public String getDisplayName() {
-            if (gameState == null) {
-                return fileName;
+            if (!savedGame.isValid()) {
+                return savedGame.getFileName();
             }
 
-            String playerName = gameState.getPlayerName();
+            String playerName = savedGame.getPlayerName();
             if (playerName == null || playerName.isEmpty()) {
                 playerName = "Anónimo";
             }
 
-            return playerName + " - Nivel " + gameState.getLevel() +
-                    " - " + gameState.getSaveDate() + " [." + format + "]";
+            return playerName + " - Nivel " + savedGame.getLevel() +
+                    " - " + savedGame.getSaveDateAsDate() + " [." + savedGame.getFormat() + "]";
+        }
+    }
+
+    /**
+     * Parte del contenido de un archivo leída con readFileContent
+     */
+    public static class FileContentPage {
+        private final String text;
+        private final long offset;
+        private final long nextOffset;
+        private final boolean endOfFile;
+
+        public FileContentPage(String text, long offset, long nextOffset, boolean endOfFile) {
+            this.text = text;
+            this.offset = offset;
+            this.nextOffset = nextOffset;
+            this.endOfFile = endOfFile;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Posición en bytes desde la que leer la siguiente parte
+         */
+        public long getNextOffset() {
+            return nextOffset;
+        }
+
+        public boolean isEndOfFile() {
+            return endOfFile;
+        }
+    }
+
+    /**
+     * Resultado de una conversión de partidas entre formatos
+     */
+    public static class MigrationReport {
+        private final String fromFormat;
+        private final String toFormat;
+        private final int threads;
+        private final List<String> failures = new ArrayList<>();
+        private int converted;
+        private int skipped;
+        private long bytesRead;
+        private long bytesWritten;
+        private long elapsedNanos;
+
+        MigrationReport(String fromFormat, String toFormat, int threads) {
+            this.fromFormat = fromFormat;
+            this.toFormat = toFormat;
+            this.threads = threads;
+        }
+
+        synchronized void addConverted(long sourceBytes, long targetBytes) {
+            converted++;
+            bytesRead += sourceBytes;
+            bytesWritten += targetBytes;
+        }
+
+        synchronized void addSkipped() {
+            skipped++;
+        }
+
+        synchronized void addFailure(String fileName, String message) {
+            failures.add(fileName + ": " + message);
+        }
+
+        synchronized void setElapsedNanos(long elapsedNanos) {
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public synchronized int getConverted() {
+            return converted;
+        }
+
+        public synchronized int getSkipped() {
+            return skipped;
+        }
+
+        public synchronized int getFailed() {
+            return failures.size();
+        }
+
+        /**
+         * Archivos que no se pudieron convertir, con el motivo
+         */
+        public synchronized List<String> getFailures() {
+            return new ArrayList<>(failures);
+        }
+
+        public synchronized long getBytesRead() {
+            return bytesRead;
+        }
+
+        public synchronized long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        public synchronized long getElapsedMillis() {
+            return elapsedNanos / 1000000;
+        }
+
+        /**
+         * Partidas convertidas por segundo
+         */
+        public synchronized double getFilesPerSecond() {
+            return elapsedNanos > 0 ? converted * 1e9 / elapsedNanos : 0;
+        }
+
+        /**
+         * MB leídos por segundo
+         */
+        public synchronized double getMegabytesPerSecond() {
+            return elapsedNanos > 0 ? bytesRead / (1024.0 * 1024.0) * 1e9 / elapsedNanos : 0;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format(Locale.US,
+                    "Conversión %s -> %s: %d convertidas, %d omitidas, %d con error en %d ms "
+                            + "(%d hilos, %.1f partidas/s, %.2f MB/s, %d -> %d bytes)",
+                    fromFormat, toFormat, converted, skipped, failures.size(), getElapsedMillis(),
+                    threads, getFilesPerSecond(), getMegabytesPerSecond(), bytesRead, bytesWritten);
+        }
+    }
+
+    /**
+     * Resultado del mantenimiento de las partidas guardadas
+     */
+    public static class MaintenanceReport {
+        private int gamesDeleted;
+        private int gamesCompacted;
+        private int tempFilesRemoved;
+        private int historiesRemoved;
+        private long bytesBefore;
+        private long bytesAfter;
+        private long elapsedNanos;
+
+        public int getGamesDeleted() {
+            return gamesDeleted;
+        }
+
+        public int getGamesCompacted() {
+            return gamesCompacted;
+        }
+
+        public int getTempFilesRemoved() {
+            return tempFilesRemoved;
+        }
+
+        public int getHistoriesRemoved() {
+            return historiesRemoved;
+        }
+
+        public long getBytesBefore() {
+            return bytesBefore;
+        }
+
+        public long getBytesAfter() {
+            return bytesAfter;
+        }
+
+        /**
+         * Bytes liberados (negativo si el almacenamiento creció mientras tanto)
+         */
+        public long getBytesReclaimed() {
+            return bytesBefore - bytesAfter;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1000000;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "Mantenimiento: %d partidas eliminadas, %d compactadas, %d temporales eliminados, "
+                            + "%d historiales eliminados, %d bytes recuperados (%d -> %d) en %d ms",
+                    gamesDeleted, gamesCompacted, tempFilesRemoved, historiesRemoved, getBytesReclaimed(),
+                    bytesBefore, bytesAfter, getElapsedMillis());
         }
     }
-}
\ No newline at end of file
+}
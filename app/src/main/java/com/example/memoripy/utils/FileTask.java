@@ -0,0 +1,36 @@
+package com.example.memoripy.utils;
+
+import java.util.concurrent.Future;
+
+/**
+ * Operación de archivos en segundo plano que se puede cancelar.
+ * Al cancelarla, su resultado ya no se entrega en el hilo principal;
+ * las lecturas que aún no han empezado tampoco llegan a ejecutarse.
+ */
+public class FileTask {
+
+    private volatile boolean cancelled;
+    private volatile Future<?> future;
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancela la operación
+     */
+    public void cancel() {
+        cancelled = true;
+        Future<?> current = future;
+        if (current != null) {
+            current.cancel(false);
+        }
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+        if (cancelled) {
+            future.cancel(false);
+        }
+    }
+}
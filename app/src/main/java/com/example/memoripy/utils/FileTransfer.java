@@ -0,0 +1,45 @@
+package com.example.memoripy.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Copia de archivos entre canales, sin pasar los datos por el heap.
+ * El archivo de destino queda con exactamente los mismos bytes que el original.
+ */
+final class FileTransfer {
+
+    private FileTransfer() {
+        // Clase de utilidades
+    }
+
+    /**
+     * Copia un archivo completo
+     * @param source Archivo original
+     * @param dest Archivo de destino (se sobrescribe)
+     */
+    static void copy(File source, File dest) throws IOException {
+        try (FileInputStream in = new FileInputStream(source);
+             FileOutputStream out = new FileOutputStream(dest)) {
+            FileChannel sourceChannel = in.getChannel();
+            FileChannel destChannel = out.getChannel();
+
+            // transferTo puede copiar menos bytes de los pedidos
+            long size = sourceChannel.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = sourceChannel.transferTo(position, size - position, destChannel);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            if (position < size) {
+                throw new IOException("Copia incompleta: " + position + " de " + size + " bytes");
+            }
+        }
+    }
+}
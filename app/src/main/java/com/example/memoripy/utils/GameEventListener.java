@@ -0,0 +1,35 @@
+package com.example.memoripy.utils;
+
+import java.io.IOException;
+
+/**
+ * Recibe el contenido de una partida guardada como una secuencia de eventos,
+ * sin construir un GameState.
+ *
+ * Los eventos llegan en el orden del documento: primero los datos de la
+ * partida, después las tarjetas, después los movimientos y por último end().
+ */
+interface GameEventListener {
+
+    /**
+     * Un dato de la partida
+     * @param name Nombre del campo como en JSON/XML (playerName, score, saveDate...)
+     * @param value Valor como texto, con el mismo formato que en los archivos
+     */
+    void gameInfo(String name, String value) throws IOException;
+
+    /**
+     * Una tarjeta completa
+     */
+    void card(int id, int imageId, int pairId, int position, boolean flipped, boolean matched) throws IOException;
+
+    /**
+     * Un movimiento del historial
+     */
+    void move(String move) throws IOException;
+
+    /**
+     * Fin de la partida
+     */
+    void end() throws IOException;
+}
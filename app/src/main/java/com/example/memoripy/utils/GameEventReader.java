@@ -0,0 +1,417 @@
+package com.example.memoripy.utils;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Xml;
+
+import com.example.memoripy.models.Card;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lee partidas guardadas en TXT, XML o JSON y las entrega como eventos.
+ * Solo se mantiene en memoria la tarjeta o el movimiento que se está leyendo;
+ * el tablero compacto se decodifica entero porque ocupa unos pocos bytes.
+ */
+final class GameEventReader {
+
+    // Nombres de los campos en TXT y su equivalente en JSON/XML
+    private static final String[][] TEXT_KEYS = {
+            {"PLAYER_NAME", "playerName"},
+            {"SCORE", "score"},
+            {"TIME_ELAPSED", "timeElapsed"},
+            {"LEVEL", "level"},
+            {"GAME_ID", "gameId"},
+            {"SAVE_DATE", "saveDate"},
+            {"GAME_COMPLETED", "gameCompleted"},
+            {"SOUND_ENABLED", "soundEnabled"},
+            {"THEME_NAME", "themeName"},
+            {"SAVE_FORMAT", "saveFormat"}
+    };
+
+    private GameEventReader() {
+        // Clase de utilidades
+    }
+
+    /**
+     * Indica si se pueden leer como eventos los archivos de un formato
+     */
+    static boolean supports(String format) {
+        return FileManager.FORMAT_TXT.equals(format)
+                || FileManager.FORMAT_XML.equals(format)
+                || FileManager.FORMAT_JSON.equals(format);
+    }
+
+    /**
+     * Lee una partida y la entrega al listener
+     * @param format Formato del archivo (txt, xml o json)
+     * @param in Contenido sin comprimir
+     */
+    static void read(String format, InputStream in, GameEventListener listener) throws IOException {
+        switch (format) {
+            case FileManager.FORMAT_TXT:
+                readText(in, listener);
+                break;
+            case FileManager.FORMAT_XML:
+                readXml(in, listener);
+                break;
+            case FileManager.FORMAT_JSON:
+                readJson(in, listener);
+                break;
+            default:
+                throw new IOException("Formato no soportado: " + format);
+        }
+    }
+
+    /**
+     * Lee el formato TXT con las mismas reglas que TextFileHandler
+     */
+    private static void readText(InputStream in, GameEventListener listener) throws IOException {
+        TextLineScanner scanner = new TextLineScanner(in);
+        String section = null;
+
+        // Tarjeta en curso
+        boolean hasCard = false;
+        int id = 0;
+        int imageId = 0;
+        int pairId = 0;
+        int position = 0;
+        boolean flipped = false;
+        boolean matched = false;
+
+        // Tablero compacto en curso
+        String[] board = null;
+
+        while (scanner.nextLine()) {
+            // Ignorar líneas de comentario o vacías
+            if (scanner.startsWith('#') || scanner.isBlank()) {
+                continue;
+            }
+
+            // Detectar secciones
+            if (scanner.startsWith('[') && scanner.endsWith(']')) {
+                if (hasCard) {
+                    listener.card(id, imageId, pairId, position, flipped, matched);
+                    hasCard = false;
+                }
+                if (board != null) {
+                    emitCards(BoardEncoding.fromFields(board).toCards(), listener);
+                    board = null;
+                }
+                section = scanner.lineAsString();
+                if ("[BOARD]".equals(section)) {
+                    board = new String[BoardEncoding.FIELDS.length];
+                }
+                continue;
+            }
+
+            if ("[GAME_INFO]".equals(section)) {
+                if (!scanner.splitKeyValue()) {
+                    continue;
+                }
+                for (String[] key : TEXT_KEYS) {
+                    if (scanner.keyEquals(key[0])) {
+                        listener.gameInfo(key[1], scanner.valueAsString());
+                        break;
+                    }
+                }
+            } else if ("[CARDS]".equals(section)) {
+                if (scanner.lineEquals("---")) {
+                    if (hasCard) {
+                        listener.card(id, imageId, pairId, position, flipped, matched);
+                        hasCard = false;
+                    }
+                    continue;
+                }
+
+                if (!hasCard) {
+                    hasCard = true;
+                    id = 0;
+                    imageId = 0;
+                    pairId = 0;
+                    position = 0;
+                    flipped = false;
+                    matched = false;
+                }
+
+                if (!scanner.splitKeyValue()) {
+                    continue;
+                }
+                if (scanner.keyEquals("CARD_ID")) {
+                    id = scanner.valueAsInt();
+                } else if (scanner.keyEquals("IMAGE_ID")) {
+                    imageId = scanner.valueAsInt();
+                } else if (scanner.keyEquals("PAIR_ID")) {
+                    pairId = scanner.valueAsInt();
+                } else if (scanner.keyEquals("POSITION")) {
+                    position = scanner.valueAsInt();
+                } else if (scanner.keyEquals("FLIPPED")) {
+                    flipped = scanner.valueAsBoolean();
+                } else if (scanner.keyEquals("MATCHED")) {
+                    matched = scanner.valueAsBoolean();
+                }
+            } else if ("[BOARD]".equals(section)) {
+                if (!scanner.splitKeyValue()) {
+                    continue;
+                }
+                for (int i = 0; i < TextFileHandler.BOARD_KEYS.length; i++) {
+                    if (scanner.keyEquals(TextFileHandler.BOARD_KEYS[i])) {
+                        board[i] = scanner.valueAsString();
+                        break;
+                    }
+                }
+            } else if ("[MOVE_HISTORY]".equals(section)) {
+                listener.move(scanner.lineAsString());
+            }
+        }
+
+        // Añadir la última tarjeta o el tablero si existen
+        if (hasCard) {
+            listener.card(id, imageId, pairId, position, flipped, matched);
+        }
+        if (board != null) {
+            emitCards(BoardEncoding.fromFields(board).toCards(), listener);
+        }
+        listener.end();
+    }
+
+    /**
+     * Lee el formato XML de XmlFileHandler
+     */
+    private static void readXml(InputStream in, GameEventListener listener) throws IOException {
+        try {
+            XmlPullParser parser = Xml.newPullParser();
+            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+            parser.setInput(in, "UTF-8");
+            parser.nextTag();
+            parser.require(XmlPullParser.START_TAG, "", "gameState");
+
+            while (parser.next() != XmlPullParser.END_DOCUMENT) {
+                if (parser.getEventType() != XmlPullParser.START_TAG) {
+                    continue;
+                }
+
+                String name = parser.getName();
+                if ("gameInfo".equals(name)) {
+                    while (nextChildTag(parser)) {
+                        listener.gameInfo(parser.getName(), readXmlText(parser));
+                    }
+                } else if ("cards".equals(name)) {
+                    while (nextChildTag(parser)) {
+                        if ("card".equals(parser.getName())) {
+                            readXmlCard(parser, listener);
+                        } else {
+                            skipXml(parser);
+                        }
+                    }
+                } else if ("board".equals(name)) {
+                    String[] values = new String[BoardEncoding.FIELDS.length];
+                    while (nextChildTag(parser)) {
+                        int field = Arrays.asList(BoardEncoding.FIELDS).indexOf(parser.getName());
+                        if (field >= 0) {
+                            values[field] = readXmlText(parser);
+                        } else {
+                            skipXml(parser);
+                        }
+                    }
+                    emitCards(BoardEncoding.fromFields(values).toCards(), listener);
+                } else if ("moveHistory".equals(name)) {
+                    while (nextChildTag(parser)) {
+                        if ("move".equals(parser.getName())) {
+                            listener.move(readXmlText(parser));
+                        } else {
+                            skipXml(parser);
+                        }
+                    }
+                } else if (!"gameState".equals(name)) {
+                    skipXml(parser);
+                }
+            }
+        } catch (XmlPullParserException | NumberFormatException e) {
+            throw new IOException("Error parsing XML", e);
+        }
+        listener.end();
+    }
+
+    private static void readXmlCard(XmlPullParser parser, GameEventListener listener)
+            throws XmlPullParserException, IOException {
+        int id = 0;
+        int imageId = 0;
+        int pairId = 0;
+        int position = 0;
+        boolean flipped = false;
+        boolean matched = false;
+
+        while (nextChildTag(parser)) {
+            switch (parser.getName()) {
+                case "id":
+                    id = Integer.parseInt(readXmlText(parser));
+                    break;
+                case "imageId":
+                    imageId = Integer.parseInt(readXmlText(parser));
+                    break;
+                case "pairId":
+                    pairId = Integer.parseInt(readXmlText(parser));
+                    break;
+                case "position":
+                    position = Integer.parseInt(readXmlText(parser));
+                    break;
+                case "flipped":
+                    flipped = Boolean.parseBoolean(readXmlText(parser));
+                    break;
+                case "matched":
+                    matched = Boolean.parseBoolean(readXmlText(parser));
+                    break;
+                default:
+                    skipXml(parser);
+                    break;
+            }
+        }
+        listener.card(id, imageId, pairId, position, flipped, matched);
+    }
+
+    private static void emitCards(List<Card> cards, GameEventListener listener) throws IOException {
+        for (Card card : cards) {
+            listener.card(card.getId(), card.getImageId(), card.getPairId(), card.getPosition(),
+                    card.isFlipped(), card.isMatched());
+        }
+    }
+
+    /**
+     * Avanza a la siguiente etiqueta hija del elemento actual
+     * @return false al llegar al cierre del elemento
+     */
+    private static boolean nextChildTag(XmlPullParser parser) throws XmlPullParserException, IOException {
+        while (true) {
+            int event = parser.next();
+            if (event == XmlPullParser.START_TAG) {
+                return true;
+            }
+            if (event == XmlPullParser.END_TAG || event == XmlPullParser.END_DOCUMENT) {
+                return false;
+            }
+        }
+    }
+
+    private static String readXmlText(XmlPullParser parser) throws XmlPullParserException, IOException {
+        String result = "";
+        if (parser.next() == XmlPullParser.TEXT) {
+            result = parser.getText();
+            parser.nextTag();
+        }
+        return result;
+    }
+
+    private static void skipXml(XmlPullParser parser) throws XmlPullParserException, IOException {
+        int depth = 1;
+        while (depth != 0) {
+            switch (parser.next()) {
+                case XmlPullParser.END_TAG:
+                    depth--;
+                    break;
+                case XmlPullParser.START_TAG:
+                    depth++;
+                    break;
+                case XmlPullParser.END_DOCUMENT:
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Lee el formato JSON de JsonFileHandler
+     */
+    private static void readJson(InputStream in, GameEventListener listener) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("gameInfo")) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String field = reader.nextName();
+                        JsonToken token = reader.peek();
+                        if (token == JsonToken.NULL) {
+                            // JSONObject no guardaba los valores null
+                            reader.nextNull();
+                        } else if (token == JsonToken.BOOLEAN) {
+                            listener.gameInfo(field, String.valueOf(reader.nextBoolean()));
+                        } else if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                            listener.gameInfo(field, reader.nextString());
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                } else if (name.equals("cards")) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readJsonCard(reader, listener);
+                    }
+                    reader.endArray();
+                } else if (name.equals("board")) {
+                    emitCards(JsonFileHandler.readBoard(reader), listener);
+                } else if (name.equals("moveHistory")) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        listener.move(reader.nextString());
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Error parsing JSON", e);
+        }
+        listener.end();
+    }
+
+    private static void readJsonCard(JsonReader reader, GameEventListener listener) throws IOException {
+        int id = 0;
+        int imageId = 0;
+        int pairId = 0;
+        int position = 0;
+        boolean flipped = false;
+        boolean matched = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = reader.nextInt();
+                    break;
+                case "imageId":
+                    imageId = reader.nextInt();
+                    break;
+                case "pairId":
+                    pairId = reader.nextInt();
+                    break;
+                case "position":
+                    position = reader.nextInt();
+                    break;
+                case "flipped":
+                    flipped = reader.nextBoolean();
+                    break;
+                case "matched":
+                    matched = reader.nextBoolean();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        listener.card(id, imageId, pairId, position, flipped, matched);
+    }
+}
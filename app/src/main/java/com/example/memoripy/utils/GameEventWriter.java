@@ -0,0 +1,422 @@
+package com.example.memoripy.utils;
+
+import android.util.JsonWriter;
+import android.util.Xml;
+
+import com.example.memoripy.models.Card;
+
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Escribe en TXT, XML o JSON una partida recibida como eventos.
+ * El resultado tiene la misma estructura que los archivos de los handlers.
+ * Las tarjetas se acumulan hasta el final de su sección para escribir el
+ * tablero con la codificación compacta de {@link BoardEncoding}.
+ *
+ * Las secciones se abren y cierran solas según el evento que llega;
+ * un evento de una sección anterior a la actual es un error.
+ */
+abstract class GameEventWriter implements GameEventListener {
+
+    private static final int SECTION_NONE = 0;
+    private static final int SECTION_GAME_INFO = 1;
+    private static final int SECTION_CARDS = 2;
+    private static final int SECTION_MOVE_HISTORY = 3;
+    private static final int SECTION_END = 4;
+
+    private int section = SECTION_NONE;
+    private final List<Card> cards = new ArrayList<>();
+
+    /**
+     * Crea un escritor para un formato
+     * @param format Formato de destino (txt, xml o json)
+     * @param out Flujo de destino; se cierra al terminar la partida
+     */
+    static GameEventWriter create(String format, OutputStream out) throws IOException {
+        switch (format) {
+            case FileManager.FORMAT_TXT:
+                return new TextWriter(out);
+            case FileManager.FORMAT_XML:
+                return new XmlWriter(out);
+            case FileManager.FORMAT_JSON:
+                return new JsonGameWriter(out);
+            default:
+                throw new IOException("Formato no soportado: " + format);
+        }
+    }
+
+    @Override
+    public final void gameInfo(String name, String value) throws IOException {
+        moveToSection(SECTION_GAME_INFO);
+        writeGameInfo(name, value);
+    }
+
+    @Override
+    public final void card(int id, int imageId, int pairId, int position, boolean flipped, boolean matched)
+            throws IOException {
+        moveToSection(SECTION_CARDS);
+        Card card = new Card(id, imageId, pairId, position);
+        card.setFlipped(flipped);
+        card.setMatched(matched);
+        cards.add(card);
+    }
+
+    @Override
+    public final void move(String move) throws IOException {
+        moveToSection(SECTION_MOVE_HISTORY);
+        writeMove(move);
+    }
+
+    @Override
+    public final void end() throws IOException {
+        moveToSection(SECTION_END);
+    }
+
+    /**
+     * Cierra las secciones hasta llegar a la indicada, abriendo las que falten
+     */
+    private void moveToSection(int target) throws IOException {
+        if (target < section) {
+            throw new IOException("Sección de la partida fuera de orden");
+        }
+        while (section < target) {
+            if (section == SECTION_CARDS) {
+                writeCards();
+            } else if (section != SECTION_NONE) {
+                endSection(section);
+            } else {
+                startDocument();
+            }
+            section++;
+            if (section == SECTION_END) {
+                endDocument();
+            } else if (section != SECTION_CARDS) {
+                startSection(section);
+            }
+        }
+    }
+
+    /**
+     * Escribe las tarjetas acumuladas: el tablero compacto si se puede y si no tarjeta a tarjeta
+     */
+    private void writeCards() throws IOException {
+        BoardEncoding board = BoardEncoding.fromCards(cards);
+        if (board != null) {
+            writeBoard(board.toFields());
+        } else {
+            startSection(SECTION_CARDS);
+            for (Card card : cards) {
+                writeCard(card.getId(), card.getImageId(), card.getPairId(), card.getPosition(),
+                        card.isFlipped(), card.isMatched());
+            }
+            endSection(SECTION_CARDS);
+        }
+        cards.clear();
+    }
+
+    protected abstract void startDocument() throws IOException;
+
+    protected abstract void startSection(int section) throws IOException;
+
+    protected abstract void endSection(int section) throws IOException;
+
+    protected abstract void endDocument() throws IOException;
+
+    protected abstract void writeGameInfo(String name, String value) throws IOException;
+
+    protected abstract void writeCard(int id, int imageId, int pairId, int position,
+                                      boolean flipped, boolean matched) throws IOException;
+
+    /**
+     * Escribe la sección del tablero compacto
+     * @param values Valores en el orden de BoardEncoding.FIELDS
+     */
+    protected abstract void writeBoard(String[] values) throws IOException;
+
+    protected abstract void writeMove(String move) throws IOException;
+
+    /**
+     * Formato TXT de TextFileHandler
+     */
+    private static class TextWriter extends GameEventWriter {
+
+        private final Writer writer;
+
+        TextWriter(OutputStream out) {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        protected void startDocument() throws IOException {
+            writer.write("# MemorIPN Game Save File\n");
+            writer.write("# Format: TXT\n");
+            writer.write("# Date: " + SaveDateFormat.format(new Date()) + "\n\n");
+        }
+
+        @Override
+        protected void startSection(int section) throws IOException {
+            if (section == SECTION_GAME_INFO) {
+                writer.write("[GAME_INFO]\n");
+            } else if (section == SECTION_CARDS) {
+                writer.write("[CARDS]\n");
+            } else {
+                writer.write("[MOVE_HISTORY]\n");
+            }
+        }
+
+        @Override
+        protected void endSection(int section) throws IOException {
+            if (section != SECTION_MOVE_HISTORY) {
+                writer.write("\n");
+            }
+        }
+
+        @Override
+        protected void endDocument() throws IOException {
+            writer.close();
+        }
+
+        @Override
+        protected void writeGameInfo(String name, String value) throws IOException {
+            writer.write(toTextKey(name));
+            writer.write('=');
+            writer.write(value);
+            writer.write('\n');
+        }
+
+        @Override
+        protected void writeCard(int id, int imageId, int pairId, int position,
+                                 boolean flipped, boolean matched) throws IOException {
+            writer.write("CARD_ID=" + id + "\n");
+            writer.write("IMAGE_ID=" + imageId + "\n");
+            writer.write("PAIR_ID=" + pairId + "\n");
+            writer.write("POSITION=" + position + "\n");
+            writer.write("FLIPPED=" + flipped + "\n");
+            writer.write("MATCHED=" + matched + "\n");
+            writer.write("---\n"); // Separador entre tarjetas
+        }
+
+        @Override
+        protected void writeBoard(String[] values) throws IOException {
+            writer.write("[BOARD]\n");
+            for (int i = 0; i < values.length; i++) {
+                writer.write(TextFileHandler.BOARD_KEYS[i]);
+                writer.write('=');
+                writer.write(values[i]);
+                writer.write('\n');
+            }
+            writer.write("\n");
+        }
+
+        @Override
+        protected void writeMove(String move) throws IOException {
+            writer.write(move);
+            writer.write('\n');
+        }
+
+        /**
+         * Convierte "timeElapsed" en "TIME_ELAPSED"
+         */
+        private static String toTextKey(String name) {
+            StringBuilder key = new StringBuilder(name.length() + 4);
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (Character.isUpperCase(c)) {
+                    key.append('_');
+                }
+                key.append(Character.toUpperCase(c));
+            }
+            return key.toString();
+        }
+    }
+
+    /**
+     * Formato XML de XmlFileHandler (sin sangría)
+     */
+    private static class XmlWriter extends GameEventWriter {
+
+        private final OutputStream out;
+        private final XmlSerializer serializer;
+
+        XmlWriter(OutputStream out) throws IOException {
+            this.out = out;
+            serializer = Xml.newSerializer();
+            serializer.setOutput(out, "UTF-8");
+        }
+
+        @Override
+        protected void startDocument() throws IOException {
+            serializer.startDocument("UTF-8", true);
+            serializer.startTag("", "gameState");
+        }
+
+        @Override
+        protected void startSection(int section) throws IOException {
+            serializer.startTag("", sectionTag(section));
+        }
+
+        @Override
+        protected void endSection(int section) throws IOException {
+            serializer.endTag("", sectionTag(section));
+        }
+
+        @Override
+        protected void endDocument() throws IOException {
+            serializer.endTag("", "gameState");
+            serializer.endDocument();
+            out.close();
+        }
+
+        @Override
+        protected void writeGameInfo(String name, String value) throws IOException {
+            serializeTag(name, value);
+        }
+
+        @Override
+        protected void writeCard(int id, int imageId, int pairId, int position,
+                                 boolean flipped, boolean matched) throws IOException {
+            serializer.startTag("", "card");
+            serializeTag("id", String.valueOf(id));
+            serializeTag("imageId", String.valueOf(imageId));
+            serializeTag("pairId", String.valueOf(pairId));
+            serializeTag("position", String.valueOf(position));
+            serializeTag("flipped", String.valueOf(flipped));
+            serializeTag("matched", String.valueOf(matched));
+            serializer.endTag("", "card");
+        }
+
+        @Override
+        protected void writeBoard(String[] values) throws IOException {
+            serializer.startTag("", "board");
+            for (int i = 0; i < values.length; i++) {
+                serializeTag(BoardEncoding.FIELDS[i], values[i]);
+            }
+            serializer.endTag("", "board");
+        }
+
+        @Override
+        protected void writeMove(String move) throws IOException {
+            serializeTag("move", move);
+        }
+
+        private void serializeTag(String tagName, String tagValue) throws IOException {
+            serializer.startTag("", tagName);
+            serializer.text(tagValue != null ? tagValue : "");
+            serializer.endTag("", tagName);
+        }
+
+        private static String sectionTag(int section) {
+            if (section == SECTION_GAME_INFO) {
+                return "gameInfo";
+            } else if (section == SECTION_CARDS) {
+                return "cards";
+            }
+            return "moveHistory";
+        }
+    }
+
+    /**
+     * Formato JSON de JsonFileHandler
+     */
+    private static class JsonGameWriter extends GameEventWriter {
+
+        private final JsonWriter writer;
+
+        JsonGameWriter(OutputStream out) {
+            writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+            writer.setIndent("    ");
+        }
+
+        @Override
+        protected void startDocument() throws IOException {
+            writer.beginObject();
+        }
+
+        @Override
+        protected void startSection(int section) throws IOException {
+            if (section == SECTION_GAME_INFO) {
+                writer.name("gameInfo").beginObject();
+            } else if (section == SECTION_CARDS) {
+                writer.name("cards").beginArray();
+            } else {
+                writer.name("moveHistory").beginArray();
+            }
+        }
+
+        @Override
+        protected void endSection(int section) throws IOException {
+            if (section == SECTION_GAME_INFO) {
+                writer.endObject();
+            } else {
+                writer.endArray();
+            }
+        }
+
+        @Override
+        protected void endDocument() throws IOException {
+            writer.endObject();
+            writer.close();
+        }
+
+        @Override
+        protected void writeGameInfo(String name, String value) throws IOException {
+            writer.name(name);
+            switch (name) {
+                case "score":
+                case "timeElapsed":
+                case "level":
+                    // Los números se escriben tal cual, sin comillas
+                    try {
+                        writer.value(Long.parseLong(value.trim()));
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Valor no numérico en " + name + ": " + value, e);
+                    }
+                    break;
+                case "gameCompleted":
+                case "soundEnabled":
+                    writer.value(Boolean.parseBoolean(value.trim()));
+                    break;
+                default:
+                    writer.value(value);
+                    break;
+            }
+        }
+
+        @Override
+        protected void writeCard(int id, int imageId, int pairId, int position,
+                                 boolean flipped, boolean matched) throws IOException {
+            writer.beginObject();
+            writer.name("id").value(id);
+            writer.name("imageId").value(imageId);
+            writer.name("pairId").value(pairId);
+            writer.name("position").value(position);
+            writer.name("flipped").value(flipped);
+            writer.name("matched").value(matched);
+            writer.endObject();
+        }
+
+        @Override
+        protected void writeBoard(String[] values) throws IOException {
+            writer.name("board").beginObject();
+            for (int i = 0; i < values.length; i++) {
+                writer.name(BoardEncoding.FIELDS[i]).value(values[i]);
+            }
+            writer.endObject();
+        }
+
+        @Override
+        protected void writeMove(String move) throws IOException {
+            writer.value(move);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.memoripy.utils;
+
+import com.example.memoripy.models.GameState;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caché en memoria de partidas ya leídas, para no volver a interpretar un
+ * archivo que no ha cambiado.
+ *
+ * Cada entrada se valida con el tamaño y la fecha de modificación del
+ * archivo. El tamaño de la caché se limita por una estimación de la memoria
+ * que ocupa cada partida (según su número de tarjetas y movimientos); al
+ * superarlo se descartan las partidas usadas hace más tiempo.
+ * Las partidas se copian al guardarlas y al devolverlas, así que quien las
+ * recibe puede modificarlas sin afectar a la caché.
+ */
+public class GameStateCache {
+
+    // Memoria estimada máxima de las partidas en caché
+    private static final long DEFAULT_MAX_WEIGHT = 4 * 1024 * 1024;
+
+    // Estimaciones en bytes de cada parte de una partida
+    private static final int BASE_WEIGHT = 256;
+    private static final int CARD_WEIGHT = 48;
+    private static final int MOVE_WEIGHT = 48;
+
+    private final long maxWeight;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    private static class Entry {
+        final GameState gameState;
+        final long size;
+        final long lastModified;
+        final long weight;
+
+        Entry(GameState gameState, long size, long lastModified, long weight) {
+            this.gameState = gameState;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.weight = weight;
+        }
+    }
+
+    public GameStateCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    public GameStateCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Obtiene una copia de la partida de un archivo si está en caché y el archivo no ha cambiado
+     * @return La partida, o null si no está o ya no es válida
+     */
+    public GameState get(File file) {
+        long size = file.length();
+        long lastModified = file.lastModified();
+        String key = file.getAbsolutePath();
+
+        GameState cached;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                missCount++;
+                return null;
+            }
+            if (entry.size != size || entry.lastModified != lastModified) {
+                // El archivo ha cambiado desde que se leyó
+                entries.remove(key);
+                weight -= entry.weight;
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            cached = entry.gameState;
+        }
+        return cached.copy();
+    }
+
+    /**
+     * Guarda una copia de la partida leída de un archivo
+     */
+    public void put(File file, GameState gameState) {
+        long entryWeight = estimateWeight(gameState);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        Entry entry = new Entry(gameState.copy(), file.length(), file.lastModified(), entryWeight);
+
+        synchronized (this) {
+            Entry previous = entries.put(file.getAbsolutePath(), entry);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += entryWeight;
+            trimToMaxWeight();
+        }
+    }
+
+    /**
+     * Descarta la partida de un archivo (por ejemplo, al sobrescribirlo o eliminarlo)
+     */
+    public synchronized void invalidate(File file) {
+        Entry entry = entries.remove(file.getAbsolutePath());
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    /**
+     * Vacía la caché
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private void trimToMaxWeight() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            weight -= eldest.weight;
+            evictionCount++;
+        }
+    }
+
+    private static long estimateWeight(GameState gameState) {
+        long estimate = BASE_WEIGHT + (long) gameState.getCards().size() * CARD_WEIGHT;
+        List<String> moveHistory = gameState.getMoveHistory();
+        for (String move : moveHistory) {
+            estimate += MOVE_WEIGHT + 2L * move.length();
+        }
+        return estimate;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Número de partidas en caché
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Memoria estimada que ocupan las partidas en caché, en bytes
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+}
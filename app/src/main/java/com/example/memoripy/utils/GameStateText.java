@@ -0,0 +1,189 @@
+package com.example.memoripy.utils;
+
+import com.example.memoripy.models.Card;
+import com.example.memoripy.models.GameState;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Representación legible de una partida para los formatos binarios.
+ *
+ * El texto se genera línea a línea a medida que se lee como flujo UTF-8,
+ * así que no hace falta tener el documento completo en memoria. El
+ * historial de movimientos puede venir de una lista o leerse uno a uno del
+ * archivo codificado, sin cargarlo.
+ */
+final class GameStateText extends InputStream {
+
+
+    private final List<String> headerLines;
+    private final List<Card> cards;
+    private final List<String> moveHistory;
+    // Movimientos aún codificados, si no vienen en moveHistory
+    private final InputStream moveInput;
+    private final int moveCount;
+
+    // Parte del documento que se está generando
+    private int part;
+    private int index;
+
+    // Línea actual codificada y posición de lectura dentro de ella
+    private byte[] line;
+    private int linePosition;
+
+    /**
+     * @param gameState Estado de la partida
+     * @param formatDescription Descripción del formato para la cabecera
+     */
+    GameStateText(GameState gameState, String formatDescription) {
+        this(gameState, formatDescription, null, gameState.getMoveHistory().size());
+    }
+
+    /**
+     * @param gameState Cabecera y tablero de la partida; su historial no se usa
+     * @param formatDescription Descripción del formato para la cabecera
+     * @param moveInput Flujo situado en el primer movimiento codificado con
+     *                  BinaryCodec; se cierra al cerrar este
+     * @param moveCount Número de movimientos del flujo
+     */
+    GameStateText(GameState gameState, String formatDescription, InputStream moveInput, int moveCount) {
+        headerLines = new ArrayList<>();
+        headerLines.add("# MemorIPN Game Save File");
+        headerLines.add("# Format: " + formatDescription);
+        headerLines.add("");
+
+        headerLines.add("[GAME_INFO]");
+        headerLines.add("PLAYER_NAME=" + gameState.getPlayerName());
+        headerLines.add("SCORE=" + gameState.getScore());
+        headerLines.add("TIME_ELAPSED=" + gameState.getTimeElapsed());
+        headerLines.add("LEVEL=" + gameState.getLevel());
+        headerLines.add("GAME_ID=" + gameState.getGameId());
+        headerLines.add("SAVE_DATE=" + SaveDateFormat.format(gameState.getSaveDate()));
+        headerLines.add("GAME_COMPLETED=" + gameState.isGameCompleted());
+        headerLines.add("SOUND_ENABLED=" + gameState.isSoundEnabled());
+        headerLines.add("THEME_NAME=" + gameState.getThemeName());
+        headerLines.add("SAVE_FORMAT=" + gameState.getSaveFormat());
+        headerLines.add("");
+
+        headerLines.add("[CARDS]");
+
+        cards = gameState.getCards();
+        moveHistory = gameState.getMoveHistory();
+        this.moveInput = moveInput;
+        this.moveCount = moveCount;
+    }
+
+    /**
+     * Genera el texto completo de una partida
+     */
+    static String format(GameState gameState, String formatDescription) throws IOException {
+        GameStateText text = new GameStateText(gameState, formatDescription);
+        StringBuilder content = new StringBuilder();
+        String line;
+        while ((line = text.nextLine()) != null) {
+            content.append(line).append("\n");
+        }
+        return content.toString();
+    }
+
+    /**
+     * Genera la siguiente línea del documento (sin salto de línea)
+     * @return La línea, o null si no quedan más
+     */
+    String nextLine() throws IOException {
+        while (true) {
+            switch (part) {
+                case 0:
+                    if (index < headerLines.size()) {
+                        return headerLines.get(index++);
+                    }
+                    break;
+                case 1:
+                    if (index < cards.size()) {
+                        Card card = cards.get(index++);
+                        return "CARD_ID=" + card.getId()
+                                + " IMAGE_ID=" + card.getImageId()
+                                + " PAIR_ID=" + card.getPairId()
+                                + " POSITION=" + card.getPosition()
+                                + " FLIPPED=" + card.isFlipped()
+                                + " MATCHED=" + card.isMatched();
+                    }
+                    break;
+                case 2:
+                    if (index == 0) {
+                        index++;
+                        return "";
+                    }
+                    if (index == 1) {
+                        index++;
+                        return "[MOVE_HISTORY]";
+                    }
+                    break;
+                case 3:
+                    if (index < moveCount) {
+                        index++;
+                        return moveInput != null ? BinaryCodec.readString(moveInput) : moveHistory.get(index - 1);
+                    }
+                    break;
+                default:
+                    return null;
+            }
+
+            // Pasar a la siguiente parte del documento
+            part++;
+            index = 0;
+        }
+    }
+
+    /**
+     * Prepara la siguiente línea para leerla como bytes
+     * @return false si no quedan líneas
+     */
+    private boolean ensureLine() throws IOException {
+        if (line != null && linePosition < line.length) {
+            return true;
+        }
+        String next = nextLine();
+        if (next == null) {
+            return false;
+        }
+        line = (next + "\n").getBytes(StandardCharsets.UTF_8);
+        linePosition = 0;
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureLine()) {
+            return -1;
+        }
+        return line[linePosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+
+        int total = 0;
+        while (total < length && ensureLine()) {
+            int count = Math.min(length - total, line.length - linePosition);
+            System.arraycopy(line, linePosition, buffer, offset + total, count);
+            linePosition += count;
+            total += count;
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (moveInput != null) {
+            moveInput.close();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.memoripy.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Convierte una partida guardada de un formato de texto a otro pasando
+ * los eventos del lector directamente al escritor, sin construir un GameState.
+ */
+final class GameTranscoder {
+
+    private GameTranscoder() {
+        // Clase de utilidades
+    }
+
+    /**
+     * Convierte un archivo de partida
+     * @param fromFormat Formato del archivo original (txt, xml o json)
+     * @param source Archivo original, comprimido o no
+     * @param toFormat Formato de destino (txt, xml o json)
+     * @param dest Archivo de destino
+     * @param compression Compresión del archivo de destino
+     */
+    static void transcode(String fromFormat, File source, final String toFormat, File dest, int compression)
+            throws IOException {
+        try (InputStream in = SaveCompression.openInput(source);
+             OutputStream out = SaveCompression.openOutput(dest, compression)) {
+            final GameEventWriter writer = GameEventWriter.create(toFormat, out);
+
+            GameEventReader.read(fromFormat, in, new GameEventListener() {
+                @Override
+                public void gameInfo(String name, String value) throws IOException {
+                    // El formato guardado en la partida pasa a ser el nuevo
+                    writer.gameInfo(name, "saveFormat".equals(name) ? toFormat : value);
+                }
+
+                @Override
+                public void card(int id, int imageId, int pairId, int position, boolean flipped, boolean matched)
+                        throws IOException {
+                    writer.card(id, imageId, pairId, position, flipped, matched);
+                }
+
+                @Override
+                public void move(String move) throws IOException {
+                    writer.move(move);
+                }
+
+                @Override
+                public void end() throws IOException {
+                    writer.end();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+
+import com.example.memoripy.models.GameState;
+
+import java.io.IOException;
+
+/**
+ * Handler que puede leer solo la cabecera de una partida, para quien no
+ * necesita el tablero ni el historial (listados, catálogo). No hay carga
+ * perezosa: quien necesita el tablero o el historial carga la partida entera
+ * con loadGame. XML y JSON no lo implementan y se leen enteros.
+ */
+public interface HeaderFileHandler extends FileHandler {
+
+    /**
+     * Lee la cabecera de una partida sin interpretar el tablero ni el
+     * historial. Sí comprueba que el resto del archivo mide lo que anota la
+     * cabecera, así que una partida cortada o con bytes de más da error
+     * igual que al cargarla entera. Se compara con el tamaño del archivo, o
+     * con el que anota gzip al final; en las comprimidas con zlib no se
+     * comprueba hasta cargarlas. Las partidas que no anotan esa longitud
+     * (guardadas con versiones anteriores) se leen enteras.
+     * @param context Contexto de la aplicación
+     * @param fileName Nombre del archivo
+     * @return La partida con la cabecera leída; las tarjetas y movimientos solo si se ha leído entera
+     */
+    GameState loadGameHeader(Context context, String fileName) throws IOException;
+}
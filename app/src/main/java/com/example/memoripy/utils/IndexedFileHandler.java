@@ -0,0 +1,28 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+
+import com.example.memoripy.models.SavedGame;
+
+import java.util.List;
+
+/**
+ * FileHandler cuyas partidas no están en un archivo cada una, sino en un
+ * almacén con índice propio. Las partidas se listan y se buscan con
+ * consultas al índice, sin leer cada partida ni usar el catálogo.
+ */
+public interface IndexedFileHandler extends FileHandler {
+
+    /**
+     * Obtiene la cabecera de todas las partidas, de la más reciente a la más antigua
+     * @param context Contexto de la aplicación
+     */
+    List<SavedGame> listSavedGames(Context context);
+
+    /**
+     * Obtiene las cabeceras de las partidas que cumplen una consulta, ya ordenadas
+     * @param context Contexto de la aplicación
+     * @param query Filtros, orden y límite
+     */
+    List<SavedGame> querySavedGames(Context context, SavedGameQuery query);
+}
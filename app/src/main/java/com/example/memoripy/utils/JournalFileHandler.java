@@ -0,0 +1,588 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+import android.os.Environment;
+import android.util.Log;
+
+import com.example.memoripy.models.Card;
+import com.example.memoripy.models.GameState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Implementación con guardado incremental.
+ *
+ * Cada partida se guarda en dos archivos:
+ * - "gameId.jnl.snap": instantánea completa en formato binario, precedida
+ *   del número de secuencia que cubre
+ * - "gameId.jnl": diario de solo escritura al final; cada guardado añade un
+ *   registro con la cabecera, el estado de las tarjetas y solo los
+ *   movimientos nuevos desde el guardado anterior
+ *
+ * Cada registro lleva su longitud y un CRC32, de modo que un registro
+ * incompleto por un cierre inesperado se detecta y se descarta al leer.
+ * Un guardado no termina hasta que su registro está en disco.
+ * Cuando el diario crece más que la instantánea se compacta en una nueva.
+ */
+public class JournalFileHandler implements CompactableFileHandler {
+
+    private static final String TAG = "JournalFileHandler";
+    private static final String FILE_DIRECTORY = "saved_games_journal";
+    private static final String FILE_EXTENSION = ".jnl";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final byte[] JOURNAL_MAGIC = {'M', 'I', 'P', 'J'};
+    private static final byte[] SNAPSHOT_MAGIC = {'M', 'I', 'P', 'S'};
+    private static final int VERSION = 1;
+    private static final int JOURNAL_HEADER_LENGTH = JOURNAL_MAGIC.length + 1;
+
+    // Se compacta al superar este número de registros o cuando el diario ocupa más que la instantánea
+    private static final int MAX_RECORDS_PER_SNAPSHOT = 64;
+    private static final long MIN_JOURNAL_BYTES_TO_COMPACT = 4096;
+
+    private static final int FLAG_GAME_COMPLETED = 1;
+    private static final int FLAG_SOUND_ENABLED = 1 << 1;
+
+    // Estado del diario de cada partida, para saber qué falta por escribir
+    private final Map<String, JournalState> journalStates = new HashMap<>();
+
+    /**
+     * Estado persistido de una partida
+     */
+    private static class JournalState {
+        long sequence;        // Última secuencia escrita (instantánea o registro)
+        int persistedMoves;   // Movimientos ya guardados
+        long movesHash;       // Hash de los movimientos ya guardados
+        long boardHash;       // Hash del tablero de la instantánea, sin volteadas ni emparejadas
+        long journalLength;   // Bytes válidos del diario
+        long snapshotLength;  // Tamaño de la instantánea
+        int records;          // Registros desde la última instantánea
+    }
+
+    @Override
+    public synchronized String saveGame(Context context, GameState gameState) throws IOException {
+        // Asegurar que el directorio existe
+        File directory = new File(context.getFilesDir(), FILE_DIRECTORY);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        String fileName = gameState.getGameId() + FILE_EXTENSION;
+        File journalFile = new File(directory, fileName);
+        File snapshotFile = new File(directory, fileName + SNAPSHOT_SUFFIX);
+
+        JournalState state = journalStates.get(fileName);
+        if (state == null && snapshotFile.exists()) {
+            // Recuperar el estado del diario a partir de los archivos
+            state = new JournalState();
+            try {
+                replay(snapshotFile, journalFile, state);
+            } catch (IOException e) {
+                Log.w(TAG, "No se pudo leer el diario existente, se reescribirá: " + fileName, e);
+                state = null;
+            }
+        }
+
+        if (needsSnapshot(state, gameState)) {
+            state = writeSnapshot(snapshotFile, journalFile, gameState,
+                    state != null ? state.sequence + 1 : 1);
+        } else {
+            appendRecord(journalFile, gameState, state);
+        }
+        journalStates.put(fileName, state);
+
+        return journalFile.getAbsolutePath();
+    }
+
+    /**
+     * Decide si hay que escribir una instantánea completa en lugar de un registro
+     */
+    private boolean needsSnapshot(JournalState state, GameState gameState) {
+        if (state == null || state.journalLength < 0) {
+            return true;
+        }
+        // El historial o el tablero ya no son una continuación del guardado
+        // anterior: una partida restaurada o importada con el mismo gameId
+        List<String> moves = gameState.getMoveHistory();
+        if (moves.size() < state.persistedMoves
+                || hashMoves(0, moves, 0, state.persistedMoves) != state.movesHash
+                || hashBoard(gameState.getCards()) != state.boardHash) {
+            return true;
+        }
+        if (state.records >= MAX_RECORDS_PER_SNAPSHOT) {
+            return true;
+        }
+        return state.journalLength > MIN_JOURNAL_BYTES_TO_COMPACT
+                && state.journalLength > state.snapshotLength;
+    }
+
+    /**
+     * Escribe una instantánea completa y vacía el diario.
+     * La instantánea se escribe primero en un archivo temporal y se renombra,
+     * así un cierre inesperado deja la instantánea anterior o la nueva completa.
+     */
+    private JournalState writeSnapshot(File snapshotFile, File journalFile, GameState gameState,
+                                       long sequence) throws IOException {
+        File tempSnapshot = new File(snapshotFile.getPath() + TEMP_SUFFIX);
+        try (FileOutputStream fos = new FileOutputStream(tempSnapshot)) {
+            OutputStream out = new BufferedOutputStream(fos);
+            out.write(SNAPSHOT_MAGIC);
+            out.write(VERSION);
+            BinaryCodec.writeVarLong(out, sequence);
+            BinaryFileHandler.writeGameState(out, gameState);
+            out.flush();
+            fos.getFD().sync();
+        }
+        if (!tempSnapshot.renameTo(snapshotFile)) {
+            tempSnapshot.delete();
+            throw new IOException("No se pudo reemplazar la instantánea");
+        }
+
+        // Los registros anteriores quedan cubiertos por la instantánea
+        File tempJournal = new File(journalFile.getPath() + TEMP_SUFFIX);
+        try (FileOutputStream fos = new FileOutputStream(tempJournal)) {
+            fos.write(JOURNAL_MAGIC);
+            fos.write(VERSION);
+            fos.getFD().sync();
+        }
+        if (!tempJournal.renameTo(journalFile)) {
+            tempJournal.delete();
+            throw new IOException("No se pudo reiniciar el diario");
+        }
+
+        JournalState state = new JournalState();
+        state.sequence = sequence;
+        state.persistedMoves = gameState.getMoveHistory().size();
+        state.movesHash = hashMoves(0, gameState.getMoveHistory(), 0, state.persistedMoves);
+        state.boardHash = hashBoard(gameState.getCards());
+        state.journalLength = JOURNAL_HEADER_LENGTH;
+        state.snapshotLength = snapshotFile.length();
+        state.records = 0;
+        return state;
+    }
+
+    /**
+     * Añade al diario un registro con los cambios desde el último guardado.
+     * El tamaño del registro depende solo de los movimientos nuevos.
+     */
+    private void appendRecord(File journalFile, GameState gameState, JournalState state) throws IOException {
+        long sequence = state.sequence + 1;
+        List<String> moves = gameState.getMoveHistory();
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        BinaryCodec.writeVarLong(payload, sequence);
+        writeHeader(payload, gameState);
+        BinaryFileHandler.writeCardFlags(payload, gameState.getCards());
+        BinaryCodec.writeVarInt(payload, state.persistedMoves);
+        BinaryCodec.writeVarInt(payload, moves.size() - state.persistedMoves);
+        for (int i = state.persistedMoves; i < moves.size(); i++) {
+            BinaryCodec.writeString(payload, moves.get(i));
+        }
+
+        byte[] payloadBytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payloadBytes, 0, payloadBytes.length);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream(payloadBytes.length + 10);
+        BinaryCodec.writeVarInt(record, payloadBytes.length);
+        record.write(payloadBytes);
+        writeInt(record, (int) crc.getValue());
+
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+            // Descartar cualquier resto de un registro incompleto
+            raf.setLength(state.journalLength);
+            raf.seek(state.journalLength);
+            raf.write(record.toByteArray());
+            raf.getFD().sync();
+        }
+
+        state.sequence = sequence;
+        state.movesHash = hashMoves(state.movesHash, moves, state.persistedMoves, moves.size());
+        state.persistedMoves = moves.size();
+        state.journalLength += record.size();
+        state.records++;
+    }
+
+    @Override
+    public synchronized GameState loadGame(Context context, String fileName) throws IOException {
+        File directory = new File(context.getFilesDir(), FILE_DIRECTORY);
+        File journalFile = new File(directory, fileName);
+        File snapshotFile = new File(directory, fileName + SNAPSHOT_SUFFIX);
+
+        JournalState state = new JournalState();
+        GameState gameState = replay(snapshotFile, journalFile, state);
+        journalStates.put(fileName, state);
+        return gameState;
+    }
+
+    /**
+     * Reconstruye la partida leyendo la instantánea y aplicando los registros del diario.
+     * La lectura se detiene en el primer registro incompleto o dañado.
+     */
+    private GameState replay(File snapshotFile, File journalFile, JournalState state) throws IOException {
+        GameState gameState;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(snapshotFile))) {
+            checkMagic(in, SNAPSHOT_MAGIC, "No es una instantánea de partida");
+            state.sequence = BinaryCodec.readVarLong(in);
+            gameState = BinaryFileHandler.readGameState(in);
+        }
+        state.snapshotLength = snapshotFile.length();
+        state.boardHash = hashBoard(gameState.getCards());
+        state.journalLength = -1; // Sin diario válido hasta leer su cabecera
+        state.records = 0;
+
+        if (journalFile.exists()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(journalFile))) {
+                checkMagic(in, JOURNAL_MAGIC, "No es un diario de partida");
+                state.journalLength = JOURNAL_HEADER_LENGTH;
+                replayRecords(in, journalFile.length(), gameState, state);
+            } catch (IOException e) {
+                // Se conserva lo leído hasta el error; el próximo guardado lo corregirá
+                Log.w(TAG, "Error al leer el diario: " + journalFile.getName(), e);
+            }
+        }
+
+        state.persistedMoves = gameState.getMoveHistory().size();
+        state.movesHash = hashMoves(0, gameState.getMoveHistory(), 0, state.persistedMoves);
+        return gameState;
+    }
+
+    /**
+     * Continúa el hash de los movimientos con los que van de from a to
+     */
+    private static long hashMoves(long hash, List<String> moves, int from, int to) {
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + Objects.hashCode(moves.get(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Hash de lo que un registro no vuelve a escribir de cada tarjeta
+     */
+    private static long hashBoard(List<Card> cards) {
+        long hash = cards.size();
+        for (Card card : cards) {
+            hash = 31 * hash + card.getId();
+            hash = 31 * hash + card.getImageId();
+            hash = 31 * hash + card.getPairId();
+            hash = 31 * hash + card.getPosition();
+        }
+        return hash;
+    }
+
+    private void replayRecords(InputStream in, long maxLength, GameState gameState, JournalState state)
+            throws IOException {
+        while (true) {
+            byte[] payload;
+            int recordLength;
+            try {
+                int length = BinaryCodec.readVarInt(in);
+                if (length < 0 || length > maxLength) {
+                    Log.w(TAG, "Longitud de registro inválida en el diario, se descarta el resto");
+                    return;
+                }
+                payload = new byte[length];
+                BinaryCodec.readFully(in, payload);
+                int expectedCrc = readInt(in);
+
+                CRC32 crc = new CRC32();
+                crc.update(payload, 0, payload.length);
+                if ((int) crc.getValue() != expectedCrc) {
+                    Log.w(TAG, "Registro dañado en el diario, se descarta el resto");
+                    return;
+                }
+                recordLength = varIntLength(length) + length + 4;
+            } catch (EOFException e) {
+                // Fin del diario o registro incompleto al final
+                return;
+            }
+
+            applyRecord(payload, gameState, state);
+            state.journalLength += recordLength;
+            state.records++;
+        }
+    }
+
+    /**
+     * Aplica un registro del diario a la partida
+     */
+    private void applyRecord(byte[] payload, GameState gameState, JournalState state) throws IOException {
+        InputStream in = new ByteArrayInputStream(payload);
+        long sequence = BinaryCodec.readVarLong(in);
+        if (sequence <= state.sequence) {
+            // Registro ya incluido en la instantánea
+            return;
+        }
+
+        readHeader(in, gameState);
+        BinaryFileHandler.readCardFlags(in, gameState.getCards());
+
+        int firstMove = BinaryCodec.readVarInt(in);
+        int moveCount = BinaryCodec.readVarInt(in);
+        List<String> moves = gameState.getMoveHistory();
+        for (int i = 0; i < moveCount; i++) {
+            String move = BinaryCodec.readString(in);
+            if (firstMove + i == moves.size()) {
+                moves.add(move);
+            }
+        }
+        state.sequence = sequence;
+    }
+
+    private void writeHeader(OutputStream out, GameState gameState) throws IOException {
+        BinaryCodec.writeString(out, gameState.getPlayerName());
+        BinaryCodec.writeSignedVarInt(out, gameState.getScore());
+        BinaryCodec.writeVarLong(out, gameState.getTimeElapsed());
+        BinaryCodec.writeSignedVarInt(out, gameState.getLevel());
+        BinaryCodec.writeVarLong(out, gameState.getSaveDate() != null ? gameState.getSaveDate().getTime() : 0);
+        int flags = 0;
+        if (gameState.isGameCompleted()) {
+            flags |= FLAG_GAME_COMPLETED;
+        }
+        if (gameState.isSoundEnabled()) {
+            flags |= FLAG_SOUND_ENABLED;
+        }
+        out.write(flags);
+        BinaryCodec.writeString(out, gameState.getThemeName());
+        BinaryCodec.writeString(out, gameState.getSaveFormat());
+    }
+
+    private void readHeader(InputStream in, GameState gameState) throws IOException {
+        gameState.setPlayerName(BinaryCodec.readString(in));
+        gameState.setScore(BinaryCodec.readSignedVarInt(in));
+        gameState.setTimeElapsed(BinaryCodec.readVarLong(in));
+        gameState.setLevel(BinaryCodec.readSignedVarInt(in));
+        gameState.setSaveDate(new Date(BinaryCodec.readVarLong(in)));
+        int flags = in.read();
+        if (flags < 0) {
+            throw new EOFException("Registro incompleto");
+        }
+        gameState.setGameCompleted((flags & FLAG_GAME_COMPLETED) != 0);
+        gameState.setSoundEnabled((flags & FLAG_SOUND_ENABLED) != 0);
+        gameState.setThemeName(BinaryCodec.readString(in));
+        gameState.setSaveFormat(BinaryCodec.readString(in));
+    }
+
+    private void checkMagic(InputStream in, byte[] magic, String message) throws IOException {
+        byte[] read = new byte[magic.length];
+        BinaryCodec.readFully(in, read);
+        for (int i = 0; i < magic.length; i++) {
+            if (read[i] != magic[i]) {
+                throw new IOException(message);
+            }
+        }
+        int version = in.read();
+        if (version != VERSION) {
+            throw new IOException("Versión de archivo no soportada: " + version);
+        }
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        byte[] bytes = new byte[4];
+        BinaryCodec.readFully(in, bytes);
+        return ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16)
+                | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+    }
+
+    private static int varIntLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Pasa a la instantánea los registros pendientes de todas las partidas.
+     * Un diario sin instantánea no se puede leer y se elimina; una
+     * instantánea sin diario (guardado interrumpido) recupera un diario vacío.
+     */
+    @Override
+    public synchronized int compact(Context context) throws IOException {
+        File directory = new File(context.getFilesDir(), FILE_DIRECTORY);
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+
+        int compacted = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(FILE_EXTENSION)) {
+                File snapshotFile = new File(directory, name + SNAPSHOT_SUFFIX);
+                if (!snapshotFile.exists()) {
+                    Log.w(TAG, "Diario sin instantánea, se elimina: " + name);
+                    journalStates.remove(name);
+                    file.delete();
+                } else if (compactGame(file, snapshotFile)) {
+                    compacted++;
+                }
+            } else if (name.endsWith(FILE_EXTENSION + SNAPSHOT_SUFFIX)) {
+                File journalFile = new File(directory, name.substring(0, name.length() - SNAPSHOT_SUFFIX.length()));
+                if (!journalFile.exists()) {
+                    Log.w(TAG, "Instantánea sin diario, se recupera: " + name);
+                    try (FileOutputStream fos = new FileOutputStream(journalFile)) {
+                        fos.write(JOURNAL_MAGIC);
+                        fos.write(VERSION);
+                        fos.getFD().sync();
+                    }
+                }
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Escribe una instantánea nueva si el diario tiene registros o restos dañados
+     * @return true si se reescribió la partida
+     */
+    private boolean compactGame(File journalFile, File snapshotFile) throws IOException {
+        String fileName = journalFile.getName();
+        JournalState state = new JournalState();
+        GameState gameState;
+        try {
+            gameState = replay(snapshotFile, journalFile, state);
+        } catch (IOException e) {
+            // Sin instantánea legible no hay nada que conservar; la partida se muestra como dañada
+            Log.w(TAG, "No se pudo leer la partida para compactarla: " + fileName, e);
+            return false;
+        }
+
+        if (state.records == 0 && state.journalLength == journalFile.length()) {
+            journalStates.put(fileName, state);
+            return false;
+        }
+        journalStates.put(fileName, writeSnapshot(snapshotFile, journalFile, gameState, state.sequence + 1));
+        return true;
+    }
+
+    /**
+     * La partida ocupa el diario y la instantánea
+     */
+    @Override
+    public long getGameSize(Context context, String fileName) {
+        File directory = new File(context.getFilesDir(), FILE_DIRECTORY);
+        return new File(directory, fileName).length() + new File(directory, fileName + SNAPSHOT_SUFFIX).length();
+    }
+
+    @Override
+    public List<String> getSavedGamesList(Context context) {
+        List<String> fileList = new ArrayList<>();
+        File directory = new File(context.getFilesDir(), FILE_DIRECTORY);
+
+        if (directory.exists()) {
+            File[] files = directory.listFiles(file -> file.isFile() && file.getName().endsWith(FILE_EXTENSION));
+            if (files != null) {
+                for (File file : files) {
+                    fileList.add(file.getName());
+                }
+            }
+        }
+
+        return fileList;
+    }
+
+    @Override
+    public synchronized boolean deleteGame(Context context, String fileName) {
+        File directory = new File(context.getFilesDir(), FILE_DIRECTORY);
+        File journalFile = new File(directory, fileName);
+        File snapshotFile = new File(directory, fileName + SNAPSHOT_SUFFIX);
+        journalStates.remove(fileName);
+
+        boolean deleted = journalFile.exists() && journalFile.delete();
+        snapshotFile.delete();
+        return deleted;
+    }
+
+    /**
+     * El diario cambia con cada guardado, por eso es el archivo que representa la partida
+     */
+    @Override
+    public File getGameFile(Context context, String fileName) {
+        return new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+    }
+
+    @Override
+    public File getSavedGamesDirectory(Context context) {
+        return new File(context.getFilesDir(), FILE_DIRECTORY);
+    }
+
+    @Override
+    public synchronized String getFileContent(Context context, String fileName) throws IOException {
+        File journalFile = getGameFile(context, fileName);
+        GameState gameState = loadGame(context, fileName);
+        JournalState state = journalStates.get(fileName);
+
+        return GameStateText.format(gameState, describe(journalFile, state));
+    }
+
+    /**
+     * La partida se reconstruye entera, porque sus movimientos están repartidos
+     * entre la instantánea y los registros del diario; solo el texto se genera
+     * a medida que se lee
+     */
+    @Override
+    public synchronized InputStream openFileContent(Context context, String fileName) throws IOException {
+        File journalFile = getGameFile(context, fileName);
+        GameState gameState = loadGame(context, fileName);
+        JournalState state = journalStates.get(fileName);
+
+        return new GameStateText(gameState, describe(journalFile, state));
+    }
+
+    private static String describe(File journalFile, JournalState state) {
+        return "JNL (instantánea de " + state.snapshotLength + " bytes + " + state.records
+                + " registros, " + journalFile.length() + " bytes de diario)";
+    }
+
+    /**
+     * Exporta la partida reconstruida como un único archivo binario
+     */
+    @Override
+    public String exportGame(Context context, String fileName) throws IOException {
+        GameState gameState = loadGame(context, fileName);
+        File exportDir = new File(Environment.getExternalStoragePublicDirectory(
+                Environment.DIRECTORY_DOCUMENTS), "MemorIPN");
+
+        if (!exportDir.exists()) {
+            exportDir.mkdirs();
+        }
+
+        String baseName = fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+        File destFile = new File(exportDir, baseName + "." + FileManager.FORMAT_BIN);
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(destFile))) {
+            BinaryFileHandler.writeGameState(out, gameState);
+        }
+
+        return destFile.getAbsolutePath();
+    }
+}
@@ -2,36 +2,49 @@ package com.example.memoripy.utils;
 
 import android.content.Context;
 import android.os.Environment;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
 import android.util.Log;
 
 import com.example.memoripy.models.Card;
 import com.example.memoripy.models.GameState;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Implementación para manejar archivos JSON
  */
-public class JsonFileHandler implements FileHandler {
+public class JsonFileHandler implements CompressibleFileHandler {
 
     private static final String TAG = "JsonFileHandler";
     private static final String FILE_DIRECTORY = "saved_games_json";
     private static final String FILE_EXTENSION = ".json";
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+
+    // Compresión de los próximos guardados; al leer se detecta sola
+    private volatile int compression = SaveCompression.NONE;
+
+    @Override
+    public void setCompression(int compression) {
+        this.compression = compression;
+    }
+
+    @Override
+    public int getCompression() {
+        return compression;
+    }
 
     @Override
     public String saveGame(Context context, GameState gameState) throws IOException {
@@ -45,54 +58,58 @@ public class JsonFileHandler implements FileHandler {
         String fileName = gameState.getGameId() + FILE_EXTENSION;
         File file = new File(directory, fileName);
 
-        try {
-            // Crear objeto JSON principal
-            JSONObject jsonGameState = new JSONObject();
+        // Escribir el JSON directamente en el archivo, sin construir el documento en memoria
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(SaveCompression.openOutput(file, compression), StandardCharsets.UTF_8)))) {
+            writer.setIndent("    "); // Con formato e indentación
+            writer.beginObject();
 
             // Información básica
-            JSONObject gameInfo = new JSONObject();
-            gameInfo.put("playerName", gameState.getPlayerName());
-            gameInfo.put("score", gameState.getScore());
-            gameInfo.put("timeElapsed", gameState.getTimeElapsed());
-            gameInfo.put("level", gameState.getLevel());
-            gameInfo.put("gameId", gameState.getGameId());
-            gameInfo.put("saveDate", DATE_FORMAT.format(gameState.getSaveDate()));
-            gameInfo.put("gameCompleted", gameState.isGameCompleted());
-            gameInfo.put("soundEnabled", gameState.isSoundEnabled());
-            gameInfo.put("themeName", gameState.getThemeName());
-            gameInfo.put("saveFormat", gameState.getSaveFormat());
-            jsonGameState.put("gameInfo", gameInfo);
-
-            // Tarjetas
-            JSONArray jsonCards = new JSONArray();
-            for (Card card : gameState.getCards()) {
-                JSONObject jsonCard = new JSONObject();
-                jsonCard.put("id", card.getId());
-                jsonCard.put("imageId", card.getImageId());
-                jsonCard.put("pairId", card.getPairId());
-                jsonCard.put("position", card.getPosition());
-                jsonCard.put("flipped", card.isFlipped());
-                jsonCard.put("matched", card.isMatched());
-                jsonCards.put(jsonCard);
+            writer.name("gameInfo").beginObject();
+            writeOptionalString(writer, "playerName", gameState.getPlayerName());
+            writer.name("score").value(gameState.getScore());
+            writer.name("timeElapsed").value(gameState.getTimeElapsed());
+            writer.name("level").value(gameState.getLevel());
+            writeOptionalString(writer, "gameId", gameState.getGameId());
+            writer.name("saveDate").value(SaveDateFormat.format(gameState.getSaveDate()));
+            writer.name("gameCompleted").value(gameState.isGameCompleted());
+            writer.name("soundEnabled").value(gameState.isSoundEnabled());
+            writeOptionalString(writer, "themeName", gameState.getThemeName());
+            writeOptionalString(writer, "saveFormat", gameState.getSaveFormat());
+            writer.endObject();
+
+            // Tablero, compacto si se puede y si no tarjeta a tarjeta
+            BoardEncoding board = BoardEncoding.fromCards(gameState.getCards());
+            if (board != null) {
+                writer.name("board").beginObject();
+                String[] values = board.toFields();
+                for (int i = 0; i < BoardEncoding.FIELDS.length; i++) {
+                    writer.name(BoardEncoding.FIELDS[i]).value(values[i]);
+                }
+                writer.endObject();
+            } else {
+                writer.name("cards").beginArray();
+                for (Card card : gameState.getCards()) {
+                    writer.beginObject();
+                    writer.name("id").value(card.getId());
+                    writer.name("imageId").value(card.getImageId());
+                    writer.name("pairId").value(card.getPairId());
+                    writer.name("position").value(card.getPosition());
+                    writer.name("flipped").value(card.isFlipped());
+                    writer.name("matched").value(card.isMatched());
+                    writer.endObject();
+                }
+                writer.endArray();
             }
-            jsonGameState.put("cards", jsonCards);
 
             // Historial de movimientos
-            JSONArray jsonMoves = new JSONArray();
+            writer.name("moveHistory").beginArray();
             for (String move : gameState.getMoveHistory()) {
-                jsonMoves.put(move);
+                writer.value(move);
             }
-            jsonGameState.put("moveHistory", jsonMoves);
+            writer.endArray();
 
-            // Escribir el JSON en el archivo
-            String jsonStr = jsonGameState.toString(4); // Con formato e indentación
-            try (FileOutputStream fos = new FileOutputStream(file)) {
-                fos.write(jsonStr.getBytes());
-            }
-
-        } catch (JSONException e) {
-            Log.e(TAG, "Error creating JSON", e);
-            throw new IOException("Error creating JSON", e);
+            writer.endObject();
         }
 
         return file.getAbsolutePath();
@@ -103,74 +120,203 @@ public class JsonFileHandler implements FileHandler {
         File file = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
         GameState gameState = new GameState();
 
-        try {
-            // Leer archivo
-            StringBuilder content = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    content.append(line);
-                }
-            }
-
-            // Parsear JSON
-            JSONObject jsonGameState = new JSONObject(content.toString());
-
-            // Leer información básica
-            JSONObject gameInfo = jsonGameState.getJSONObject("gameInfo");
-            gameState.setPlayerName(gameInfo.optString("playerName", ""));
-            gameState.setScore(gameInfo.optInt("score", 0));
-            gameState.setTimeElapsed(gameInfo.optLong("timeElapsed", 0));
-            gameState.setLevel(gameInfo.optInt("level", 1));
-            gameState.setGameId(gameInfo.optString("gameId", ""));
-
-            try {
-                String saveDateStr = gameInfo.optString("saveDate", "");
-                if (!saveDateStr.isEmpty()) {
-                    gameState.setSaveDate(DATE_FORMAT.parse(saveDateStr));
+        boolean hasGameInfo = false;
+        boolean hasCards = false;
+        boolean hasMoveHistory = false;
+
+        // Leer el JSON en una sola pasada; solo se mantiene en memoria la tarjeta actual
+        try (JsonReader reader = new JsonReader(new BufferedReader(
+                new InputStreamReader(SaveCompression.openInput(file), StandardCharsets.UTF_8)))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("gameInfo")) {
+                    readGameInfo(reader, gameState);
+                    hasGameInfo = true;
+                } else if (name.equals("cards")) {
+                    gameState.setCards(readCards(reader));
+                    hasCards = true;
+                } else if (name.equals("board")) {
+                    gameState.setCards(readBoard(reader));
+                    hasCards = true;
+                } else if (name.equals("moveHistory")) {
+                    gameState.setMoveHistory(readMoveHistory(reader));
+                    hasMoveHistory = true;
                 } else {
-                    gameState.setSaveDate(new Date());
+                    reader.skipValue();
                 }
-            } catch (ParseException e) {
-                Log.e(TAG, "Error parsing date", e);
-                gameState.setSaveDate(new Date());
             }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            // Un valor con un tipo distinto del esperado
+            Log.e(TAG, "Error parsing JSON", e);
+            throw new IOException("Error parsing JSON", e);
+        }
+
+        if (!hasGameInfo || !hasCards || !hasMoveHistory) {
+            throw new IOException("Error parsing JSON: faltan secciones de la partida");
+        }
+
+        return gameState;
+    }
+
+    /**
+     * Escribe una cadena solo si no es null (igual que JSONObject.put)
+     */
+    private static void writeOptionalString(JsonWriter writer, String name, String value) throws IOException {
+        if (value != null) {
+            writer.name(name).value(value);
+        }
+    }
 
-            gameState.setGameCompleted(gameInfo.optBoolean("gameCompleted", false));
-            gameState.setSoundEnabled(gameInfo.optBoolean("soundEnabled", true));
-            gameState.setThemeName(gameInfo.optString("themeName", "guinda"));
-            gameState.setSaveFormat(gameInfo.optString("saveFormat", "json"));
-
-            // Leer tarjetas
-            JSONArray jsonCards = jsonGameState.getJSONArray("cards");
-            List<Card> cards = new ArrayList<>();
-            for (int i = 0; i < jsonCards.length(); i++) {
-                JSONObject jsonCard = jsonCards.getJSONObject(i);
-                Card card = new Card();
-                card.setId(jsonCard.optInt("id", 0));
-                card.setImageId(jsonCard.optInt("imageId", 0));
-                card.setPairId(jsonCard.optInt("pairId", 0));
-                card.setPosition(jsonCard.optInt("position", 0));
-                card.setFlipped(jsonCard.optBoolean("flipped", false));
-                card.setMatched(jsonCard.optBoolean("matched", false));
-                cards.add(card);
+    /**
+     * Lee una cadena; null se trata como si no estuviera
+     */
+    private static String readOptionalString(JsonReader reader, String defaultValue) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return defaultValue;
+        }
+        return reader.nextString();
+    }
+
+    /**
+     * Lee la información básica de la partida
+     */
+    private static void readGameInfo(JsonReader reader, GameState gameState) throws IOException {
+        // Valores por defecto para los campos que no estén en el archivo
+        gameState.setPlayerName("");
+        gameState.setScore(0);
+        gameState.setTimeElapsed(0);
+        gameState.setLevel(1);
+        gameState.setGameId("");
+        gameState.setSaveDate(new Date());
+        gameState.setGameCompleted(false);
+        gameState.setSoundEnabled(true);
+        gameState.setThemeName("guinda");
+        gameState.setSaveFormat("json");
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "playerName":
+                    gameState.setPlayerName(readOptionalString(reader, ""));
+                    break;
+                case "score":
+                    gameState.setScore(reader.nextInt());
+                    break;
+                case "timeElapsed":
+                    gameState.setTimeElapsed(reader.nextLong());
+                    break;
+                case "level":
+                    gameState.setLevel(reader.nextInt());
+                    break;
+                case "gameId":
+                    gameState.setGameId(readOptionalString(reader, ""));
+                    break;
+                case "saveDate":
+                    String saveDateStr = readOptionalString(reader, "");
+                    if (!saveDateStr.isEmpty()) {
+                        try {
+                            gameState.setSaveDate(SaveDateFormat.parse(saveDateStr));
+                        } catch (ParseException e) {
+                            Log.e(TAG, "Error parsing date", e);
+                        }
+                    }
+                    break;
+                case "gameCompleted":
+                    gameState.setGameCompleted(reader.nextBoolean());
+                    break;
+                case "soundEnabled":
+                    gameState.setSoundEnabled(reader.nextBoolean());
+                    break;
+                case "themeName":
+                    gameState.setThemeName(readOptionalString(reader, "guinda"));
+                    break;
+                case "saveFormat":
+                    gameState.setSaveFormat(readOptionalString(reader, "json"));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
             }
-            gameState.setCards(cards);
+        }
+        reader.endObject();
+    }
 
-            // Leer historial de movimientos
-            JSONArray jsonMoves = jsonGameState.getJSONArray("moveHistory");
-            List<String> moveHistory = new ArrayList<>();
-            for (int i = 0; i < jsonMoves.length(); i++) {
-                moveHistory.add(jsonMoves.getString(i));
+    /**
+     * Lee el array de tarjetas
+     */
+    private static List<Card> readCards(JsonReader reader) throws IOException {
+        List<Card> cards = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Card card = new Card();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "id":
+                        card.setId(reader.nextInt());
+                        break;
+                    case "imageId":
+                        card.setImageId(reader.nextInt());
+                        break;
+                    case "pairId":
+                        card.setPairId(reader.nextInt());
+                        break;
+                    case "position":
+                        card.setPosition(reader.nextInt());
+                        break;
+                    case "flipped":
+                        card.setFlipped(reader.nextBoolean());
+                        break;
+                    case "matched":
+                        card.setMatched(reader.nextBoolean());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
             }
-            gameState.setMoveHistory(moveHistory);
+            reader.endObject();
+            cards.add(card);
+        }
+        reader.endArray();
+        return cards;
+    }
 
-        } catch (JSONException e) {
-            Log.e(TAG, "Error parsing JSON", e);
-            throw new IOException("Error parsing JSON", e);
+    /**
+     * Lee el objeto "board" con el tablero en su codificación compacta.
+     * También lo usa GameEventReader.
+     */
+    static List<Card> readBoard(JsonReader reader) throws IOException {
+        String[] values = new String[BoardEncoding.FIELDS.length];
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = Arrays.asList(BoardEncoding.FIELDS).indexOf(reader.nextName());
+            if (field >= 0) {
+                values[field] = readOptionalString(reader, null);
+            } else {
+                reader.skipValue();
+            }
         }
+        reader.endObject();
+        return BoardEncoding.fromFields(values).toCards();
+    }
 
-        return gameState;
+    /**
+     * Lee el array con el historial de movimientos
+     */
+    private static List<String> readMoveHistory(JsonReader reader) throws IOException {
+        List<String> moveHistory = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            moveHistory.add(reader.nextString());
+        }
+        reader.endArray();
+        return moveHistory;
     }
 
     @Override
@@ -196,12 +342,23 @@ public class JsonFileHandler implements FileHandler {
         return file.exists() && file.delete();
     }
 
+    @Override
+    public File getGameFile(Context context, String fileName) {
+        return new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+    }
+
+    @Override
+    public File getSavedGamesDirectory(Context context) {
+        return new File(context.getFilesDir(), FILE_DIRECTORY);
+    }
+
     @Override
     public String getFileContent(Context context, String fileName) throws IOException {
         File file = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
         StringBuilder content = new StringBuilder();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(SaveCompression.openInput(file), StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 content.append(line).append("\n");
@@ -211,6 +368,12 @@ public class JsonFileHandler implements FileHandler {
         return content.toString();
     }
 
+    @Override
+    public InputStream openFileContent(Context context, String fileName) throws IOException {
+        // El archivo ya es texto: se lee tal cual (descomprimido si hace falta)
+        return SaveCompression.openInput(new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName));
+    }
+
     @Override
     public String exportGame(Context context, String fileName) throws IOException {
         File sourceFile = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
@@ -223,13 +386,8 @@ public class JsonFileHandler implements FileHandler {
 
         File destFile = new File(exportDir, fileName);
 
-        // Leer el archivo original
-        String content = getFileContent(context, fileName);
-
-        // Escribir en la ubicación de exportación
-        try (FileOutputStream fos = new FileOutputStream(destFile)) {
-            fos.write(content.getBytes());
-        }
+        // Copiar los bytes del archivo original, descomprimidos si hace falta
+        SaveCompression.copyUncompressed(sourceFile, destFile);
 
         return destFile.getAbsolutePath();
     }
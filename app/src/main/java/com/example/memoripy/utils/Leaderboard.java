@@ -0,0 +1,238 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.memoripy.models.HighScore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Tabla de récords persistente: las mejores puntuaciones de cada nivel.
+ *
+ * Cada nivel guarda como mucho MAX_ENTRIES puntuaciones en un conjunto
+ * ordenado, así que añadir una cuesta O(log K) y la peor siempre está a
+ * mano para descartarla. Una partida solo aparece una vez por nivel, con la
+ * mejor puntuación que haya registrado en él.
+ * Se actualiza al completar un nivel y al guardar, así que nunca hace falta
+ * leer las partidas para mostrarla.
+ */
+public class Leaderboard {
+
+    private static final String TAG = "Leaderboard";
+    private static final String LEADERBOARD_FILE = "leaderboard.dat";
+    private static final int LEADERBOARD_MAGIC = 0x4D49504C; // "MIPL"
+    private static final int LEADERBOARD_VERSION = 1;
+
+    // Puntuaciones que se conservan por nivel
+    public static final int MAX_ENTRIES = 10;
+
+    // Mayor puntuación primero; a igual puntuación, menor tiempo y después la más antigua
+    private static final Comparator<HighScore> RANKING = new Comparator<HighScore>() {
+        @Override
+        public int compare(HighScore a, HighScore b) {
+            if (a.getScore() != b.getScore()) {
+                return Integer.compare(b.getScore(), a.getScore());
+            }
+            if (a.getTimeElapsed() != b.getTimeElapsed()) {
+                return Long.compare(a.getTimeElapsed(), b.getTimeElapsed());
+            }
+            if (a.getDate() != b.getDate()) {
+                return Long.compare(a.getDate(), b.getDate());
+            }
+            return a.getGameId().compareTo(b.getGameId());
+        }
+    };
+
+    private final Map<Integer, TreeSet<HighScore>> levels = new TreeMap<>();
+    private final Map<String, HighScore> entriesByGame = new HashMap<>();
+    private boolean loaded;
+    private boolean exists;
+    private boolean dirty;
+
+    /**
+     * Registra la puntuación de un nivel completado
+     * @return true si ha entrado en la tabla
+     */
+    public synchronized boolean submit(Context context, HighScore highScore) {
+        ensureLoaded(context);
+        if (highScore.getGameId() == null || highScore.getLevel() <= 0) {
+            return false;
+        }
+
+        String key = getKey(highScore);
+        TreeSet<HighScore> ranking = levels.get(highScore.getLevel());
+        if (ranking == null) {
+            ranking = new TreeSet<>(RANKING);
+            levels.put(highScore.getLevel(), ranking);
+        }
+
+        // La misma partida solo sustituye a su puntuación anterior si la mejora
+        HighScore previous = entriesByGame.get(key);
+        if (previous != null) {
+            if (RANKING.compare(highScore, previous) >= 0) {
+                return false;
+            }
+            ranking.remove(previous);
+        } else if (ranking.size() >= MAX_ENTRIES && RANKING.compare(highScore, ranking.last()) >= 0) {
+            // No mejora la peor de la tabla
+            return false;
+        }
+
+        ranking.add(highScore);
+        entriesByGame.put(key, highScore);
+        if (ranking.size() > MAX_ENTRIES) {
+            entriesByGame.remove(getKey(ranking.pollLast()));
+        }
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Crea la tabla por primera vez a partir de puntuaciones ya existentes.
+     * Se guarda aunque quede vacía, para no volver a crearla.
+     */
+    public synchronized void seed(Context context, List<HighScore> highScores) {
+        for (HighScore highScore : highScores) {
+            submit(context, highScore);
+        }
+        dirty = true;
+        flush(context);
+    }
+
+    /**
+     * Obtiene las mejores puntuaciones de un nivel, de la mejor a la peor
+     */
+    public synchronized List<HighScore> getTopScores(Context context, int level) {
+        ensureLoaded(context);
+        TreeSet<HighScore> ranking = levels.get(level);
+        return ranking != null ? new ArrayList<>(ranking) : new ArrayList<HighScore>();
+    }
+
+    /**
+     * Indica si la tabla ya se había guardado alguna vez
+     */
+    public synchronized boolean exists(Context context) {
+        ensureLoaded(context);
+        return exists;
+    }
+
+    /**
+     * Guarda la tabla en disco si ha cambiado
+     */
+    public synchronized void flush(Context context) {
+        if (!dirty) {
+            return;
+        }
+
+        File file = new File(context.getFilesDir(), LEADERBOARD_FILE);
+        File tempFile = new File(context.getFilesDir(), LEADERBOARD_FILE + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(LEADERBOARD_MAGIC);
+            out.writeInt(LEADERBOARD_VERSION);
+            out.writeInt(levels.size());
+            for (Map.Entry<Integer, TreeSet<HighScore>> entry : levels.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (HighScore highScore : entry.getValue()) {
+                    writeEntry(out, highScore);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error al guardar la tabla de récords", e);
+            tempFile.delete();
+            return;
+        }
+
+        // Reemplazar la tabla anterior de forma atómica
+        if (tempFile.renameTo(file)) {
+            dirty = false;
+            exists = true;
+        } else {
+            Log.e(TAG, "No se pudo reemplazar la tabla de récords");
+            tempFile.delete();
+        }
+    }
+
+    private static String getKey(HighScore highScore) {
+        return highScore.getLevel() + ":" + highScore.getGameId();
+    }
+
+    private void ensureLoaded(Context context) {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        File file = new File(context.getFilesDir(), LEADERBOARD_FILE);
+        if (!file.exists()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != LEADERBOARD_MAGIC || in.readInt() != LEADERBOARD_VERSION) {
+                Log.w(TAG, "Tabla de récords con formato desconocido, se reconstruirá");
+                return;
+            }
+
+            int levelCount = in.readInt();
+            for (int i = 0; i < levelCount; i++) {
+                int level = in.readInt();
+                int count = in.readInt();
+                TreeSet<HighScore> ranking = new TreeSet<>(RANKING);
+                for (int j = 0; j < count; j++) {
+                    HighScore highScore = readEntry(in, level);
+                    ranking.add(highScore);
+                    entriesByGame.put(getKey(highScore), highScore);
+                }
+                levels.put(level, ranking);
+            }
+            exists = true;
+        } catch (IOException e) {
+            Log.e(TAG, "Error al leer la tabla de récords, se reconstruirá", e);
+            levels.clear();
+            entriesByGame.clear();
+        }
+    }
+
+    private void writeEntry(DataOutputStream out, HighScore highScore) throws IOException {
+        out.writeUTF(highScore.getGameId());
+        out.writeBoolean(highScore.getPlayerName() != null);
+        if (highScore.getPlayerName() != null) {
+            out.writeUTF(highScore.getPlayerName());
+        }
+        out.writeInt(highScore.getScore());
+        out.writeLong(highScore.getTimeElapsed());
+        out.writeLong(highScore.getDate());
+    }
+
+    private HighScore readEntry(DataInputStream in, int level) throws IOException {
+        HighScore highScore = new HighScore();
+        highScore.setGameId(in.readUTF());
+        if (in.readBoolean()) {
+            highScore.setPlayerName(in.readUTF());
+        }
+        highScore.setLevel(level);
+        highScore.setScore(in.readInt());
+        highScore.setTimeElapsed(in.readLong());
+        highScore.setDate(in.readLong());
+        return highScore;
+    }
+}
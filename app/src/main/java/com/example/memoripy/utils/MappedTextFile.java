@@ -0,0 +1,372 @@
+package com.example.memoripy.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Archivo de texto proyectado en memoria para mostrarlo por filas.
+ *
+ * Una fila es una línea del archivo; las líneas muy largas (por ejemplo, un
+ * XML compacto) se parten en varias filas de {@link #MAX_ROW_BYTES} bytes como
+ * máximo. El índice solo guarda la posición de una de cada
+ * {@link #ROWS_PER_CHECKPOINT} filas, así que ocupa muy poco aunque el
+ * archivo sea enorme; el resto de filas se localizan recorriendo el archivo
+ * desde la posición guardada más cercana.
+ */
+public class MappedTextFile implements Closeable {
+
+    // Tamaño máximo de una fila en bytes
+    public static final int MAX_ROW_BYTES = 1024;
+
+    // Cada cuántas filas se guarda su posición en el índice
+    private static final int ROWS_PER_CHECKPOINT = 64;
+
+    // Cada cuántas filas se avisa del progreso del índice
+    private static final int ROWS_PER_PROGRESS = 16 * 1024;
+
+    private static final int INDEX_WINDOW_SIZE = 64 * 1024;
+    private static final int ROW_WINDOW_SIZE = 8 * 1024;
+
+    /**
+     * Interface para recibir el progreso del índice de filas
+     */
+    public interface IndexListener {
+        void onRowsIndexed(int rowCount, boolean complete);
+
+        /**
+         * No se ha podido construir el índice (por ejemplo, demasiados trabajos pendientes)
+         */
+        default void onIndexError(Exception error) {
+        }
+    }
+
+    private final File file;
+    private final boolean deleteOnClose;
+    private final MappedByteBuffer buffer;
+    private final int size;
+
+    // Posición de las filas 0, 64, 128...
+    private int[] checkpoints = new int[1024];
+    private int checkpointCount;
+    private volatile int rowCount;
+    private volatile boolean indexComplete;
+    private volatile boolean closed;
+
+    // Lector de filas para el hilo principal
+    private final RowCursor rowCursor;
+
+    private MappedTextFile(File file, boolean deleteOnClose, MappedByteBuffer buffer) {
+        this.file = file;
+        this.deleteOnClose = deleteOnClose;
+        this.buffer = buffer;
+        this.size = buffer.capacity();
+        this.rowCursor = new RowCursor(ROW_WINDOW_SIZE);
+    }
+
+    /**
+     * Proyecta un archivo completo en memoria
+     * @param deleteOnClose true si el archivo es temporal y se debe eliminar al cerrar
+     */
+    static MappedTextFile open(File file, boolean deleteOnClose) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Archivo demasiado grande: " + length + " bytes");
+            }
+            // La proyección sigue siendo válida después de cerrar el canal
+            return new MappedTextFile(file, deleteOnClose,
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+    }
+
+    /**
+     * Tamaño del archivo en bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Lee un byte del archivo; se puede usar desde cualquier hilo
+     */
+    byte byteAt(int position) {
+        return buffer.get(position);
+    }
+
+    /**
+     * Número de filas indexadas hasta ahora
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isIndexComplete() {
+        return indexComplete;
+    }
+
+    /**
+     * Recorre el archivo completo anotando dónde empiezan las filas.
+     * Se ejecuta en segundo plano; se detiene si se cierra el archivo.
+     */
+    void buildIndex(IndexListener listener) {
+        if (indexComplete || rowCount > 0) {
+            return;
+        }
+
+        RowCursor cursor = new RowCursor(INDEX_WINDOW_SIZE);
+        int start = 0;
+        int rows = 0;
+        while (start < size && !closed) {
+            if (rows % ROWS_PER_CHECKPOINT == 0) {
+                addCheckpoint(start);
+            }
+            start = cursor.nextRow(start);
+            rows++;
+            if (rows % ROWS_PER_PROGRESS == 0) {
+                rowCount = rows;
+                listener.onRowsIndexed(rows, false);
+            }
+        }
+
+        if (!closed) {
+            rowCount = rows;
+            indexComplete = true;
+            listener.onRowsIndexed(rows, true);
+        }
+    }
+
+    private synchronized void addCheckpoint(int offset) {
+        if (checkpointCount == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+        }
+        checkpoints[checkpointCount++] = offset;
+    }
+
+    private synchronized int getCheckpoint(int index) {
+        return checkpoints[index];
+    }
+
+    /**
+     * Devuelve el texto de una fila ya indexada (sin el salto de línea)
+     */
+    public String getRow(int row) {
+        synchronized (rowCursor) {
+            int start = rowCursor.seek(row);
+            rowCursor.nextRow(start);
+            int contentEnd = rowCursor.contentEnd;
+            if (contentEnd > start && buffer.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            return rowCursor.decode(start, contentEnd);
+        }
+    }
+
+    /**
+     * Posición en bytes donde empieza una fila ya indexada
+     */
+    public long getRowOffset(int row) {
+        synchronized (rowCursor) {
+            return rowCursor.seek(row);
+        }
+    }
+
+    /**
+     * Busca la fila que contiene una posición del archivo
+     * @return La fila, o -1 si esa parte del archivo aún no está indexada
+     */
+    public int getRowAt(long offset) {
+        if (offset < 0 || offset >= size) {
+            return -1;
+        }
+
+        int low = 0;
+        synchronized (this) {
+            int high = checkpointCount - 1;
+            if (high < 0) {
+                return -1;
+            }
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (checkpoints[middle] <= offset) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+        }
+
+        int row = low * ROWS_PER_CHECKPOINT;
+        int indexedRows = rowCount;
+        synchronized (rowCursor) {
+            int start = getCheckpoint(low);
+            while (row < indexedRows) {
+                int next = rowCursor.nextRow(start);
+                if (offset < next) {
+                    return row;
+                }
+                start = next;
+                row++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Busca un texto en el archivo sin distinguir mayúsculas (solo letras ASCII).
+     * Si no lo encuentra desde la posición indicada, sigue desde el principio.
+     * @param from Posición desde la que buscar
+     * @return Posición del texto encontrado, o -1 si no aparece
+     */
+    public long find(String query, long from) {
+        byte[] pattern = query.getBytes(StandardCharsets.UTF_8);
+        if (pattern.length == 0 || pattern.length > size) {
+            return -1;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            pattern[i] = toLowerAscii(pattern[i]);
+        }
+
+        int start = (int) Math.max(0, Math.min(from, size));
+        int found = find(pattern, start, size);
+        if (found < 0 && start > 0) {
+            found = find(pattern, 0, Math.min(size, start + pattern.length - 1));
+        }
+        return found;
+    }
+
+    /**
+     * Busca el patrón entre las posiciones start y end (exclusiva)
+     */
+    private int find(byte[] pattern, int start, int end) {
+        ByteBuffer source = buffer.duplicate();
+        byte[] window = new byte[INDEX_WINDOW_SIZE + pattern.length];
+        byte first = pattern[0];
+
+        int position = start;
+        while (position + pattern.length <= end && !closed) {
+            // Cada ventana se solapa con la anterior para no partir una coincidencia
+            int length = Math.min(window.length, end - position);
+            source.position(position);
+            source.get(window, 0, length);
+
+            int last = length - pattern.length;
+            for (int i = 0; i <= last; i++) {
+                if (toLowerAscii(window[i]) != first) {
+                    continue;
+                }
+                int j = 1;
+                while (j < pattern.length && toLowerAscii(window[i + j]) == pattern[j]) {
+                    j++;
+                }
+                if (j == pattern.length) {
+                    return position + i;
+                }
+            }
+            position += last + 1;
+        }
+        return -1;
+    }
+
+    private static byte toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * Deja de usar el archivo; el índice en construcción se detiene
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (deleteOnClose) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Recorre filas a partir de una ventana de bytes copiada del archivo.
+     * Cada hilo usa su propio cursor.
+     */
+    private class RowCursor {
+        private final ByteBuffer source = buffer.duplicate();
+        private final byte[] window;
+        private int windowStart;
+        private int windowLimit;
+
+        // Fin del contenido de la última fila leída
+        int contentEnd;
+
+        RowCursor(int windowSize) {
+            window = new byte[Math.max(windowSize, MAX_ROW_BYTES + 1)];
+        }
+
+        /**
+         * Posición de inicio de una fila, contando desde el punto del índice más cercano
+         */
+        int seek(int row) {
+            int start = getCheckpoint(row / ROWS_PER_CHECKPOINT);
+            for (int i = row % ROWS_PER_CHECKPOINT; i > 0; i--) {
+                start = nextRow(start);
+            }
+            return start;
+        }
+
+        /**
+         * Lee la fila que empieza en start
+         * @return Posición donde empieza la fila siguiente
+         */
+        int nextRow(int start) {
+            // La ventana debe tener la fila completa más un byte, o llegar al final
+            if (start < windowStart || start + MAX_ROW_BYTES + 1 > windowLimit && windowLimit < size) {
+                int length = Math.min(window.length, size - start);
+                source.position(start);
+                source.get(window, 0, length);
+                windowStart = start;
+                windowLimit = start + length;
+            }
+
+            int from = start - windowStart;
+            int max = Math.min(windowLimit, start + MAX_ROW_BYTES + 1) - windowStart;
+            for (int i = from; i < max; i++) {
+                if (window[i] == '\n') {
+                    contentEnd = windowStart + i;
+                    return contentEnd + 1;
+                }
+            }
+
+            if (windowLimit - start <= MAX_ROW_BYTES) {
+                // Última fila del archivo, sin salto de línea
+                contentEnd = windowLimit;
+                return contentEnd;
+            }
+
+            // Línea demasiado larga: cortar sin partir un carácter UTF-8
+            int cut = from + MAX_ROW_BYTES;
+            while (cut > from && (window[cut] & 0xC0) == 0x80) {
+                cut--;
+            }
+            if (cut == from) {
+                cut = from + MAX_ROW_BYTES;
+            }
+            contentEnd = windowStart + cut;
+            return contentEnd;
+        }
+
+        String decode(int start, int end) {
+            if (start >= windowStart && end <= windowLimit) {
+                return new String(window, start - windowStart, end - start, StandardCharsets.UTF_8);
+            }
+            byte[] bytes = new byte[end - start];
+            source.position(start);
+            source.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,764 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+import android.os.Environment;
+import android.util.Log;
+
+import com.example.memoripy.models.GameState;
+import com.example.memoripy.models.SavedGame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * Implementación que guarda todas las partidas en un único archivo de paquete.
+ *
+ * Con miles de partidas, abrir, listar y eliminar un archivo pequeño por
+ * partida cuesta más que leerlas. Aquí cada guardado se añade al final de
+ * "saved_games.pack" como un registro con la partida en el formato de
+ * BinaryFileHandler, y eliminar una partida añade una marca de borrado.
+ * El índice (posición, tamaño y cabecera de cada partida) se guarda en
+ * "saved_games.idx" cada INDEX_FLUSH_RECORDS registros; al abrir, los
+ * registros posteriores al índice se leen del propio paquete, así que un
+ * índice atrasado o perdido solo obliga a recorrer esa parte.
+ *
+ * Las partidas se leen de una proyección en memoria del paquete. El archivo
+ * crece de MAP_CHUNK en MAP_CHUNK bytes, así que la proyección solo se rehace
+ * cuando se llena el trozo; tras el último registro queda una longitud 0 que
+ * marca el final de los datos. Los
+ * registros sustituidos y eliminados ocupan sitio hasta que compact() copia
+ * los vigentes a un paquete nuevo; mientras copia se puede seguir guardando
+ * y leyendo, y lo guardado entretanto se copia al final antes de cambiar de
+ * paquete.
+ *
+ * Las partidas se identifican con un nombre "virtual" (gameId + ".pack");
+ * su contenido se muestra como texto y se exporta como BIN.
+ */
+public class PackFileHandler implements IndexedFileHandler, CompactableFileHandler {
+
+    private static final String TAG = "PackFileHandler";
+    private static final String FILE_DIRECTORY = "saved_games_pack";
+    private static final String DATA_FILE = "saved_games.pack";
+    private static final String INDEX_FILE = "saved_games.idx";
+    private static final String FILE_EXTENSION = ".pack";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int DATA_MAGIC = 0x4D49504B;  // "MIPK"
+    private static final int DATA_VERSION = 1;
+    // Magia, versión e identificador del paquete
+    private static final int DATA_HEADER_LENGTH = 16;
+
+    private static final int INDEX_MAGIC = 0x4D495058; // "MIPX"
+    private static final int INDEX_VERSION = 1;
+
+    // Cada registro empieza con la longitud de su contenido y su CRC32
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final int RECORD_GAME = 0;
+    private static final int RECORD_TOMBSTONE = 1;
+    // Longitud 0 tras el último registro
+    private static final int END_MARKER_LENGTH = 4;
+
+    // El archivo se amplía en trozos de este tamaño, que se proyectan de una vez
+    private static final int MAP_CHUNK = 64 * 1024;
+
+    // Registros sin índice antes de volver a guardarlo
+    private static final int INDEX_FLUSH_RECORDS = 64;
+
+    /**
+     * Posición de una partida en el paquete y su cabecera para los listados
+     */
+    private static class PackEntry {
+        final long offset;
+        final int length;          // Registro completo, con su cabecera
+        final SavedGame summary;
+
+        PackEntry(long offset, int length, SavedGame summary) {
+            this.offset = offset;
+            this.length = length;
+            this.summary = summary;
+        }
+
+        PackEntry movedTo(long newOffset) {
+            return new PackEntry(newOffset, length, summary);
+        }
+    }
+
+    /**
+     * Registro leído del paquete
+     */
+    private static class Record {
+        long offset;
+        int length;
+        int type;
+        String gameId;
+        SavedGame summary;         // Solo en los registros de partida
+    }
+
+    // Solo una compactación a la vez; los guardados no la esperan
+    private final Object compactLock = new Object();
+
+    private File directory;
+    private long packId;
+    private long dataLength;
+    private MappedByteBuffer buffer;
+    private Map<String, PackEntry> entries;
+    private long deadBytes;
+    private int unindexedRecords;
+
+    @Override
+    public String saveGame(Context context, GameState gameState) throws IOException {
+        String gameId = gameState.getGameId();
+        if (gameId == null || gameId.isEmpty()) {
+            throw new IOException("La partida no tiene ID");
+        }
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        payload.write(RECORD_GAME);
+        BinaryFileHandler.writeGameState(payload, gameState);
+        SavedGame summary = SavedGame.fromGameState(gameId + FILE_EXTENSION, FileManager.FORMAT_PACK, gameState);
+
+        synchronized (this) {
+            ensureOpen(context);
+            PackEntry entry = append(payload.toByteArray(), summary);
+            PackEntry previous = entries.put(gameId, entry);
+            if (previous != null) {
+                deadBytes += previous.length;
+            }
+            onRecordAppended();
+        }
+        return new File(getSavedGamesDirectory(context), gameId + FILE_EXTENSION).getAbsolutePath();
+    }
+
+    @Override
+    public GameState loadGame(Context context, String fileName) throws IOException {
+        InputStream in = new ByteArrayInputStream(readGamePayload(context, fileName));
+        if (in.read() != RECORD_GAME) {
+            throw new IOException("Registro inválido en el paquete: " + fileName);
+        }
+        return BinaryFileHandler.readGameState(in);
+    }
+
+    /**
+     * Copia el contenido del registro de una partida, comprobado con su CRC32
+     */
+    private synchronized byte[] readGamePayload(Context context, String fileName) throws IOException {
+        ensureOpen(context);
+        PackEntry entry = entries.get(getGameId(fileName));
+        if (entry == null) {
+            throw new IOException("Partida no encontrada: " + fileName);
+        }
+        return readPayload(map(), entry.offset);
+    }
+
+    @Override
+    public synchronized List<String> getSavedGamesList(Context context) {
+        List<String> fileList = new ArrayList<>();
+        try {
+            ensureOpen(context);
+            for (String gameId : entries.keySet()) {
+                fileList.add(gameId + FILE_EXTENSION);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error al listar las partidas", e);
+        }
+        return fileList;
+    }
+
+    @Override
+    public List<SavedGame> listSavedGames(Context context) {
+        // La consulta por defecto ordena de la más reciente a la más antigua
+        return new SavedGameQuery().select(getSummaries(context));
+    }
+
+    @Override
+    public List<SavedGame> querySavedGames(Context context, SavedGameQuery query) {
+        if (!query.acceptsFormat(FileManager.FORMAT_PACK)) {
+            return new ArrayList<>();
+        }
+        return query.select(getSummaries(context));
+    }
+
+    /**
+     * Copia de las cabeceras del índice, para filtrarlas y ordenarlas sin bloquear los guardados
+     */
+    private synchronized List<SavedGame> getSummaries(Context context) {
+        List<SavedGame> summaries = new ArrayList<>();
+        try {
+            ensureOpen(context);
+            for (PackEntry entry : entries.values()) {
+                summaries.add(copySummary(entry.summary));
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error al consultar las partidas", e);
+        }
+        return summaries;
+    }
+
+    /**
+     * Añade una marca de borrado; el registro de la partida sigue ocupando
+     * sitio hasta la próxima compactación
+     */
+    @Override
+    public boolean deleteGame(Context context, String fileName) {
+        String gameId = getGameId(fileName);
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            payload.write(RECORD_TOMBSTONE);
+            BinaryCodec.writeString(payload, gameId);
+
+            synchronized (this) {
+                ensureOpen(context);
+                if (!entries.containsKey(gameId)) {
+                    return false;
+                }
+                PackEntry tombstone = append(payload.toByteArray(), null);
+                PackEntry previous = entries.remove(gameId);
+                deadBytes += previous.length + tombstone.length;
+                onRecordAppended();
+                return true;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error al eliminar la partida", e);
+            return false;
+        }
+    }
+
+    /**
+     * Copia los registros vigentes a un paquete nuevo y lo pone en lugar del
+     * actual. La copia se hace sin bloquear: lo que se guarda o elimina
+     * mientras tanto se añade al paquete actual y se copia al final, ya
+     * bloqueado, justo antes de cambiar de paquete.
+     */
+    @Override
+    public int compact(Context context) throws IOException {
+        synchronized (compactLock) {
+            List<Map.Entry<String, PackEntry>> live;
+            ByteBuffer view;
+            long copiedLength;
+            synchronized (this) {
+                ensureOpen(context);
+                if (deadBytes == 0) {
+                    return 0;
+                }
+                live = new ArrayList<>(entries.entrySet());
+                view = map();
+                copiedLength = dataLength;
+            }
+
+            File dataFile = new File(directory, DATA_FILE);
+            File tempFile = new File(directory, DATA_FILE + TEMP_SUFFIX);
+            long newPackId = newPackId();
+            Map<String, PackEntry> compacted = new LinkedHashMap<>();
+
+            try {
+                long position = DATA_HEADER_LENGTH;
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+                    writeDataHeader(out, newPackId);
+
+                    // Lo anterior a copiedLength no cambia: el paquete solo crece por el final
+                    for (Map.Entry<String, PackEntry> liveEntry : live) {
+                        PackEntry entry = liveEntry.getValue();
+                        copyRecord(view, entry.offset, entry.length, out);
+                        compacted.put(liveEntry.getKey(), entry.movedTo(position));
+                        position += entry.length;
+                    }
+                }
+
+                synchronized (this) {
+                    // Lo guardado y eliminado mientras se copiaba
+                    long tailDeadBytes = 0;
+                    try (FileOutputStream fos = new FileOutputStream(tempFile, true);
+                         OutputStream out = new BufferedOutputStream(fos)) {
+                        if (dataLength > copiedLength) {
+                            ByteBuffer tail = map();
+                            List<Record> records = new ArrayList<>();
+                            readRecords(tail, copiedLength, dataLength, records);
+                            for (Record record : records) {
+                                copyRecord(tail, record.offset, record.length, out);
+                                record.offset = position;
+                                position += record.length;
+                                tailDeadBytes += apply(compacted, record);
+                            }
+                        }
+                        out.flush();
+                        fos.getFD().sync();
+                    }
+
+                    if (!tempFile.renameTo(dataFile)) {
+                        throw new IOException("No se pudo reemplazar el paquete de partidas");
+                    }
+                    packId = newPackId;
+                    dataLength = position;
+                    buffer = null;
+                    entries = compacted;
+                    deadBytes = tailDeadBytes;
+                    writeIndex();
+                }
+            } finally {
+                if (tempFile.exists()) {
+                    tempFile.delete();
+                }
+            }
+
+            Log.d(TAG, "Paquete compactado: " + compacted.size() + " partidas, " + dataLength + " bytes");
+            return compacted.size();
+        }
+    }
+
+    /**
+     * Tamaño exacto del registro de la partida dentro del paquete
+     */
+    @Override
+    public synchronized long getGameSize(Context context, String fileName) {
+        try {
+            ensureOpen(context);
+            PackEntry entry = entries.get(getGameId(fileName));
+            return entry != null ? entry.length : 0;
+        } catch (IOException e) {
+            Log.e(TAG, "Error al calcular el tamaño de la partida", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Todas las partidas están en el mismo archivo: el paquete
+     */
+    @Override
+    public File getGameFile(Context context, String fileName) {
+        return new File(getSavedGamesDirectory(context), DATA_FILE);
+    }
+
+    @Override
+    public File getSavedGamesDirectory(Context context) {
+        return new File(context.getFilesDir(), FILE_DIRECTORY);
+    }
+
+    /**
+     * El contenido del registro se muestra decodificado como texto legible
+     */
+    @Override
+    public String getFileContent(Context context, String fileName) throws IOException {
+        GameState gameState = loadGame(context, fileName);
+        return GameStateText.format(gameState, describe(context, fileName));
+    }
+
+    /**
+     * Se copia el registro de la partida, que hay que tener entero para
+     * comprobar su CRC32, pero el historial se decodifica a medida que se
+     * lee el texto en lugar de cargarlo como partida
+     */
+    @Override
+    public InputStream openFileContent(Context context, String fileName) throws IOException {
+        InputStream in = new ByteArrayInputStream(readGamePayload(context, fileName));
+        if (in.read() != RECORD_GAME) {
+            throw new IOException("Registro inválido en el paquete: " + fileName);
+        }
+        return BinaryFileHandler.openText(in, describe(context, fileName));
+    }
+
+    private String describe(Context context, String fileName) {
+        return "Paquete (versión " + DATA_VERSION + ", registro de " + getGameSize(context, fileName) + " bytes)";
+    }
+
+    /**
+     * La partida se exporta como un archivo BIN independiente
+     */
+    @Override
+    public String exportGame(Context context, String fileName) throws IOException {
+        GameState gameState = loadGame(context, fileName);
+        File exportDir = new File(Environment.getExternalStoragePublicDirectory(
+                Environment.DIRECTORY_DOCUMENTS), "MemorIPN");
+        if (!exportDir.exists()) {
+            exportDir.mkdirs();
+        }
+
+        File destFile = new File(exportDir, getGameId(fileName) + "." + FileManager.FORMAT_BIN);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(destFile))) {
+            BinaryFileHandler.writeGameState(out, gameState);
+        }
+
+        Log.d(TAG, "Partida exportada: " + destFile.getAbsolutePath());
+        return destFile.getAbsolutePath();
+    }
+
+    /**
+     * Abre el paquete la primera vez: carga el índice y lee los registros
+     * que se añadieron después de guardarlo. Un registro incompleto al final
+     * (un guardado interrumpido) se descarta.
+     */
+    private void ensureOpen(Context context) throws IOException {
+        if (entries != null) {
+            return;
+        }
+
+        directory = new File(context.getFilesDir(), FILE_DIRECTORY);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File dataFile = new File(directory, DATA_FILE);
+        if (!dataFile.exists() || dataFile.length() < DATA_HEADER_LENGTH) {
+            createPack(dataFile);
+            entries = new LinkedHashMap<>();
+            return;
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(dataFile, "r")) {
+            if (raf.readInt() != DATA_MAGIC || raf.readInt() != DATA_VERSION) {
+                throw new IOException("No es un paquete de partidas: " + dataFile.getName());
+            }
+            packId = raf.readLong();
+        }
+        dataLength = dataFile.length();
+
+        Map<String, PackEntry> loaded = new LinkedHashMap<>();
+        long indexedLength = readIndex(loaded);
+        if (indexedLength < 0) {
+            loaded.clear();
+            deadBytes = 0;
+            indexedLength = DATA_HEADER_LENGTH;
+        }
+
+        List<Record> records = new ArrayList<>();
+        long end = readRecords(map(), indexedLength, dataLength, records);
+        for (Record record : records) {
+            deadBytes += apply(loaded, record);
+        }
+        if (end < dataLength) {
+            ByteBuffer view = map();
+            view.position((int) end);
+            if (end + END_MARKER_LENGTH > dataLength || view.getInt() != 0) {
+                // Lo que sigue no es la marca de final sino un guardado que no terminó
+                Log.w(TAG, "Registro incompleto al final del paquete, se descarta");
+                try (RandomAccessFile raf = new RandomAccessFile(dataFile, "rw")) {
+                    raf.setLength(end);
+                }
+                buffer = null;
+            }
+            dataLength = end;
+        }
+
+        entries = loaded;
+        unindexedRecords = records.size();
+        if (indexedLength == DATA_HEADER_LENGTH && !records.isEmpty()) {
+            // Sin índice válido se ha recorrido todo el paquete: se guarda para la próxima vez
+            writeIndex();
+        }
+    }
+
+    private void createPack(File dataFile) throws IOException {
+        packId = newPackId();
+        try (FileOutputStream out = new FileOutputStream(dataFile)) {
+            writeDataHeader(out, packId);
+            out.getFD().sync();
+        }
+        dataLength = DATA_HEADER_LENGTH;
+        buffer = null;
+        deadBytes = 0;
+        unindexedRecords = 0;
+        new File(directory, INDEX_FILE).delete();
+    }
+
+    private long newPackId() {
+        Random random = new Random();
+        long id;
+        do {
+            id = random.nextLong();
+        } while (id == packId);
+        return id;
+    }
+
+    private static void writeDataHeader(OutputStream out, long id) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(DATA_MAGIC);
+        data.writeInt(DATA_VERSION);
+        data.writeLong(id);
+        data.flush();
+    }
+
+    /**
+     * Proyección del archivo entero, incluido el espacio reservado tras los
+     * datos; solo se vuelve a proyectar cuando los datos ya no caben en ella
+     * @return Vista propia de la proyección, con su propia posición
+     */
+    private ByteBuffer map() throws IOException {
+        if (buffer == null || buffer.capacity() < dataLength) {
+            try (RandomAccessFile raf = new RandomAccessFile(new File(directory, DATA_FILE), "r")) {
+                long length = raf.length();
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("Paquete demasiado grande: " + length + " bytes");
+                }
+                // La proyección sigue siendo válida después de cerrar el canal
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+        }
+        return buffer.duplicate();
+    }
+
+    /**
+     * Añade un registro al final del paquete y espera a que esté en disco
+     * @param summary Cabecera de la partida, o null para una marca de borrado
+     */
+    private PackEntry append(byte[] payload, SavedGame summary) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        int recordLength = RECORD_HEADER_LENGTH + payload.length;
+        // Detrás va una longitud 0: tapa lo que pudiera quedar de un guardado que no terminó
+        ByteBuffer record = ByteBuffer.allocate(recordLength + END_MARKER_LENGTH);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.putInt(0);
+
+        try (RandomAccessFile raf = new RandomAccessFile(new File(directory, DATA_FILE), "rw")) {
+            long end = dataLength + record.capacity();
+            if (raf.length() < end) {
+                // Se reserva un trozo entero para no tener que volver a proyectar en cada guardado
+                raf.setLength((end + MAP_CHUNK - 1) / MAP_CHUNK * MAP_CHUNK);
+            }
+            raf.seek(dataLength);
+            raf.write(record.array());
+            raf.getFD().sync();
+        }
+
+        PackEntry entry = new PackEntry(dataLength, recordLength, summary);
+        if (summary != null) {
+            summary.setSize(entry.length);
+        }
+        dataLength += entry.length;
+        return entry;
+    }
+
+    private void onRecordAppended() {
+        unindexedRecords++;
+        if (unindexedRecords >= INDEX_FLUSH_RECORDS) {
+            writeIndex();
+        }
+    }
+
+    /**
+     * Lee el contenido de un registro comprobando su CRC
+     */
+    private static byte[] readPayload(ByteBuffer view, long offset) throws IOException {
+        view.position((int) offset);
+        int length = view.getInt();
+        int expectedCrc = view.getInt();
+        if (length <= 0 || length > view.remaining()) {
+            throw new IOException("Registro dañado en el paquete en la posición " + offset);
+        }
+        byte[] payload = new byte[length];
+        view.get(payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Registro dañado en el paquete en la posición " + offset);
+        }
+        return payload;
+    }
+
+    /**
+     * Lee los registros entre dos posiciones del paquete
+     * @return Final del último registro válido; si es menor que to, lo que sigue está incompleto o dañado
+     */
+    private static long readRecords(ByteBuffer view, long from, long to, List<Record> records) {
+        long position = from;
+        while (position + RECORD_HEADER_LENGTH <= to) {
+            try {
+                view.position((int) position);
+                int length = view.getInt();
+                if (length <= 0 || length > to - position - RECORD_HEADER_LENGTH) {
+                    break;
+                }
+                records.add(parseRecord(position, readPayload(view, position)));
+                position += RECORD_HEADER_LENGTH + length;
+            } catch (IOException e) {
+                Log.w(TAG, "Registro dañado en el paquete, se descarta el resto", e);
+                break;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Lee el tipo, el ID de la partida y, si es una partida, su cabecera;
+     * el tablero y el historial no hacen falta para el índice
+     */
+    private static Record parseRecord(long offset, byte[] payload) throws IOException {
+        Record record = new Record();
+        record.offset = offset;
+        record.length = RECORD_HEADER_LENGTH + payload.length;
+
+        InputStream in = new ByteArrayInputStream(payload);
+        record.type = in.read();
+        if (record.type == RECORD_GAME) {
+            GameState header = new GameState();
+            BinaryFileHandler.readHeader(in, header);
+            record.gameId = header.getGameId();
+            record.summary = SavedGame.fromGameState(record.gameId + FILE_EXTENSION,
+                    FileManager.FORMAT_PACK, header);
+            record.summary.setSize(record.length);
+        } else if (record.type == RECORD_TOMBSTONE) {
+            record.gameId = BinaryCodec.readString(in);
+        } else {
+            throw new IOException("Tipo de registro desconocido: " + record.type);
+        }
+        if (record.gameId == null || record.gameId.isEmpty()) {
+            throw new IOException("Registro sin ID de partida");
+        }
+        return record;
+    }
+
+    /**
+     * Aplica un registro al índice
+     * @return Bytes que dejan de estar vigentes: la versión anterior de la partida y la propia marca de borrado
+     */
+    private static long apply(Map<String, PackEntry> target, Record record) {
+        if (record.type == RECORD_GAME) {
+            PackEntry previous = target.put(record.gameId,
+                    new PackEntry(record.offset, record.length, record.summary));
+            return previous != null ? previous.length : 0;
+        }
+        PackEntry previous = target.remove(record.gameId);
+        return record.length + (previous != null ? previous.length : 0);
+    }
+
+    private static void copyRecord(ByteBuffer view, long offset, int length, OutputStream out) throws IOException {
+        byte[] bytes = new byte[length];
+        view.position((int) offset);
+        view.get(bytes);
+        out.write(bytes);
+    }
+
+    /**
+     * Carga el índice guardado si corresponde al paquete actual
+     * @return Posición del paquete hasta la que llega el índice, o -1 si no se puede usar
+     */
+    private long readIndex(Map<String, PackEntry> target) {
+        File indexFile = new File(directory, INDEX_FILE);
+        if (!indexFile.exists()) {
+            return -1;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION || in.readLong() != packId) {
+                Log.w(TAG, "El índice no corresponde al paquete, se reconstruirá");
+                return -1;
+            }
+            long indexedLength = in.readLong();
+            if (indexedLength < DATA_HEADER_LENGTH || indexedLength > dataLength) {
+                Log.w(TAG, "El índice no corresponde al paquete, se reconstruirá");
+                return -1;
+            }
+            long dead = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String gameId = in.readUTF();
+                long offset = in.readLong();
+                int length = in.readInt();
+                SavedGame summary = new SavedGame(gameId + FILE_EXTENSION, FileManager.FORMAT_PACK);
+                if (in.readBoolean()) {
+                    summary.setPlayerName(in.readUTF());
+                }
+                summary.setLevel(in.readInt());
+                summary.setScore(in.readInt());
+                summary.setSaveDate(in.readLong());
+                summary.setTimeElapsed(in.readLong());
+                summary.setGameCompleted(in.readBoolean());
+                summary.setSize(length);
+                target.put(gameId, new PackEntry(offset, length, summary));
+            }
+            deadBytes = dead;
+            return indexedLength;
+        } catch (IOException e) {
+            // Un índice dañado solo obliga a recorrer el paquete
+            Log.e(TAG, "Error al leer el índice del paquete, se reconstruirá", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Guarda el índice de forma atómica. Si falla no se pierde nada: al
+     * abrir se leen del paquete los registros que falten.
+     */
+    private void writeIndex() {
+        File indexFile = new File(directory, INDEX_FILE);
+        File tempFile = new File(directory, INDEX_FILE + TEMP_SUFFIX);
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(packId);
+            out.writeLong(dataLength);
+            out.writeLong(deadBytes);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, PackEntry> mapEntry : entries.entrySet()) {
+                PackEntry entry = mapEntry.getValue();
+                SavedGame summary = entry.summary;
+                out.writeUTF(mapEntry.getKey());
+                out.writeLong(entry.offset);
+                out.writeInt(entry.length);
+                out.writeBoolean(summary.getPlayerName() != null);
+                if (summary.getPlayerName() != null) {
+                    out.writeUTF(summary.getPlayerName());
+                }
+                out.writeInt(summary.getLevel());
+                out.writeInt(summary.getScore());
+                out.writeLong(summary.getSaveDate());
+                out.writeLong(summary.getTimeElapsed());
+                out.writeBoolean(summary.isGameCompleted());
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error al guardar el índice del paquete", e);
+            tempFile.delete();
+            return;
+        }
+
+        if (tempFile.renameTo(indexFile)) {
+            unindexedRecords = 0;
+        } else {
+            Log.e(TAG, "No se pudo reemplazar el índice del paquete");
+            tempFile.delete();
+        }
+    }
+
+    private static SavedGame copySummary(SavedGame summary) {
+        SavedGame copy = new SavedGame(summary.getFileName(), summary.getFormat());
+        copy.setPlayerName(summary.getPlayerName());
+        copy.setLevel(summary.getLevel());
+        copy.setScore(summary.getScore());
+        copy.setSaveDate(summary.getSaveDate());
+        copy.setTimeElapsed(summary.getTimeElapsed());
+        copy.setGameCompleted(summary.isGameCompleted());
+        copy.setSize(summary.getSize());
+        return copy;
+    }
+
+    private static String getGameId(String fileName) {
+        if (fileName.endsWith(FILE_EXTENSION)) {
+            return fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+        }
+        return fileName;
+    }
+}
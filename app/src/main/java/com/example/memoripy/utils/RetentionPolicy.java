@@ -0,0 +1,295 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.memoripy.models.SavedGame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Límites de lo que se conserva de las partidas guardadas: número de
+ * partidas y bytes por jugador y por formato, las mejores partidas de cada
+ * jugador (que nunca se eliminan) y si se guarda una sola copia de cada
+ * partida cuando se ha guardado en varios formatos.
+ * Un límite a 0 significa sin límite. Cuando se supera un límite se
+ * eliminan primero las partidas más antiguas.
+ */
+public class RetentionPolicy {
+
+    private static final String PREF_NAME = "retention_preferences";
+    private static final String KEY_MAX_GAMES_PER_PLAYER = "max_games_per_player";
+    private static final String KEY_MAX_BYTES_PER_PLAYER = "max_bytes_per_player";
+    private static final String KEY_MAX_GAMES_PER_FORMAT = "max_games_per_format";
+    private static final String KEY_MAX_BYTES_PER_FORMAT = "max_bytes_per_format";
+    private static final String KEY_KEEP_BEST = "keep_best";
+    private static final String KEY_SINGLE_COPY = "single_copy";
+
+    // Más reciente primero; a igual fecha, el archivo modificado más tarde
+    private static final Comparator<SavedGame> NEWEST_FIRST = new Comparator<SavedGame>() {
+        @Override
+        public int compare(SavedGame a, SavedGame b) {
+            if (a.getSaveDate() != b.getSaveDate()) {
+                return Long.compare(b.getSaveDate(), a.getSaveDate());
+            }
+            if (a.getLastModified() != b.getLastModified()) {
+                return Long.compare(b.getLastModified(), a.getLastModified());
+            }
+            return a.getFileName().compareTo(b.getFileName());
+        }
+    };
+
+    // Mayor puntuación primero; a igual puntuación, menor tiempo y la más reciente
+    private static final Comparator<SavedGame> BEST_FIRST = new Comparator<SavedGame>() {
+        @Override
+        public int compare(SavedGame a, SavedGame b) {
+            if (a.getScore() != b.getScore()) {
+                return Integer.compare(b.getScore(), a.getScore());
+            }
+            if (a.getTimeElapsed() != b.getTimeElapsed()) {
+                return Long.compare(a.getTimeElapsed(), b.getTimeElapsed());
+            }
+            return NEWEST_FIRST.compare(a, b);
+        }
+    };
+
+    private int maxGamesPerPlayer = 50;
+    private long maxBytesPerPlayer = 5L * 1024 * 1024;
+    private int maxGamesPerFormat = 200;
+    private long maxBytesPerFormat = 20L * 1024 * 1024;
+    private int keepBest = 5;                // Mejores partidas de cada jugador que siempre se conservan
+    private boolean singleCopy = true;       // Solo la copia más reciente de cada partida
+
+    /**
+     * Carga la política guardada, o la predeterminada si no se ha cambiado nunca
+     */
+    public static RetentionPolicy load(Context context) {
+        SharedPreferences preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        RetentionPolicy policy = new RetentionPolicy();
+        policy.maxGamesPerPlayer = preferences.getInt(KEY_MAX_GAMES_PER_PLAYER, policy.maxGamesPerPlayer);
+        policy.maxBytesPerPlayer = preferences.getLong(KEY_MAX_BYTES_PER_PLAYER, policy.maxBytesPerPlayer);
+        policy.maxGamesPerFormat = preferences.getInt(KEY_MAX_GAMES_PER_FORMAT, policy.maxGamesPerFormat);
+        policy.maxBytesPerFormat = preferences.getLong(KEY_MAX_BYTES_PER_FORMAT, policy.maxBytesPerFormat);
+        policy.keepBest = preferences.getInt(KEY_KEEP_BEST, policy.keepBest);
+        policy.singleCopy = preferences.getBoolean(KEY_SINGLE_COPY, policy.singleCopy);
+        return policy;
+    }
+
+    /**
+     * Guarda la política para las próximas limpiezas
+     */
+    public void save(Context context) {
+        context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE).edit()
+                .putInt(KEY_MAX_GAMES_PER_PLAYER, maxGamesPerPlayer)
+                .putLong(KEY_MAX_BYTES_PER_PLAYER, maxBytesPerPlayer)
+                .putInt(KEY_MAX_GAMES_PER_FORMAT, maxGamesPerFormat)
+                .putLong(KEY_MAX_BYTES_PER_FORMAT, maxBytesPerFormat)
+                .putInt(KEY_KEEP_BEST, keepBest)
+                .putBoolean(KEY_SINGLE_COPY, singleCopy)
+                .apply();
+    }
+
+    public int getMaxGamesPerPlayer() {
+        return maxGamesPerPlayer;
+    }
+
+    public void setMaxGamesPerPlayer(int maxGamesPerPlayer) {
+        this.maxGamesPerPlayer = Math.max(0, maxGamesPerPlayer);
+    }
+
+    public long getMaxBytesPerPlayer() {
+        return maxBytesPerPlayer;
+    }
+
+    public void setMaxBytesPerPlayer(long maxBytesPerPlayer) {
+        this.maxBytesPerPlayer = Math.max(0, maxBytesPerPlayer);
+    }
+
+    public int getMaxGamesPerFormat() {
+        return maxGamesPerFormat;
+    }
+
+    public void setMaxGamesPerFormat(int maxGamesPerFormat) {
+        this.maxGamesPerFormat = Math.max(0, maxGamesPerFormat);
+    }
+
+    public long getMaxBytesPerFormat() {
+        return maxBytesPerFormat;
+    }
+
+    public void setMaxBytesPerFormat(long maxBytesPerFormat) {
+        this.maxBytesPerFormat = Math.max(0, maxBytesPerFormat);
+    }
+
+    public int getKeepBest() {
+        return keepBest;
+    }
+
+    public void setKeepBest(int keepBest) {
+        this.keepBest = Math.max(0, keepBest);
+    }
+
+    public boolean isSingleCopy() {
+        return singleCopy;
+    }
+
+    public void setSingleCopy(boolean singleCopy) {
+        this.singleCopy = singleCopy;
+    }
+
+    /**
+     * Elige las partidas que sobran según la política.
+     * Las partidas no válidas no se tocan: no se sabe a quién pertenecen.
+     * @param savedGames Cabeceras de todas las partidas guardadas
+     * @param sizes Bytes que ocupa cada partida, por nombre de archivo
+     * @return Las partidas que hay que eliminar
+     */
+    public List<SavedGame> selectExpired(List<SavedGame> savedGames, Map<String, Long> sizes) {
+        List<SavedGame> expired = new ArrayList<>();
+        List<SavedGame> kept = new ArrayList<>();
+
+        // De la más reciente a la más antigua, así los límites eliminan las antiguas
+        List<SavedGame> candidates = new ArrayList<>();
+        for (SavedGame savedGame : savedGames) {
+            if (savedGame != null && savedGame.isValid()) {
+                candidates.add(savedGame);
+            }
+        }
+        Collections.sort(candidates, NEWEST_FIRST);
+
+        if (singleCopy) {
+            Set<String> seenGames = new HashSet<>();
+            for (SavedGame savedGame : candidates) {
+                if (seenGames.add(savedGame.getGameId())) {
+                    kept.add(savedGame);
+                } else {
+                    expired.add(savedGame);
+                }
+            }
+        } else {
+            kept.addAll(candidates);
+        }
+
+        Set<SavedGame> protectedGames = selectBest(kept);
+        kept = applyLimit(kept, true, maxGamesPerPlayer, maxBytesPerPlayer, sizes, protectedGames, expired);
+        applyLimit(kept, false, maxGamesPerFormat, maxBytesPerFormat, sizes, protectedGames, expired);
+        return expired;
+    }
+
+    /**
+     * Las keepBest partidas con más puntuación de cada jugador
+     */
+    private Set<SavedGame> selectBest(List<SavedGame> savedGames) {
+        Map<String, List<SavedGame>> byPlayer = groupBy(savedGames, true);
+        Set<SavedGame> best = new HashSet<>();
+        for (List<SavedGame> games : byPlayer.values()) {
+            List<SavedGame> sorted = new ArrayList<>(games);
+            Collections.sort(sorted, BEST_FIRST);
+            best.addAll(sorted.subList(0, Math.min(keepBest, sorted.size())));
+        }
+        return best;
+    }
+
+    /**
+     * Aplica un límite de partidas y bytes a cada grupo (jugador o formato).
+     * Las partidas protegidas se conservan siempre, pero cuentan para el límite.
+     * @param savedGames Partidas ordenadas de la más reciente a la más antigua
+     * @return Las partidas que se conservan, en el mismo orden
+     */
+    private List<SavedGame> applyLimit(List<SavedGame> savedGames, boolean byPlayer, int maxGames, long maxBytes,
+                                       Map<String, Long> sizes, Set<SavedGame> protectedGames,
+                                       List<SavedGame> expired) {
+        if (maxGames == 0 && maxBytes == 0) {
+            return savedGames;
+        }
+
+        Map<String, int[]> gameCounts = new HashMap<>();
+        Map<String, long[]> byteCounts = new HashMap<>();
+        List<SavedGame> kept = new ArrayList<>();
+
+        // Las protegidas ocupan su sitio antes que las demás
+        for (SavedGame savedGame : savedGames) {
+            if (protectedGames.contains(savedGame)) {
+                count(savedGame, byPlayer, sizes, gameCounts, byteCounts);
+            }
+        }
+
+        for (SavedGame savedGame : savedGames) {
+            if (protectedGames.contains(savedGame)) {
+                kept.add(savedGame);
+                continue;
+            }
+
+            String key = getGroupKey(savedGame, byPlayer);
+            int[] games = gameCounts.get(key);
+            long[] bytes = byteCounts.get(key);
+            int currentGames = games != null ? games[0] : 0;
+            long currentBytes = bytes != null ? bytes[0] : 0;
+            long size = getSize(savedGame, sizes);
+
+            if ((maxGames > 0 && currentGames + 1 > maxGames)
+                    || (maxBytes > 0 && currentBytes + size > maxBytes)) {
+                expired.add(savedGame);
+            } else {
+                count(savedGame, byPlayer, sizes, gameCounts, byteCounts);
+                kept.add(savedGame);
+            }
+        }
+        return kept;
+    }
+
+    private static void count(SavedGame savedGame, boolean byPlayer, Map<String, Long> sizes,
+                              Map<String, int[]> gameCounts, Map<String, long[]> byteCounts) {
+        String key = getGroupKey(savedGame, byPlayer);
+        int[] games = gameCounts.get(key);
+        if (games == null) {
+            games = new int[1];
+            gameCounts.put(key, games);
+        }
+        long[] bytes = byteCounts.get(key);
+        if (bytes == null) {
+            bytes = new long[1];
+            byteCounts.put(key, bytes);
+        }
+        games[0]++;
+        bytes[0] += getSize(savedGame, sizes);
+    }
+
+    private static long getSize(SavedGame savedGame, Map<String, Long> sizes) {
+        Long size = sizes.get(savedGame.getFileName());
+        return size != null ? size : savedGame.getSize();
+    }
+
+    private static Map<String, List<SavedGame>> groupBy(List<SavedGame> savedGames, boolean byPlayer) {
+        Map<String, List<SavedGame>> groups = new HashMap<>();
+        for (SavedGame savedGame : savedGames) {
+            String key = getGroupKey(savedGame, byPlayer);
+            List<SavedGame> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(key, group);
+            }
+            group.add(savedGame);
+        }
+        return groups;
+    }
+
+    /**
+     * Jugador sin distinguir mayúsculas, o formato
+     */
+    private static String getGroupKey(SavedGame savedGame, boolean byPlayer) {
+        if (byPlayer) {
+            String playerName = savedGame.getPlayerName();
+            return playerName != null ? playerName.trim().toLowerCase(Locale.ROOT) : "";
+        }
+        return savedGame.getFormat();
+    }
+}
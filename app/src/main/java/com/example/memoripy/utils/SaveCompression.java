@@ -0,0 +1,158 @@
+package com.example.memoripy.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresión opcional de los archivos de partida.
+ *
+ * Al leer, la compresión se detecta por los primeros bytes del archivo
+ * (cabecera gzip o zlib), no por la extensión, así que un mismo formato
+ * puede tener archivos comprimidos y sin comprimir.
+ */
+public final class SaveCompression {
+
+    public static final int NONE = 0;
+    public static final int GZIP = 1;
+    public static final int DEFLATE = 2;
+
+    private static final int BUFFER_SIZE = 8192;
+    // Cabecera de 10 bytes, al menos 2 de datos comprimidos, CRC32 y tamaño
+    private static final int GZIP_MIN_LENGTH = 20;
+
+    private SaveCompression() {
+        // Clase de utilidades
+    }
+
+    /**
+     * Abre un archivo para escribir, comprimiendo los datos si se pide
+     * @param file Archivo de destino
+     * @param compression NONE, GZIP o DEFLATE
+     * @return Flujo con buffer; al cerrarlo se completa la compresión
+     */
+    static OutputStream openOutput(File file, int compression) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            switch (compression) {
+                case GZIP:
+                    return new BufferedOutputStream(new GZIPOutputStream(out, BUFFER_SIZE), BUFFER_SIZE);
+                case DEFLATE:
+                    return new BufferedOutputStream(new DeflaterOutputStream(out), BUFFER_SIZE);
+                default:
+                    return new BufferedOutputStream(out, BUFFER_SIZE);
+            }
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Abre un archivo para leer; si está comprimido se descomprime al leer
+     * @param file Archivo a leer
+     * @return Flujo con buffer con los datos sin comprimir
+     */
+    static InputStream openInput(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        try {
+            switch (detect(in)) {
+                case GZIP:
+                    return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+                case DEFLATE:
+                    return new BufferedInputStream(new InflaterInputStream(in), BUFFER_SIZE);
+                default:
+                    return in;
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Detecta la compresión de un archivo por sus primeros bytes
+     * @return NONE, GZIP o DEFLATE
+     */
+    public static int detect(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 2)) {
+            return detect(in);
+        }
+    }
+
+    /**
+     * Mira los dos primeros bytes del flujo sin consumirlos
+     */
+    private static int detect(InputStream in) throws IOException {
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+
+        if (first == 0x1F && second == 0x8B) {
+            return GZIP;
+        }
+        // Cabecera zlib: método deflate (0x?8) con ventana de 32 KB y comprobación módulo 31
+        if (first == 0x78 && second >= 0 && ((first << 8) | second) % 31 == 0) {
+            return DEFLATE;
+        }
+        return NONE;
+    }
+
+    /**
+     * Longitud del contenido sin comprimir de un archivo, sin descomprimirlo.
+     * Sin comprimir es su tamaño; en gzip la anotan los cuatro últimos bytes
+     * (módulo 2^32, de sobra para una partida). Zlib no la anota.
+     * @return La longitud, o -1 si no se puede saber sin descomprimir el archivo
+     */
+    static long uncompressedLength(File file) throws IOException {
+        switch (detect(file)) {
+            case NONE:
+                return file.length();
+            case GZIP:
+                try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                    if (raf.length() < GZIP_MIN_LENGTH) {
+                        throw new EOFException("Archivo gzip incompleto");
+                    }
+                    raf.seek(raf.length() - 4);
+                    byte[] size = new byte[4];
+                    raf.readFully(size);
+                    return (size[0] & 0xFFL) | (size[1] & 0xFFL) << 8
+                            | (size[2] & 0xFFL) << 16 | (size[3] & 0xFFL) << 24;
+                }
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Copia el contenido sin comprimir de un archivo.
+     * Si el original no está comprimido se copia directamente entre canales.
+     */
+    static void copyUncompressed(File source, File dest) throws IOException {
+        if (detect(source) == NONE) {
+            FileTransfer.copy(source, dest);
+            return;
+        }
+
+        try (InputStream in = openInput(source);
+             OutputStream out = new FileOutputStream(dest)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.memoripy.utils;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Formato de las fechas de guardado ("yyyy-MM-dd HH:mm:ss").
+ *
+ * SimpleDateFormat no se puede usar desde varios hilos a la vez, así que
+ * cada hilo tiene su propia instancia.
+ */
+final class SaveDateFormat {
+
+    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    private static final ThreadLocal<SimpleDateFormat> FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat(PATTERN, Locale.getDefault());
+        }
+    };
+
+    private SaveDateFormat() {
+        // Clase de utilidades
+    }
+
+    static String format(Date date) {
+        return FORMAT.get().format(date);
+    }
+
+    static Date parse(String text) throws ParseException {
+        return FORMAT.get().parse(text);
+    }
+}
@@ -0,0 +1,564 @@
+package com.example.memoripy.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Árbol de una partida guardada en XML o JSON que se expande bajo demanda.
+ *
+ * Al expandir un nodo solo se recorren los bytes de ese nodo en el archivo
+ * proyectado: de cada hijo se guarda su posición, así que abrir una tarjeta
+ * concreta no obliga a leer el resto del documento. Los hijos se leen en
+ * páginas de {@link #PAGE_SIZE}; si quedan más, la página termina con un
+ * nodo {@link Node#MORE} que continúa donde se quedó la anterior.
+ */
+public class SaveTree {
+
+    // Número de hijos que se leen cada vez
+    public static final int PAGE_SIZE = 100;
+
+    private final MappedTextFile file;
+    private final int size;
+    private final boolean json;
+    private final Node root;
+
+    /**
+     * @param file Contenido del archivo
+     * @param fileName Nombre del archivo, para saber si es XML o JSON
+     */
+    public SaveTree(MappedTextFile file, String fileName) throws IOException {
+        this.file = file;
+        this.size = (int) file.getSize();
+        this.json = fileName.endsWith(".json");
+        this.root = json ? findJsonRoot(fileName) : findXmlRoot();
+    }
+
+    /**
+     * Indica si el archivo se puede mostrar como árbol
+     */
+    public static boolean supports(String fileName) {
+        return fileName.endsWith(".xml") || fileName.endsWith(".json");
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Lee la siguiente página de hijos de un nodo.
+     * Para un nodo {@link Node#MORE}, lee la página siguiente de su padre.
+     */
+    public List<Node> readChildren(Node node) throws IOException {
+        if (node.type == Node.VALUE) {
+            return new ArrayList<>();
+        }
+        return json ? readJsonChildren(node) : readXmlChildren(node);
+    }
+
+    private byte at(int position) throws IOException {
+        if (position >= size) {
+            throw new IOException("Fin de archivo inesperado");
+        }
+        return file.byteAt(position);
+    }
+
+    private IOException invalid(int position) {
+        return new IOException("Estructura no válida en la posición " + position);
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = file.byteAt(i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int skipWhitespace(int position) throws IOException {
+        while (position < size && (at(position) & 0xFF) <= ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private boolean startsWith(int position, String text) {
+        if (position + text.length() > size) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (file.byteAt(position + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Posición justo después del siguiente texto indicado
+     */
+    private int skipPast(int position, String text) throws IOException {
+        while (!startsWith(position, text)) {
+            at(position);
+            position++;
+        }
+        return position + text.length();
+    }
+
+    // ---------------------------------------------------------------- JSON
+
+    private Node findJsonRoot(String fileName) throws IOException {
+        int position = skipWhitespace(0);
+        byte b = at(position);
+        if (b != '{' && b != '[') {
+            throw invalid(position);
+        }
+        return new Node(Node.CONTAINER, fileName, null, 0, position, 0, null, b == '[');
+    }
+
+    private List<Node> readJsonChildren(Node node) throws IOException {
+        Node container = node.type == Node.MORE ? node.parent : node;
+        int position = node.type == Node.MORE ? node.offset : node.offset + 1;
+        int index = node.type == Node.MORE ? node.index : 0;
+        int depth = container.depth + 1;
+
+        List<Node> children = new ArrayList<>();
+        while (true) {
+            position = skipWhitespace(position);
+            byte b = at(position);
+            if (b == '}' || b == ']') {
+                return children;
+            }
+            if (b == ',') {
+                position = skipWhitespace(position + 1);
+            }
+
+            if (children.size() == PAGE_SIZE) {
+                // Quedan más hijos: seguir desde aquí en la próxima página
+                children.add(new Node(Node.MORE, null, null, depth, position, index, container, false));
+                return children;
+            }
+
+            String name;
+            if (container.array) {
+                name = "[" + index + "]";
+            } else {
+                int nameEnd = skipJsonString(position);
+                name = readJsonString(position, nameEnd);
+                position = skipWhitespace(nameEnd);
+                if (at(position) != ':') {
+                    throw invalid(position);
+                }
+                position = skipWhitespace(position + 1);
+            }
+
+            b = at(position);
+            int end = skipJsonValue(position);
+            if (b == '{' || b == '[') {
+                children.add(new Node(Node.CONTAINER, name, null, depth, position, index, null, b == '['));
+            } else {
+                String value = b == '"' ? readJsonString(position, end) : decode(position, end);
+                children.add(new Node(Node.VALUE, name, value, depth, position, index, null, false));
+            }
+            position = end;
+            index++;
+        }
+    }
+
+    /**
+     * Posición justo después de un valor JSON
+     */
+    private int skipJsonValue(int position) throws IOException {
+        byte b = at(position);
+        if (b == '"') {
+            return skipJsonString(position);
+        }
+        if (b != '{' && b != '[') {
+            // Número, true, false o null
+            while (position < size) {
+                b = file.byteAt(position);
+                if (b == ',' || b == '}' || b == ']' || (b & 0xFF) <= ' ') {
+                    break;
+                }
+                position++;
+            }
+            return position;
+        }
+
+        int depth = 0;
+        while (true) {
+            b = at(position);
+            if (b == '"') {
+                position = skipJsonString(position);
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+                if (depth == 0) {
+                    return position + 1;
+                }
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Posición justo después de una cadena JSON que empieza en position
+     */
+    private int skipJsonString(int position) throws IOException {
+        if (at(position) != '"') {
+            throw invalid(position);
+        }
+        position++;
+        while (true) {
+            byte b = at(position);
+            if (b == '\\') {
+                position += 2;
+            } else if (b == '"') {
+                return position + 1;
+            } else {
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Lee una cadena JSON, incluidas las comillas, resolviendo los escapes
+     */
+    private String readJsonString(int start, int end) throws IOException {
+        String raw = decode(start + 1, end - 1);
+        if (raw.indexOf('\\') < 0) {
+            return raw;
+        }
+
+        StringBuilder text = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\' || i + 1 >= raw.length()) {
+                text.append(c);
+                continue;
+            }
+            char escaped = raw.charAt(++i);
+            switch (escaped) {
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'u':
+                    if (i + 4 >= raw.length()) {
+                        throw invalid(start);
+                    }
+                    try {
+                        text.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        throw invalid(start);
+                    }
+                    i += 4;
+                    break;
+                default:
+                    // \" \\ \/
+                    text.append(escaped);
+                    break;
+            }
+        }
+        return text.toString();
+    }
+
+    // ----------------------------------------------------------------- XML
+
+    private Node findXmlRoot() throws IOException {
+        int position = skipXmlMisc(0);
+        if (at(position) != '<') {
+            throw invalid(position);
+        }
+        return new Node(Node.CONTAINER, readXmlName(position), null, 0, position, 0, null, false);
+    }
+
+    /**
+     * Salta espacios, comentarios, instrucciones de proceso y la declaración DOCTYPE
+     */
+    private int skipXmlMisc(int position) throws IOException {
+        while (true) {
+            position = skipWhitespace(position);
+            if (startsWith(position, "<!--")) {
+                position = skipPast(position, "-->");
+            } else if (startsWith(position, "<?") || startsWith(position, "<!DOCTYPE")) {
+                position = skipPast(position, ">");
+            } else {
+                return position;
+            }
+        }
+    }
+
+    private List<Node> readXmlChildren(Node node) throws IOException {
+        Node container = node.type == Node.MORE ? node.parent : node;
+        int position;
+        int index;
+        if (node.type == Node.MORE) {
+            position = node.offset;
+            index = node.index;
+        } else {
+            position = skipXmlStartTag(node.offset);
+            if (file.byteAt(position - 2) == '/') {
+                // Elemento vacío <nombre/>
+                return new ArrayList<>();
+            }
+            index = 0;
+        }
+        int depth = container.depth + 1;
+
+        List<Node> children = new ArrayList<>();
+        while (true) {
+            // El texto suelto entre elementos no se muestra
+            while (at(position) != '<') {
+                position++;
+            }
+            if (startsWith(position, "<!--")) {
+                position = skipPast(position, "-->");
+                continue;
+            }
+            if (startsWith(position, "<![CDATA[")) {
+                position = skipPast(position, "]]>");
+                continue;
+            }
+            if (startsWith(position, "<?")) {
+                position = skipPast(position, "?>");
+                continue;
+            }
+            if (startsWith(position, "</")) {
+                return children;
+            }
+
+            if (children.size() == PAGE_SIZE) {
+                children.add(new Node(Node.MORE, null, null, depth, position, index, container, false));
+                return children;
+            }
+
+            String name = readXmlName(position);
+            int contentStart = skipXmlStartTag(position);
+            if (file.byteAt(contentStart - 2) == '/') {
+                children.add(new Node(Node.VALUE, name, "", depth, position, index, null, false));
+                position = contentStart;
+            } else {
+                ElementEnd end = skipXmlContent(contentStart);
+                if (end.hasChildren) {
+                    children.add(new Node(Node.CONTAINER, name, null, depth, position, index, null, false));
+                } else {
+                    String value = readXmlText(contentStart, end.contentEnd);
+                    children.add(new Node(Node.VALUE, name, value, depth, position, index, null, false));
+                }
+                position = end.position;
+            }
+            index++;
+        }
+    }
+
+    private String readXmlName(int position) throws IOException {
+        int start = position + 1;
+        int end = start;
+        while (true) {
+            byte b = at(end);
+            if ((b & 0xFF) <= ' ' || b == '/' || b == '>') {
+                break;
+            }
+            end++;
+        }
+        if (end == start) {
+            throw invalid(position);
+        }
+        return decode(start, end);
+    }
+
+    /**
+     * Posición justo después de la etiqueta de apertura que empieza en position
+     */
+    private int skipXmlStartTag(int position) throws IOException {
+        byte quote = 0;
+        while (true) {
+            byte b = at(++position);
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                return position + 1;
+            }
+        }
+    }
+
+    /**
+     * Fin de un elemento cuyo contenido empieza en position
+     */
+    private static class ElementEnd {
+        int contentEnd;
+        int position;
+        boolean hasChildren;
+    }
+
+    private ElementEnd skipXmlContent(int position) throws IOException {
+        ElementEnd end = new ElementEnd();
+        int depth = 1;
+        while (true) {
+            if (at(position) != '<') {
+                position++;
+            } else if (startsWith(position, "</")) {
+                depth--;
+                if (depth == 0) {
+                    end.contentEnd = position;
+                    end.position = skipPast(position, ">");
+                    return end;
+                }
+                position = skipPast(position, ">");
+            } else if (startsWith(position, "<!--")) {
+                position = skipPast(position, "-->");
+            } else if (startsWith(position, "<![CDATA[")) {
+                position = skipPast(position, "]]>");
+            } else if (startsWith(position, "<?")) {
+                position = skipPast(position, "?>");
+            } else {
+                end.hasChildren = true;
+                position = skipXmlStartTag(position);
+                if (file.byteAt(position - 2) != '/') {
+                    depth++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee el texto de un elemento resolviendo entidades y secciones CDATA
+     */
+    private String readXmlText(int start, int end) {
+        String raw = decode(start, end);
+        if (raw.indexOf('&') < 0 && raw.indexOf('<') < 0) {
+            return raw;
+        }
+
+        StringBuilder text = new StringBuilder(raw.length());
+        int i = 0;
+        while (i < raw.length()) {
+            char c = raw.charAt(i);
+            if (raw.startsWith("<![CDATA[", i)) {
+                int close = raw.indexOf("]]>", i);
+                close = close < 0 ? raw.length() : close;
+                text.append(raw, i + 9, close);
+                i = close + 3;
+            } else if (raw.startsWith("<!--", i)) {
+                int close = raw.indexOf("-->", i);
+                i = close < 0 ? raw.length() : close + 3;
+            } else if (c == '&') {
+                int semicolon = raw.indexOf(';', i);
+                if (semicolon < 0) {
+                    text.append(c);
+                    i++;
+                    continue;
+                }
+                text.append(resolveXmlEntity(raw.substring(i + 1, semicolon)));
+                i = semicolon + 1;
+            } else {
+                text.append(c);
+                i++;
+            }
+        }
+        return text.toString();
+    }
+
+    private static String resolveXmlEntity(String entity) {
+        switch (entity) {
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "amp":
+                return "&";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            default:
+                try {
+                    if (entity.startsWith("#x")) {
+                        return new String(Character.toChars(Integer.parseInt(entity.substring(2), 16)));
+                    }
+                    if (entity.startsWith("#")) {
+                        return new String(Character.toChars(Integer.parseInt(entity.substring(1))));
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Se deja la entidad tal cual
+                }
+                return "&" + entity + ";";
+        }
+    }
+
+    /**
+     * Nodo del árbol. Solo guarda su posición en el archivo; sus hijos se
+     * leen con {@link SaveTree#readChildren(Node)}.
+     */
+    public static class Node {
+        // Valor simple
+        public static final int VALUE = 0;
+        // Objeto, lista o elemento con hijos
+        public static final int CONTAINER = 1;
+        // Marca de que el padre tiene más hijos por leer
+        public static final int MORE = 2;
+
+        private final int type;
+        private final String name;
+        private final String value;
+        private final int depth;
+        private final int offset;
+        private final int index;
+        private final Node parent;
+        private final boolean array;
+
+        Node(int type, String name, String value, int depth, int offset, int index, Node parent, boolean array) {
+            this.type = type;
+            this.name = name;
+            this.value = value;
+            this.depth = depth;
+            this.offset = offset;
+            this.index = index;
+            this.parent = parent;
+            this.array = array;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Para un nodo {@link #MORE}, el nodo cuyos hijos continúa
+         */
+        public Node getParent() {
+            return parent;
+        }
+    }
+}
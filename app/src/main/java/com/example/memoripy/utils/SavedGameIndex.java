@@ -0,0 +1,193 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.memoripy.models.SavedGame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Catálogo persistente de partidas guardadas.
+ * Guarda la cabecera de cada partida (jugador, nivel, puntuación, fecha,
+ * tiempo y si está completada) junto con el tamaño y la fecha de
+ * modificación del archivo, de modo que para listar las partidas basta con
+ * leer este archivo y comprobar los metadatos de cada partida, sin volver a
+ * interpretar su contenido.
+ */
+public class SavedGameIndex {
+
+    private static final String TAG = "SavedGameIndex";
+    private static final String INDEX_FILE = "saved_games_index.dat";
+    private static final int INDEX_MAGIC = 0x4D495049; // "MIPI"
+    private static final int INDEX_VERSION = 2;
+
+    private final Map<String, SavedGame> entries = new LinkedHashMap<>();
+    private boolean loaded;
+    private boolean dirty;
+
+    /**
+     * Obtiene la entrada de un archivo, o null si no está en el catálogo
+     */
+    public synchronized SavedGame get(Context context, String fileName) {
+        ensureLoaded(context);
+        return entries.get(fileName);
+    }
+
+    /**
+     * Obtiene todas las entradas del catálogo
+     */
+    public synchronized List<SavedGame> getAll(Context context) {
+        ensureLoaded(context);
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * Añade o reemplaza la entrada de un archivo
+     */
+    public synchronized void put(Context context, SavedGame savedGame) {
+        ensureLoaded(context);
+        entries.put(savedGame.getFileName(), savedGame);
+        dirty = true;
+    }
+
+    /**
+     * Elimina la entrada de un archivo
+     */
+    public synchronized void remove(Context context, String fileName) {
+        ensureLoaded(context);
+        if (entries.remove(fileName) != null) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Elimina las entradas de un formato cuyos archivos ya no existen
+     */
+    public synchronized void retain(Context context, String format, List<String> existingFiles) {
+        ensureLoaded(context);
+        Set<String> existing = new HashSet<>(existingFiles);
+        List<String> toRemove = new ArrayList<>();
+        for (SavedGame savedGame : entries.values()) {
+            if (format.equals(savedGame.getFormat()) && !existing.contains(savedGame.getFileName())) {
+                toRemove.add(savedGame.getFileName());
+            }
+        }
+        for (String fileName : toRemove) {
+            entries.remove(fileName);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Guarda el catálogo en disco si ha cambiado
+     */
+    public synchronized void flush(Context context) {
+        if (!dirty) {
+            return;
+        }
+
+        File indexFile = new File(context.getFilesDir(), INDEX_FILE);
+        File tempFile = new File(context.getFilesDir(), INDEX_FILE + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(entries.size());
+            for (SavedGame savedGame : entries.values()) {
+                writeEntry(out, savedGame);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error al guardar el catálogo", e);
+            tempFile.delete();
+            return;
+        }
+
+        // Reemplazar el catálogo anterior de forma atómica
+        if (tempFile.renameTo(indexFile)) {
+            dirty = false;
+        } else {
+            Log.e(TAG, "No se pudo reemplazar el catálogo");
+            tempFile.delete();
+        }
+    }
+
+    private void ensureLoaded(Context context) {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        File indexFile = new File(context.getFilesDir(), INDEX_FILE);
+        if (!indexFile.exists()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                Log.w(TAG, "Catálogo con formato desconocido, se reconstruirá");
+                dirty = true;
+                return;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                SavedGame savedGame = readEntry(in);
+                entries.put(savedGame.getFileName(), savedGame);
+            }
+        } catch (IOException e) {
+            // Un catálogo dañado solo obliga a volver a leer las partidas
+            Log.e(TAG, "Error al leer el catálogo, se reconstruirá", e);
+            entries.clear();
+            dirty = true;
+        }
+    }
+
+    private void writeEntry(DataOutputStream out, SavedGame savedGame) throws IOException {
+        out.writeUTF(savedGame.getFileName());
+        out.writeUTF(savedGame.getFormat());
+        out.writeBoolean(savedGame.isValid());
+        out.writeBoolean(savedGame.getPlayerName() != null);
+        if (savedGame.getPlayerName() != null) {
+            out.writeUTF(savedGame.getPlayerName());
+        }
+        out.writeInt(savedGame.getLevel());
+        out.writeInt(savedGame.getScore());
+        out.writeLong(savedGame.getSaveDate());
+        out.writeLong(savedGame.getTimeElapsed());
+        out.writeBoolean(savedGame.isGameCompleted());
+        out.writeLong(savedGame.getSize());
+        out.writeLong(savedGame.getLastModified());
+    }
+
+    private SavedGame readEntry(DataInputStream in) throws IOException {
+        SavedGame savedGame = new SavedGame(in.readUTF(), in.readUTF());
+        savedGame.setValid(in.readBoolean());
+        if (in.readBoolean()) {
+            savedGame.setPlayerName(in.readUTF());
+        }
+        savedGame.setLevel(in.readInt());
+        savedGame.setScore(in.readInt());
+        savedGame.setSaveDate(in.readLong());
+        savedGame.setTimeElapsed(in.readLong());
+        savedGame.setGameCompleted(in.readBoolean());
+        savedGame.setSize(in.readLong());
+        savedGame.setLastModified(in.readLong());
+        return savedGame;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.memoripy.utils;
+
+import com.example.memoripy.models.SavedGame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Consulta sobre las cabeceras de las partidas guardadas: filtros por
+ * jugador, nivel, formato, fechas y partida completada, un orden y un
+ * número máximo de resultados.
+ *
+ * Con límite, las N mejores se eligen con un montículo de tamaño N en vez
+ * de ordenar todas las partidas.
+ */
+public class SavedGameQuery {
+
+    public static final int SORT_DATE = 0;
+    public static final int SORT_SCORE = 1;
+    public static final int SORT_TIME = 2;
+
+    private String playerPrefix;     // Inicio del nombre, sin distinguir mayúsculas
+    private int level;               // 0 para cualquiera
+    private String format;           // null para cualquiera
+    private long fromDate;           // Fecha de guardado mínima en milisegundos
+    private long toDate = Long.MAX_VALUE;
+    private Boolean completed;       // null para cualquiera
+    private int sortBy = SORT_DATE;
+    private boolean descending = true;
+    private int limit;               // 0 para todas
+
+    public String getPlayerPrefix() {
+        return playerPrefix;
+    }
+
+    public void setPlayerPrefix(String playerPrefix) {
+        this.playerPrefix = playerPrefix != null && !playerPrefix.isEmpty() ? playerPrefix : null;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public long getFromDate() {
+        return fromDate;
+    }
+
+    public long getToDate() {
+        return toDate;
+    }
+
+    /**
+     * Limita la fecha de guardado a un rango, ambos extremos incluidos
+     */
+    public void setDateRange(long fromDate, long toDate) {
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+    }
+
+    public Boolean getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Boolean completed) {
+        this.completed = completed;
+    }
+
+    public int getSortBy() {
+        return sortBy;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * @param sortBy SORT_DATE, SORT_SCORE o SORT_TIME
+     * @param descending true para empezar por el valor más alto
+     */
+    public void setSort(int sortBy, boolean descending) {
+        this.sortBy = sortBy;
+        this.descending = descending;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = Math.max(0, limit);
+    }
+
+    /**
+     * Indica si la consulta admite partidas de un formato
+     */
+    public boolean acceptsFormat(String format) {
+        return this.format == null || this.format.equalsIgnoreCase(format);
+    }
+
+    /**
+     * Indica si una partida cumple todos los filtros
+     */
+    public boolean matches(SavedGame savedGame) {
+        if (!savedGame.isValid() || !acceptsFormat(savedGame.getFormat())) {
+            return false;
+        }
+        if (level > 0 && savedGame.getLevel() != level) {
+            return false;
+        }
+        if (savedGame.getSaveDate() < fromDate || savedGame.getSaveDate() > toDate) {
+            return false;
+        }
+        if (completed != null && savedGame.isGameCompleted() != completed) {
+            return false;
+        }
+        if (playerPrefix != null) {
+            String playerName = savedGame.getPlayerName();
+            return playerName != null && playerName.regionMatches(true, 0, playerPrefix, 0, playerPrefix.length());
+        }
+        return true;
+    }
+
+    /**
+     * Orden de la consulta; a igual valor se ordena por nombre de archivo
+     * para que el resultado no dependa del orden de entrada
+     */
+    public Comparator<SavedGame> getComparator() {
+        final int sign = descending ? -1 : 1;
+        return new Comparator<SavedGame>() {
+            @Override
+            public int compare(SavedGame a, SavedGame b) {
+                int result = sign * Long.compare(sortValue(a), sortValue(b));
+                if (result != 0) {
+                    return result;
+                }
+                return a.getFileName().compareTo(b.getFileName());
+            }
+        };
+    }
+
+    private long sortValue(SavedGame savedGame) {
+        switch (sortBy) {
+            case SORT_SCORE:
+                return savedGame.getScore();
+            case SORT_TIME:
+                return savedGame.getTimeElapsed();
+            default:
+                return savedGame.getSaveDate();
+        }
+    }
+
+    /**
+     * Aplica los filtros, el orden y el límite a un conjunto de partidas
+     * @return Las partidas que cumplen la consulta, ya ordenadas
+     */
+    public List<SavedGame> select(Iterable<SavedGame> savedGames) {
+        Comparator<SavedGame> comparator = getComparator();
+
+        if (limit == 0) {
+            List<SavedGame> result = new ArrayList<>();
+            for (SavedGame savedGame : savedGames) {
+                if (matches(savedGame)) {
+                    result.add(savedGame);
+                }
+            }
+            Collections.sort(result, comparator);
+            return result;
+        }
+
+        // Montículo con las N mejores vistas hasta ahora; la peor queda en la cima
+        PriorityQueue<SavedGame> best = new PriorityQueue<>(limit + 1, Collections.reverseOrder(comparator));
+        for (SavedGame savedGame : savedGames) {
+            if (!matches(savedGame)) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(savedGame);
+            } else if (comparator.compare(savedGame, best.peek()) < 0) {
+                best.poll();
+                best.add(savedGame);
+            }
+        }
+
+        List<SavedGame> result = new ArrayList<>(best);
+        Collections.sort(result, comparator);
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.memoripy.utils;
+
+import android.os.FileObserver;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vigila los directorios de partidas guardadas y avisa de los archivos
+ * que se escriben, se mueven o se eliminan en ellos.
+ * Los avisos llegan en el hilo del FileObserver.
+ */
+class SavedGamesWatcher {
+
+    // Un archivo ha terminado de escribirse o se ha movido al directorio
+    private static final int CHANGE_EVENTS = FileObserver.CLOSE_WRITE | FileObserver.MOVED_TO;
+
+    // Un archivo se ha eliminado o se ha movido fuera del directorio
+    private static final int REMOVE_EVENTS = FileObserver.DELETE | FileObserver.MOVED_FROM;
+
+    /**
+     * Interface para recibir los cambios de los archivos
+     */
+    interface Callback {
+        void onFileChanged(String format, String fileName);
+
+        void onFileRemoved(String format, String fileName);
+    }
+
+    private final List<FileObserver> observers = new ArrayList<>();
+
+    /**
+     * Empieza a vigilar los directorios (se crean si no existen)
+     * @param directories Directorio de cada formato
+     */
+    SavedGamesWatcher(Map<String, File> directories, Callback callback) {
+        for (Map.Entry<String, File> entry : directories.entrySet()) {
+            File directory = entry.getValue();
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
+            FileObserver observer = new DirectoryObserver(directory, entry.getKey(), callback);
+            observer.startWatching();
+            observers.add(observer);
+        }
+    }
+
+    /**
+     * Deja de vigilar los directorios
+     */
+    void stop() {
+        for (FileObserver observer : observers) {
+            observer.stopWatching();
+        }
+        observers.clear();
+    }
+
+    private static class DirectoryObserver extends FileObserver {
+        private final String format;
+        private final Callback callback;
+
+        @SuppressWarnings("deprecation")
+        DirectoryObserver(File directory, String format, Callback callback) {
+            // El constructor con File solo existe a partir de Android 10
+            super(directory.getPath(), CHANGE_EVENTS | REMOVE_EVENTS);
+            this.format = format;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onEvent(int event, String path) {
+            // Solo interesan los archivos con la extensión del formato
+            if (path == null || !path.endsWith("." + format)) {
+                return;
+            }
+
+            if ((event & CHANGE_EVENTS) != 0) {
+                callback.onFileChanged(format, path);
+            } else if ((event & REMOVE_EVENTS) != 0) {
+                callback.onFileRemoved(format, path);
+            }
+        }
+    }
+}
@@ -0,0 +1,773 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.memoripy.models.Card;
+import com.example.memoripy.models.GameState;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Historial de puntos guardados de cada partida.
+ *
+ * El archivo de una partida se guarda con su ID, así que cada guardado
+ * sustituye al anterior. Aquí se conserva cada guardado en
+ * "gameId.hist", un archivo de solo escritura al final con:
+ * - registros base: la partida completa en el formato de BinaryFileHandler
+ * - registros delta: solo lo que cambió desde el punto anterior (campos de
+ *   la cabecera, posiciones de las tarjetas que se voltearon o emparejaron
+ *   y movimientos nuevos)
+ *
+ * Cada MAX_DELTAS_PER_BASE deltas, o cuando los deltas ocupan más que la
+ * base, se escribe una base nueva; así cualquier punto se reconstruye
+ * leyendo una base y como mucho MAX_DELTAS_PER_BASE deltas. Cuando hay más
+ * de MAX_ENTRIES puntos se descarta la cadena más antigua.
+ * Los registros llevan longitud y CRC32 como los del diario; uno incompleto
+ * se descarta al leer.
+ */
+public class SnapshotHistory {
+
+    private static final String TAG = "SnapshotHistory";
+    private static final String FILE_DIRECTORY = "saved_games_history";
+    private static final String FILE_EXTENSION = ".hist";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final byte[] MAGIC = {'M', 'I', 'P', 'H'};
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+
+    private static final int MAX_DELTAS_PER_BASE = 16;
+    // Máximo de puntos que se conservan por partida; se descartan cadenas enteras
+    public static final int MAX_ENTRIES = 64;
+
+    private static final int TYPE_BASE = 0;
+    private static final int TYPE_DELTA = 1;
+
+    // Campos de la cabecera que cambian en un delta
+    private static final int FIELD_PLAYER_NAME = 1;
+    private static final int FIELD_SCORE = 1 << 1;
+    private static final int FIELD_TIME_ELAPSED = 1 << 2;
+    private static final int FIELD_LEVEL = 1 << 3;
+    private static final int FIELD_SAVE_DATE = 1 << 4;
+    private static final int FIELD_FLAGS = 1 << 5;
+    private static final int FIELD_THEME_NAME = 1 << 6;
+    private static final int FIELD_SAVE_FORMAT = 1 << 7;
+
+    private static final int FLAG_GAME_COMPLETED = 1;
+    private static final int FLAG_SOUND_ENABLED = 1 << 1;
+
+    // Cómo cambian las tarjetas en un delta
+    private static final int CARDS_SAME_LAYOUT = 0;  // Mismo tablero: solo las posiciones que cambian
+    private static final int CARDS_REPLACED = 1;     // Tablero nuevo (otro nivel): completo
+
+    // Estado del historial de cada partida, para añadir puntos sin releer el archivo
+    private final Map<String, HistoryState> states = new HashMap<>();
+
+    /**
+     * Un punto guardado del historial
+     */
+    public static class Entry {
+        private final int index;
+        private final long saveDate;
+        private final int score;
+        private final int level;
+        private final long timeElapsed;
+        private final int moveCount;
+        private final boolean gameCompleted;
+
+        Entry(int index, GameState gameState) {
+            this.index = index;
+            this.saveDate = gameState.getSaveDate() != null ? gameState.getSaveDate().getTime() : 0;
+            this.score = gameState.getScore();
+            this.level = gameState.getLevel();
+            this.timeElapsed = gameState.getTimeElapsed();
+            this.moveCount = gameState.getMoveHistory().size();
+            this.gameCompleted = gameState.isGameCompleted();
+        }
+
+        private Entry(int index, Entry other) {
+            this.index = index;
+            this.saveDate = other.saveDate;
+            this.score = other.score;
+            this.level = other.level;
+            this.timeElapsed = other.timeElapsed;
+            this.moveCount = other.moveCount;
+            this.gameCompleted = other.gameCompleted;
+        }
+
+        /**
+         * Posición en el historial, desde 0 (el más antiguo que se conserva)
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public long getSaveDate() {
+            return saveDate;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public long getTimeElapsed() {
+            return timeElapsed;
+        }
+
+        public int getMoveCount() {
+            return moveCount;
+        }
+
+        public boolean isGameCompleted() {
+            return gameCompleted;
+        }
+
+        @Override
+        public String toString() {
+            return SaveDateFormat.format(new Date(saveDate)) + " - Nivel " + level
+                    + " - " + score + " puntos - " + moveCount + " movimientos";
+        }
+    }
+
+    /**
+     * Registros válidos del archivo de una partida y el último punto reconstruido
+     */
+    private static class HistoryState {
+        final List<Entry> entries = new ArrayList<>();
+        final List<Long> offsets = new ArrayList<>();     // Posición de cada registro
+        final List<Boolean> bases = new ArrayList<>();    // Si cada registro es una base
+        GameState last;            // Copia del último punto
+        long length;               // Bytes válidos del archivo
+        long baseBytes;            // Tamaño de la última base
+        long deltaBytes;           // Bytes de los deltas desde la última base
+        int deltasSinceBase;
+    }
+
+    /**
+     * Añade un punto con el estado actual de la partida. No se añade nada si
+     * no ha cambiado desde el punto anterior (aparte de la fecha de guardado).
+     * @return true si se ha añadido
+     */
+    public boolean record(Context context, GameState gameState) throws IOException {
+        return record(getDirectory(context), gameState);
+    }
+
+    synchronized boolean record(File directory, GameState gameState) throws IOException {
+        String gameId = gameState.getGameId();
+        if (gameId == null || gameId.isEmpty()) {
+            return false;
+        }
+
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File file = new File(directory, gameId + FILE_EXTENSION);
+        HistoryState state = getState(file);
+
+        byte[] payload = null;
+        boolean base = state.last == null;
+        if (!base) {
+            ByteArrayOutputStream delta = new ByteArrayOutputStream();
+            if (!writeDelta(delta, state.last, gameState)) {
+                return false;
+            }
+            payload = delta.toByteArray();
+            // Nueva base cada MAX_DELTAS_PER_BASE deltas o si los deltas ya ocupan más que una base
+            base = state.deltasSinceBase >= MAX_DELTAS_PER_BASE
+                    || state.deltaBytes + payload.length > state.baseBytes;
+        }
+        if (base) {
+            ByteArrayOutputStream full = new ByteArrayOutputStream();
+            full.write(TYPE_BASE);
+            BinaryFileHandler.writeGameState(full, gameState);
+            payload = full.toByteArray();
+        }
+
+        long offset = appendRecord(file, state, payload);
+        GameState snapshot = gameState.copy();
+        state.entries.add(new Entry(state.entries.size(), snapshot));
+        state.offsets.add(offset);
+        state.bases.add(base);
+        state.last = snapshot;
+        if (base) {
+            state.baseBytes = payload.length;
+            state.deltaBytes = 0;
+            state.deltasSinceBase = 0;
+        } else {
+            state.deltaBytes += payload.length;
+            state.deltasSinceBase++;
+        }
+
+        if (state.entries.size() > MAX_ENTRIES) {
+            dropOldestChain(file, state);
+        }
+        return true;
+    }
+
+    /**
+     * Puntos guardados de una partida, del más antiguo al más reciente
+     */
+    public List<Entry> getEntries(Context context, String gameId) throws IOException {
+        return getEntries(getDirectory(context), gameId);
+    }
+
+    synchronized List<Entry> getEntries(File directory, String gameId) throws IOException {
+        File file = new File(directory, gameId + FILE_EXTENSION);
+        if (!file.exists()) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(getState(file).entries);
+    }
+
+    /**
+     * Reconstruye un punto guardado a partir de su base y los deltas que la siguen
+     * @param index Posición del punto, como en {@link Entry#getIndex()}
+     */
+    public GameState load(Context context, String gameId, int index) throws IOException {
+        return load(getDirectory(context), gameId, index);
+    }
+
+    synchronized GameState load(File directory, String gameId, int index) throws IOException {
+        File file = new File(directory, gameId + FILE_EXTENSION);
+        HistoryState state = getState(file);
+        if (index < 0 || index >= state.entries.size()) {
+            throw new IOException("Punto guardado no encontrado: " + gameId + " #" + index);
+        }
+
+        int first = index;
+        while (!state.bases.get(first)) {
+            first--;
+        }
+
+        GameState gameState = null;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            BinaryCodec.skipFully(in, state.offsets.get(first));
+            for (int i = first; i <= index; i++) {
+                byte[] payload = readRecord(in, state.length);
+                if (payload == null) {
+                    throw new IOException("Historial dañado: " + file.getName());
+                }
+                gameState = applyRecord(payload, gameState);
+            }
+        }
+        return gameState;
+    }
+
+    /**
+     * Elimina el historial de una partida
+     */
+    public synchronized boolean delete(Context context, String gameId) {
+        File file = new File(getDirectory(context), gameId + FILE_EXTENSION);
+        states.remove(file.getName());
+        return file.exists() && file.delete();
+    }
+
+    /**
+     * Elimina el historial de una partida solo si no se ha modificado desde
+     * la fecha indicada; así no se borra el de una partida guardada después
+     */
+    public synchronized boolean deleteIfUnmodifiedSince(Context context, String gameId, long time) {
+        File file = new File(getDirectory(context), gameId + FILE_EXTENSION);
+        if (file.lastModified() >= time) {
+            return false;
+        }
+        return delete(context, gameId);
+    }
+
+    /**
+     * IDs de las partidas que tienen historial
+     */
+    public synchronized List<String> getGameIds(Context context) {
+        List<String> gameIds = new ArrayList<>();
+        File[] files = getDirectory(context).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(FILE_EXTENSION)) {
+                    gameIds.add(name.substring(0, name.length() - FILE_EXTENSION.length()));
+                }
+            }
+        }
+        return gameIds;
+    }
+
+    public File getDirectory(Context context) {
+        return new File(context.getFilesDir(), FILE_DIRECTORY);
+    }
+
+    /**
+     * Estado del historial de una partida; se reconstruye leyendo el archivo
+     * si no se conoce o si el archivo ha cambiado por fuera
+     */
+    private HistoryState getState(File file) throws IOException {
+        HistoryState state = states.get(file.getName());
+        if (state != null && state.length == file.length()) {
+            return state;
+        }
+
+        state = new HistoryState();
+        if (file.exists()) {
+            replay(file, state);
+        }
+        states.put(file.getName(), state);
+        return state;
+    }
+
+    /**
+     * Lee todos los registros válidos del archivo; se detiene en el primero incompleto o dañado
+     */
+    private void replay(File file, HistoryState state) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            checkMagic(in);
+            state.length = HEADER_LENGTH;
+
+            GameState gameState = null;
+            while (true) {
+                byte[] payload = readRecord(in, file.length());
+                if (payload == null) {
+                    break;
+                }
+                boolean base = payload.length > 0 && payload[0] == TYPE_BASE;
+                if (!base && gameState == null) {
+                    // Un delta sin base no se puede aplicar
+                    Log.w(TAG, "Historial sin base, se descarta el resto: " + file.getName());
+                    break;
+                }
+                gameState = applyRecord(payload, gameState);
+
+                state.entries.add(new Entry(state.entries.size(), gameState));
+                state.offsets.add(state.length);
+                state.bases.add(base);
+                state.length += recordLength(payload.length);
+                if (base) {
+                    state.baseBytes = payload.length;
+                    state.deltaBytes = 0;
+                    state.deltasSinceBase = 0;
+                } else {
+                    state.deltaBytes += payload.length;
+                    state.deltasSinceBase++;
+                }
+            }
+            state.last = gameState;
+        } catch (IOException e) {
+            // Se conserva lo leído hasta el error; el próximo punto descartará el resto
+            // (o todo el archivo, si ni siquiera tenía una cabecera válida)
+            Log.w(TAG, "Error al leer el historial: " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Aplica un registro al punto anterior
+     * @param previous Punto anterior, o null si el registro es una base
+     * @return El punto resultante; con una base es un objeto nuevo
+     */
+    private GameState applyRecord(byte[] payload, GameState previous) throws IOException {
+        InputStream in = new ByteArrayInputStream(payload);
+        int type = in.read();
+        if (type == TYPE_BASE) {
+            return BinaryFileHandler.readGameState(in);
+        }
+        if (type != TYPE_DELTA || previous == null) {
+            throw new IOException("Registro de historial no válido");
+        }
+        readDelta(in, previous);
+        return previous;
+    }
+
+    /**
+     * Escribe lo que cambia de un punto al siguiente
+     * @return false si no ha cambiado nada aparte de la fecha de guardado
+     */
+    private boolean writeDelta(OutputStream out, GameState previous, GameState current) throws IOException {
+        int fields = 0;
+        if (!Objects.equals(previous.getPlayerName(), current.getPlayerName())) {
+            fields |= FIELD_PLAYER_NAME;
+        }
+        if (previous.getScore() != current.getScore()) {
+            fields |= FIELD_SCORE;
+        }
+        if (previous.getTimeElapsed() != current.getTimeElapsed()) {
+            fields |= FIELD_TIME_ELAPSED;
+        }
+        if (previous.getLevel() != current.getLevel()) {
+            fields |= FIELD_LEVEL;
+        }
+        if (getFlags(previous) != getFlags(current)) {
+            fields |= FIELD_FLAGS;
+        }
+        if (!Objects.equals(previous.getThemeName(), current.getThemeName())) {
+            fields |= FIELD_THEME_NAME;
+        }
+        if (!Objects.equals(previous.getSaveFormat(), current.getSaveFormat())) {
+            fields |= FIELD_SAVE_FORMAT;
+        }
+
+        List<Card> previousCards = previous.getCards();
+        List<Card> cards = current.getCards();
+        boolean sameLayout = hasSameLayout(previousCards, cards);
+        List<Integer> flippedChanges = new ArrayList<>();
+        List<Integer> matchedChanges = new ArrayList<>();
+        if (sameLayout) {
+            for (int i = 0; i < cards.size(); i++) {
+                if (previousCards.get(i).isFlipped() != cards.get(i).isFlipped()) {
+                    flippedChanges.add(i);
+                }
+                if (previousCards.get(i).isMatched() != cards.get(i).isMatched()) {
+                    matchedChanges.add(i);
+                }
+            }
+        }
+
+        // Movimientos que se conservan del punto anterior
+        List<String> previousMoves = previous.getMoveHistory();
+        List<String> moves = current.getMoveHistory();
+        int keptMoves = 0;
+        int maxKept = Math.min(previousMoves.size(), moves.size());
+        while (keptMoves < maxKept && Objects.equals(previousMoves.get(keptMoves), moves.get(keptMoves))) {
+            keptMoves++;
+        }
+
+        if (fields == 0 && sameLayout && flippedChanges.isEmpty() && matchedChanges.isEmpty()
+                && keptMoves == previousMoves.size() && keptMoves == moves.size()) {
+            return false;
+        }
+        if (!Objects.equals(previous.getSaveDate(), current.getSaveDate())) {
+            fields |= FIELD_SAVE_DATE;
+        }
+
+        out.write(TYPE_DELTA);
+        BinaryCodec.writeVarInt(out, fields);
+        if ((fields & FIELD_PLAYER_NAME) != 0) {
+            BinaryCodec.writeString(out, current.getPlayerName());
+        }
+        if ((fields & FIELD_SCORE) != 0) {
+            BinaryCodec.writeSignedVarInt(out, current.getScore());
+        }
+        if ((fields & FIELD_TIME_ELAPSED) != 0) {
+            BinaryCodec.writeVarLong(out, current.getTimeElapsed());
+        }
+        if ((fields & FIELD_LEVEL) != 0) {
+            BinaryCodec.writeSignedVarInt(out, current.getLevel());
+        }
+        if ((fields & FIELD_SAVE_DATE) != 0) {
+            BinaryCodec.writeVarLong(out, current.getSaveDate() != null ? current.getSaveDate().getTime() : 0);
+        }
+        if ((fields & FIELD_FLAGS) != 0) {
+            out.write(getFlags(current));
+        }
+        if ((fields & FIELD_THEME_NAME) != 0) {
+            BinaryCodec.writeString(out, current.getThemeName());
+        }
+        if ((fields & FIELD_SAVE_FORMAT) != 0) {
+            BinaryCodec.writeString(out, current.getSaveFormat());
+        }
+
+        if (sameLayout) {
+            out.write(CARDS_SAME_LAYOUT);
+            writePositions(out, flippedChanges);
+            writePositions(out, matchedChanges);
+        } else {
+            out.write(CARDS_REPLACED);
+            BinaryFileHandler.writeBoard(out, cards);
+        }
+
+        BinaryCodec.writeVarInt(out, keptMoves);
+        BinaryCodec.writeVarInt(out, moves.size() - keptMoves);
+        for (int i = keptMoves; i < moves.size(); i++) {
+            BinaryCodec.writeString(out, moves.get(i));
+        }
+        return true;
+    }
+
+    /**
+     * Aplica un delta escrito con {@link #writeDelta} al punto anterior
+     */
+    private void readDelta(InputStream in, GameState gameState) throws IOException {
+        int fields = BinaryCodec.readVarInt(in);
+        if ((fields & FIELD_PLAYER_NAME) != 0) {
+            gameState.setPlayerName(BinaryCodec.readString(in));
+        }
+        if ((fields & FIELD_SCORE) != 0) {
+            gameState.setScore(BinaryCodec.readSignedVarInt(in));
+        }
+        if ((fields & FIELD_TIME_ELAPSED) != 0) {
+            gameState.setTimeElapsed(BinaryCodec.readVarLong(in));
+        }
+        if ((fields & FIELD_LEVEL) != 0) {
+            gameState.setLevel(BinaryCodec.readSignedVarInt(in));
+        }
+        if ((fields & FIELD_SAVE_DATE) != 0) {
+            gameState.setSaveDate(new Date(BinaryCodec.readVarLong(in)));
+        }
+        if ((fields & FIELD_FLAGS) != 0) {
+            int flags = in.read();
+            if (flags < 0) {
+                throw new EOFException("Registro incompleto");
+            }
+            gameState.setGameCompleted((flags & FLAG_GAME_COMPLETED) != 0);
+            gameState.setSoundEnabled((flags & FLAG_SOUND_ENABLED) != 0);
+        }
+        if ((fields & FIELD_THEME_NAME) != 0) {
+            gameState.setThemeName(BinaryCodec.readString(in));
+        }
+        if ((fields & FIELD_SAVE_FORMAT) != 0) {
+            gameState.setSaveFormat(BinaryCodec.readString(in));
+        }
+
+        int cardsMode = in.read();
+        if (cardsMode == CARDS_SAME_LAYOUT) {
+            List<Card> cards = gameState.getCards();
+            for (int position : readPositions(in, cards.size())) {
+                cards.get(position).setFlipped(!cards.get(position).isFlipped());
+            }
+            for (int position : readPositions(in, cards.size())) {
+                cards.get(position).setMatched(!cards.get(position).isMatched());
+            }
+        } else if (cardsMode == CARDS_REPLACED) {
+            gameState.setCards(BinaryFileHandler.readBoard(in));
+        } else {
+            throw new IOException("Registro de historial no válido");
+        }
+
+        int keptMoves = BinaryCodec.readVarInt(in);
+        int newMoves = BinaryCodec.readVarInt(in);
+        List<String> moves = gameState.getMoveHistory();
+        if (keptMoves > moves.size()) {
+            throw new IOException("Registro de historial no válido");
+        }
+        moves.subList(keptMoves, moves.size()).clear();
+        for (int i = 0; i < newMoves; i++) {
+            moves.add(BinaryCodec.readString(in));
+        }
+    }
+
+    /**
+     * Mismas tarjetas en las mismas posiciones; solo pueden cambiar sus estados
+     */
+    private static boolean hasSameLayout(List<Card> previous, List<Card> current) {
+        if (previous.size() != current.size()) {
+            return false;
+        }
+        for (int i = 0; i < current.size(); i++) {
+            Card a = previous.get(i);
+            Card b = current.get(i);
+            if (a.getId() != b.getId() || a.getImageId() != b.getImageId()
+                    || a.getPairId() != b.getPairId() || a.getPosition() != b.getPosition()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Escribe posiciones crecientes como el número de posiciones y la distancia a la anterior
+     */
+    private static void writePositions(OutputStream out, List<Integer> positions) throws IOException {
+        BinaryCodec.writeVarInt(out, positions.size());
+        int previous = 0;
+        for (int position : positions) {
+            BinaryCodec.writeVarInt(out, position - previous);
+            previous = position;
+        }
+    }
+
+    private static int[] readPositions(InputStream in, int cardCount) throws IOException {
+        int count = BinaryCodec.readVarInt(in);
+        if (count < 0 || count > cardCount) {
+            throw new IOException("Registro de historial no válido");
+        }
+        int[] positions = new int[count];
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            position += BinaryCodec.readVarInt(in);
+            if (position < 0 || position >= cardCount) {
+                throw new IOException("Registro de historial no válido");
+            }
+            positions[i] = position;
+        }
+        return positions;
+    }
+
+    private static int getFlags(GameState gameState) {
+        int flags = 0;
+        if (gameState.isGameCompleted()) {
+            flags |= FLAG_GAME_COMPLETED;
+        }
+        if (gameState.isSoundEnabled()) {
+            flags |= FLAG_SOUND_ENABLED;
+        }
+        return flags;
+    }
+
+    /**
+     * Añade un registro al final del archivo, descartando cualquier resto de uno incompleto
+     * @return Posición del registro en el archivo
+     */
+    private long appendRecord(File file, HistoryState state, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream(payload.length + 10);
+        BinaryCodec.writeVarInt(record, payload.length);
+        record.write(payload);
+        writeInt(record, (int) crc.getValue());
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (state.length < HEADER_LENGTH) {
+                raf.setLength(0);
+                raf.write(MAGIC);
+                raf.write(VERSION);
+                state.length = HEADER_LENGTH;
+            }
+            raf.setLength(state.length);
+            raf.seek(state.length);
+            raf.write(record.toByteArray());
+        }
+
+        long offset = state.length;
+        state.length += record.size();
+        return offset;
+    }
+
+    /**
+     * Descarta los puntos anteriores a la segunda base. El archivo se
+     * reescribe en uno temporal y se renombra, así que un cierre inesperado
+     * deja el historial anterior o el nuevo completo.
+     */
+    private void dropOldestChain(File file, HistoryState state) throws IOException {
+        int secondBase = 1;
+        while (secondBase < state.bases.size() && !state.bases.get(secondBase)) {
+            secondBase++;
+        }
+        if (secondBase == state.bases.size()) {
+            return;
+        }
+
+        long start = state.offsets.get(secondBase);
+        File tempFile = new File(file.getPath() + TEMP_SUFFIX);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileOutputStream out = new FileOutputStream(tempFile)) {
+            out.write(MAGIC);
+            out.write(VERSION);
+            byte[] buffer = new byte[8192];
+            raf.seek(start);
+            long remaining = state.length - start;
+            while (remaining > 0) {
+                int read = raf.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Historial incompleto");
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+            out.getFD().sync();
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("No se pudo reescribir el historial");
+        }
+
+        // Los puntos que quedan cambian de posición en el archivo y en el historial
+        long shift = start - HEADER_LENGTH;
+        List<Entry> entries = new ArrayList<>(state.entries.subList(secondBase, state.entries.size()));
+        List<Long> offsets = new ArrayList<>(state.offsets.subList(secondBase, state.offsets.size()));
+        List<Boolean> bases = new ArrayList<>(state.bases.subList(secondBase, state.bases.size()));
+        state.entries.clear();
+        state.offsets.clear();
+        state.bases.clear();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            state.entries.add(new Entry(i, entry));
+            state.offsets.add(offsets.get(i) - shift);
+            state.bases.add(bases.get(i));
+        }
+        state.length -= shift;
+    }
+
+    /**
+     * Lee un registro
+     * @return Su contenido, o null al final del archivo o si el registro está incompleto o dañado
+     */
+    private static byte[] readRecord(InputStream in, long maxLength) throws IOException {
+        try {
+            int length = BinaryCodec.readVarInt(in);
+            if (length <= 0 || length > maxLength) {
+                Log.w(TAG, "Longitud de registro inválida en el historial, se descarta el resto");
+                return null;
+            }
+            byte[] payload = new byte[length];
+            BinaryCodec.readFully(in, payload);
+            int expectedCrc = readInt(in);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload, 0, payload.length);
+            if ((int) crc.getValue() != expectedCrc) {
+                Log.w(TAG, "Registro dañado en el historial, se descarta el resto");
+                return null;
+            }
+            return payload;
+        } catch (EOFException e) {
+            // Fin del historial o registro incompleto al final
+            return null;
+        }
+    }
+
+    private static long recordLength(int payloadLength) {
+        int varIntLength = 1;
+        for (int value = payloadLength; (value & ~0x7F) != 0; value >>>= 7) {
+            varIntLength++;
+        }
+        return varIntLength + payloadLength + 4;
+    }
+
+    private static void checkMagic(InputStream in) throws IOException {
+        byte[] read = new byte[MAGIC.length];
+        BinaryCodec.readFully(in, read);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (read[i] != MAGIC[i]) {
+                throw new IOException("No es un historial de partida");
+            }
+        }
+        int version = in.read();
+        if (version != VERSION) {
+            throw new IOException("Versión de archivo no soportada: " + version);
+        }
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        byte[] bytes = new byte[4];
+        BinaryCodec.readFully(in, bytes);
+        return ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16)
+                | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+    }
+}
@@ -0,0 +1,578 @@
+package com.example.memoripy.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Environment;
+import android.util.Log;
+
+import com.example.memoripy.models.Card;
+import com.example.memoripy.models.GameState;
+import com.example.memoripy.models.SavedGame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Implementación que guarda las partidas en una base de datos SQLite.
+ *
+ * Cada partida es una fila de la tabla games, con el tablero en la columna
+ * board (codificación compacta de BoardEncoding) y los movimientos en la
+ * tabla moves. Los tableros que no se pueden codificar así se guardan
+ * tarjeta a tarjeta en la tabla cards. games tiene índices por jugador, nivel,
+ * puntuación y fecha, así que listar y buscar partidas son consultas al
+ * índice y no hace falta leer ninguna partida completa.
+ *
+ * Las partidas se identifican con un nombre "virtual" (gameId + ".sqlite");
+ * su contenido se muestra y se exporta como JSON, generado al momento.
+ */
+public class SqliteFileHandler implements IndexedFileHandler, CompactableFileHandler {
+
+    private static final String TAG = "SqliteFileHandler";
+    private static final String DATABASE_NAME = "saved_games.db";
+    private static final int DATABASE_VERSION = 3;
+    private static final String FILE_EXTENSION = ".sqlite";
+
+    // Bytes aproximados de una fila de cada tabla, sin contar el ID de la partida ni el texto
+    private static final int GAME_ROW_BYTES = 64;
+    private static final int CARD_ROW_BYTES = 16;
+    private static final int MOVE_ROW_BYTES = 4;
+
+    // Columnas de cabecera, las únicas que hacen falta para listar
+    private static final String[] SUMMARY_COLUMNS = {"game_id", "player_name", "level", "score", "save_date",
+            "time_elapsed", "game_completed"};
+
+    private DatabaseHelper helper;
+
+    /**
+     * Crea y actualiza el esquema de la base de datos
+     */
+    private static class DatabaseHelper extends SQLiteOpenHelper {
+
+        DatabaseHelper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+            // Las lecturas (listados) no esperan a las escrituras (guardados)
+            setWriteAheadLoggingEnabled(true);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE games ("
+                    + "game_id TEXT PRIMARY KEY, "
+                    + "player_name TEXT, "
+                    + "score INTEGER NOT NULL, "
+                    + "time_elapsed INTEGER NOT NULL, "
+                    + "level INTEGER NOT NULL, "
+                    + "save_date INTEGER NOT NULL, "
+                    + "game_completed INTEGER NOT NULL, "
+                    + "sound_enabled INTEGER NOT NULL, "
+                    + "theme_name TEXT, "
+                    + "save_format TEXT, "
+                    + "board BLOB)");
+            createIndexes(db);
+
+            // Sin rowid: las filas se guardan ordenadas por partida y posición
+            db.execSQL("CREATE TABLE cards ("
+                    + "game_id TEXT NOT NULL, "
+                    + "card_index INTEGER NOT NULL, "
+                    + "id INTEGER NOT NULL, "
+                    + "image_id INTEGER NOT NULL, "
+                    + "pair_id INTEGER NOT NULL, "
+                    + "position INTEGER NOT NULL, "
+                    + "flipped INTEGER NOT NULL, "
+                    + "matched INTEGER NOT NULL, "
+                    + "PRIMARY KEY (game_id, card_index)) WITHOUT ROWID");
+            db.execSQL("CREATE TABLE moves ("
+                    + "game_id TEXT NOT NULL, "
+                    + "move_index INTEGER NOT NULL, "
+                    + "move TEXT, "
+                    + "PRIMARY KEY (game_id, move_index)) WITHOUT ROWID");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            if (oldVersion < 2) {
+                // La versión 2 busca por jugador sin distinguir mayúsculas y ordena por tiempo
+                db.execSQL("DROP INDEX IF EXISTS idx_games_player");
+                createIndexes(db);
+            }
+            if (oldVersion < 3) {
+                // La versión 3 guarda el tablero compacto; las partidas anteriores siguen en cards
+                db.execSQL("ALTER TABLE games ADD COLUMN board BLOB");
+            }
+        }
+
+        private static void createIndexes(SQLiteDatabase db) {
+            // Incluye las columnas de cabecera para buscar por jugador sin leer la tabla
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_games_player ON games (player_name COLLATE NOCASE, "
+                    + "save_date, level, score, time_elapsed, game_completed, game_id)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_games_level_date ON games (level, save_date)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_games_level_score ON games (level, score)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_games_level_time ON games (level, time_elapsed)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_games_score ON games (score)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_games_time ON games (time_elapsed)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_games_save_date ON games (save_date)");
+        }
+    }
+
+    private synchronized SQLiteDatabase getDatabase(Context context) {
+        if (helper == null) {
+            helper = new DatabaseHelper(context.getApplicationContext());
+        }
+        return helper.getWritableDatabase();
+    }
+
+    @Override
+    public String saveGame(Context context, GameState gameState) throws IOException {
+        String gameId = gameState.getGameId();
+        if (gameId == null || gameId.isEmpty()) {
+            throw new IOException("La partida no tiene ID");
+        }
+
+        try {
+            BoardEncoding board = BoardEncoding.fromCards(gameState.getCards());
+            SQLiteDatabase db = getDatabase(context);
+            db.beginTransaction();
+            try {
+                SQLiteStatement insertGame = db.compileStatement("INSERT OR REPLACE INTO games "
+                        + "(game_id, player_name, score, time_elapsed, level, save_date, game_completed, "
+                        + "sound_enabled, theme_name, save_format, board) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                insertGame.bindString(1, gameId);
+                bindOptionalString(insertGame, 2, gameState.getPlayerName());
+                insertGame.bindLong(3, gameState.getScore());
+                insertGame.bindLong(4, gameState.getTimeElapsed());
+                insertGame.bindLong(5, gameState.getLevel());
+                insertGame.bindLong(6, gameState.getSaveDate() != null ? gameState.getSaveDate().getTime() : 0);
+                insertGame.bindLong(7, gameState.isGameCompleted() ? 1 : 0);
+                insertGame.bindLong(8, gameState.isSoundEnabled() ? 1 : 0);
+                bindOptionalString(insertGame, 9, gameState.getThemeName());
+                bindOptionalString(insertGame, 10, gameState.getSaveFormat());
+                if (board != null) {
+                    ByteArrayOutputStream boardBytes = new ByteArrayOutputStream();
+                    board.write(boardBytes);
+                    insertGame.bindBlob(11, boardBytes.toByteArray());
+                } else {
+                    insertGame.bindNull(11);
+                }
+                insertGame.executeInsert();
+                insertGame.close();
+
+                // Las tarjetas y movimientos anteriores se sustituyen por los actuales
+                String[] args = {gameId};
+                db.delete("cards", "game_id = ?", args);
+                db.delete("moves", "game_id = ?", args);
+
+                SQLiteStatement insertCard = db.compileStatement("INSERT INTO cards "
+                        + "(game_id, card_index, id, image_id, pair_id, position, flipped, matched) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+                List<Card> cards = board != null ? new ArrayList<Card>() : gameState.getCards();
+                for (int i = 0; i < cards.size(); i++) {
+                    Card card = cards.get(i);
+                    insertCard.bindString(1, gameId);
+                    insertCard.bindLong(2, i);
+                    insertCard.bindLong(3, card.getId());
+                    insertCard.bindLong(4, card.getImageId());
+                    insertCard.bindLong(5, card.getPairId());
+                    insertCard.bindLong(6, card.getPosition());
+                    insertCard.bindLong(7, card.isFlipped() ? 1 : 0);
+                    insertCard.bindLong(8, card.isMatched() ? 1 : 0);
+                    insertCard.executeInsert();
+                }
+                insertCard.close();
+
+                SQLiteStatement insertMove = db.compileStatement(
+                        "INSERT INTO moves (game_id, move_index, move) VALUES (?, ?, ?)");
+                List<String> moveHistory = gameState.getMoveHistory();
+                for (int i = 0; i < moveHistory.size(); i++) {
+                    insertMove.bindString(1, gameId);
+                    insertMove.bindLong(2, i);
+                    bindOptionalString(insertMove, 3, moveHistory.get(i));
+                    insertMove.executeInsert();
+                }
+                insertMove.close();
+
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Error al guardar en la base de datos", e);
+        }
+
+        return new File(getSavedGamesDirectory(context), gameId + FILE_EXTENSION).getAbsolutePath();
+    }
+
+    private static void bindOptionalString(SQLiteStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+
+    @Override
+    public GameState loadGame(Context context, String fileName) throws IOException {
+        String[] args = {getGameId(fileName)};
+        GameState gameState = new GameState();
+        byte[] board;
+
+        try {
+            SQLiteDatabase db = getDatabase(context);
+            try (Cursor cursor = db.rawQuery("SELECT player_name, score, time_elapsed, level, game_id, "
+                    + "save_date, game_completed, sound_enabled, theme_name, save_format, board "
+                    + "FROM games WHERE game_id = ?", args)) {
+                if (!cursor.moveToFirst()) {
+                    throw new IOException("Partida no encontrada: " + fileName);
+                }
+                gameState.setPlayerName(cursor.isNull(0) ? "" : cursor.getString(0));
+                gameState.setScore(cursor.getInt(1));
+                gameState.setTimeElapsed(cursor.getLong(2));
+                gameState.setLevel(cursor.getInt(3));
+                gameState.setGameId(cursor.getString(4));
+                gameState.setSaveDate(new Date(cursor.getLong(5)));
+                gameState.setGameCompleted(cursor.getInt(6) != 0);
+                gameState.setSoundEnabled(cursor.getInt(7) != 0);
+                gameState.setThemeName(cursor.isNull(8) ? "guinda" : cursor.getString(8));
+                gameState.setSaveFormat(cursor.isNull(9) ? FileManager.FORMAT_SQLITE : cursor.getString(9));
+                board = cursor.getBlob(10);
+            }
+            gameState.setCards(readCards(db, args, board));
+
+            List<String> moveHistory = new ArrayList<>();
+            try (Cursor cursor = db.rawQuery(
+                    "SELECT move FROM moves WHERE game_id = ? ORDER BY move_index", args)) {
+                while (cursor.moveToNext()) {
+                    moveHistory.add(cursor.getString(0));
+                }
+            }
+            gameState.setMoveHistory(moveHistory);
+        } catch (SQLException e) {
+            throw new IOException("Error al leer de la base de datos", e);
+        }
+
+        return gameState;
+    }
+
+    /**
+     * Tarjetas de una partida: las del tablero compacto o, si no lo tiene, las de la tabla cards
+     * @param board Columna board de la partida, o null
+     */
+    private static List<Card> readCards(SQLiteDatabase db, String[] args, byte[] board) throws IOException {
+        if (board != null) {
+            return BoardEncoding.read(new ByteArrayInputStream(board)).toCards();
+        }
+
+        List<Card> cards = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT id, image_id, pair_id, position, flipped, matched "
+                + "FROM cards WHERE game_id = ? ORDER BY card_index", args)) {
+            while (cursor.moveToNext()) {
+                Card card = new Card();
+                card.setId(cursor.getInt(0));
+                card.setImageId(cursor.getInt(1));
+                card.setPairId(cursor.getInt(2));
+                card.setPosition(cursor.getInt(3));
+                card.setFlipped(cursor.getInt(4) != 0);
+                card.setMatched(cursor.getInt(5) != 0);
+                cards.add(card);
+            }
+        }
+        return cards;
+    }
+
+    @Override
+    public List<String> getSavedGamesList(Context context) {
+        List<String> fileList = new ArrayList<>();
+        try (Cursor cursor = getDatabase(context).rawQuery("SELECT game_id FROM games", null)) {
+            while (cursor.moveToNext()) {
+                fileList.add(cursor.getString(0) + FILE_EXTENSION);
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Error al listar las partidas", e);
+        }
+        return fileList;
+    }
+
+    @Override
+    public List<SavedGame> listSavedGames(Context context) {
+        return selectSavedGames(context, null, null, "save_date DESC", null);
+    }
+
+    @Override
+    public List<SavedGame> querySavedGames(Context context, SavedGameQuery query) {
+        if (!query.acceptsFormat(FileManager.FORMAT_SQLITE)) {
+            return new ArrayList<>();
+        }
+
+        StringBuilder selection = new StringBuilder();
+        List<String> args = new ArrayList<>();
+
+        String playerPrefix = query.getPlayerPrefix();
+        if (playerPrefix != null) {
+            // Rango sobre el índice del jugador en vez de LIKE, que no lo usaría
+            String prefix = playerPrefix.toLowerCase(Locale.ROOT);
+            selection.append("player_name >= ? COLLATE NOCASE AND player_name < ? COLLATE NOCASE");
+            args.add(prefix);
+            args.add(nextPrefix(prefix));
+        }
+        if (query.getLevel() > 0) {
+            // Con jugador, el nivel se filtra dentro de su índice: "+" evita que
+            // SQLite elija el índice del nivel, mucho menos selectivo
+            appendCondition(selection, (playerPrefix != null ? "+level = " : "level = ") + query.getLevel());
+        }
+        if (query.getFromDate() > 0) {
+            appendCondition(selection, "save_date >= " + query.getFromDate());
+        }
+        if (query.getToDate() < Long.MAX_VALUE) {
+            appendCondition(selection, "save_date <= " + query.getToDate());
+        }
+        if (query.getCompleted() != null) {
+            appendCondition(selection, "game_completed = " + (query.getCompleted() ? 1 : 0));
+        }
+
+        String column;
+        switch (query.getSortBy()) {
+            case SavedGameQuery.SORT_SCORE:
+                column = "score";
+                break;
+            case SavedGameQuery.SORT_TIME:
+                column = "time_elapsed";
+                break;
+            default:
+                column = "save_date";
+                break;
+        }
+        String orderBy = column + (query.isDescending() ? " DESC" : "") + ", game_id";
+
+        return selectSavedGames(context, selection.length() > 0 ? selection.toString() : null,
+                args.toArray(new String[0]), orderBy,
+                query.getLimit() > 0 ? String.valueOf(query.getLimit()) : null);
+    }
+
+    private static void appendCondition(StringBuilder selection, String condition) {
+        if (selection.length() > 0) {
+            selection.append(" AND ");
+        }
+        selection.append(condition);
+    }
+
+    /**
+     * Menor cadena mayor que todas las que empiezan por el prefijo
+     */
+    private static String nextPrefix(String prefix) {
+        int last = prefix.length() - 1;
+        return prefix.substring(0, last) + (char) (prefix.charAt(last) + 1);
+    }
+
+    private List<SavedGame> selectSavedGames(Context context, String selection, String[] selectionArgs,
+                                             String orderBy, String limit) {
+        List<SavedGame> savedGames = new ArrayList<>();
+        try (Cursor cursor = getDatabase(context).query("games", SUMMARY_COLUMNS, selection, selectionArgs,
+                null, null, orderBy, limit)) {
+            while (cursor.moveToNext()) {
+                SavedGame savedGame = new SavedGame(cursor.getString(0) + FILE_EXTENSION, FileManager.FORMAT_SQLITE);
+                savedGame.setPlayerName(cursor.getString(1));
+                savedGame.setLevel(cursor.getInt(2));
+                savedGame.setScore(cursor.getInt(3));
+                savedGame.setSaveDate(cursor.getLong(4));
+                savedGame.setTimeElapsed(cursor.getLong(5));
+                savedGame.setGameCompleted(cursor.getInt(6) != 0);
+                savedGames.add(savedGame);
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Error al consultar las partidas", e);
+        }
+        return savedGames;
+    }
+
+    @Override
+    public boolean deleteGame(Context context, String fileName) {
+        String[] args = {getGameId(fileName)};
+        try {
+            SQLiteDatabase db = getDatabase(context);
+            db.beginTransaction();
+            try {
+                int deleted = db.delete("games", "game_id = ?", args);
+                db.delete("cards", "game_id = ?", args);
+                db.delete("moves", "game_id = ?", args);
+                db.setTransactionSuccessful();
+                return deleted > 0;
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Error al eliminar la partida", e);
+            return false;
+        }
+    }
+
+    /**
+     * Reconstruye los índices y reescribe la base de datos sin las páginas
+     * libres que dejan las partidas eliminadas. No se ejecuta ANALYZE: las
+     * consultas ya eligen su índice y las estadísticas podrían cambiar el plan.
+     */
+    @Override
+    public int compact(Context context) throws IOException {
+        try {
+            SQLiteDatabase db = getDatabase(context);
+            db.execSQL("REINDEX");
+            db.execSQL("VACUUM");
+            // Pasar el WAL a la base de datos y dejarlo vacío
+            try (Cursor cursor = db.rawQuery("PRAGMA wal_checkpoint(TRUNCATE)", null)) {
+                cursor.moveToFirst();
+            }
+            return (int) DatabaseUtils.queryNumEntries(db, "games");
+        } catch (SQLException e) {
+            throw new IOException("Error al compactar la base de datos", e);
+        }
+    }
+
+    /**
+     * Estimación a partir del número de filas, el tablero y la longitud de los movimientos
+     */
+    @Override
+    public long getGameSize(Context context, String fileName) {
+        String gameId = getGameId(fileName);
+        String[] args = {gameId};
+        try {
+            SQLiteDatabase db = getDatabase(context);
+            long cards = DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM cards WHERE game_id = ?", args);
+            long boardBytes = DatabaseUtils.longForQuery(db,
+                    "SELECT IFNULL(SUM(LENGTH(board)), 0) FROM games WHERE game_id = ?", args);
+            long moves = DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM moves WHERE game_id = ?", args);
+            long moveBytes = DatabaseUtils.longForQuery(db,
+                    "SELECT IFNULL(SUM(LENGTH(move)), 0) FROM moves WHERE game_id = ?", args);
+            long keyBytes = gameId.length() * (1 + cards + moves);
+            return GAME_ROW_BYTES + boardBytes + cards * CARD_ROW_BYTES + moves * MOVE_ROW_BYTES
+                    + moveBytes + keyBytes;
+        } catch (SQLException e) {
+            Log.e(TAG, "Error al calcular el tamaño de la partida", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Todas las partidas están en el mismo archivo: la base de datos
+     */
+    @Override
+    public File getGameFile(Context context, String fileName) {
+        return context.getDatabasePath(DATABASE_NAME);
+    }
+
+    @Override
+    public File getSavedGamesDirectory(Context context) {
+        return context.getDatabasePath(DATABASE_NAME).getParentFile();
+    }
+
+    /**
+     * El contenido se muestra como JSON, con la misma estructura que JsonFileHandler
+     */
+    @Override
+    public String getFileContent(Context context, String fileName) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeAsJson(context, fileName, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public InputStream openFileContent(Context context, String fileName) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeAsJson(context, fileName, out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    @Override
+    public String exportGame(Context context, String fileName) throws IOException {
+        File exportDir = new File(Environment.getExternalStoragePublicDirectory(
+                Environment.DIRECTORY_DOCUMENTS), "MemorIPN");
+
+        if (!exportDir.exists()) {
+            exportDir.mkdirs();
+        }
+
+        File destFile = new File(exportDir, getGameId(fileName) + "." + FileManager.FORMAT_JSON);
+        writeAsJson(context, fileName, new FileOutputStream(destFile));
+
+        Log.d(TAG, "Partida exportada: " + destFile.getAbsolutePath());
+        return destFile.getAbsolutePath();
+    }
+
+    /**
+     * Escribe una partida como JSON leyendo las filas de la base de datos una a una
+     * @param out Flujo de destino; se cierra al terminar
+     */
+    private void writeAsJson(Context context, String fileName, OutputStream out) throws IOException {
+        String[] args = {getGameId(fileName)};
+        GameEventWriter writer = GameEventWriter.create(FileManager.FORMAT_JSON, out);
+        byte[] board;
+
+        try {
+            SQLiteDatabase db = getDatabase(context);
+            try (Cursor cursor = db.rawQuery("SELECT player_name, score, time_elapsed, level, game_id, "
+                    + "save_date, game_completed, sound_enabled, theme_name, save_format, board "
+                    + "FROM games WHERE game_id = ?", args)) {
+                if (!cursor.moveToFirst()) {
+                    throw new IOException("Partida no encontrada: " + fileName);
+                }
+                writeOptionalInfo(writer, "playerName", cursor.getString(0));
+                writer.gameInfo("score", String.valueOf(cursor.getInt(1)));
+                writer.gameInfo("timeElapsed", String.valueOf(cursor.getLong(2)));
+                writer.gameInfo("level", String.valueOf(cursor.getInt(3)));
+                writeOptionalInfo(writer, "gameId", cursor.getString(4));
+                writer.gameInfo("saveDate", SaveDateFormat.format(new Date(cursor.getLong(5))));
+                writer.gameInfo("gameCompleted", String.valueOf(cursor.getInt(6) != 0));
+                writer.gameInfo("soundEnabled", String.valueOf(cursor.getInt(7) != 0));
+                writeOptionalInfo(writer, "themeName", cursor.getString(8));
+                writeOptionalInfo(writer, "saveFormat", cursor.getString(9));
+                board = cursor.getBlob(10);
+            }
+
+            for (Card card : readCards(db, args, board)) {
+                writer.card(card.getId(), card.getImageId(), card.getPairId(), card.getPosition(),
+                        card.isFlipped(), card.isMatched());
+            }
+
+            try (Cursor cursor = db.rawQuery(
+                    "SELECT move FROM moves WHERE game_id = ? ORDER BY move_index", args)) {
+                while (cursor.moveToNext()) {
+                    writer.move(cursor.getString(0));
+                }
+            }
+
+            writer.end();
+        } catch (SQLException e) {
+            out.close();
+            throw new IOException("Error al leer de la base de datos", e);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    private static void writeOptionalInfo(GameEventWriter writer, String name, String value) throws IOException {
+        if (value != null) {
+            writer.gameInfo(name, value);
+        }
+    }
+
+    private static String getGameId(String fileName) {
+        if (fileName.endsWith(FILE_EXTENSION)) {
+            return fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+        }
+        return fileName;
+    }
+}
@@ -7,28 +7,57 @@ import android.util.Log;
 import com.example.memoripy.models.Card;
 import com.example.memoripy.models.GameState;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Implementación para manejar archivos de texto plano
  */
-public class TextFileHandler implements FileHandler {
+public class TextFileHandler implements CompressibleFileHandler, HeaderFileHandler {
 
     private static final String TAG = "TextFileHandler";
     private static final String FILE_DIRECTORY = "saved_games_txt";
     private static final String FILE_EXTENSION = ".txt";
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+
+    // Secciones del archivo
+    private static final int SECTION_NONE = 0;
+    private static final int SECTION_GAME_INFO = 1;
+    private static final int SECTION_CARDS = 2;
+    private static final int SECTION_MOVE_HISTORY = 3;
+    private static final int SECTION_BOARD = 4;
+
+    // Campos de la sección [BOARD], en el orden de BoardEncoding.FIELDS
+    static final String[] BOARD_KEYS = {"ORDER", "IMAGES", "PAIR_IMAGES", "FLIPPED", "MATCHED"};
+
+    // Bytes que siguen a [GAME_INFO]; permite comprobar el archivo leyendo solo la cabecera
+    private static final String KEY_BODY_LENGTH = "BODY_LENGTH";
+
+    // Compresión de los próximos guardados; al leer se detecta sola
+    private volatile int compression = SaveCompression.NONE;
+
+    @Override
+    public void setCompression(int compression) {
+        this.compression = compression;
+    }
+
+    @Override
+    public int getCompression() {
+        return compression;
+    }
 
     @Override
     public String saveGame(Context context, GameState gameState) throws IOException {
@@ -42,13 +71,19 @@ public class TextFileHandler implements FileHandler {
         String fileName = gameState.getGameId() + FILE_EXTENSION;
         File file = new File(directory, fileName);
 
-        try (FileOutputStream fos = new FileOutputStream(file);
-             OutputStreamWriter osw = new OutputStreamWriter(fos)) {
+        // El tablero y el historial se escriben antes para anotar su longitud en la cabecera
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (Writer bodyWriter = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8))) {
+            writeBody(bodyWriter, gameState);
+        }
+
+        try (OutputStream out = new BufferedOutputStream(SaveCompression.openOutput(file, compression))) {
+            Writer osw = new OutputStreamWriter(out, StandardCharsets.UTF_8);
 
             // Escribir encabezado
             osw.write("# MemorIPN Game Save File\n");
             osw.write("# Format: TXT\n");
-            osw.write("# Date: " + DATE_FORMAT.format(new Date()) + "\n\n");
+            osw.write("# Date: " + SaveDateFormat.format(new Date()) + "\n\n");
 
             // Información básica
             osw.write("[GAME_INFO]\n");
@@ -57,13 +92,33 @@ public class TextFileHandler implements FileHandler {
             osw.write("TIME_ELAPSED=" + gameState.getTimeElapsed() + "\n");
             osw.write("LEVEL=" + gameState.getLevel() + "\n");
             osw.write("GAME_ID=" + gameState.getGameId() + "\n");
-            osw.write("SAVE_DATE=" + DATE_FORMAT.format(gameState.getSaveDate()) + "\n");
+            osw.write("SAVE_DATE=" + SaveDateFormat.format(gameState.getSaveDate()) + "\n");
             osw.write("GAME_COMPLETED=" + gameState.isGameCompleted() + "\n");
             osw.write("SOUND_ENABLED=" + gameState.isSoundEnabled() + "\n");
             osw.write("THEME_NAME=" + gameState.getThemeName() + "\n");
-            osw.write("SAVE_FORMAT=" + gameState.getSaveFormat() + "\n\n");
+            osw.write("SAVE_FORMAT=" + gameState.getSaveFormat() + "\n");
+            osw.write(KEY_BODY_LENGTH + "=" + body.size() + "\n\n");
+            osw.flush();
+
+            body.writeTo(out);
+        }
+
+        return file.getAbsolutePath();
+    }
 
-            // Tarjetas
+    /**
+     * Escribe el tablero y el historial de movimientos, lo que sigue a [GAME_INFO]
+     */
+    private static void writeBody(Writer osw, GameState gameState) throws IOException {
+        // Tablero, compacto si se puede y si no tarjeta a tarjeta
+        BoardEncoding board = BoardEncoding.fromCards(gameState.getCards());
+        if (board != null) {
+            osw.write("[BOARD]\n");
+            String[] values = board.toFields();
+            for (int i = 0; i < BOARD_KEYS.length; i++) {
+                osw.write(BOARD_KEYS[i] + "=" + values[i] + "\n");
+            }
+        } else {
             osw.write("[CARDS]\n");
             for (Card card : gameState.getCards()) {
                 osw.write("CARD_ID=" + card.getId() + "\n");
@@ -74,152 +129,216 @@ public class TextFileHandler implements FileHandler {
                 osw.write("MATCHED=" + card.isMatched() + "\n");
                 osw.write("---\n"); // Separador entre tarjetas
             }
-            osw.write("\n");
-
-            // Historial de movimientos
-            osw.write("[MOVE_HISTORY]\n");
-            for (String move : gameState.getMoveHistory()) {
-                osw.write(move + "\n");
-            }
-
-            osw.flush();
         }
+        osw.write("\n");
 
-        return file.getAbsolutePath();
+        // Historial de movimientos
+        osw.write("[MOVE_HISTORY]\n");
+        for (String move : gameState.getMoveHistory()) {
+            osw.write(move + "\n");
+        }
     }
 
     @Override
     public GameState loadGame(Context context, String fileName) throws IOException {
         File file = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
         GameState gameState = new GameState();
-        List<Card> cards = new ArrayList<>();
-        List<String> moveHistory = new ArrayList<>();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            String section = null;
-            Card currentCard = null;
+        // Leer el archivo línea a línea sin separar cada línea en cadenas
+        try (TextLineScanner scanner = new TextLineScanner(SaveCompression.openInput(file))) {
+            readSections(scanner, gameState);
+        }
+        return gameState;
+    }
 
-            while ((line = reader.readLine()) != null) {
-                // Ignorar líneas de comentario o vacías
-                if (line.startsWith("#") || line.trim().isEmpty()) {
-                    continue;
-                }
+    /**
+     * Lee [GAME_INFO] y se detiene en la sección siguiente. El resto no se
+     * interpreta, solo se comprueba que mide lo anotado en BODY_LENGTH.
+     */
+    @Override
+    public GameState loadGameHeader(Context context, String fileName) throws IOException {
+        File file = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+        GameState gameState = new GameState();
+        long bodyLength = -1;
+        long bodyOffset = -1;
 
-                // Detectar secciones
-                if (line.startsWith("[") && line.endsWith("]")) {
-                    section = line;
-                    if (section.equals("[CARDS]")) {
-                        currentCard = null;
-                    }
+        try (TextLineScanner scanner = new TextLineScanner(SaveCompression.openInput(file))) {
+            boolean inGameInfo = false;
+            while (scanner.nextLine()) {
+                if (scanner.startsWith('#') || scanner.isBlank()) {
                     continue;
                 }
 
-                // Procesar datos según la sección
-                if ("[GAME_INFO]".equals(section)) {
-                    processGameInfoLine(gameState, line);
-                } else if ("[CARDS]".equals(section)) {
-                    if (line.equals("---")) {
-                        if (currentCard != null) {
-                            cards.add(currentCard);
-                            currentCard = null;
-                        }
+                if (scanner.startsWith('[') && scanner.endsWith(']')) {
+                    if (scanner.lineEquals("[GAME_INFO]")) {
+                        inGameInfo = true;
                         continue;
                     }
+                    if (!inGameInfo) {
+                        // La cabecera no es lo primero del archivo: se lee entero
+                        return loadGame(context, fileName);
+                    }
+                    bodyOffset = scanner.getLineOffset();
+                    break;
+                }
 
-                    if (currentCard == null) {
-                        currentCard = new Card();
+                if (inGameInfo) {
+                    if (scanner.splitKeyValue() && scanner.keyEquals(KEY_BODY_LENGTH)) {
+                        bodyLength = scanner.valueAsLong();
+                    } else {
+                        processGameInfoLine(gameState, scanner);
                     }
+                }
+            }
+        }
 
-                    processCardLine(currentCard, line);
-                } else if ("[MOVE_HISTORY]".equals(section)) {
-                    moveHistory.add(line);
+        if (bodyLength < 0) {
+            // Guardada sin la longitud del resto: solo se puede comprobar leyéndola entera
+            return loadGame(context, fileName);
+        }
+        // Con zlib no se sabe sin descomprimir; lo comprueba su Adler-32 al cargarla entera
+        long length = SaveCompression.uncompressedLength(file);
+        if (bodyOffset < 0) {
+            bodyOffset = length;
+        }
+        if (length >= 0 && length - bodyOffset != bodyLength) {
+            throw new IOException("Partida incompleta o dañada: " + fileName + " (" + (length - bodyOffset)
+                    + " bytes tras la cabecera, se esperaban " + bodyLength + ")");
+        }
+        return gameState;
+    }
+
+    /**
+     * Lee las secciones desde la posición actual del scanner hasta el final del archivo
+     */
+    private void readSections(TextLineScanner scanner, GameState gameState) throws IOException {
+        List<Card> cards = new ArrayList<>();
+        List<String> moveHistory = new ArrayList<>();
+        String[] board = null;
+        int section = SECTION_NONE;
+        Card currentCard = null;
+
+        while (scanner.nextLine()) {
+            // Ignorar líneas de comentario o vacías
+            if (scanner.startsWith('#') || scanner.isBlank()) {
+                continue;
+            }
+
+            // Detectar secciones
+            if (scanner.startsWith('[') && scanner.endsWith(']')) {
+                if (scanner.lineEquals("[GAME_INFO]")) {
+                    section = SECTION_GAME_INFO;
+                } else if (scanner.lineEquals("[CARDS]")) {
+                    section = SECTION_CARDS;
+                    currentCard = null;
+                } else if (scanner.lineEquals("[BOARD]")) {
+                    section = SECTION_BOARD;
+                    board = new String[BoardEncoding.FIELDS.length];
+                } else if (scanner.lineEquals("[MOVE_HISTORY]")) {
+                    section = SECTION_MOVE_HISTORY;
+                } else {
+                    section = SECTION_NONE;
                 }
+                continue;
             }
 
-            // Añadir la última tarjeta si existe
-            if (currentCard != null) {
-                cards.add(currentCard);
+            // Procesar datos según la sección
+            if (section == SECTION_GAME_INFO) {
+                processGameInfoLine(gameState, scanner);
+            } else if (section == SECTION_CARDS) {
+                if (scanner.lineEquals("---")) {
+                    if (currentCard != null) {
+                        cards.add(currentCard);
+                        currentCard = null;
+                    }
+                    continue;
+                }
+
+                if (currentCard == null) {
+                    currentCard = new Card();
+                }
+
+                processCardLine(currentCard, scanner);
+            } else if (section == SECTION_BOARD) {
+                processBoardLine(board, scanner);
+            } else if (section == SECTION_MOVE_HISTORY) {
+                moveHistory.add(scanner.lineAsString());
             }
         }
 
+        // Añadir la última tarjeta si existe
+        if (currentCard != null) {
+            cards.add(currentCard);
+        }
+
+        if (board != null) {
+            cards = BoardEncoding.fromFields(board).toCards();
+        }
         gameState.setCards(cards);
         gameState.setMoveHistory(moveHistory);
-        return gameState;
     }
 
-    private void processGameInfoLine(GameState gameState, String line) {
-        String[] parts = line.split("=", 2);
-        if (parts.length != 2) return;
-
-        String key = parts[0].trim();
-        String value = parts[1].trim();
-
-        switch (key) {
-            case "PLAYER_NAME":
-                gameState.setPlayerName(value);
-                break;
-            case "SCORE":
-                gameState.setScore(Integer.parseInt(value));
-                break;
-            case "TIME_ELAPSED":
-                gameState.setTimeElapsed(Long.parseLong(value));
-                break;
-            case "LEVEL":
-                gameState.setLevel(Integer.parseInt(value));
-                break;
-            case "GAME_ID":
-                gameState.setGameId(value);
-                break;
-            case "SAVE_DATE":
-                try {
-                    gameState.setSaveDate(DATE_FORMAT.parse(value));
-                } catch (ParseException e) {
-                    Log.e(TAG, "Error parsing date: " + value, e);
-                    gameState.setSaveDate(new Date());
-                }
-                break;
-            case "GAME_COMPLETED":
-                gameState.setGameCompleted(Boolean.parseBoolean(value));
-                break;
-            case "SOUND_ENABLED":
-                gameState.setSoundEnabled(Boolean.parseBoolean(value));
-                break;
-            case "THEME_NAME":
-                gameState.setThemeName(value);
-                break;
-            case "SAVE_FORMAT":
-                gameState.setSaveFormat(value);
-                break;
+    private void processGameInfoLine(GameState gameState, TextLineScanner scanner) {
+        if (!scanner.splitKeyValue()) return;
+
+        if (scanner.keyEquals("PLAYER_NAME")) {
+            gameState.setPlayerName(scanner.valueAsString());
+        } else if (scanner.keyEquals("SCORE")) {
+            gameState.setScore(scanner.valueAsInt());
+        } else if (scanner.keyEquals("TIME_ELAPSED")) {
+            gameState.setTimeElapsed(scanner.valueAsLong());
+        } else if (scanner.keyEquals("LEVEL")) {
+            gameState.setLevel(scanner.valueAsInt());
+        } else if (scanner.keyEquals("GAME_ID")) {
+            gameState.setGameId(scanner.valueAsString());
+        } else if (scanner.keyEquals("SAVE_DATE")) {
+            String value = scanner.valueAsString();
+            try {
+                gameState.setSaveDate(SaveDateFormat.parse(value));
+            } catch (ParseException e) {
+                Log.e(TAG, "Error parsing date: " + value, e);
+                gameState.setSaveDate(new Date());
+            }
+        } else if (scanner.keyEquals("GAME_COMPLETED")) {
+            gameState.setGameCompleted(scanner.valueAsBoolean());
+        } else if (scanner.keyEquals("SOUND_ENABLED")) {
+            gameState.setSoundEnabled(scanner.valueAsBoolean());
+        } else if (scanner.keyEquals("THEME_NAME")) {
+            gameState.setThemeName(scanner.valueAsString());
+        } else if (scanner.keyEquals("SAVE_FORMAT")) {
+            gameState.setSaveFormat(scanner.valueAsString());
+        }
+    }
+
+    private void processCardLine(Card card, TextLineScanner scanner) {
+        if (!scanner.splitKeyValue()) return;
+
+        if (scanner.keyEquals("CARD_ID")) {
+            card.setId(scanner.valueAsInt());
+        } else if (scanner.keyEquals("IMAGE_ID")) {
+            card.setImageId(scanner.valueAsInt());
+        } else if (scanner.keyEquals("PAIR_ID")) {
+            card.setPairId(scanner.valueAsInt());
+        } else if (scanner.keyEquals("POSITION")) {
+            card.setPosition(scanner.valueAsInt());
+        } else if (scanner.keyEquals("FLIPPED")) {
+            card.setFlipped(scanner.valueAsBoolean());
+        } else if (scanner.keyEquals("MATCHED")) {
+            card.setMatched(scanner.valueAsBoolean());
         }
     }
 
-    private void processCardLine(Card card, String line) {
-        String[] parts = line.split("=", 2);
-        if (parts.length != 2) return;
-
-        String key = parts[0].trim();
-        String value = parts[1].trim();
-
-        switch (key) {
-            case "CARD_ID":
-                card.setId(Integer.parseInt(value));
-                break;
-            case "IMAGE_ID":
-                card.setImageId(Integer.parseInt(value));
-                break;
-            case "PAIR_ID":
-                card.setPairId(Integer.parseInt(value));
-                break;
-            case "POSITION":
-                card.setPosition(Integer.parseInt(value));
-                break;
-            case "FLIPPED":
-                card.setFlipped(Boolean.parseBoolean(value));
-                break;
-            case "MATCHED":
-                card.setMatched(Boolean.parseBoolean(value));
-                break;
+    /**
+     * Guarda el valor de una línea de [BOARD] en la posición de su clave en BOARD_KEYS
+     */
+    private void processBoardLine(String[] board, TextLineScanner scanner) {
+        if (!scanner.splitKeyValue()) return;
+
+        for (int i = 0; i < BOARD_KEYS.length; i++) {
+            if (scanner.keyEquals(BOARD_KEYS[i])) {
+                board[i] = scanner.valueAsString();
+                return;
+            }
         }
     }
 
@@ -246,12 +365,23 @@ public class TextFileHandler implements FileHandler {
         return file.exists() && file.delete();
     }
 
+    @Override
+    public File getGameFile(Context context, String fileName) {
+        return new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+    }
+
+    @Override
+    public File getSavedGamesDirectory(Context context) {
+        return new File(context.getFilesDir(), FILE_DIRECTORY);
+    }
+
     @Override
     public String getFileContent(Context context, String fileName) throws IOException {
         File file = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
         StringBuilder content = new StringBuilder();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(SaveCompression.openInput(file), StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 content.append(line).append("\n");
@@ -261,6 +391,12 @@ public class TextFileHandler implements FileHandler {
         return content.toString();
     }
 
+    @Override
+    public InputStream openFileContent(Context context, String fileName) throws IOException {
+        // El archivo ya es texto: se lee tal cual (descomprimido si hace falta)
+        return SaveCompression.openInput(new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName));
+    }
+
     @Override
     public String exportGame(Context context, String fileName) throws IOException {
         File sourceFile = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
@@ -273,13 +409,8 @@ public class TextFileHandler implements FileHandler {
 
         File destFile = new File(exportDir, fileName);
 
-        // Leer el archivo original
-        String content = getFileContent(context, fileName);
-
-        // Escribir en la ubicación de exportación
-        try (FileOutputStream fos = new FileOutputStream(destFile)) {
-            fos.write(content.getBytes());
-        }
+        // Copiar los bytes del archivo original, descomprimidos si hace falta
+        SaveCompression.copyUncompressed(sourceFile, destFile);
 
         return destFile.getAbsolutePath();
     }
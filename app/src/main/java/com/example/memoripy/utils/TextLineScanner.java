@@ -0,0 +1,304 @@
+package com.example.memoripy.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lector de líneas "CLAVE=valor" sobre un buffer de bytes reutilizable.
+ *
+ * Las claves se comparan y los números se interpretan directamente sobre
+ * los bytes del buffer; solo se crean cadenas para los valores que se
+ * piden con {@link #valueAsString()} o {@link #lineAsString()}.
+ * El texto se interpreta como UTF-8.
+ */
+final class TextLineScanner implements Closeable {
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    // Caché de líneas ya decodificadas; los movimientos se repiten mucho
+    private static final int LINE_CACHE_SIZE = 256;
+    private static final int MAX_CACHED_LINE_LENGTH = 256;
+
+    private final InputStream in;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private long bufferOffset;   // Posición en el flujo del primer byte del buffer
+    private int position;
+    private int limit;
+    private boolean eof;
+    private boolean skipLineFeed;
+
+    // Línea actual (sin el salto de línea)
+    private int lineStart;
+    private int lineEnd;
+
+    // Clave y valor de la línea actual, ya recortados
+    private int keyStart;
+    private int keyEnd;
+    private int valueStart;
+    private int valueEnd;
+
+    private final byte[][] cachedLineBytes = new byte[LINE_CACHE_SIZE][];
+    private final String[] cachedLines = new String[LINE_CACHE_SIZE];
+
+    TextLineScanner(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Avanza a la siguiente línea. Acepta "\n", "\r\n" y "\r" como fin de línea.
+     * @return false si no quedan líneas
+     */
+    boolean nextLine() throws IOException {
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            if (position == limit && !fill()) {
+                return false;
+            }
+            if (buffer[position] == '\n') {
+                position++;
+            }
+        }
+
+        int scan = position;
+        while (true) {
+            for (; scan < limit; scan++) {
+                byte b = buffer[scan];
+                if (b == '\n' || b == '\r') {
+                    lineStart = position;
+                    lineEnd = scan;
+                    position = scan + 1;
+                    skipLineFeed = b == '\r';
+                    return true;
+                }
+            }
+
+            if (eof) {
+                if (position < limit) {
+                    // Última línea sin salto de línea
+                    lineStart = position;
+                    lineEnd = limit;
+                    position = limit;
+                    return true;
+                }
+                return false;
+            }
+
+            // La línea continúa fuera del buffer: leer más datos
+            int offset = position;
+            fill();
+            scan -= offset - position;
+        }
+    }
+
+    /**
+     * Lee más datos conservando los de la línea actual.
+     * Mueve la línea al principio del buffer y lo amplía si está lleno.
+     * @return false si se ha llegado al final del archivo
+     */
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            bufferOffset += position;
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Posición en bytes del principio de la línea actual, contada desde
+     * donde estaba el flujo al crear el scanner
+     */
+    long getLineOffset() {
+        return bufferOffset + lineStart;
+    }
+
+    /**
+     * Indica si la línea está vacía o solo tiene espacios
+     */
+    boolean isBlank() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if ((buffer[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean startsWith(char c) {
+        return lineEnd > lineStart && buffer[lineStart] == c;
+    }
+
+    boolean endsWith(char c) {
+        return lineEnd > lineStart && buffer[lineEnd - 1] == c;
+    }
+
+    /**
+     * Compara la línea completa con un texto ASCII
+     */
+    boolean lineEquals(String text) {
+        return regionEquals(lineStart, lineEnd, text);
+    }
+
+    /**
+     * Separa la línea actual en clave y valor por el primer '='.
+     * @return false si la línea no tiene '='
+     */
+    boolean splitKeyValue() {
+        int separator = -1;
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buffer[i] == '=') {
+                separator = i;
+                break;
+            }
+        }
+        if (separator < 0) {
+            return false;
+        }
+
+        keyStart = trimStart(lineStart, separator);
+        keyEnd = trimEnd(keyStart, separator);
+        valueStart = trimStart(separator + 1, lineEnd);
+        valueEnd = trimEnd(valueStart, lineEnd);
+        return true;
+    }
+
+    /**
+     * Compara la clave de la línea actual con un texto ASCII
+     */
+    boolean keyEquals(String key) {
+        return regionEquals(keyStart, keyEnd, key);
+    }
+
+    int valueAsInt() {
+        long value = valueAsLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Valor fuera de rango: " + valueAsString());
+        }
+        return (int) value;
+    }
+
+    long valueAsLong() {
+        int i = valueStart;
+        boolean negative = false;
+        if (i < valueEnd && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        int digits = valueEnd - i;
+        if (digits == 0) {
+            throw new NumberFormatException("Número no válido: \"" + valueAsString() + "\"");
+        }
+        if (digits > 18) {
+            // Puede desbordar: dejar que Long compruebe el rango
+            return Long.parseLong(valueAsString());
+        }
+
+        long result = 0;
+        for (; i < valueEnd; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Número no válido: \"" + valueAsString() + "\"");
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Igual que Boolean.parseBoolean: true solo si el valor es "true" sin distinguir mayúsculas
+     */
+    boolean valueAsBoolean() {
+        return valueEnd - valueStart == 4
+                && (buffer[valueStart] | 0x20) == 't'
+                && (buffer[valueStart + 1] | 0x20) == 'r'
+                && (buffer[valueStart + 2] | 0x20) == 'u'
+                && (buffer[valueStart + 3] | 0x20) == 'e';
+    }
+
+    String valueAsString() {
+        return new String(buffer, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Devuelve la línea como cadena. Las líneas repetidas devuelven la misma
+     * instancia, así que no se vuelven a decodificar.
+     */
+    String lineAsString() {
+        int length = lineEnd - lineStart;
+        if (length > MAX_CACHED_LINE_LENGTH) {
+            return new String(buffer, lineStart, length, StandardCharsets.UTF_8);
+        }
+
+        int hash = 0;
+        for (int i = lineStart; i < lineEnd; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (LINE_CACHE_SIZE - 1);
+
+        byte[] cached = cachedLineBytes[slot];
+        if (cached != null && cached.length == length && lineEquals(cached)) {
+            return cachedLines[slot];
+        }
+
+        byte[] bytes = Arrays.copyOfRange(buffer, lineStart, lineEnd);
+        String line = new String(bytes, StandardCharsets.UTF_8);
+        cachedLineBytes[slot] = bytes;
+        cachedLines[slot] = line;
+        return line;
+    }
+
+    private boolean lineEquals(byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer[lineStart + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionEquals(int start, int end, String text) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (buffer[start + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int trimStart(int start, int end) {
+        while (start < end && (buffer[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && (buffer[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
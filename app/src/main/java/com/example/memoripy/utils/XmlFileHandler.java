@@ -14,28 +14,56 @@ import org.xmlpull.v1.XmlSerializer;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.StringWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Implementación para manejar archivos XML
  */
-public class XmlFileHandler implements FileHandler {
+public class XmlFileHandler implements CompressibleFileHandler {
 
     private static final String TAG = "XmlFileHandler";
     private static final String FILE_DIRECTORY = "saved_games_xml";
     private static final String FILE_EXTENSION = ".xml";
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+    private static final String ENCODING = "UTF-8";
+    private static final String FEATURE_INDENT_OUTPUT = "http://xmlpull.org/v1/doc/features.html#indent-output";
+
+    private final boolean indentOutput;
+
+    // Compresión de los próximos guardados; al leer se detecta sola
+    private volatile int compression = SaveCompression.NONE;
+
+    @Override
+    public void setCompression(int compression) {
+        this.compression = compression;
+    }
+
+    @Override
+    public int getCompression() {
+        return compression;
+    }
+
+    /**
+     * Crea un handler que escribe el XML compacto, sin sangría
+     */
+    public XmlFileHandler() {
+        this(false);
+    }
+
+    /**
+     * @param indentOutput true para escribir el XML con sangría (más legible pero más grande)
+     */
+    public XmlFileHandler(boolean indentOutput) {
+        this.indentOutput = indentOutput;
+    }
 
     @Override
     public String saveGame(Context context, GameState gameState) throws IOException {
@@ -50,11 +78,14 @@ public class XmlFileHandler implements FileHandler {
         File file = new File(directory, fileName);
 
         XmlSerializer serializer = Xml.newSerializer();
-        StringWriter writer = new StringWriter();
 
-        try {
-            serializer.setOutput(writer);
-            serializer.startDocument("UTF-8", true);
+        // Serializar directamente en el archivo
+        try (OutputStream out = SaveCompression.openOutput(file, compression)) {
+            serializer.setOutput(out, ENCODING);
+            if (indentOutput) {
+                serializer.setFeature(FEATURE_INDENT_OUTPUT, true);
+            }
+            serializer.startDocument(ENCODING, true);
             serializer.startTag("", "gameState");
 
             // Información básica
@@ -64,26 +95,36 @@ public class XmlFileHandler implements FileHandler {
             serializeTag(serializer, "timeElapsed", String.valueOf(gameState.getTimeElapsed()));
             serializeTag(serializer, "level", String.valueOf(gameState.getLevel()));
             serializeTag(serializer, "gameId", gameState.getGameId());
-            serializeTag(serializer, "saveDate", DATE_FORMAT.format(gameState.getSaveDate()));
+            serializeTag(serializer, "saveDate", SaveDateFormat.format(gameState.getSaveDate()));
             serializeTag(serializer, "gameCompleted", String.valueOf(gameState.isGameCompleted()));
             serializeTag(serializer, "soundEnabled", String.valueOf(gameState.isSoundEnabled()));
             serializeTag(serializer, "themeName", gameState.getThemeName());
             serializeTag(serializer, "saveFormat", gameState.getSaveFormat());
             serializer.endTag("", "gameInfo");
 
-            // Tarjetas
-            serializer.startTag("", "cards");
-            for (Card card : gameState.getCards()) {
-                serializer.startTag("", "card");
-                serializeTag(serializer, "id", String.valueOf(card.getId()));
-                serializeTag(serializer, "imageId", String.valueOf(card.getImageId()));
-                serializeTag(serializer, "pairId", String.valueOf(card.getPairId()));
-                serializeTag(serializer, "position", String.valueOf(card.getPosition()));
-                serializeTag(serializer, "flipped", String.valueOf(card.isFlipped()));
-                serializeTag(serializer, "matched", String.valueOf(card.isMatched()));
-                serializer.endTag("", "card");
+            // Tablero, compacto si se puede y si no tarjeta a tarjeta
+            BoardEncoding board = BoardEncoding.fromCards(gameState.getCards());
+            if (board != null) {
+                serializer.startTag("", "board");
+                String[] values = board.toFields();
+                for (int i = 0; i < BoardEncoding.FIELDS.length; i++) {
+                    serializeTag(serializer, BoardEncoding.FIELDS[i], values[i]);
+                }
+                serializer.endTag("", "board");
+            } else {
+                serializer.startTag("", "cards");
+                for (Card card : gameState.getCards()) {
+                    serializer.startTag("", "card");
+                    serializeTag(serializer, "id", String.valueOf(card.getId()));
+                    serializeTag(serializer, "imageId", String.valueOf(card.getImageId()));
+                    serializeTag(serializer, "pairId", String.valueOf(card.getPairId()));
+                    serializeTag(serializer, "position", String.valueOf(card.getPosition()));
+                    serializeTag(serializer, "flipped", String.valueOf(card.isFlipped()));
+                    serializeTag(serializer, "matched", String.valueOf(card.isMatched()));
+                    serializer.endTag("", "card");
+                }
+                serializer.endTag("", "cards");
             }
-            serializer.endTag("", "cards");
 
             // Historial de movimientos
             serializer.startTag("", "moveHistory");
@@ -95,10 +136,6 @@ public class XmlFileHandler implements FileHandler {
             serializer.endTag("", "gameState");
             serializer.endDocument();
 
-            try (FileOutputStream fos = new FileOutputStream(file)) {
-                fos.write(writer.toString().getBytes());
-            }
-
         } catch (Exception e) {
             Log.e(TAG, "Error saving XML", e);
             throw new IOException("Error saving XML", e);
@@ -120,10 +157,10 @@ public class XmlFileHandler implements FileHandler {
         List<Card> cards = new ArrayList<>();
         List<String> moveHistory = new ArrayList<>();
 
-        try (FileInputStream fis = new FileInputStream(file)) {
+        try (InputStream in = SaveCompression.openInput(file)) {
             XmlPullParser parser = Xml.newPullParser();
             parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
-            parser.setInput(fis, null);
+            parser.setInput(in, ENCODING);
             parser.nextTag();
 
             parser.require(XmlPullParser.START_TAG, "", "gameState");
@@ -139,6 +176,8 @@ public class XmlFileHandler implements FileHandler {
                     readGameInfo(parser, gameState);
                 } else if ("cards".equals(name)) {
                     cards = readCards(parser);
+                } else if ("board".equals(name)) {
+                    cards = readBoard(parser);
                 } else if ("moveHistory".equals(name)) {
                     moveHistory = readMoveHistory(parser);
                 } else {
@@ -183,7 +222,7 @@ public class XmlFileHandler implements FileHandler {
                     break;
                 case "saveDate":
                     try {
-                        gameState.setSaveDate(DATE_FORMAT.parse(readText(parser)));
+                        gameState.setSaveDate(SaveDateFormat.parse(readText(parser)));
                     } catch (ParseException e) {
                         Log.e(TAG, "Error parsing date", e);
                         gameState.setSaveDate(new Date());
@@ -228,6 +267,26 @@ public class XmlFileHandler implements FileHandler {
         return cards;
     }
 
+    private List<Card> readBoard(XmlPullParser parser) throws XmlPullParserException, IOException {
+        String[] values = new String[BoardEncoding.FIELDS.length];
+        parser.require(XmlPullParser.START_TAG, "", "board");
+
+        while (parser.next() != XmlPullParser.END_TAG) {
+            if (parser.getEventType() != XmlPullParser.START_TAG) {
+                continue;
+            }
+
+            int field = Arrays.asList(BoardEncoding.FIELDS).indexOf(parser.getName());
+            if (field >= 0) {
+                values[field] = readText(parser);
+            } else {
+                skip(parser);
+            }
+        }
+
+        return BoardEncoding.fromFields(values).toCards();
+    }
+
     private Card readCard(XmlPullParser parser) throws XmlPullParserException, IOException {
         parser.require(XmlPullParser.START_TAG, "", "card");
         Card card = new Card();
@@ -335,12 +394,23 @@ public class XmlFileHandler implements FileHandler {
         return file.exists() && file.delete();
     }
 
+    @Override
+    public File getGameFile(Context context, String fileName) {
+        return new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
+    }
+
+    @Override
+    public File getSavedGamesDirectory(Context context) {
+        return new File(context.getFilesDir(), FILE_DIRECTORY);
+    }
+
     @Override
     public String getFileContent(Context context, String fileName) throws IOException {
         File file = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
         StringBuilder content = new StringBuilder();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(SaveCompression.openInput(file), StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 content.append(line).append("\n");
@@ -350,6 +420,12 @@ public class XmlFileHandler implements FileHandler {
         return content.toString();
     }
 
+    @Override
+    public InputStream openFileContent(Context context, String fileName) throws IOException {
+        // El archivo ya es texto: se lee tal cual (descomprimido si hace falta)
+        return SaveCompression.openInput(new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName));
+    }
+
     @Override
     public String exportGame(Context context, String fileName) throws IOException {
         File sourceFile = new File(new File(context.getFilesDir(), FILE_DIRECTORY), fileName);
@@ -362,13 +438,8 @@ public class XmlFileHandler implements FileHandler {
 
         File destFile = new File(exportDir, fileName);
 
-        // Leer el archivo original
-        String content = getFileContent(context, fileName);
-
-        // Escribir en la ubicación de exportación
-        try (FileOutputStream fos = new FileOutputStream(destFile)) {
-            fos.write(content.getBytes());
-        }
+        // Copiar los bytes del archivo original, descomprimidos si hace falta
+        SaveCompression.copyUncompressed(sourceFile, destFile);
 
         return destFile.getAbsolutePath();
     }
@@ -0,0 +1,137 @@
+package com.example.memoripy.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.memoripy.models.Card;
+import com.example.memoripy.models.GameState;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class BinaryFileHandlerTest {
+
+    private static final byte[] MAGIC = {'M', 'I', 'P', 'B'};
+
+    private static GameState playedGame() {
+        GameState gameState = TestGames.newGame("bin1", 8, 5);
+        gameState.setScore(-12);
+        gameState.setTimeElapsed(98765);
+        gameState.setLevel(3);
+        gameState.setSoundEnabled(true);
+        gameState.setGameCompleted(true);
+        gameState.setSaveDate(new Date(1712345678901L));
+        List<Card> cards = gameState.getCards();
+        cards.get(2).setFlipped(true);
+        cards.get(9).setMatched(true);
+        gameState.setMoveHistory(new ArrayList<>(Arrays.asList("0-3", "5-9", "ñ-€")));
+        return gameState;
+    }
+
+    /**
+     * Información básica tal como la escriben todas las versiones
+     */
+    private static void writeInfo(OutputStream out, int version, GameState gameState) throws IOException {
+        out.write(MAGIC);
+        out.write(version);
+        BinaryCodec.writeString(out, gameState.getPlayerName());
+        BinaryCodec.writeSignedVarInt(out, gameState.getScore());
+        BinaryCodec.writeVarLong(out, gameState.getTimeElapsed());
+        BinaryCodec.writeSignedVarInt(out, gameState.getLevel());
+        BinaryCodec.writeString(out, gameState.getGameId());
+        BinaryCodec.writeVarLong(out, gameState.getSaveDate().getTime());
+        out.write((gameState.isGameCompleted() ? 1 : 0) | (gameState.isSoundEnabled() ? 2 : 0));
+        BinaryCodec.writeString(out, gameState.getThemeName());
+        BinaryCodec.writeString(out, gameState.getSaveFormat());
+    }
+
+    private static void writeMoves(OutputStream out, List<String> moves) throws IOException {
+        BinaryCodec.writeVarInt(out, moves.size());
+        for (String move : moves) {
+            BinaryCodec.writeString(out, move);
+        }
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        GameState gameState = playedGame();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryFileHandler.writeGameState(out, gameState);
+
+        GameState read = BinaryFileHandler.readGameState(new ByteArrayInputStream(out.toByteArray()));
+        TestGames.assertSameGame(gameState, read);
+    }
+
+    @Test
+    public void boardNotGeneratedByTheGameRoundTrips() throws IOException {
+        GameState gameState = playedGame();
+        gameState.getCards().get(0).setPosition(99);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryFileHandler.writeGameState(out, gameState);
+
+        GameState read = BinaryFileHandler.readGameState(new ByteArrayInputStream(out.toByteArray()));
+        TestGames.assertSameGame(gameState, read);
+    }
+
+    @Test
+    public void headerOnly() throws IOException {
+        GameState gameState = playedGame();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryFileHandler.writeGameState(out, gameState);
+
+        GameState header = new GameState();
+        int version = BinaryFileHandler.readHeader(new ByteArrayInputStream(out.toByteArray()), header);
+        assertEquals(3, version);
+        assertEquals(gameState.getGameId(), header.getGameId());
+        assertEquals(gameState.getScore(), header.getScore());
+        assertEquals(gameState.getSaveDate(), header.getSaveDate());
+    }
+
+    @Test
+    public void readsVersion1() throws IOException {
+        // Versión 1: las tarjetas una a una, sin longitud del resto
+        GameState gameState = playedGame();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeInfo(out, 1, gameState);
+        List<Card> cards = gameState.getCards();
+        BinaryCodec.writeVarInt(out, cards.size());
+        for (Card card : cards) {
+            BinaryCodec.writeSignedVarInt(out, card.getId());
+            BinaryCodec.writeSignedVarInt(out, card.getImageId());
+            BinaryCodec.writeSignedVarInt(out, card.getPairId());
+            BinaryCodec.writeSignedVarInt(out, card.getPosition());
+        }
+        BinaryFileHandler.writeCardFlags(out, cards);
+        writeMoves(out, gameState.getMoveHistory());
+
+        GameState read = BinaryFileHandler.readGameState(new ByteArrayInputStream(out.toByteArray()));
+        TestGames.assertSameGame(gameState, read);
+    }
+
+    @Test
+    public void readsVersion2() throws IOException {
+        // Versión 2: tablero compacto, sin longitud del resto
+        GameState gameState = playedGame();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeInfo(out, 2, gameState);
+        BinaryFileHandler.writeBoard(out, gameState.getCards());
+        writeMoves(out, gameState.getMoveHistory());
+
+        GameState read = BinaryFileHandler.readGameState(new ByteArrayInputStream(out.toByteArray()));
+        TestGames.assertSameGame(gameState, read);
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownVersionIsRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeInfo(out, 4, playedGame());
+        BinaryFileHandler.readGameState(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.memoripy.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.example.memoripy.models.Card;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BoardEncodingTest {
+
+    /**
+     * Tablero con algunas tarjetas volteadas y emparejadas, de tamaño no múltiplo de 8
+     */
+    private static List<Card> playedBoard() {
+        List<Card> cards = TestGames.newBoard(11, 42);
+        for (int i = 0; i < cards.size(); i += 3) {
+            cards.get(i).setFlipped(true);
+        }
+        for (int i = 1; i < cards.size(); i += 5) {
+            cards.get(i).setMatched(true);
+        }
+        return cards;
+    }
+
+    @Test
+    public void binaryRoundTrip() throws IOException {
+        List<Card> cards = playedBoard();
+        BoardEncoding board = BoardEncoding.fromCards(cards);
+        assertNotNull(board);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        board.write(out);
+        BoardEncoding read = BoardEncoding.read(new ByteArrayInputStream(out.toByteArray()));
+
+        TestGames.assertSameCards(cards, read.toCards());
+    }
+
+    @Test
+    public void fieldsRoundTrip() throws IOException {
+        List<Card> cards = playedBoard();
+        String[] fields = BoardEncoding.fromCards(cards).toFields();
+        assertEquals(BoardEncoding.FIELDS.length, fields.length);
+
+        TestGames.assertSameCards(cards, BoardEncoding.fromFields(fields).toCards());
+    }
+
+    @Test
+    public void unknownImageKeepsItsId() throws IOException {
+        List<Card> cards = TestGames.newBoard(2, 7);
+        for (Card card : cards) {
+            if (card.getPairId() == 1) {
+                card.setImageId(123456);
+            }
+        }
+
+        String[] fields = BoardEncoding.fromCards(cards).toFields();
+        TestGames.assertSameCards(cards, BoardEncoding.fromFields(fields).toCards());
+    }
+
+    @Test
+    public void emptyBoard() throws IOException {
+        List<Card> cards = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BoardEncoding.fromCards(cards).write(out);
+
+        assertEquals(0, BoardEncoding.read(new ByteArrayInputStream(out.toByteArray())).toCards().size());
+    }
+
+    @Test
+    public void boardNotGeneratedByTheGameIsNotEncoded() {
+        List<Card> odd = TestGames.newBoard(3, 1);
+        odd.remove(odd.size() - 1);
+        assertNull(BoardEncoding.fromCards(odd));
+
+        List<Card> moved = TestGames.newBoard(3, 1);
+        moved.get(0).setPosition(5);
+        assertNull(BoardEncoding.fromCards(moved));
+
+        List<Card> mismatched = TestGames.newBoard(3, 1);
+        for (Card card : mismatched) {
+            if (card.getId() == 1) {
+                card.setImageId(CardImages.getImageForPair(2));
+            }
+        }
+        assertNull(BoardEncoding.fromCards(mismatched));
+    }
+
+    @Test(expected = IOException.class)
+    public void repeatedCardIsRejected() throws IOException {
+        String[] fields = BoardEncoding.fromCards(TestGames.newBoard(2, 3)).toFields();
+        fields[0] = "0,0,1,2";
+        BoardEncoding.fromFields(fields);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedBoardIsRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BoardEncoding.fromCards(playedBoard()).write(out);
+        byte[] bytes = out.toByteArray();
+
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes, 0, bytes.length - 1);
+        BoardEncoding.read(in);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.memoripy.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.memoripy.models.Card;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class CardImagesTest {
+
+    @Test
+    public void staleIdThatMatchesAnotherImageIsRederived() {
+        // Entre compilaciones el ID antiguo de la pareja 1 puede ser el de otra imagen actual
+        List<Card> cards = TestGames.newBoard(4, 9);
+        for (Card card : cards) {
+            card.setImageId(CardImages.getImageForPair((card.getPairId() + 2) % 4));
+        }
+
+        CardImages.repair(cards);
+        TestGames.assertSameCards(TestGames.newBoard(4, 9), cards);
+    }
+
+    @Test
+    public void unknownIdIsRederived() {
+        List<Card> cards = TestGames.newBoard(3, 2);
+        for (Card card : cards) {
+            if (card.getPairId() == 2) {
+                card.setImageId(123456);
+            }
+        }
+
+        CardImages.repair(cards);
+        TestGames.assertSameCards(TestGames.newBoard(3, 2), cards);
+    }
+
+    @Test
+    public void boardNotGeneratedByTheGameKeepsKnownImages() {
+        // Las dos tarjetas de la pareja 1 con imágenes distintas: no es un tablero del juego
+        List<Card> cards = TestGames.newBoard(3, 5);
+        for (Card card : cards) {
+            if (card.getId() == 1) {
+                card.setImageId(CardImages.getImageForPair(2));
+            }
+        }
+
+        CardImages.repair(cards);
+        for (Card card : cards) {
+            int expected = card.getId() == 1
+                    ? CardImages.getImageForPair(2) : CardImages.getImageForPair(card.getPairId() - 1);
+            assertEquals(expected, card.getImageId());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.memoripy.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.memoripy.models.Card;
+import com.example.memoripy.models.GameState;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class SnapshotHistoryTest {
+
+    private static final String GAME_ID = "historia";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    @Before
+    public void setUp() {
+        directory = new File(folder.getRoot(), "saved_games_history");
+    }
+
+    /**
+     * Siguiente punto de una partida: un movimiento más, tarjetas volteadas o
+     * emparejadas y, de vez en cuando, otro nivel con un tablero nuevo
+     */
+    private static GameState nextPoint(GameState previous, int step) {
+        GameState next = previous.copy();
+        next.setScore(step);
+        next.setTimeElapsed(previous.getTimeElapsed() + 1000);
+        next.setSaveDate(new Date(previous.getSaveDate().getTime() + 60000));
+        next.addMove("m" + step);
+
+        List<Card> cards = next.getCards();
+        if (step % 11 == 0) {
+            next.setLevel(previous.getLevel() + 1);
+            next.setCards(TestGames.newBoard(6 + step % 3, step));
+        } else {
+            Card card = cards.get(step % cards.size());
+            card.setFlipped(!card.isFlipped());
+            if (step % 4 == 0) {
+                cards.get((step * 7) % cards.size()).setMatched(true);
+            }
+        }
+        if (step % 9 == 0) {
+            // Un movimiento deshecho: el historial de movimientos no solo crece
+            next.getMoveHistory().remove(0);
+        }
+        if (step % 13 == 0) {
+            next.setPlayerName("Jugador " + step);
+        }
+        return next;
+    }
+
+    /**
+     * Guarda count puntos y devuelve el estado de cada uno
+     */
+    private List<GameState> recordPoints(SnapshotHistory history, int count) throws IOException {
+        List<GameState> points = new ArrayList<>();
+        GameState gameState = TestGames.newGame(GAME_ID, 8, 1);
+        for (int step = 0; step < count; step++) {
+            if (step > 0) {
+                gameState = nextPoint(gameState, step);
+            }
+            assertTrue(history.record(directory, gameState));
+            points.add(gameState.copy());
+        }
+        return points;
+    }
+
+    private static void assertAllPoints(SnapshotHistory history, File directory, List<GameState> points)
+            throws IOException {
+        List<SnapshotHistory.Entry> entries = history.getEntries(directory, GAME_ID);
+        assertEquals(points.size(), entries.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(i, entries.get(i).getIndex());
+            assertEquals(points.get(i).getScore(), entries.get(i).getScore());
+            TestGames.assertSameGame(points.get(i), history.load(directory, GAME_ID, i));
+        }
+    }
+
+    @Test
+    public void rebuildsEveryPoint() throws IOException {
+        SnapshotHistory history = new SnapshotHistory();
+        List<GameState> points = recordPoints(history, 40);
+
+        assertAllPoints(history, directory, points);
+        // Otra instancia lee el historial del archivo
+        assertAllPoints(new SnapshotHistory(), directory, points);
+    }
+
+    @Test
+    public void unchangedStateIsNotRecorded() throws IOException {
+        SnapshotHistory history = new SnapshotHistory();
+        List<GameState> points = recordPoints(history, 3);
+
+        GameState same = points.get(2).copy();
+        same.setSaveDate(new Date(same.getSaveDate().getTime() + 1000));
+        assertFalse(history.record(directory, same));
+        assertEquals(3, history.getEntries(directory, GAME_ID).size());
+    }
+
+    @Test
+    public void dropsOldestChainAndRebuildsTheRest() throws IOException {
+        SnapshotHistory history = new SnapshotHistory();
+        List<GameState> points = recordPoints(history, SnapshotHistory.MAX_ENTRIES + 10);
+
+        List<SnapshotHistory.Entry> entries = history.getEntries(directory, GAME_ID);
+        assertTrue(entries.size() <= SnapshotHistory.MAX_ENTRIES);
+        // Los que quedan son los últimos puntos guardados
+        List<GameState> kept = points.subList(points.size() - entries.size(), points.size());
+
+        assertAllPoints(history, directory, kept);
+        assertAllPoints(new SnapshotHistory(), directory, kept);
+    }
+
+    @Test
+    public void recordsAfterDroppingOldestChain() throws IOException {
+        SnapshotHistory history = new SnapshotHistory();
+        List<GameState> points = recordPoints(history, SnapshotHistory.MAX_ENTRIES + 1);
+
+        GameState next = nextPoint(points.get(points.size() - 1), points.size());
+        assertTrue(history.record(directory, next));
+        points.add(next.copy());
+
+        int kept = history.getEntries(directory, GAME_ID).size();
+        assertAllPoints(new SnapshotHistory(), directory, points.subList(points.size() - kept, points.size()));
+    }
+
+    @Test(expected = IOException.class)
+    public void missingPointIsAnError() throws IOException {
+        SnapshotHistory history = new SnapshotHistory();
+        recordPoints(history, 2);
+        history.load(directory, GAME_ID, 2);
+    }
+}
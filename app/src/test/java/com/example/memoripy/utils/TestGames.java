@@ -0,0 +1,85 @@
+package com.example.memoripy.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.memoripy.models.Card;
+import com.example.memoripy.models.GameState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Partidas de prueba y comparación campo a campo de dos partidas
+ */
+final class TestGames {
+
+    private TestGames() {
+        // Clase de utilidades
+    }
+
+    /**
+     * Tablero como los que genera el juego: la tarjeta con ID k pertenece a
+     * la pareja k / 2 y su posición es la de la lista
+     */
+    static List<Card> newBoard(int pairs, long seed) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < pairs * 2; id++) {
+            ids.add(id);
+        }
+        Collections.shuffle(ids, new Random(seed));
+
+        List<Card> cards = new ArrayList<>();
+        for (int position = 0; position < ids.size(); position++) {
+            int id = ids.get(position);
+            cards.add(new Card(id, CardImages.getImageForPair(id / 2), id / 2 + 1, position));
+        }
+        return cards;
+    }
+
+    static GameState newGame(String gameId, int pairs, long seed) {
+        GameState gameState = new GameState();
+        gameState.setGameId(gameId);
+        gameState.setPlayerName("Jugador " + gameId);
+        gameState.setLevel(1);
+        gameState.setScore(0);
+        gameState.setTimeElapsed(0);
+        gameState.setSaveDate(new Date(1700000000000L));
+        gameState.setThemeName("claro");
+        gameState.setSaveFormat(FileManager.FORMAT_BIN);
+        gameState.setCards(newBoard(pairs, seed));
+        return gameState;
+    }
+
+    static void assertSameCards(List<Card> expected, List<Card> actual) {
+        assertEquals("número de tarjetas", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Card e = expected.get(i);
+            Card a = actual.get(i);
+            String where = "tarjeta " + i;
+            assertEquals(where + " id", e.getId(), a.getId());
+            assertEquals(where + " imageId", e.getImageId(), a.getImageId());
+            assertEquals(where + " pairId", e.getPairId(), a.getPairId());
+            assertEquals(where + " position", e.getPosition(), a.getPosition());
+            assertEquals(where + " flipped", e.isFlipped(), a.isFlipped());
+            assertEquals(where + " matched", e.isMatched(), a.isMatched());
+        }
+    }
+
+    static void assertSameGame(GameState expected, GameState actual) {
+        assertEquals(expected.getGameId(), actual.getGameId());
+        assertEquals(expected.getPlayerName(), actual.getPlayerName());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getTimeElapsed(), actual.getTimeElapsed());
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getSaveDate(), actual.getSaveDate());
+        assertEquals(expected.isGameCompleted(), actual.isGameCompleted());
+        assertEquals(expected.isSoundEnabled(), actual.isSoundEnabled());
+        assertEquals(expected.getThemeName(), actual.getThemeName());
+        assertEquals(expected.getSaveFormat(), actual.getSaveFormat());
+        assertSameCards(expected.getCards(), actual.getCards());
+        assertEquals(expected.getMoveHistory(), actual.getMoveHistory());
+    }
+}